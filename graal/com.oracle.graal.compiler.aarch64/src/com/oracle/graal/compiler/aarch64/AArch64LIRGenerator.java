@@ -33,6 +33,7 @@ import com.oracle.graal.asm.aarch64.AArch64MacroAssembler;
 import com.oracle.graal.compiler.common.LIRKind;
 import com.oracle.graal.compiler.common.calc.Condition;
 import com.oracle.graal.compiler.common.spi.LIRKindTool;
+import com.oracle.graal.compiler.common.type.ArithmeticOpTable.BinaryOp;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.lir.LIRFrameState;
 import com.oracle.graal.lir.LIRValueUtil;
@@ -403,6 +404,42 @@ public abstract class AArch64LIRGenerator extends LIRGenerator {
         throw GraalError.unimplemented("Do not generate until we support vector instructions");
     }
 
+    @Override
+    public void emitArrayFill(JavaKind kind, Value array, Value start, Value limit, Value value) {
+        // TODO Do not generate until we support vector instructions
+        throw GraalError.unimplemented("Do not generate until we support vector instructions");
+    }
+
+    @Override
+    public Variable emitArrayIndexOf(JavaKind kind, Value array, Value length, Value fromIndex, Value searchValue) {
+        // TODO Do not generate until we support vector instructions
+        throw GraalError.unimplemented("Do not generate until we support vector instructions");
+    }
+
+    @Override
+    public Variable emitArrayCompareTo(JavaKind kind, Value array1, Value array2, Value length1, Value length2) {
+        // TODO Do not generate until we support vector instructions
+        throw GraalError.unimplemented("Do not generate until we support vector instructions");
+    }
+
+    @Override
+    public Variable emitArrayHashCode(JavaKind kind, Value array, Value length, Value initialValue) {
+        // TODO Do not generate until we support vector instructions
+        throw GraalError.unimplemented("Do not generate until we support vector instructions");
+    }
+
+    @Override
+    public void emitVectorizedArrayMap(JavaKind kind, BinaryOp<?> op, Value result, Value x, boolean xIsArray, Value y, boolean yIsArray, Value start, Value limit) {
+        // TODO Do not generate until we support vector instructions
+        throw GraalError.unimplemented("Do not generate until we support vector instructions");
+    }
+
+    @Override
+    public Variable emitVectorizedArrayReduce(JavaKind kind, BinaryOp<?> op, Value array, Value init, Value start, Value limit) {
+        // TODO Do not generate until we support vector instructions
+        throw GraalError.unimplemented("Do not generate until we support vector instructions");
+    }
+
     @Override
     protected JavaConstant zapValueForKind(PlatformKind kind) {
         long dead = 0xDEADDEADDEADDEADL;
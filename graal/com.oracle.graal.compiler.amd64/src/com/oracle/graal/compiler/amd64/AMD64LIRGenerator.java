@@ -43,6 +43,7 @@ import com.oracle.graal.compiler.common.LIRKind;
 import com.oracle.graal.compiler.common.calc.Condition;
 import com.oracle.graal.compiler.common.spi.ForeignCallLinkage;
 import com.oracle.graal.compiler.common.spi.LIRKindTool;
+import com.oracle.graal.compiler.common.type.ArithmeticOpTable.BinaryOp;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.lir.ConstantValue;
 import com.oracle.graal.lir.LIRFrameState;
@@ -55,9 +56,14 @@ import com.oracle.graal.lir.SwitchStrategy;
 import com.oracle.graal.lir.Variable;
 import com.oracle.graal.lir.amd64.AMD64AddressValue;
 import com.oracle.graal.lir.amd64.AMD64ArithmeticLIRGeneratorTool;
+import com.oracle.graal.lir.amd64.AMD64ArrayCompareToOp;
 import com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayFillOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayHashCodeOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayIndexOfOp;
 import com.oracle.graal.lir.amd64.AMD64BinaryConsumer;
 import com.oracle.graal.lir.amd64.AMD64ByteSwapOp;
+import com.oracle.graal.lir.amd64.AMD64CRC32COp;
 import com.oracle.graal.lir.amd64.AMD64Call;
 import com.oracle.graal.lir.amd64.AMD64ControlFlow.BranchOp;
 import com.oracle.graal.lir.amd64.AMD64ControlFlow.CondMoveOp;
@@ -71,6 +77,7 @@ import com.oracle.graal.lir.amd64.AMD64Move.CompareAndSwapOp;
 import com.oracle.graal.lir.amd64.AMD64Move.MembarOp;
 import com.oracle.graal.lir.amd64.AMD64Move.StackLeaOp;
 import com.oracle.graal.lir.amd64.AMD64PauseOp;
+import com.oracle.graal.lir.amd64.AMD64VectorizedLoop;
 import com.oracle.graal.lir.amd64.AMD64ZapRegistersOp;
 import com.oracle.graal.lir.amd64.AMD64ZapStackOp;
 import com.oracle.graal.lir.gen.LIRGenerationResult;
@@ -419,6 +426,54 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    /**
+     * Emits code that updates the CRC32C checksum {@code crc} with {@code length} bytes starting at
+     * the raw {@code address}. The target must support SSE4.2.
+     */
+    public Variable emitCRC32C(Value crc, Value address, Value length) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64CRC32COp(this, result, asAllocatable(crc), asAllocatable(address), asAllocatable(length)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayIndexOf(JavaKind kind, Value array, Value length, Value fromIndex, Value searchValue) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayIndexOfOp(this, kind, result, asAllocatable(array), asAllocatable(length), asAllocatable(fromIndex), asAllocatable(searchValue)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayCompareTo(JavaKind kind, Value array1, Value array2, Value length1, Value length2) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayCompareToOp(this, kind, result, asAllocatable(array1), asAllocatable(array2), asAllocatable(length1), asAllocatable(length2)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayHashCode(JavaKind kind, Value array, Value length, Value initialValue) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayHashCodeOp(this, kind, result, asAllocatable(array), asAllocatable(length), asAllocatable(initialValue)));
+        return result;
+    }
+
+    @Override
+    public void emitArrayFill(JavaKind kind, Value array, Value start, Value limit, Value value) {
+        append(new AMD64ArrayFillOp(this, kind, asAllocatable(array), asAllocatable(start), asAllocatable(limit), asAllocatable(value)));
+    }
+
+    @Override
+    public void emitVectorizedArrayMap(JavaKind kind, BinaryOp<?> op, Value result, Value x, boolean xIsArray, Value y, boolean yIsArray, Value start, Value limit) {
+        append(new AMD64VectorizedLoop.MapOp(this, kind, op, asAllocatable(result), asAllocatable(x), xIsArray, asAllocatable(y), yIsArray, asAllocatable(start), asAllocatable(limit)));
+    }
+
+    @Override
+    public Variable emitVectorizedArrayReduce(JavaKind kind, BinaryOp<?> op, Value array, Value init, Value start, Value limit) {
+        Variable result = newVariable(LIRKind.combine(init));
+        append(new AMD64VectorizedLoop.ReduceOp(this, kind, op, result, asAllocatable(array), asAllocatable(init), asAllocatable(start), asAllocatable(limit)));
+        return result;
+    }
+
     @Override
     public void emitReturn(JavaKind kind, Value input) {
         AllocatableValue operand = Value.ILLEGAL;
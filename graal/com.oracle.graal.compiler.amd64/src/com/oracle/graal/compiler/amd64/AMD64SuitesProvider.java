@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,11 +22,22 @@
  */
 package com.oracle.graal.compiler.amd64;
 
+import static com.oracle.graal.compiler.common.GraalOptions.OptLoopTransform;
+import static com.oracle.graal.compiler.common.GraalOptions.VectorizeLoops;
+
+import java.util.ListIterator;
+
 import com.oracle.graal.java.DefaultSuitesProvider;
+import com.oracle.graal.lir.amd64.AMD64VectorizedLoop;
 import com.oracle.graal.lir.amd64.phases.StackMoveOptimizationPhase;
 import com.oracle.graal.lir.phases.LIRSuites;
+import com.oracle.graal.loop.phases.LoopVectorizationPhase;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
 import com.oracle.graal.phases.tiers.CompilerConfiguration;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.Suites;
 
 public class AMD64SuitesProvider extends DefaultSuitesProvider {
 
@@ -34,6 +45,20 @@ public class AMD64SuitesProvider extends DefaultSuitesProvider {
         super(compilerConfiguration, plugins);
     }
 
+    @Override
+    public Suites createSuites() {
+        Suites suites = super.createSuites();
+        if (OptLoopTransform.getValue() && VectorizeLoops.getValue()) {
+            ListIterator<BasePhase<? super HighTierContext>> position = suites.getHighTier().findPhase(RemoveValueProxyPhase.class);
+            if (position != null) {
+                /* Note: this phase must run before lowering replaces the array accesses */
+                position.previous();
+                position.add(new LoopVectorizationPhase(AMD64VectorizedLoop.VECTOR_SIZE, AMD64VectorizedLoop::supportsMap, AMD64VectorizedLoop::supportsReduction));
+            }
+        }
+        return suites;
+    }
+
     @Override
     public LIRSuites createLIRSuites() {
         LIRSuites lirSuites = super.createLIRSuites();
@@ -100,12 +100,21 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> ReassociateInvariants = new OptionValue<>(true);
 
+    @Option(help = "Replace bounds checks in counted loops by predicates in front of the loop", type = OptionType.Debug)
+    public static final OptionValue<Boolean> LoopPredication = new OptionValue<>(true);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> FullUnroll = new OptionValue<>(true);
 
+    @Option(help = "Split counted loops into a partially unrolled main loop and a post loop", type = OptionType.Debug)
+    public static final OptionValue<Boolean> PartialUnroll = new OptionValue<>(true);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> LoopUnswitch = new OptionValue<>(true);
 
+    @Option(help = "Vectorize simple loops over primitive arrays on platforms that support it", type = OptionType.Debug)
+    public static final OptionValue<Boolean> VectorizeLoops = new OptionValue<>(true);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Float> MinimumPeelProbability = new OptionValue<>(0.35f);
 
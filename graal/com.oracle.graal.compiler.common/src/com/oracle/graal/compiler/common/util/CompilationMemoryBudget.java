@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.common.util;
+
+import com.oracle.graal.debug.internal.MemUseTrackerImpl;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+
+import jdk.vm.ci.code.BailoutException;
+
+/**
+ * Utility class that allows the compiler to limit the amount of memory a compiler thread allocates
+ * for a single compilation. The budget is checked at phase boundaries by {@link #check()}. When it
+ * is exhausted, the compilation is aborted with a {@link BudgetExceededException} so that it can be
+ * retried with a cheaper compiler configuration.
+ */
+public final class CompilationMemoryBudget implements AutoCloseable {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Number of megabytes a compiler thread may allocate for a compilation before the compilation " +
+                       "is retried with fewer optimizations (0 to disable the limit).", type = OptionType.Expert)
+        public static final OptionValue<Integer> CompilationMemoryLimit = new OptionValue<>(0);
+        // @formatter:on
+    }
+
+    /**
+     * Thrown by {@link CompilationMemoryBudget#check()} if the current compilation allocated more
+     * than {@link Options#CompilationMemoryLimit}.
+     */
+    public static final class BudgetExceededException extends BailoutException {
+
+        private static final long serialVersionUID = -1466395924588101423L;
+
+        BudgetExceededException(long allocated, long limit) {
+            super(false, "compilation allocated %d bytes (limit is %d bytes)", allocated, limit);
+        }
+    }
+
+    private static final class Budget {
+        final long allocatedAtStart;
+        final long limit;
+        boolean exceeded;
+
+        Budget(long allocatedAtStart, long limit) {
+            this.allocatedAtStart = allocatedAtStart;
+            this.limit = limit;
+        }
+    }
+
+    private CompilationMemoryBudget() {
+    }
+
+    private static boolean enabled() {
+        return Options.CompilationMemoryLimit.getValue() > 0;
+    }
+
+    /**
+     * Thread local storage for the budget of the current compilation.
+     */
+    private static final ThreadLocal<Budget> budgets = new ThreadLocal<>();
+
+    private static boolean compilationStarted() {
+        if (enabled()) {
+            if (budgets.get() == null) {
+                budgets.set(new Budget(MemUseTrackerImpl.getCurrentThreadAllocatedBytes(), Options.CompilationMemoryLimit.getValue() * 1024L * 1024L));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the current compilation exceeded its budget. The budget can only be exceeded
+     * once per compilation; later checks succeed so that the retried compilation can complete.
+     *
+     * @throws BudgetExceededException if the current compilation allocated more than
+     *             {@link Options#CompilationMemoryLimit} megabytes
+     */
+    public static void check() {
+        if (enabled()) {
+            Budget budget = budgets.get();
+            if (budget != null && !budget.exceeded) {
+                long allocated = MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - budget.allocatedAtStart;
+                if (allocated > budget.limit) {
+                    budget.exceeded = true;
+                    throw new BudgetExceededException(allocated, budget.limit);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        assert budgets.get() != null;
+        budgets.set(null);
+    }
+
+    private static final CompilationMemoryBudget INSTANCE = new CompilationMemoryBudget();
+
+    /**
+     * Gets an object that can be used in a try-with-resource statement to set a memory budget for a
+     * compilation.
+     *
+     * @return a {@link CompilationMemoryBudget} instance if the budget is enabled and there is no
+     *         current budget for the calling thread otherwise {@code null}
+     */
+    public static CompilationMemoryBudget trackCompilationAllocations() {
+        if (compilationStarted()) {
+            return INSTANCE;
+        }
+        return null;
+    }
+}
@@ -46,6 +46,7 @@ import com.oracle.graal.compiler.common.LIRKind;
 import com.oracle.graal.compiler.common.calc.Condition;
 import com.oracle.graal.compiler.common.spi.ForeignCallLinkage;
 import com.oracle.graal.compiler.common.spi.LIRKindTool;
+import com.oracle.graal.compiler.common.type.ArithmeticOpTable.BinaryOp;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.lir.LIR;
 import com.oracle.graal.lir.LIRFrameState;
@@ -407,6 +408,36 @@ public abstract class SPARCLIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public void emitArrayFill(JavaKind kind, Value array, Value start, Value limit, Value value) {
+        throw GraalError.unimplemented("ArrayFillNode is only created on AMD64");
+    }
+
+    @Override
+    public Variable emitArrayIndexOf(JavaKind kind, Value array, Value length, Value fromIndex, Value searchValue) {
+        throw GraalError.unimplemented("String and array intrinsics are only registered on AMD64");
+    }
+
+    @Override
+    public Variable emitArrayCompareTo(JavaKind kind, Value array1, Value array2, Value length1, Value length2) {
+        throw GraalError.unimplemented("String and array intrinsics are only registered on AMD64");
+    }
+
+    @Override
+    public Variable emitArrayHashCode(JavaKind kind, Value array, Value length, Value initialValue) {
+        throw GraalError.unimplemented("String and array intrinsics are only registered on AMD64");
+    }
+
+    @Override
+    public void emitVectorizedArrayMap(JavaKind kind, BinaryOp<?> op, Value result, Value x, boolean xIsArray, Value y, boolean yIsArray, Value start, Value limit) {
+        throw GraalError.unimplemented("LoopVectorizationPhase is only enabled on AMD64");
+    }
+
+    @Override
+    public Variable emitVectorizedArrayReduce(JavaKind kind, BinaryOp<?> op, Value array, Value init, Value start, Value limit) {
+        throw GraalError.unimplemented("LoopVectorizationPhase is only enabled on AMD64");
+    }
+
     @Override
     public void emitMembar(int barriers) {
         int necessaryBarriers = target().arch.requiredBarriers(barriers);
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.util.CompilationMemoryBudget;
+import com.oracle.graal.compiler.common.util.CompilationMemoryBudget.BudgetExceededException;
+import com.oracle.graal.debug.Management;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.Phase;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class CompilationMemoryBudgetTest extends GraalCompilerTest {
+
+    public static void snippet() {
+        // dummy snippet
+    }
+
+    static Object sink;
+
+    private static class AllocatingPhase extends Phase {
+
+        @Override
+        protected void run(StructuredGraph graph) {
+            for (int i = 0; i < 4 * 1024; i++) {
+                sink = new byte[1024];
+            }
+        }
+    }
+
+    @Before
+    public void checkCapabilities() {
+        Assume.assumeTrue("allocated bytes cannot be measured", Management.getCurrentThreadAllocatedBytes() != 0);
+    }
+
+    private static PhaseSuite<PhaseContext> createSuite() {
+        PhaseSuite<PhaseContext> suite = new PhaseSuite<>();
+        suite.appendPhase(new AllocatingPhase());
+        suite.appendPhase(new AllocatingPhase());
+        return suite;
+    }
+
+    @Test(expected = BudgetExceededException.class)
+    @SuppressWarnings("try")
+    public void testExceeded() {
+        StructuredGraph g = parseEager("snippet", AllowAssumptions.NO);
+        try (OverrideScope o = OptionValue.override(CompilationMemoryBudget.Options.CompilationMemoryLimit, 1);
+                        CompilationMemoryBudget b = CompilationMemoryBudget.trackCompilationAllocations()) {
+            createSuite().apply(g, new PhaseContext(getProviders()));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testExceededOnlyOnce() {
+        StructuredGraph g = parseEager("snippet", AllowAssumptions.NO);
+        try (OverrideScope o = OptionValue.override(CompilationMemoryBudget.Options.CompilationMemoryLimit, 1);
+                        CompilationMemoryBudget b = CompilationMemoryBudget.trackCompilationAllocations()) {
+            try {
+                createSuite().apply(g, new PhaseContext(getProviders()));
+            } catch (BudgetExceededException e) {
+                // expected
+            }
+            // the retry must not be aborted again
+            createSuite().apply(g, new PhaseContext(getProviders()));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testDisabled() {
+        StructuredGraph g = parseEager("snippet", AllowAssumptions.NO);
+        try (OverrideScope o = OptionValue.override(CompilationMemoryBudget.Options.CompilationMemoryLimit, 0);
+                        CompilationMemoryBudget b = CompilationMemoryBudget.trackCompilationAllocations()) {
+            createSuite().apply(g, new PhaseContext(getProviders()));
+        }
+    }
+}
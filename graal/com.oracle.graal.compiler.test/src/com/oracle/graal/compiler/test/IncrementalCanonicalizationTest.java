@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.Test;
+
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.ReturnNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.StructuredGraph.GuardsStage;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.DominatorConditionalEliminationPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.common.NonNullParametersPhase;
+import com.oracle.graal.phases.common.inlining.InliningPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class IncrementalCanonicalizationTest extends GraalCompilerTest {
+
+    public static int addSnippet(int a, int b) {
+        return a + b;
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testChangedNodesCanonicalized() {
+        try (OverrideScope s = OptionValue.override(CanonicalizerPhase.Options.IncrementalCanonicalization, true)) {
+            StructuredGraph graph = parseEager("addSnippet", AllowAssumptions.YES);
+            PhaseContext context = new PhaseContext(getProviders());
+            new CanonicalizerPhase().apply(graph, context);
+            assertTrue(graph.getDirtyNodes() != null && graph.getDirtyNodes().isEmpty());
+
+            ReturnNode ret = graph.getNodes(ReturnNode.TYPE).first();
+            ValueNode sum = graph.unique(new AddNode(ConstantNode.forInt(1, graph), ConstantNode.forInt(2, graph)));
+            ret.replaceFirstInput(ret.result(), sum);
+            assertFalse(graph.getDirtyNodes().isEmpty());
+
+            new CanonicalizerPhase().apply(graph, context);
+            assertTrue(ret.result().isConstant());
+            assertDeepEquals(3, ret.result().asJavaConstant().asInt());
+            assertTrue(graph.getDirtyNodes().isEmpty());
+        }
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testStageChangeStopsTracking() {
+        try (OverrideScope s = OptionValue.override(CanonicalizerPhase.Options.IncrementalCanonicalization, true)) {
+            StructuredGraph graph = parseEager("addSnippet", AllowAssumptions.YES);
+            new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+            assertTrue(graph.getDirtyNodes() != null);
+            graph.setGuardsStage(GuardsStage.FIXED_DEOPTS);
+            assertTrue(graph.getDirtyNodes() == null);
+        }
+    }
+
+    static int twice(int x) {
+        return x * 2;
+    }
+
+    public static int pipelineSnippet(int a, int[] array, Object o) {
+        int result = twice(a) + twice(a);
+        if (a > 10) {
+            if (a > 5) {
+                result += array.length;
+            }
+        }
+        if (o == null) {
+            result++;
+        }
+        for (int i = 0; i < array.length; i++) {
+            result += array[i] << 0;
+        }
+        return result;
+    }
+
+    @Test
+    public void testSameGraphAsFullSweep() {
+        StructuredGraph incremental = runPipeline("pipelineSnippet", true);
+        StructuredGraph full = runPipeline("pipelineSnippet", false);
+        assertEquals(full, incremental);
+    }
+
+    /**
+     * Runs phases that change stamps, inline, eliminate conditions and lower nodes, with a
+     * canonicalization after each of them.
+     */
+    @SuppressWarnings("try")
+    private StructuredGraph runPipeline(String snippet, boolean incremental) {
+        try (OverrideScope s = OptionValue.override(CanonicalizerPhase.Options.IncrementalCanonicalization, incremental)) {
+            StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+            HighTierContext context = getDefaultHighTierContext();
+            CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+            canonicalizer.apply(graph, context);
+            new NonNullParametersPhase().apply(graph);
+            canonicalizer.apply(graph, context);
+            new InliningPhase(canonicalizer).apply(graph, context);
+            canonicalizer.apply(graph, context);
+            new DominatorConditionalEliminationPhase(false).apply(graph, context);
+            canonicalizer.apply(graph, context);
+            new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+            canonicalizer.apply(graph, context);
+            assertTrue(incremental == (graph.getDirtyNodes() != null));
+            return graph;
+        }
+    }
+}
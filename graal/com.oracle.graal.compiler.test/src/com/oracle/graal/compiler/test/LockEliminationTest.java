@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,15 +22,35 @@
  */
 package com.oracle.graal.compiler.test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 
+import org.junit.Assume;
 import org.junit.Test;
 
+import com.oracle.graal.compiler.common.cfg.Loop;
+import com.oracle.graal.loop.DefaultLoopPolicies;
+import com.oracle.graal.loop.phases.LoopPartialUnrollPhase;
+import com.oracle.graal.nodeinfo.NodeSize;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
 import com.oracle.graal.nodes.java.MonitorExitNode;
 import com.oracle.graal.nodes.java.RawMonitorEnterNode;
 import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.Phase;
+import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
 import com.oracle.graal.phases.common.LockEliminationPhase;
@@ -38,7 +58,9 @@ import com.oracle.graal.phases.common.LoweringPhase;
 import com.oracle.graal.phases.common.ValueAnchorCleanupPhase;
 import com.oracle.graal.phases.common.inlining.InliningPhase;
 import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.MidTierContext;
 import com.oracle.graal.phases.tiers.PhaseContext;
+import com.oracle.graal.phases.tiers.Suites;
 
 public class LockEliminationTest extends GraalCompilerTest {
 
@@ -92,6 +114,159 @@ public class LockEliminationTest extends GraalCompilerTest {
         assertDeepEquals(1, graph.getNodes().filter(MonitorExitNode.class).count());
     }
 
+    public static void testCoarseningSnippet(A x, int a) {
+        synchronized (x) {
+            x.value = a;
+        }
+        int b = a * 3 + field1;
+        synchronized (x) {
+            x.value += b;
+        }
+    }
+
+    @Test
+    public void testCoarsening() {
+        test("testCoarseningSnippet", new A(), 5);
+
+        StructuredGraph graph = getGraph("testCoarseningSnippet");
+        assertDeepEquals(1, graph.getNodes().filter(RawMonitorEnterNode.class).count());
+        assertDeepEquals(1, graph.getNodes().filter(MonitorExitNode.class).count());
+    }
+
+    public static void testCoarseningMaxGapSnippet(A x, int a) {
+        synchronized (x) {
+            x.value = a;
+        }
+        int b = field1 + field2;
+        synchronized (x) {
+            x.value += b;
+        }
+    }
+
+    /**
+     * The two field reads between the synchronized regions are merged into the coarsened region
+     * by default, but not once they exceed {@link LockEliminationPhase.Options#LockCoarseningMaxGap}.
+     */
+    @Test
+    @SuppressWarnings("try")
+    public void testCoarseningMaxGap() {
+        test("testCoarseningMaxGapSnippet", new A(), 5);
+
+        StructuredGraph graph = getGraph("testCoarseningMaxGapSnippet");
+        assertDeepEquals(1, graph.getNodes().filter(RawMonitorEnterNode.class).count());
+
+        try (OverrideScope s = OptionValue.override(LockEliminationPhase.Options.LockCoarseningMaxGap, 1)) {
+            graph = getGraph("testCoarseningMaxGapSnippet");
+        }
+        assertDeepEquals(2, graph.getNodes().filter(RawMonitorEnterNode.class).count());
+        assertDeepEquals(2, graph.getNodes().filter(MonitorExitNode.class).count());
+    }
+
+    public static void testNoCoarseningSnippet(A x, int a) {
+        synchronized (x) {
+            x.value = a;
+        }
+        field2 = a;
+        synchronized (x) {
+            x.value += a;
+        }
+    }
+
+    @Test
+    public void testNoCoarsening() {
+        test("testNoCoarseningSnippet", new A(), 5);
+
+        StructuredGraph graph = getGraph("testNoCoarseningSnippet");
+        assertDeepEquals(2, graph.getNodes().filter(RawMonitorEnterNode.class).count());
+        assertDeepEquals(2, graph.getNodes().filter(MonitorExitNode.class).count());
+    }
+
+    static class Counter {
+
+        int value;
+
+        public synchronized void add(int v) {
+            value += v;
+        }
+    }
+
+    public static int testUnrolledLoopSnippet(Counter c, int n) {
+        for (int i = 0; i < n; i++) {
+            c.add(i);
+        }
+        return c.value;
+    }
+
+    public static int testUnrolledLoopCappedSnippet(Counter c, int n) {
+        for (int i = 0; i < n; i++) {
+            c.add(i);
+        }
+        return c.value;
+    }
+
+    /**
+     * The number of synchronized regions in each loop after the {@link LockEliminationPhase} that
+     * follows partial unrolling, or null if that phase did not run.
+     */
+    private List<Integer> regionsPerLoop;
+
+    @Override
+    protected Suites createSuites() {
+        Suites suites = super.createSuites();
+        ListIterator<BasePhase<? super MidTierContext>> position = suites.getMidTier().findPhase(LoopPartialUnrollPhase.class, true);
+        if (position != null && PhaseSuite.findNextPhase(position, LockEliminationPhase.class)) {
+            position.add(new Phase("CountSynchronizedRegions") {
+
+                @Override
+                protected void run(StructuredGraph graph) {
+                    ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+                    Map<Loop<Block>, Integer> regions = new HashMap<>();
+                    for (RawMonitorEnterNode enter : graph.getNodes(RawMonitorEnterNode.TYPE)) {
+                        Loop<Block> loop = cfg.blockFor(enter).getLoop();
+                        if (loop != null) {
+                            regions.merge(loop, 1, Integer::sum);
+                        }
+                    }
+                    regionsPerLoop = new ArrayList<>(regions.values());
+                    Collections.sort(regionsPerLoop);
+                }
+
+                @Override
+                public float codeSizeIncrease() {
+                    return NodeSize.IGNORE_SIZE_CONTRACT_FACTOR;
+                }
+            });
+        }
+        return suites;
+    }
+
+    /**
+     * Compiles a loop calling a synchronized method that is partially unrolled by a factor of 4.
+     * The remainder loop keeps its single region, while the regions of the unrolled copies in the
+     * main loop are merged into groups of at most {@code maxRegions}.
+     */
+    @SuppressWarnings("try")
+    private void testUnrolledLoop(String snippet, int maxRegions) {
+        regionsPerLoop = null;
+        try (OverrideScope s = OptionValue.override(LockEliminationPhase.Options.LockCoarseningMaxRegions, maxRegions, DefaultLoopPolicies.PartialUnrollMaxFactor, 4,
+                        DefaultLoopPolicies.PartialUnrollMaxNodes, 1000)) {
+            test(snippet, supply(() -> new Counter()), 1000);
+        }
+        Assume.assumeTrue("partial unrolling is disabled", regionsPerLoop != null);
+        int unrolledRegions = (4 + maxRegions - 1) / maxRegions;
+        assertDeepEquals(Arrays.asList(1, unrolledRegions), regionsPerLoop);
+    }
+
+    @Test
+    public void testUnrolledLoop() {
+        testUnrolledLoop("testUnrolledLoopSnippet", LockEliminationPhase.Options.LockCoarseningMaxRegions.getValue());
+    }
+
+    @Test
+    public void testUnrolledLoopCapped() {
+        testUnrolledLoop("testUnrolledLoopCappedSnippet", 2);
+    }
+
     private StructuredGraph getGraph(String snippet) {
         ResolvedJavaMethod method = getResolvedJavaMethod(snippet);
         StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import java.util.ListIterator;
+
+import org.junit.Test;
+
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
+import com.oracle.graal.nodeinfo.NodeSize;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.Phase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.Suites;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+
+public class LoopPredicationTest extends GraalCompilerTest {
+
+    /**
+     * The number of loop predicates and of bounds checks left inside loops after
+     * {@link LoopPredicationPhase} ran on the last compiled graph, or -1 if the phase did not run.
+     */
+    private int predicates = -1;
+    private int boundsChecksInLoops = -1;
+
+    @Override
+    protected Suites createSuites() {
+        Suites suites = super.createSuites();
+        ListIterator<BasePhase<? super MidTierContext>> position = suites.getMidTier().findPhase(LoopPredicationPhase.class, true);
+        if (position != null) {
+            position.add(new Phase("CountBoundsChecks") {
+
+                @Override
+                protected void run(StructuredGraph graph) {
+                    ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+                    predicates = 0;
+                    boundsChecksInLoops = 0;
+                    for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+                        if (guard.getReason() == OptimisticOptimizations.LOOP_PREDICATE_REASON) {
+                            assertTrue(guard.getAction() == DeoptimizationAction.InvalidateRecompile, "predicate must invalidate the code");
+                            predicates++;
+                        } else if (guard.getReason() == DeoptimizationReason.BoundsCheckException && cfg.blockFor(guard.getAnchor().asNode()).getLoop() != null) {
+                            boundsChecksInLoops++;
+                        }
+                    }
+                }
+
+                @Override
+                public float codeSizeIncrease() {
+                    return NodeSize.IGNORE_SIZE_CONTRACT_FACTOR;
+                }
+            });
+        }
+        return suites;
+    }
+
+    private void assertPredicated(boolean expectHoisted) {
+        if (predicates >= 0) {
+            if (expectHoisted) {
+                assertTrue(predicates > 0 && boundsChecksInLoops == 0, "expected all bounds checks to be hoisted: %d predicates, %d checks in loops", predicates, boundsChecksInLoops);
+            } else {
+                assertTrue(predicates == 0 && boundsChecksInLoops > 0, "expected no bounds check to be hoisted: %d predicates, %d checks in loops", predicates, boundsChecksInLoops);
+            }
+        }
+    }
+
+    public static int sumSnippet(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int sumInclusiveSnippet(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i <= end; i += 3) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int sumDownSnippet(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i > end; i--) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int offsetSnippet(int[] a, int[] b, int offset, int end) {
+        int sum = 0;
+        for (int i = 0; i < end; i++) {
+            sum += a[i + offset] * b[offset - i];
+        }
+        return sum;
+    }
+
+    public static int copySnippet(int[] a, int[] b, int end) {
+        for (int i = 0; i < end; i++) {
+            b[i] = a[i + 1];
+        }
+        return b[0];
+    }
+
+    public static int conditionalSnippet(int[] a, int end) {
+        int sum = 0;
+        for (int i = 0; i < end; i++) {
+            if ((i & 1) == 0) {
+                sum += a[i];
+            }
+        }
+        return sum;
+    }
+
+    private static int[] array(int length) {
+        int[] a = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 7 - 3;
+        }
+        return a;
+    }
+
+    @Test
+    public void testSum() {
+        test("sumSnippet", array(10), 0, 10);
+        assertPredicated(true);
+        test("sumSnippet", array(10), 3, 7);
+        test("sumSnippet", array(10), 7, 3);
+        test("sumSnippet", array(10), 0, 11);
+        test("sumSnippet", array(10), -1, 5);
+        test("sumSnippet", array(10), Integer.MIN_VALUE, Integer.MIN_VALUE + 2);
+    }
+
+    @Test
+    public void testSumInclusive() {
+        test("sumInclusiveSnippet", array(10), 0, 9);
+        assertPredicated(true);
+        test("sumInclusiveSnippet", array(10), 0, 10);
+        test("sumInclusiveSnippet", array(10), 0, 8);
+        test("sumInclusiveSnippet", array(10), 5, 2);
+        test("sumInclusiveSnippet", array(10), Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * With a stride of 3, the last index used for {@code end == 10} is 9. A predicate that checks
+     * the limit instead of the last index would fail and invalidate the code.
+     */
+    @Test
+    public void testSumInclusiveLastIndex() throws InvalidInstalledCodeException {
+        InstalledCode code = getCode(getResolvedJavaMethod("sumInclusiveSnippet"));
+        int[] a = array(10);
+        assertDeepEquals(sumInclusiveSnippet(a, 0, 10), code.executeVarargs(a, 0, 10));
+        assertTrue(code.isValid(), "predicate failed for in bounds indexes");
+    }
+
+    @Test
+    public void testSumDown() {
+        test("sumDownSnippet", array(10), 9, -1);
+        assertPredicated(true);
+        test("sumDownSnippet", array(10), 10, 0);
+        test("sumDownSnippet", array(10), 9, -2);
+        test("sumDownSnippet", array(10), 0, 5);
+    }
+
+    @Test
+    public void testOffset() {
+        test("offsetSnippet", array(20), array(20), 10, 10);
+        assertPredicated(true);
+        test("offsetSnippet", array(20), array(20), 10, 11);
+        test("offsetSnippet", array(20), array(20), 15, 6);
+        test("offsetSnippet", array(20), array(20), Integer.MAX_VALUE, 2);
+    }
+
+    @Test
+    public void testCopy() {
+        test("copySnippet", array(10), new int[10], 9);
+        assertPredicated(true);
+        test("copySnippet", array(10), new int[10], 10);
+        test("copySnippet", array(10), new int[5], 9);
+    }
+
+    @Test
+    public void testConditional() {
+        test("conditionalSnippet", array(10), 10);
+        assertPredicated(false);
+        test("conditionalSnippet", array(10), 11);
+        test("conditionalSnippet", array(10), 12);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static com.oracle.graal.compiler.common.GraalOptions.OptLoopTransform;
+import static com.oracle.graal.compiler.common.GraalOptions.VectorizeLoops;
+
+import org.junit.Test;
+
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.extended.ArrayFillNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayMapNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayReduceNode;
+
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    /**
+     * The node the loop of the compiled snippet is expected to be replaced with.
+     */
+    private Class<? extends Node> expectedNode;
+
+    /**
+     * The expected number of {@link #expectedNode}s, 0 for a loop that must stay scalar.
+     */
+    private int expectedCount = 1;
+
+    @Override
+    protected boolean checkHighTierGraph(StructuredGraph graph) {
+        if (expectedNode != null && isArchitecture("AMD64") && OptLoopTransform.getValue() && VectorizeLoops.getValue()) {
+            int count = graph.getNodes().filter(expectedNode).count();
+            assertTrue(count == expectedCount, "expected %d %s but found %d in %s", expectedCount, expectedNode.getSimpleName(), count, graph);
+        }
+        return super.checkHighTierGraph(graph);
+    }
+
+    public static int[] addIntSnippet(int[] a, int[] b, int[] c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] + c[i];
+        }
+        return a;
+    }
+
+    public static long[] xorLongSnippet(long[] a, long[] b, long c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] ^ c;
+        }
+        return a;
+    }
+
+    public static float[] subFloatSnippet(float[] a, float b, float[] c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b - c[i];
+        }
+        return a;
+    }
+
+    public static double[] mulDoubleSnippet(double[] a, double[] b, double[] c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] * c[i];
+        }
+        return a;
+    }
+
+    public static int[] mulIntSnippet(int[] a, int[] b, int[] c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] * c[i];
+        }
+        return a;
+    }
+
+    public static float[] divFloatSnippet(float[] a, float[] b, float c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] / c;
+        }
+        return a;
+    }
+
+    public static int sumIntSnippet(int[] a, int start, int end) {
+        int sum = 7;
+        for (int i = start; i < end; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int subIntSnippet(int[] a, int start, int end) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            sum = sum - a[i];
+        }
+        return sum;
+    }
+
+    public static long orLongSnippet(long[] a, int start, int end) {
+        long acc = 0;
+        for (int i = start; i < end; i++) {
+            acc = a[i] | acc;
+        }
+        return acc;
+    }
+
+    public static byte[] fillByteSnippet(byte[] a, byte v, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = v;
+        }
+        return a;
+    }
+
+    public static char[] fillCharSnippet(char[] a, char v, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = v;
+        }
+        return a;
+    }
+
+    public static double[] fillDoubleSnippet(double[] a, double v, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = v;
+        }
+        return a;
+    }
+
+    private static int[] ints(int length) {
+        int[] array = new int[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i * 31 - 1000;
+        }
+        return array;
+    }
+
+    private static long[] longs(int length) {
+        long[] array = new long[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = (long) i << (i % 40);
+        }
+        return array;
+    }
+
+    private static float[] floats(int length) {
+        float[] array = new float[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i * 0.5f;
+        }
+        return array;
+    }
+
+    private static double[] doubles(int length) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i * 1.25;
+        }
+        return array;
+    }
+
+    private static final int[][] RANGES = {{0, 100}, {3, 100}, {5, 9}, {10, 10}, {20, 3}, {-1, 50}, {90, 120}, {0, 101}};
+
+    @Test
+    public void testAddInt() {
+        expectedNode = VectorizedArrayMapNode.class;
+        for (int[] range : RANGES) {
+            test("addIntSnippet", supply(() -> new int[101]), ints(101), ints(101), range[0], range[1]);
+        }
+        test("addIntSnippet", null, ints(101), ints(101), 0, 50);
+        test("addIntSnippet", supply(() -> new int[101]), ints(101), ints(40), 0, 100);
+    }
+
+    @Test
+    public void testXorLong() {
+        expectedNode = VectorizedArrayMapNode.class;
+        for (int[] range : RANGES) {
+            test("xorLongSnippet", supply(() -> new long[101]), longs(101), 0x5555_0000_ffffL, range[0], range[1]);
+        }
+        test("xorLongSnippet", supply(() -> new long[101]), null, 1L, 0, 50);
+    }
+
+    @Test
+    public void testSubFloat() {
+        expectedNode = VectorizedArrayMapNode.class;
+        for (int[] range : RANGES) {
+            test("subFloatSnippet", supply(() -> new float[101]), 3.5f, floats(101), range[0], range[1]);
+        }
+    }
+
+    @Test
+    public void testMulDouble() {
+        expectedNode = VectorizedArrayMapNode.class;
+        for (int[] range : RANGES) {
+            test("mulDoubleSnippet", supply(() -> new double[101]), doubles(101), doubles(101), range[0], range[1]);
+        }
+    }
+
+    /**
+     * There is no SSE2 instruction for multiplying packed 32 bit integers.
+     */
+    @Test
+    public void testMulIntStaysScalar() {
+        expectedNode = VectorizedArrayMapNode.class;
+        expectedCount = 0;
+        for (int[] range : RANGES) {
+            test("mulIntSnippet", supply(() -> new int[101]), ints(101), ints(101), range[0], range[1]);
+        }
+    }
+
+    @Test
+    public void testDivFloatStaysScalar() {
+        expectedNode = VectorizedArrayMapNode.class;
+        expectedCount = 0;
+        for (int[] range : RANGES) {
+            test("divFloatSnippet", supply(() -> new float[101]), floats(101), 0.75f, range[0], range[1]);
+        }
+    }
+
+    @Test
+    public void testSumInt() {
+        expectedNode = VectorizedArrayReduceNode.class;
+        for (int[] range : RANGES) {
+            test("sumIntSnippet", ints(101), range[0], range[1]);
+        }
+        test("sumIntSnippet", null, 0, 50);
+    }
+
+    @Test
+    public void testSubInt() {
+        expectedNode = VectorizedArrayReduceNode.class;
+        for (int[] range : RANGES) {
+            test("subIntSnippet", ints(101), range[0], range[1]);
+        }
+    }
+
+    @Test
+    public void testOrLong() {
+        expectedNode = VectorizedArrayReduceNode.class;
+        for (int[] range : RANGES) {
+            test("orLongSnippet", longs(101), range[0], range[1]);
+        }
+    }
+
+    @Test
+    public void testFillByte() {
+        expectedNode = ArrayFillNode.class;
+        for (int[] range : RANGES) {
+            test("fillByteSnippet", supply(() -> new byte[101]), (byte) -3, range[0], range[1]);
+        }
+        test("fillByteSnippet", null, (byte) 1, 0, 50);
+    }
+
+    @Test
+    public void testFillChar() {
+        expectedNode = ArrayFillNode.class;
+        for (int[] range : RANGES) {
+            test("fillCharSnippet", supply(() -> new char[101]), '\uabcd', range[0], range[1]);
+        }
+    }
+
+    @Test
+    public void testFillDouble() {
+        expectedNode = ArrayFillNode.class;
+        for (int[] range : RANGES) {
+            test("fillDoubleSnippet", supply(() -> new double[101]), -0.75, range[0], range[1]);
+        }
+    }
+}
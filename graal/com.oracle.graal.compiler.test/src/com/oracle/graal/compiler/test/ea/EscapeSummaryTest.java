@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.ea;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.virtual.CommitAllocationNode;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.virtual.phases.ea.EscapeSummary;
+import com.oracle.graal.virtual.phases.ea.EscapeSummary.ParameterEscape;
+import com.oracle.graal.virtual.phases.ea.EscapeSummaryCache;
+import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the computation of {@link EscapeSummary escape summaries} and their use by the partial
+ * escape analysis for calls that are not inlined.
+ */
+public class EscapeSummaryTest extends EATestBase {
+
+    public static class Point {
+        public int x;
+        public int y;
+    }
+
+    static Object global;
+
+    /*
+     * Synchronized methods are not inlined during parsing, so calls to them stay in the graph.
+     */
+    public static synchronized int readFields(Point p) {
+        return p.x + p.y;
+    }
+
+    public static synchronized void writeField(Point p) {
+        p.x = 1;
+    }
+
+    public static void publish(Point p) {
+        global = p;
+    }
+
+    public static Point identity(Point p) {
+        return p;
+    }
+
+    public static int readThroughCallee(Point p, Point q) {
+        return readFields(p) + q.y;
+    }
+
+    public static int writeThroughCallee(Point p) {
+        writeField(p);
+        return p.y;
+    }
+
+    private EscapeSummary getSummary(String name) {
+        return new EscapeSummaryCache(getDefaultHighTierContext()).getSummary(getResolvedJavaMethod(name));
+    }
+
+    @Test
+    public void testReadOnly() {
+        Assert.assertEquals(ParameterEscape.READ_ONLY, getSummary("readFields").getParameterEscape(0));
+        EscapeSummary summary = getSummary("readThroughCallee");
+        Assert.assertEquals(ParameterEscape.READ_ONLY, summary.getParameterEscape(0));
+        Assert.assertEquals(ParameterEscape.READ_ONLY, summary.getParameterEscape(1));
+    }
+
+    @Test
+    public void testWritten() {
+        Assert.assertEquals(ParameterEscape.ESCAPES, getSummary("writeField").getParameterEscape(0));
+        Assert.assertEquals(ParameterEscape.ESCAPES, getSummary("writeThroughCallee").getParameterEscape(0));
+    }
+
+    @Test
+    public void testDependencies() {
+        List<ResolvedJavaMethod> dependencies = Arrays.asList(getSummary("readThroughCallee").getDependencies());
+        Assert.assertTrue(dependencies.contains(getResolvedJavaMethod("readThroughCallee")));
+        Assert.assertTrue(dependencies.contains(getResolvedJavaMethod("readFields")));
+    }
+
+    @Test
+    public void testEscapes() {
+        Assert.assertEquals(ParameterEscape.ESCAPES, getSummary("publish").getParameterEscape(0));
+        Assert.assertEquals(ParameterEscape.ESCAPES, getSummary("identity").getParameterEscape(0));
+    }
+
+    public static int readOnlyCallSnippet(int a) {
+        Point p = new Point();
+        p.x = a;
+        p.y = 2;
+        int sum = readFields(p);
+        return sum + p.x + p.y;
+    }
+
+    public static int writeCallSnippet(int a) {
+        Point p = new Point();
+        p.x = a;
+        writeField(p);
+        return p.x;
+    }
+
+    @Test
+    public void testReadOnlyCall() {
+        prepareGraphWithoutInlining("readOnlyCallSnippet");
+        // the callee receives a copy, and the object stays virtual after the call
+        Assert.assertEquals(1, graph.getNodes().filter(CommitAllocationNode.class).count());
+        Assert.assertTrue(graph.getNodes().filter(LoadFieldNode.class).isEmpty());
+        test("readOnlyCallSnippet", 5);
+    }
+
+    public static int loopCallSnippet(int a, int n) {
+        Point p = new Point();
+        p.x = a;
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += readFields(p);
+        }
+        return sum + p.x;
+    }
+
+    public static int repeatedCallSnippet(int a) {
+        Point p = new Point();
+        p.x = a;
+        int sum = readFields(p);
+        p.x = a + 1;
+        sum += readFields(p);
+        p.x = a + 2;
+        sum += readFields(p);
+        p.x = a + 3;
+        sum += readFields(p);
+        return sum + p.x;
+    }
+
+    @Test
+    public void testLoopCall() {
+        prepareGraphWithoutInlining("loopCallSnippet");
+        // a copy would be allocated in every iteration, so the object is materialized before the
+        // loop instead
+        Assert.assertEquals(1, graph.getNodes().filter(CommitAllocationNode.class).count());
+        CommitAllocationNode commit = graph.getNodes().filter(CommitAllocationNode.class).first();
+        Assert.assertNull(ControlFlowGraph.compute(graph, true, true, false, false).blockFor(commit).getLoop());
+        test("loopCallSnippet", 5, 3);
+    }
+
+    @Test
+    public void testCopyLimit() {
+        try (OverrideScope s = OptionValue.override(EscapeSummaryCache.Options.EscapeSummaryMaxCopies, 2)) {
+            prepareGraphWithoutInlining("repeatedCallSnippet");
+        }
+        // two copies for the first two calls, then the object is materialized
+        Assert.assertEquals(3, graph.getNodes().filter(CommitAllocationNode.class).count());
+        test("repeatedCallSnippet", 5);
+    }
+
+    @Test
+    public void testWriteCall() {
+        prepareGraphWithoutInlining("writeCallSnippet");
+        Assert.assertEquals(1, graph.getNodes().filter(LoadFieldNode.class).count());
+        test("writeCallSnippet", 5);
+    }
+
+    @SuppressWarnings("try")
+    private void prepareGraphWithoutInlining(String snippet) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(snippet);
+        try (Scope s = Debug.scope(getClass(), method, getCodeCache())) {
+            graph = parseEager(method, AllowAssumptions.YES);
+            context = getDefaultHighTierContext();
+            new CanonicalizerPhase().apply(graph, context);
+            new PartialEscapePhase(false, false, new CanonicalizerPhase(), null).apply(graph, context);
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.ea;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.java.MonitorEnterNode;
+import com.oracle.graal.nodes.java.MonitorExitNode;
+import com.oracle.graal.nodes.virtual.CommitAllocationNode;
+import com.oracle.graal.nodes.virtual.StackAllocationNode;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.virtual.phases.ea.StackAllocationPhase;
+
+/**
+ * Tests the allocation of objects in the stack frame by {@link StackAllocationPhase}.
+ */
+public class StackAllocationTest extends EATestBase {
+
+    static Object global;
+
+    public static int arraySnippet(int i, int value) {
+        int[] array = new int[4];
+        array[i & 3] = value;
+        return array[(i + 1) & 3] + array[i & 3] + array.length;
+    }
+
+    public static byte byteArraySnippet(int i, int value) {
+        byte[] array = new byte[8];
+        array[i] = (byte) value;
+        return array[i];
+    }
+
+    public static Object objectArraySnippet(int i, Object value) {
+        Object[] array = new Object[3];
+        array[i] = value;
+        array[(i + 1) % 3] = "default";
+        return array[i];
+    }
+
+    public static int lockedArraySnippet(int i, int value) {
+        int[] array = new int[4];
+        synchronized (array) {
+            array[i & 3] = value;
+            return array[(i + 2) & 3] + array[i & 3];
+        }
+    }
+
+    public static int escapingSnippet(int i) {
+        int[] array = new int[4];
+        array[i & 3] = i;
+        global = array;
+        return array[0];
+    }
+
+    public static int loopSnippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            int[] array = new int[2];
+            array[i & 1] = i;
+            sum += array[0];
+        }
+        return sum;
+    }
+
+    private void testStackAllocation(String snippet, int expectedStackAllocations) {
+        prepareGraph(snippet, false);
+        new StackAllocationPhase().apply(graph, context);
+        Assert.assertEquals(expectedStackAllocations, graph.getNodes().filter(StackAllocationNode.class).count());
+        if (expectedStackAllocations > 0) {
+            Assert.assertEquals(0, graph.getNodes().filter(CommitAllocationNode.class).count());
+        }
+    }
+
+    @Test
+    public void testArray() {
+        testStackAllocation("arraySnippet", 1);
+        testStackAllocation("byteArraySnippet", 1);
+        testStackAllocation("objectArraySnippet", 1);
+    }
+
+    @Test
+    public void testLockElided() {
+        testStackAllocation("lockedArraySnippet", 1);
+        Assert.assertEquals(0, graph.getNodes().filter(MonitorEnterNode.class).count());
+        Assert.assertEquals(0, graph.getNodes().filter(MonitorExitNode.class).count());
+    }
+
+    @Test
+    public void testNotStackAllocated() {
+        testStackAllocation("escapingSnippet", 0);
+        testStackAllocation("loopSnippet", 0);
+    }
+
+    @Test
+    public void testExecution() {
+        try (OverrideScope s = OptionValue.override(StackAllocationPhase.Options.StackAllocation, true)) {
+            test("arraySnippet", 1, 42);
+            test("arraySnippet", 7, -3);
+            test("byteArraySnippet", 3, 0x1ff);
+            test("byteArraySnippet", 8, 1);
+            test("objectArraySnippet", 1, "value");
+            test("objectArraySnippet", -1, "value");
+            test("lockedArraySnippet", 2, 9);
+        }
+    }
+}
@@ -56,6 +56,10 @@ public class GraalDebugInitializationParticipant implements DebugInitializationP
         if ("".equals(GraalDebugConfig.Options.TrackMemUse.getValue())) {
             params.enableUnscopedMemUseTrackers = true;
         }
+        if (GraalDebugConfig.Options.DebugValueExportInterval.getValue() > 0) {
+            params.enableUnscopedCounters = true;
+            params.enableUnscopedTimers = true;
+        }
         // unscoped counters/timers/mem use trackers/method metrics should respect method filter
         // semantics
         if (!params.enable && (params.enableUnscopedMemUseTrackers || params.enableUnscopedMethodMetrics || params.enableUnscopedCounters || params.enableUnscopedTimers) &&
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -41,11 +41,13 @@ import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.spi.NodeValueMap;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.nodes.virtual.EscapeObjectState;
+import com.oracle.graal.nodes.virtual.StackAllocationNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 import com.oracle.graal.virtual.nodes.MaterializedObjectState;
 import com.oracle.graal.virtual.nodes.VirtualObjectState;
 
 import jdk.vm.ci.code.BytecodeFrame;
+import jdk.vm.ci.code.StackSlot;
 import jdk.vm.ci.code.VirtualObject;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.JavaType;
@@ -73,8 +75,22 @@ public class DebugInfoBuilder {
 
     protected final Queue<VirtualObjectNode> pendingVirtualObjects = new ArrayDeque<>();
 
+    /**
+     * The frame slots of the {@link StackAllocationNode}s emitted so far. Debug info describes a
+     * stack allocated object as a {@link VirtualObject} whose values are its slots, so that the
+     * object is rematerialized on the heap during deoptimization.
+     */
+    protected final Map<StackAllocationNode, StackSlot[]> stackAllocationSlots = Node.newIdentityMap();
+    protected final Map<StackAllocationNode, VirtualObject> stackAllocatedObjects = Node.newIdentityMap();
+
+    public void addStackAllocation(StackAllocationNode node, StackSlot[] slots) {
+        assert node.slotCount() == slots.length;
+        stackAllocationSlots.put(node, slots);
+    }
+
     public LIRFrameState build(FrameState topState, LabelRef exceptionEdge) {
         assert virtualObjects.size() == 0;
+        assert stackAllocatedObjects.size() == 0;
         assert objectStates.size() == 0;
         assert pendingVirtualObjects.size() == 0;
 
@@ -96,7 +112,7 @@ public class DebugInfoBuilder {
         BytecodeFrame frame = computeFrameForState(topState);
 
         VirtualObject[] virtualObjectsArray = null;
-        if (virtualObjects.size() != 0) {
+        if (virtualObjects.size() != 0 || stackAllocatedObjects.size() != 0) {
             // fill in the VirtualObject values
             VirtualObjectNode vobjNode;
             while ((vobjNode = pendingVirtualObjects.poll()) != null) {
@@ -137,8 +153,16 @@ public class DebugInfoBuilder {
                 vobjValue.setValues(values, slotKinds);
             }
 
-            virtualObjectsArray = virtualObjects.values().toArray(new VirtualObject[virtualObjects.size()]);
+            virtualObjectsArray = new VirtualObject[virtualObjects.size() + stackAllocatedObjects.size()];
+            int index = 0;
+            for (VirtualObject vobject : virtualObjects.values()) {
+                virtualObjectsArray[index++] = vobject;
+            }
+            for (VirtualObject vobject : stackAllocatedObjects.values()) {
+                virtualObjectsArray[index++] = vobject;
+            }
             virtualObjects.clear();
+            stackAllocatedObjects.clear();
         }
         objectStates.clear();
 
@@ -279,6 +303,31 @@ public class DebugInfoBuilder {
         }
     }
 
+    private int nextVirtualObjectId() {
+        return virtualObjects.size() + stackAllocatedObjects.size();
+    }
+
+    private VirtualObject toStackAllocatedObject(StackAllocationNode node) {
+        VirtualObject vobject = stackAllocatedObjects.get(node);
+        if (vobject == null) {
+            StackSlot[] slots = stackAllocationSlots.get(node);
+            if (slots == null) {
+                throw new GraalError("no stack slots allocated for %s", node);
+            }
+            JavaValue[] values = new JavaValue[slots.length];
+            JavaKind[] slotKinds = new JavaKind[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                values[i] = slots[i];
+                slotKinds[i] = node.slotKind(i);
+            }
+            vobject = VirtualObject.get(node.type(), nextVirtualObjectId());
+            assert checkValues(node.type(), values, slotKinds);
+            vobject.setValues(values, slotKinds);
+            stackAllocatedObjects.put(node, vobject);
+        }
+        return vobject;
+    }
+
     protected JavaValue toJavaValue(ValueNode value) {
         try {
             if (value instanceof VirtualObjectNode) {
@@ -294,13 +343,16 @@ public class DebugInfoBuilder {
                     assert obj.entryCount() == 0 || state instanceof VirtualObjectState;
                     VirtualObject vobject = virtualObjects.get(obj);
                     if (vobject == null) {
-                        vobject = VirtualObject.get(obj.type(), virtualObjects.size());
+                        vobject = VirtualObject.get(obj.type(), nextVirtualObjectId());
                         virtualObjects.put(obj, vobject);
                         pendingVirtualObjects.add(obj);
                     }
                     STATE_VIRTUAL_OBJECTS.increment();
                     return vobject;
                 }
+            } else if (value instanceof StackAllocationNode) {
+                STATE_VIRTUAL_OBJECTS.increment();
+                return toStackAllocatedObject((StackAllocationNode) value);
             } else {
                 // Remove proxies from constants so the constant can be directly embedded.
                 ValueNode unproxied = GraphUtil.unproxify(value);
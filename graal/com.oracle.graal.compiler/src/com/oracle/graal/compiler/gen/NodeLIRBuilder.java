@@ -30,6 +30,7 @@ import static jdk.vm.ci.code.ValueUtil.isLegal;
 import static jdk.vm.ci.code.ValueUtil.isRegister;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +62,8 @@ import com.oracle.graal.lir.StandardOp.LabelOp;
 import com.oracle.graal.lir.SwitchStrategy;
 import com.oracle.graal.lir.Variable;
 import com.oracle.graal.lir.debug.LIRGenerationDebugContext;
+import com.oracle.graal.lir.framemap.FrameMap;
+import com.oracle.graal.lir.framemap.FrameMapBuilderTool;
 import com.oracle.graal.lir.gen.LIRGenerator;
 import com.oracle.graal.lir.gen.LIRGenerator.Options;
 import com.oracle.graal.lir.gen.LIRGeneratorTool;
@@ -98,10 +101,12 @@ import com.oracle.graal.nodes.extended.SwitchNode;
 import com.oracle.graal.nodes.spi.LIRLowerable;
 import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
 import com.oracle.graal.nodes.spi.NodeValueMap;
+import com.oracle.graal.nodes.virtual.StackAllocationNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 
 import jdk.vm.ci.code.CallingConvention;
 import jdk.vm.ci.code.StackSlot;
+import jdk.vm.ci.code.TargetDescription;
 import jdk.vm.ci.code.ValueUtil;
 import jdk.vm.ci.meta.AllocatableValue;
 import jdk.vm.ci.meta.Constant;
@@ -734,6 +739,34 @@ public abstract class NodeLIRBuilder implements NodeLIRBuilderTool, LIRGeneratio
         append(new FullInfopointOp(stateFor(i.getState()), i.getReason()));
     }
 
+    /**
+     * Reserves the slots of a stack allocated object directly in the {@link FrameMap} so that the
+     * location of every slot is known when the debug info referring to the object is built. The
+     * slots are described with non-reference kinds: the object slots are already part of every
+     * reference map of the method.
+     */
+    @Override
+    public void emitStackAllocation(StackAllocationNode i) {
+        FrameMap frameMap = ((FrameMapBuilderTool) gen.getResult().getFrameMapBuilder()).getFrameMap();
+        TargetDescription target = frameMap.getTarget();
+        assert target.wordSize == StackAllocationNode.SLOT_SIZE : "stack allocation requires 64-bit slots";
+        BitSet objects = new BitSet(i.slotCount());
+        for (int index = 0; index < i.slotCount(); index++) {
+            if (i.slotKind(index) == JavaKind.Object) {
+                objects.set(index);
+            }
+        }
+        StackSlot block = frameMap.allocateStackSlots(i.slotCount(), objects);
+        StackSlot[] slots = new StackSlot[i.slotCount()];
+        for (int index = 0; index < slots.length; index++) {
+            LIRKind kind = LIRKind.value(target.arch.getPlatformKind(i.slotKind(index)));
+            slots[index] = StackSlot.get(kind, block.getRawOffset() + (int) StackAllocationNode.slotOffset(index), block.getRawAddFrameSize());
+        }
+        getDebugInfoBuilder().addStackAllocation(i, slots);
+        StackSlot base = StackSlot.get(LIRKind.value(target.arch.getWordKind()), block.getRawOffset(), block.getRawAddFrameSize());
+        setResult(i, gen.emitAddress(base));
+    }
+
     @Override
     public void setSourcePosition(NodeSourcePosition position) {
         gen.setSourcePosition(position);
@@ -54,6 +54,7 @@ import com.oracle.graal.phases.common.inlining.InliningPhase;
 import com.oracle.graal.phases.common.instrumentation.HighTierReconcileInstrumentationPhase;
 import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
+import com.oracle.graal.virtual.phases.ea.StackAllocationPhase;
 
 public class HighTier extends PhaseSuite<HighTierContext> {
 
@@ -108,6 +109,10 @@ public class HighTier extends PhaseSuite<HighTierContext> {
         }
         appendPhase(new RemoveValueProxyPhase());
 
+        if (PartialEscapeAnalysis.getValue() && StackAllocationPhase.Options.StackAllocation.getValue()) {
+            appendPhase(new StackAllocationPhase());
+        }
+
         appendPhase(new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER));
         if (UseGraalInstrumentation.getValue()) {
             appendPhase(new HighTierReconcileInstrumentationPhase());
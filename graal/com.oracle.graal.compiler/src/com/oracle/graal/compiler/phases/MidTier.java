@@ -24,15 +24,22 @@ package com.oracle.graal.compiler.phases;
 
 import static com.oracle.graal.compiler.common.GraalOptions.ConditionalElimination;
 import static com.oracle.graal.compiler.common.GraalOptions.ImmutableCode;
+import static com.oracle.graal.compiler.common.GraalOptions.LoopPredication;
 import static com.oracle.graal.compiler.common.GraalOptions.OptDeoptimizationGrouping;
 import static com.oracle.graal.compiler.common.GraalOptions.OptEliminatePartiallyRedundantGuards;
 import static com.oracle.graal.compiler.common.GraalOptions.OptFloatingReads;
+import static com.oracle.graal.compiler.common.GraalOptions.OptLoopTransform;
 import static com.oracle.graal.compiler.common.GraalOptions.OptPushThroughPi;
 import static com.oracle.graal.compiler.common.GraalOptions.OptReadElimination;
+import static com.oracle.graal.compiler.common.GraalOptions.PartialUnroll;
 import static com.oracle.graal.compiler.common.GraalOptions.ReassociateInvariants;
 import static com.oracle.graal.compiler.common.GraalOptions.UseGraalInstrumentation;
 import static com.oracle.graal.compiler.common.GraalOptions.VerifyHeapAtReturn;
 
+import com.oracle.graal.loop.DefaultLoopPolicies;
+import com.oracle.graal.loop.LoopPolicies;
+import com.oracle.graal.loop.phases.LoopPartialUnrollPhase;
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
 import com.oracle.graal.loop.phases.LoopSafepointEliminationPhase;
 import com.oracle.graal.loop.phases.ReassociateInvariantPhase;
 import com.oracle.graal.nodes.spi.LoweringTool;
@@ -98,6 +105,16 @@ public class MidTier extends PhaseSuite<MidTierContext> {
 
         appendPhase(canonicalizer);
 
+        if (LoopPredication.getValue()) {
+            appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopPredicationPhase()));
+        }
+
+        if (OptLoopTransform.getValue() && PartialUnroll.getValue()) {
+            appendPhase(new LoopPartialUnrollPhase(canonicalizer, createLoopPolicies()));
+            // coarsen the synchronized regions of the unrolled iterations
+            appendPhase(new LockEliminationPhase());
+        }
+
         appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopSafepointEliminationPhase()));
 
         appendPhase(new LoopSafepointInsertionPhase());
@@ -125,4 +142,8 @@ public class MidTier extends PhaseSuite<MidTierContext> {
 
         appendPhase(canonicalizer);
     }
+
+    public LoopPolicies createLoopPolicies() {
+        return new DefaultLoopPolicies();
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.oracle.graal.debug.internal.CounterImpl;
+import com.oracle.graal.debug.internal.DebugValue;
+import com.oracle.graal.debug.internal.DebugValuesExporter;
+import com.oracle.graal.debug.internal.StripedDebugValues;
+
+public class DebugValuesExporterTest {
+
+    /**
+     * Interval long enough that only the final export done by
+     * {@link DebugValuesExporter#shutdown()} happens during a test.
+     */
+    private static final long NO_PERIODIC_EXPORT = TimeUnit.HOURS.toMillis(1);
+
+    private static DebugValue createValue(String name, long value) {
+        DebugValue debugValue = (DebugValue) CounterImpl.create(name, false, false);
+        StripedDebugValues.add(debugValue.getIndex(), value);
+        return debugValue;
+    }
+
+    @Test
+    public void testCSV() {
+        createValue("DebugValuesExporterTest.CSV", 5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DebugValuesExporter exporter = DebugValuesExporter.start(NO_PERIODIC_EXPORT, null, new PrintStream(bytes), false);
+        exporter.shutdown();
+
+        String[] lines = bytes.toString().split("\\R");
+        assertEquals("time_ms;name;value;delta", lines[0]);
+        boolean found = false;
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(";");
+            if (columns.length == 4 && columns[1].equals("DebugValuesExporterTest.CSV")) {
+                assertEquals("5", columns[2]);
+                assertEquals("5", columns[3]);
+                found = true;
+            }
+        }
+        assertTrue(found);
+        assertEquals(Long.valueOf(5), exporter.getValues().get("DebugValuesExporterTest.CSV"));
+    }
+
+    @Test
+    public void testJSONWithFilter() {
+        createValue("DebugValuesExporterTest.JSON", 7);
+        createValue("DebugValuesExporterTest.Filtered", 3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DebugValuesExporter exporter = DebugValuesExporter.start(NO_PERIODIC_EXPORT, new String[]{"DebugValuesExporterTest.JSON"}, new PrintStream(bytes), true);
+        exporter.shutdown();
+
+        String json = bytes.toString().trim();
+        assertTrue(json, json.startsWith("{\"time_ms\":"));
+        assertTrue(json, json.contains("\"values\":{\"DebugValuesExporterTest.JSON\":7}"));
+        assertTrue(json, json.contains("\"deltas\":{\"DebugValuesExporterTest.JSON\":7}"));
+        assertFalse(json, json.contains("DebugValuesExporterTest.Filtered"));
+    }
+
+    @Test
+    public void testExportContinuesAfterException() throws InterruptedException {
+        CountDownLatch exports = new CountDownLatch(3);
+        PrintStream out = new PrintStream(new ByteArrayOutputStream()) {
+            private boolean failed;
+
+            @Override
+            public void flush() {
+                exports.countDown();
+                if (!failed) {
+                    failed = true;
+                    throw new IllegalStateException("export failure");
+                }
+            }
+        };
+        DebugValuesExporter exporter = DebugValuesExporter.start(10, null, out, false);
+        try {
+            assertTrue("exporting must continue after an exception", exports.await(10, TimeUnit.SECONDS));
+        } finally {
+            exporter.shutdown();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.oracle.graal.debug.GraalDebugConfig;
+import com.oracle.graal.debug.PhaseProfiler;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+public class PhaseProfilerTest {
+
+    private static final String ROOT = "ProfiledCompilation";
+
+    /**
+     * Profiles the phases of a small compilation the way the phase suites nest them.
+     */
+    private static void profileCompilation() throws InterruptedException {
+        try (PhaseProfiler.Entry compilation = PhaseProfiler.enterCompilation(ROOT)) {
+            assertTrue(compilation != null);
+            assertNull("only the outermost compilation is profiled", PhaseProfiler.enterCompilation("Nested"));
+            try (PhaseProfiler.Entry highTier = PhaseProfiler.enterPhase("HighTier", 10)) {
+                try (PhaseProfiler.Entry canonicalizer = PhaseProfiler.enterPhase("Canonicalizer", 10)) {
+                    Thread.sleep(2);
+                    canonicalizer.setNodeCountAfter(8);
+                }
+                try (PhaseProfiler.Entry inlining = PhaseProfiler.enterPhase("Inlining", 8)) {
+                    Thread.sleep(2);
+                    inlining.setNodeCountAfter(12);
+                }
+                highTier.setNodeCountAfter(12);
+            }
+            try (PhaseProfiler.Entry lowTier = PhaseProfiler.enterPhase("LowTier", 12)) {
+                Thread.sleep(2);
+                try (PhaseProfiler.Entry canonicalizer = PhaseProfiler.enterPhase("Canonicalizer", 12)) {
+                    Thread.sleep(2);
+                    canonicalizer.setNodeCountAfter(11);
+                }
+                lowTier.setNodeCountAfter(11);
+            }
+        }
+        assertNull("no compilation is profiled after the root is closed", PhaseProfiler.enterPhase("AfterCompilation", -1));
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testProfileOutput() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("PhaseProfilerTest");
+        File collapsed = dir.resolve("profile.collapsed").toFile();
+        File json = dir.resolve("profile.json").toFile();
+        try {
+            PhaseProfiler.shutdown();
+            try (OverrideScope s = OptionValue.override(GraalDebugConfig.Options.ProfilePhases, true, GraalDebugConfig.Options.DumpPath, dir.toString(),
+                            GraalDebugConfig.Options.PhaseProfileFile, "profile")) {
+                profileCompilation();
+                PhaseProfiler.shutdown();
+            }
+
+            Map<String, Long> stacks = new HashMap<>();
+            for (String line : Files.readAllLines(collapsed.toPath())) {
+                int space = line.lastIndexOf(' ');
+                assertTrue(line, space > 0);
+                String stack = line.substring(0, space);
+                long micros = Long.parseLong(line.substring(space + 1));
+                assertTrue(line, micros > 0);
+                assertTrue(line, stack.equals(ROOT) || stack.startsWith(ROOT + ";"));
+                assertNull("stacks are summed per path: " + line, stacks.put(stack, micros));
+            }
+            assertTrue(stacks.toString(), stacks.containsKey(ROOT + ";HighTier;Canonicalizer"));
+            assertTrue(stacks.toString(), stacks.containsKey(ROOT + ";HighTier;Inlining"));
+            assertTrue(stacks.toString(), stacks.containsKey(ROOT + ";LowTier"));
+            assertTrue(stacks.toString(), stacks.containsKey(ROOT + ";LowTier;Canonicalizer"));
+
+            List<String> lines = Files.readAllLines(json.toPath());
+            assertEquals("one JSON object per compilation", 1, lines.size());
+            Map<?, ?> root = (Map<?, ?>) new JSONParser(lines.get(0)).parse();
+            assertEquals(ROOT, root.get("name"));
+            assertNull(root.get("nodes_before"));
+            List<?> tiers = phases(root);
+            assertEquals(2, tiers.size());
+            Map<?, ?> highTier = (Map<?, ?>) tiers.get(0);
+            Map<?, ?> lowTier = (Map<?, ?>) tiers.get(1);
+            assertEquals("HighTier", highTier.get("name"));
+            assertEquals("LowTier", lowTier.get("name"));
+
+            List<?> highPhases = phases(highTier);
+            assertEquals(2, highPhases.size());
+            Map<?, ?> canonicalizer = (Map<?, ?>) highPhases.get(0);
+            assertEquals("Canonicalizer", canonicalizer.get("name"));
+            assertEquals(10L, canonicalizer.get("nodes_before"));
+            assertEquals(8L, canonicalizer.get("nodes_after"));
+            assertNull("leaf phases have no nested phases", canonicalizer.get("phases"));
+            assertEquals("Inlining", ((Map<?, ?>) highPhases.get(1)).get("name"));
+
+            List<?> lowPhases = phases(lowTier);
+            assertEquals(1, lowPhases.size());
+            assertEquals("Canonicalizer", ((Map<?, ?>) lowPhases.get(0)).get("name"));
+            assertEquals(12L, lowTier.get("nodes_before"));
+            assertEquals(11L, lowTier.get("nodes_after"));
+
+            checkNestedTimes(root);
+        } finally {
+            PhaseProfiler.shutdown();
+            collapsed.delete();
+            json.delete();
+            dir.toFile().delete();
+        }
+    }
+
+    private static List<?> phases(Map<?, ?> phase) {
+        List<?> phases = (List<?>) phase.get("phases");
+        assertTrue(phase.toString(), phases != null);
+        return phases;
+    }
+
+    /**
+     * Checks that a phase takes at least as long as the phases nested in it.
+     */
+    private static void checkNestedTimes(Map<?, ?> phase) {
+        long time = (Long) phase.get("time_ns");
+        assertTrue(phase.toString(), time > 0);
+        assertTrue(phase.toString(), phase.get("allocated_bytes") instanceof Long);
+        List<?> nested = (List<?>) phase.get("phases");
+        if (nested != null) {
+            long sum = 0;
+            for (Object child : nested) {
+                checkNestedTimes((Map<?, ?>) child);
+                sum += (Long) ((Map<?, ?>) child).get("time_ns");
+            }
+            assertTrue(phase.get("name") + ": " + time + " < " + sum, time >= sum);
+        }
+    }
+
+    /**
+     * Parses the subset of JSON written by {@link PhaseProfiler}: objects, arrays, strings and
+     * integral numbers.
+     */
+    private static final class JSONParser {
+
+        private final String text;
+        private int pos;
+
+        JSONParser(String text) {
+            this.text = text;
+        }
+
+        Object parse() {
+            Object value = parseValue();
+            assertEquals(text, text.length(), pos);
+            return value;
+        }
+
+        private Object parseValue() {
+            char c = text.charAt(pos);
+            if (c == '{') {
+                Map<String, Object> object = new LinkedHashMap<>();
+                pos++;
+                if (!accept('}')) {
+                    do {
+                        String key = parseString();
+                        expect(':');
+                        assertNull("duplicate key " + key, object.put(key, parseValue()));
+                    } while (accept(','));
+                    expect('}');
+                }
+                return object;
+            } else if (c == '[') {
+                List<Object> array = new ArrayList<>();
+                pos++;
+                if (!accept(']')) {
+                    do {
+                        array.add(parseValue());
+                    } while (accept(','));
+                    expect(']');
+                }
+                return array;
+            } else if (c == '"') {
+                return parseString();
+            }
+            int start = pos;
+            if (c == '-') {
+                pos++;
+            }
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            assertTrue("number expected at " + start + ": " + text, pos > start);
+            return Long.parseLong(text.substring(start, pos));
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            char c;
+            while ((c = text.charAt(pos++)) != '"') {
+                if (c == '\\') {
+                    c = text.charAt(pos++);
+                }
+                sb.append(c);
+            }
+            return sb.toString();
+        }
+
+        private boolean accept(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            assertTrue(c + " expected at " + pos + ": " + text, accept(c));
+        }
+    }
+}
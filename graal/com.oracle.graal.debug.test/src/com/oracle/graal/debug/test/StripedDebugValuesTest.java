@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.oracle.graal.debug.internal.StripedDebugValues;
+
+public class StripedDebugValuesTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 100000;
+
+    /**
+     * Index far above the indexes of registered debug values so that the test does not interfere
+     * with real counters.
+     */
+    private static final int INDEX = 10000;
+
+    @Test
+    public void testConcurrentAdd() throws InterruptedException {
+        long before = StripedDebugValues.get(INDEX);
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < INCREMENTS; j++) {
+                        StripedDebugValues.add(INDEX, 1);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(before + (long) THREADS * INCREMENTS, StripedDebugValues.get(INDEX));
+    }
+
+    @Test
+    public void testGrowth() {
+        long before = StripedDebugValues.get(INDEX + 1);
+        StripedDebugValues.add(INDEX + 1, 42);
+        assertEquals(before + 42, StripedDebugValues.get(INDEX + 1));
+        assertEquals(0L, StripedDebugValues.get(INDEX + 100000));
+    }
+}
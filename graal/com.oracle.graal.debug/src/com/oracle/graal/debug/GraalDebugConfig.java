@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2012, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -87,6 +87,25 @@ public class GraalDebugConfig implements DebugConfig {
         @Option(help = "Write debug values into a file instead of the terminal. " +
                        "If DebugValueSummary is Thread, the thread name will be prepended.", type = OptionType.Debug)
         public static final OptionValue<String> DebugValueFile = new OptionValue<>(null);
+        @Option(help = "Accumulate counters and timers in global lock-free cells instead of per-thread, per-scope maps. " +
+                       "The values can then be read while compiler threads are running but are not attributed to scopes or threads.", type = OptionType.Debug)
+        public static final OptionValue<Boolean> StripedDebugValues = new OptionValue<>(false);
+        @Option(help = "Interval in milliseconds at which counters and timers are exported while the VM is running (0 disables exporting). " +
+                       "Exporting enables all counters and timers unconditionally and implies StripedDebugValues.", type = OptionType.Debug)
+        public static final OptionValue<Integer> DebugValueExportInterval = new OptionValue<>(0);
+        @Option(help = "File to which exported counters and timers are appended (see DebugValueExportInterval).", type = OptionType.Debug)
+        public static final OptionValue<String> DebugValueExportFile = new OptionValue<>(null);
+        @Option(help = "Format of DebugValueExportFile:%n" +
+                       "CSV - one line per value that changed in an interval%n" +
+                       "JSON - one JSON object per interval", type = OptionType.Debug)
+        public static final OptionValue<String> DebugValueExportFormat = new OptionValue<>("CSV");
+        @Option(help = "Comma separated list of name prefixes of the counters and timers to export (all if not set).", type = OptionType.Debug)
+        public static final OptionValue<String> DebugValueExportFilter = new OptionValue<>(null);
+        @Option(help = "Record the wall time, allocated bytes and node count change of every phase applied in a compilation, nested by the phases applying them (see PhaseProfileFile).", type = OptionType.Debug)
+        public static final OptionValue<Boolean> ProfilePhases = new OptionValue<>(false);
+        @Option(help = "Base filename of the phase profiles written to DumpPath if ProfilePhases is enabled. " +
+                       "Collapsed stacks for flame graphs are appended to <name>.collapsed and one JSON object per compilation to <name>.json.", type = OptionType.Debug)
+        public static final OptionValue<String> PhaseProfileFile = new OptionValue<>("phase_profile");
         @Option(help = "Send Graal compiler IR to dump handlers on error", type = OptionType.Debug)
         public static final OptionValue<Boolean> DumpOnError = new OptionValue<>(false);
         @Option(help = "Intercept also bailout exceptions", type = OptionType.Debug)
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug;
+
+import static com.oracle.graal.debug.GraalDebugConfig.Options.DumpPath;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.PhaseProfileFile;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.ProfilePhases;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.vm.ci.meta.JavaMethod;
+
+/**
+ * Hierarchical profile of the phases applied during a single compilation. If
+ * {@link GraalDebugConfig.Options#ProfilePhases} is enabled, every phase applied within a
+ * {@linkplain #enterCompilation(Object) compilation} records its wall time, the bytes allocated by
+ * the compiling thread and, for graph phases, the live node count before and after the phase. Each
+ * phase is nested under the phase (typically a phase suite) that applied it.
+ *
+ * When the compilation ends, its profile is appended to two files in
+ * {@link GraalDebugConfig.Options#DumpPath}:
+ * <ul>
+ * <li>{@code <PhaseProfileFile>.collapsed}: one line per phase path with the time spent in the phase
+ * itself in microseconds, in the collapsed stack format read by flame graph tools</li>
+ * <li>{@code <PhaseProfileFile>.json}: one JSON object per line holding the phase tree of one
+ * compilation</li>
+ * </ul>
+ */
+public final class PhaseProfiler {
+
+    private static final ThreadLocal<PhaseProfiler> current = new ThreadLocal<>();
+
+    private static PrintStream collapsedOut;
+    private static PrintStream jsonOut;
+    private static boolean outputFailed;
+
+    private Entry top;
+
+    private PhaseProfiler() {
+    }
+
+    /**
+     * A compilation or a phase being profiled. Closing it records its end.
+     */
+    public static final class Entry implements DebugCloseable {
+
+        private final PhaseProfiler profiler;
+        private final Entry parent;
+        private final String name;
+        private final long startNanos;
+        private final long startBytes;
+        private final int nodesBefore;
+        private int nodesAfter = -1;
+        private long nanos;
+        private long allocatedBytes;
+        private List<Entry> children;
+
+        private Entry(PhaseProfiler profiler, Entry parent, String name, int nodesBefore) {
+            this.profiler = profiler;
+            this.parent = parent;
+            this.name = name;
+            this.nodesBefore = nodesBefore;
+            if (parent != null) {
+                if (parent.children == null) {
+                    parent.children = new ArrayList<>();
+                }
+                parent.children.add(this);
+            }
+            this.startBytes = Management.getCurrentThreadAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Records the live node count of the graph after the phase.
+         */
+        public void setNodeCountAfter(int nodeCount) {
+            nodesAfter = nodeCount;
+        }
+
+        @Override
+        public void close() {
+            nanos = System.nanoTime() - startNanos;
+            allocatedBytes = Management.getCurrentThreadAllocatedBytes() - startBytes;
+            assert profiler.top == this : "phases must be closed in the order they were entered";
+            profiler.top = parent;
+            if (parent == null) {
+                current.remove();
+                write(this);
+            }
+        }
+
+        private long selfNanos() {
+            long result = nanos;
+            if (children != null) {
+                for (Entry child : children) {
+                    result -= child.nanos;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Starts profiling a compilation on the current thread if
+     * {@link GraalDebugConfig.Options#ProfilePhases} is enabled and no compilation is being
+     * profiled on this thread yet.
+     *
+     * @param compilation the compiled {@link JavaMethod} or an object whose string value describes
+     *            the compilation
+     * @return the entry to close at the end of the compilation or {@code null} if this compilation
+     *         is not profiled
+     */
+    public static Entry enterCompilation(Object compilation) {
+        if (!ProfilePhases.getValue() || current.get() != null) {
+            return null;
+        }
+        String name = compilation instanceof JavaMethod ? ((JavaMethod) compilation).format("%H.%n(%p)") : String.valueOf(compilation);
+        PhaseProfiler profiler = new PhaseProfiler();
+        current.set(profiler);
+        profiler.top = new Entry(profiler, null, name, -1);
+        return profiler.top;
+    }
+
+    /**
+     * Starts profiling a phase if a compilation is being profiled on the current thread.
+     *
+     * @param nodeCount the live node count of the graph before the phase or -1 if the phase does
+     *            not operate on a graph
+     * @return the entry to close at the end of the phase or {@code null} if no compilation is being
+     *         profiled
+     */
+    public static Entry enterPhase(CharSequence name, int nodeCount) {
+        PhaseProfiler profiler = current.get();
+        if (profiler == null) {
+            return null;
+        }
+        profiler.top = new Entry(profiler, profiler.top, name.toString(), nodeCount);
+        return profiler.top;
+    }
+
+    private static void write(Entry root) {
+        Map<String, Long> stacks = new LinkedHashMap<>();
+        collectStacks(root, null, stacks);
+        StringBuilder json = new StringBuilder();
+        appendJSON(json, root);
+        synchronized (PhaseProfiler.class) {
+            if (!openOutput()) {
+                return;
+            }
+            for (Map.Entry<String, Long> e : stacks.entrySet()) {
+                if (e.getValue() > 0) {
+                    collapsedOut.println(e.getKey() + " " + e.getValue());
+                }
+            }
+            collapsedOut.flush();
+            jsonOut.println(json);
+            jsonOut.flush();
+        }
+    }
+
+    private static boolean openOutput() {
+        if (collapsedOut == null && !outputFailed) {
+            String base = PhaseProfileFile.getValue();
+            try {
+                collapsedOut = new PrintStream(new FileOutputStream(Paths.get(DumpPath.getValue(), base + ".collapsed").toFile(), true));
+                jsonOut = new PrintStream(new FileOutputStream(Paths.get(DumpPath.getValue(), base + ".json").toFile(), true));
+            } catch (FileNotFoundException e) {
+                TTY.println("Warning: Could not open phase profile file: %s", e.getMessage());
+                if (collapsedOut != null) {
+                    collapsedOut.close();
+                    collapsedOut = null;
+                }
+                outputFailed = true;
+            }
+        }
+        return collapsedOut != null;
+    }
+
+    /**
+     * Closes the profile files. A compilation profiled afterwards opens them again and appends to
+     * them.
+     */
+    public static synchronized void shutdown() {
+        if (collapsedOut != null) {
+            collapsedOut.close();
+            collapsedOut = null;
+        }
+        if (jsonOut != null) {
+            jsonOut.close();
+            jsonOut = null;
+        }
+        outputFailed = false;
+    }
+
+    /**
+     * Sums the self time in microseconds of the phases with the same path.
+     */
+    private static void collectStacks(Entry entry, String parentStack, Map<String, Long> stacks) {
+        // ';' separates frames and the last space separates the value in the collapsed format
+        String frame = entry.name.replace(';', ':').replace(' ', '_');
+        String stack = parentStack == null ? frame : parentStack + ";" + frame;
+        Long previous = stacks.get(stack);
+        stacks.put(stack, (previous == null ? 0L : previous) + entry.selfNanos() / 1000);
+        if (entry.children != null) {
+            for (Entry child : entry.children) {
+                collectStacks(child, stack, stacks);
+            }
+        }
+    }
+
+    private static void appendJSON(StringBuilder sb, Entry entry) {
+        sb.append("{\"name\":\"").append(entry.name.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        sb.append(",\"time_ns\":").append(entry.nanos);
+        sb.append(",\"allocated_bytes\":").append(entry.allocatedBytes);
+        if (entry.nodesBefore >= 0) {
+            sb.append(",\"nodes_before\":").append(entry.nodesBefore);
+        }
+        if (entry.nodesAfter >= 0) {
+            sb.append(",\"nodes_after\":").append(entry.nodesAfter);
+        }
+        if (entry.children != null) {
+            sb.append(",\"phases\":[");
+            String sep = "";
+            for (Entry child : entry.children) {
+                sb.append(sep);
+                appendJSON(sb, child);
+                sep = ",";
+            }
+            sb.append(']');
+        }
+        sb.append('}');
+    }
+}
@@ -23,8 +23,9 @@
 package com.oracle.graal.debug.internal;
 
 /**
- * A name and index for a value managed in a thread local value map. All access to the value is made
- * via a {@link DebugValue} instance.
+ * A name and index for a value managed in a thread local value map or, if
+ * {@link StripedDebugValues#ENABLED}, in a global {@link StripedDebugValues} cell. All access to
+ * the value is made via a {@link DebugValue} instance.
  */
 public abstract class DebugValue implements Comparable<DebugValue> {
 
@@ -40,6 +41,9 @@ public abstract class DebugValue implements Comparable<DebugValue> {
 
     public long getCurrentValue() {
         ensureInitialized();
+        if (StripedDebugValues.ENABLED) {
+            return StripedDebugValues.get(index);
+        }
         return DebugScope.getInstance().getCurrentValue(index);
     }
 
@@ -63,7 +67,12 @@ public abstract class DebugValue implements Comparable<DebugValue> {
     }
 
     protected void addToCurrentValue(long value) {
-        setCurrentValue(getCurrentValue() + value);
+        if (StripedDebugValues.ENABLED) {
+            ensureInitialized();
+            StripedDebugValues.add(index, value);
+        } else {
+            setCurrentValue(getCurrentValue() + value);
+        }
     }
 
     /**
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.internal;
+
+import static com.oracle.graal.debug.GraalDebugConfig.Options.DebugValueExportFile;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.DebugValueExportFilter;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.DebugValueExportFormat;
+import static com.oracle.graal.debug.GraalDebugConfig.Options.DebugValueExportInterval;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.oracle.graal.debug.CSVUtil;
+import com.oracle.graal.debug.GraalDebugConfig;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.debug.TTY;
+
+/**
+ * Periodically publishes the {@linkplain StripedDebugValues global values} of all counters and
+ * timers while the VM is running, e.g., to correlate compilation activity with application
+ * latency. At the end of every {@linkplain GraalDebugConfig.Options#DebugValueExportInterval
+ * interval}, the values and their changes during the interval are
+ * <ul>
+ * <li>published through the {@link DebugValuesMXBean} registered as {@value #OBJECT_NAME}</li>
+ * <li>appended to {@link GraalDebugConfig.Options#DebugValueExportFile} if it is set</li>
+ * </ul>
+ */
+public final class DebugValuesExporter implements DebugValuesMXBean {
+
+    public static final String OBJECT_NAME = "com.oracle.graal:type=DebugValues";
+
+    private static final String CSV_FORMAT = CSVUtil.buildFormatString("%d", "%s", "%d", "%d");
+
+    private final long interval;
+    private final long startTime;
+    private final String[] filters;
+    private final PrintStream out;
+    private final boolean json;
+    private final ScheduledExecutorService executor;
+    private ObjectName objectName;
+
+    private long[] previous = new long[0];
+    private volatile Map<String, Long> values = Collections.emptyMap();
+    private volatile Map<String, Long> deltas = Collections.emptyMap();
+    private volatile long lastExportTime;
+
+    private DebugValuesExporter(long interval, String[] filters, PrintStream out, boolean json) {
+        this.interval = interval;
+        this.startTime = System.currentTimeMillis();
+        this.filters = filters;
+        this.out = out;
+        this.json = json;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "DebugValuesExporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts exporting if {@link GraalDebugConfig.Options#DebugValueExportInterval} is set.
+     *
+     * @return the exporter or {@code null} if exporting is disabled
+     */
+    public static DebugValuesExporter start() {
+        int interval = DebugValueExportInterval.getValue();
+        if (interval <= 0) {
+            return null;
+        }
+        assert StripedDebugValues.ENABLED;
+        String format = DebugValueExportFormat.getValue();
+        if (!format.equals("CSV") && !format.equals("JSON")) {
+            throw new GraalError("Unsupported value for DebugValueExportFormat: %s", format);
+        }
+        boolean json = format.equals("JSON");
+        PrintStream out = null;
+        String file = DebugValueExportFile.getValue();
+        if (file != null) {
+            try {
+                out = new PrintStream(new FileOutputStream(file, true));
+            } catch (FileNotFoundException e) {
+                TTY.println("Warning: Could not open debug value export file: %s", e.getMessage());
+            }
+        }
+        String filter = DebugValueExportFilter.getValue();
+        return start(interval, filter == null ? null : filter.split(","), out, json);
+    }
+
+    /**
+     * Starts exporting the {@linkplain StripedDebugValues global values}.
+     *
+     * @param interval the export interval in milliseconds
+     * @param filters prefixes of the names of the exported values or {@code null} to export all
+     *            values
+     * @param out the stream to which the values are appended or {@code null}
+     * @param json whether the values are written in JSON instead of CSV format
+     */
+    public static DebugValuesExporter start(long interval, String[] filters, PrintStream out, boolean json) {
+        if (out != null && !json) {
+            out.println(CSVUtil.buildFormatString("time_ms", "name", "value", "delta"));
+        }
+        DebugValuesExporter exporter = new DebugValuesExporter(interval, filters, out, json);
+        exporter.register();
+        exporter.executor.scheduleAtFixedRate(exporter::exportPeriodically, interval, interval, TimeUnit.MILLISECONDS);
+        return exporter;
+    }
+
+    /**
+     * Exports the values at the end of an interval. An exception escaping from a periodic task
+     * would silently cancel all later exports, so it is reported here instead.
+     */
+    private void exportPeriodically() {
+        try {
+            export();
+        } catch (Throwable e) {
+            TTY.println("Warning: Could not export debug values: %s", e);
+        }
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(OBJECT_NAME);
+            server.registerMBean(this, objectName);
+        } catch (JMException | Error e) {
+            TTY.println("Warning: Could not register %s: %s", OBJECT_NAME, e);
+            objectName = null;
+        }
+    }
+
+    /**
+     * Stops exporting after publishing the values of the last, partial interval.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        export();
+        if (out != null) {
+            out.close();
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException | Error e) {
+                // the VM is shutting down anyway
+            }
+        }
+    }
+
+    private boolean isExported(String name) {
+        if (filters == null) {
+            return true;
+        }
+        for (String prefix : filters) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void export() {
+        List<DebugValue> debugValues;
+        synchronized (KeyRegistry.class) {
+            debugValues = new ArrayList<>(KeyRegistry.getDebugValues());
+        }
+        long[] current = StripedDebugValues.snapshot();
+        long time = System.currentTimeMillis() - startTime;
+        Map<String, Long> newValues = new TreeMap<>();
+        Map<String, Long> newDeltas = new TreeMap<>();
+        int count = Math.min(debugValues.size(), current.length);
+        for (int i = 0; i < count; i++) {
+            String name = debugValues.get(i).getName();
+            if (isExported(name)) {
+                long delta = current[i] - (i < previous.length ? previous[i] : 0L);
+                newValues.put(name, current[i]);
+                newDeltas.put(name, delta);
+            }
+        }
+        previous = current;
+        values = Collections.unmodifiableMap(newValues);
+        deltas = Collections.unmodifiableMap(newDeltas);
+        lastExportTime = time;
+        if (out != null) {
+            if (json) {
+                printJSON(time, newValues, newDeltas);
+            } else {
+                printCSV(time, newValues, newDeltas);
+            }
+            out.flush();
+        }
+    }
+
+    private void printCSV(long time, Map<String, Long> newValues, Map<String, Long> newDeltas) {
+        for (Map.Entry<String, Long> e : newDeltas.entrySet()) {
+            if (e.getValue() != 0) {
+                CSVUtil.Escape.println(out, CSV_FORMAT, time, e.getKey(), newValues.get(e.getKey()), e.getValue());
+            }
+        }
+    }
+
+    private void printJSON(long time, Map<String, Long> newValues, Map<String, Long> newDeltas) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"time_ms\":").append(time);
+        sb.append(",\"values\":");
+        appendJSON(sb, newValues);
+        sb.append(",\"deltas\":");
+        appendJSON(sb, newDeltas);
+        sb.append('}');
+        out.println(sb);
+    }
+
+    private static void appendJSON(StringBuilder sb, Map<String, Long> map) {
+        sb.append('{');
+        String sep = "";
+        for (Map.Entry<String, Long> e : map.entrySet()) {
+            sb.append(sep).append('"').append(e.getKey().replace("\\", "\\\\").replace("\"", "\\\"")).append("\":").append(e.getValue());
+            sep = ",";
+        }
+        sb.append('}');
+    }
+
+    @Override
+    public Map<String, Long> getValues() {
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getDeltas() {
+        return deltas;
+    }
+
+    @Override
+    public long getInterval() {
+        return interval;
+    }
+
+    @Override
+    public long getLastExportTime() {
+        return lastExportTime;
+    }
+}
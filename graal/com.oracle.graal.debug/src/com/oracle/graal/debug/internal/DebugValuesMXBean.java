@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.internal;
+
+import java.util.Map;
+
+/**
+ * Management interface for the counters and timers published by {@link DebugValuesExporter}.
+ */
+public interface DebugValuesMXBean {
+
+    /**
+     * Gets the values at the end of the last interval, keyed by name.
+     */
+    Map<String, Long> getValues();
+
+    /**
+     * Gets the amount by which each value changed during the last interval, keyed by name.
+     */
+    Map<String, Long> getDeltas();
+
+    /**
+     * Gets the length of an interval in milliseconds.
+     */
+    long getInterval();
+
+    /**
+     * Gets the time in milliseconds since the exporter was started at which the last interval
+     * ended.
+     */
+    long getLastExportTime();
+}
@@ -75,7 +75,10 @@ public class DebugValuesPrinter {
                 if (summary == null) {
                     summary = "Complete";
                 }
-                if (DebugValueThreadFilter.getValue() != null && topLevelMaps.size() != 0) {
+                if (StripedDebugValues.ENABLED) {
+                    // Striped values are not attributed to threads or scopes
+                    topLevelMaps = Collections.singletonList(createStripedValuesMap(debugValues));
+                } else if (DebugValueThreadFilter.getValue() != null && topLevelMaps.size() != 0) {
                     topLevelMaps = topLevelMaps.stream().filter(map -> Pattern.compile(DebugValueThreadFilter.getValue()).matcher(map.getName()).find()).collect(Collectors.toList());
                     if (topLevelMaps.size() == 0) {
                         TTY.println("Warning: DebugValueThreadFilter=%s eliminated all maps so nothing will be printed", DebugValueThreadFilter.getValue());
@@ -123,6 +126,9 @@ public class DebugValuesPrinter {
                 for (DebugValueMap topLevelMap : topLevelMaps) {
                     topLevelMap.reset();
                 }
+                if (StripedDebugValues.ENABLED) {
+                    StripedDebugValues.reset();
+                }
             } catch (Throwable e) {
                 // Don't want this to change the exit status of the VM
                 PrintStream err = System.err;
@@ -136,6 +142,19 @@ public class DebugValuesPrinter {
         TTY.println("</DebugValues>");
     }
 
+    /**
+     * Creates a map holding the {@linkplain StripedDebugValues striped} values, which are printed
+     * like the values of a single thread.
+     */
+    private static DebugValueMap createStripedValuesMap(List<DebugValue> debugValues) {
+        DebugValueMap map = new DebugValueMap("StripedDebugValues");
+        long[] values = StripedDebugValues.snapshot();
+        for (int i = 0; i < values.length; i++) {
+            map.setCurrentValue(debugValues.get(i).getIndex(), values[i]);
+        }
+        return map;
+    }
+
     private static LogStream getLogStream() {
         return getLogStream(null);
     }
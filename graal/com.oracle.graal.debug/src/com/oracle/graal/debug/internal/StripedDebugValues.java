@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.graal.debug.GraalDebugConfig;
+
+/**
+ * Global storage for {@link DebugValue}s that is used instead of the thread local
+ * {@link DebugValueMap}s if {@link GraalDebugConfig.Options#StripedDebugValues} is enabled.
+ *
+ * Each value is accumulated in a {@link LongAdder} stored at its {@linkplain KeyRegistry key
+ * index}. A {@link LongAdder} spreads contended updates over padded cells selected per thread, so
+ * updating a value is lock-free and does not require a map lookup. Since there is no per-thread
+ * state to merge, the values can be read at any time with {@link #snapshot()} while compiler
+ * threads keep running.
+ */
+public final class StripedDebugValues {
+
+    public static final boolean ENABLED = GraalDebugConfig.Options.StripedDebugValues.getValue() || GraalDebugConfig.Options.DebugValueExportInterval.getValue() > 0;
+
+    /**
+     * The cells indexed by {@link DebugValue#getIndex()}. The array is never modified after it was
+     * published. Adding a cell replaces it with a copy, so readers never need to lock.
+     */
+    private static volatile LongAdder[] cells = new LongAdder[256];
+
+    private StripedDebugValues() {
+    }
+
+    /**
+     * Adds {@code value} to the value at {@code index}.
+     */
+    public static void add(int index, long value) {
+        LongAdder[] c = cells;
+        LongAdder cell = index < c.length ? c[index] : null;
+        if (cell == null) {
+            cell = createCell(index);
+        }
+        cell.add(value);
+    }
+
+    private static synchronized LongAdder createCell(int index) {
+        LongAdder[] c = cells;
+        if (index < c.length && c[index] != null) {
+            return c[index];
+        }
+        LongAdder[] copy = Arrays.copyOf(c, index < c.length ? c.length : Math.max(index + 1, c.length * 2));
+        copy[index] = new LongAdder();
+        cells = copy;
+        return copy[index];
+    }
+
+    /**
+     * Gets the current value at {@code index}. Concurrent updates may or may not be included.
+     */
+    public static long get(int index) {
+        LongAdder[] c = cells;
+        LongAdder cell = index < c.length ? c[index] : null;
+        return cell == null ? 0L : cell.sum();
+    }
+
+    /**
+     * Gets the current values of all {@linkplain KeyRegistry#getDebugValues() registered debug
+     * values} without stopping threads that update them.
+     *
+     * @return an array whose {@code i}th element is the value of
+     *         {@code KeyRegistry.getDebugValues().get(i)}
+     */
+    public static long[] snapshot() {
+        List<DebugValue> debugValues = KeyRegistry.getDebugValues();
+        long[] result = new long[debugValues.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Sets all values to 0.
+     */
+    public static void reset() {
+        for (LongAdder cell : cells) {
+            if (cell != null) {
+                cell.reset();
+            }
+        }
+    }
+}
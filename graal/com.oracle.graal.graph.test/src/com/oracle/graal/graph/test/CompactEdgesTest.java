@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static com.oracle.graal.nodeinfo.NodeCycles.CYCLES_IGNORED;
+import static com.oracle.graal.nodeinfo.NodeSize.SIZE_IGNORED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.api.test.Graal;
+import com.oracle.graal.graph.CompactEdges;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeInputList;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+public class CompactEdgesTest {
+
+    @NodeInfo(cycles = CYCLES_IGNORED, size = SIZE_IGNORED)
+    static final class Def extends Node {
+        public static final NodeClass<Def> TYPE = NodeClass.create(Def.class);
+
+        protected Def() {
+            super(TYPE);
+        }
+    }
+
+    @NodeInfo(cycles = CYCLES_IGNORED, size = SIZE_IGNORED)
+    static final class Use extends Node {
+        public static final NodeClass<Use> TYPE = NodeClass.create(Use.class);
+        @Input Def in0;
+        @OptionalInput Def in1;
+        @Input NodeInputList<Def> list;
+
+        protected Use(Def in0, Def in1, Def... list) {
+            super(TYPE);
+            this.in0 = in0;
+            this.in1 = in1;
+            this.list = new NodeInputList<>(this, list);
+        }
+    }
+
+    private Graph graph;
+    private Def[] defs;
+    private List<Use> uses;
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+
+        graph = new Graph();
+        defs = new Def[4];
+        for (int i = 0; i < defs.length; i++) {
+            defs[i] = graph.add(new Def());
+        }
+        uses = new ArrayList<>();
+        uses.add(graph.add(new Use(defs[0], null)));
+        uses.add(graph.add(new Use(defs[0], defs[1], defs[2], defs[0])));
+        uses.add(graph.add(new Use(defs[3], defs[3], defs[1], defs[2], defs[3])));
+        uses.add(graph.add(new Use(defs[1], null, defs[2])));
+    }
+
+    /**
+     * Checks that the snapshot has the same inputs and usages as the nodes of the graph, in the
+     * same order, and no edges for unused ids.
+     */
+    private void assertMatchesGraph(CompactEdges edges) {
+        assertTrue(edges.isValid());
+        assertSame(graph, edges.getGraph());
+        for (int id = 0; id < edges.idBound(); id++) {
+            Node node = graph.getNode(id);
+            List<Node> inputs = new ArrayList<>();
+            List<Node> usages = new ArrayList<>();
+            if (node != null) {
+                node.inputs().forEach(inputs::add);
+                node.usages().forEach(usages::add);
+            }
+            assertEquals(inputs.size(), edges.getInputCount(id));
+            for (int i = 0; i < inputs.size(); i++) {
+                assertSame(inputs.get(i), edges.getInput(id, i));
+            }
+            assertEquals(usages.size(), edges.getUsageCount(id));
+            for (int i = 0; i < usages.size(); i++) {
+                assertSame(usages.get(i), edges.getUsage(id, i));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesGraph() {
+        CompactEdges edges = graph.getCompactEdges();
+        assertMatchesGraph(edges);
+        assertSame(edges, graph.getCompactEdges());
+    }
+
+    @Test
+    public void testReplaceInput() {
+        CompactEdges edges = graph.getCompactEdges();
+        uses.get(1).replaceFirstInput(defs[1], defs[3]);
+        assertFalse(edges.isValid());
+        CompactEdges updated = graph.getCompactEdges();
+        assertNotSame(edges, updated);
+        assertMatchesGraph(updated);
+    }
+
+    @Test
+    public void testReplaceAtUsages() {
+        CompactEdges edges = graph.getCompactEdges();
+        defs[0].replaceAtUsages(defs[2]);
+        assertFalse(edges.isValid());
+        assertMatchesGraph(graph.getCompactEdges());
+        assertEquals(0, graph.getCompactEdges().getUsageCount(indexOf(defs[0])));
+    }
+
+    @Test
+    public void testAddAndDelete() {
+        CompactEdges edges = graph.getCompactEdges();
+        Use use = graph.add(new Use(defs[1], defs[0]));
+        assertFalse(edges.isValid());
+        edges = graph.getCompactEdges();
+        assertMatchesGraph(edges);
+        assertEquals(2, edges.getInputCount(indexOf(use)));
+
+        int deletedId = indexOf(uses.get(0));
+        use.safeDelete();
+        uses.get(0).safeDelete();
+        assertFalse(edges.isValid());
+        edges = graph.getCompactEdges();
+        assertMatchesGraph(edges);
+        assertEquals(0, edges.getInputCount(deletedId));
+    }
+
+    @Test
+    public void testListChange() {
+        CompactEdges edges = graph.getCompactEdges();
+        uses.get(3).list.add(defs[0]);
+        assertFalse(edges.isValid());
+        assertMatchesGraph(graph.getCompactEdges());
+    }
+
+    /**
+     * Finds the id of a live node through the graph.
+     */
+    private int indexOf(Node node) {
+        CompactEdges edges = graph.getCompactEdges();
+        for (int id = 0; id < edges.idBound(); id++) {
+            if (graph.getNode(id) == node) {
+                return id;
+            }
+        }
+        return -1;
+    }
+}
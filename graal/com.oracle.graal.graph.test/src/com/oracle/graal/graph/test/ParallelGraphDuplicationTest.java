@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static com.oracle.graal.nodeinfo.NodeCycles.CYCLES_IGNORED;
+import static com.oracle.graal.nodeinfo.NodeSize.SIZE_IGNORED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.api.test.Graal;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeInputList;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+/**
+ * Checks that duplicating a graph on multiple threads creates the same nodes, ids and edges as
+ * sequential duplication.
+ */
+public class ParallelGraphDuplicationTest {
+
+    @NodeInfo(cycles = CYCLES_IGNORED, size = SIZE_IGNORED)
+    static final class Def extends Node {
+        public static final NodeClass<Def> TYPE = NodeClass.create(Def.class);
+
+        protected Def() {
+            super(TYPE);
+        }
+    }
+
+    @NodeInfo(cycles = CYCLES_IGNORED, size = SIZE_IGNORED)
+    static final class Fixed extends Node {
+        public static final NodeClass<Fixed> TYPE = NodeClass.create(Fixed.class);
+        @Successor Fixed next;
+        @Input NodeInputList<Node> values;
+
+        protected Fixed(Node... values) {
+            super(TYPE);
+            this.values = new NodeInputList<>(this, values);
+        }
+
+        void setNext(Fixed x) {
+            updatePredecessor(next, x);
+            next = x;
+        }
+    }
+
+    private static final int NODE_COUNT = 2000;
+
+    private Graph graph;
+    private Def[] defs;
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+
+        graph = new Graph();
+        defs = new Def[8];
+        for (int i = 0; i < defs.length; i++) {
+            defs[i] = graph.add(new Def());
+        }
+        List<Fixed> fixed = new ArrayList<>();
+        Fixed last = null;
+        for (int i = 0; i < NODE_COUNT; i++) {
+            Fixed node;
+            if (i % 3 == 0 || last == null) {
+                node = graph.add(new Fixed(defs[i % defs.length]));
+            } else {
+                node = graph.add(new Fixed(defs[i % defs.length], fixed.get(i / 2), last));
+            }
+            if (last != null) {
+                last.setNext(node);
+            }
+            fixed.add(node);
+            last = node;
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        assertSameDuplicates(threshold -> duplicate(threshold, (Map<Node, Node>) null));
+    }
+
+    @Test
+    public void testMapReplacement() {
+        assertSameDuplicates(threshold -> {
+            Graph copy = new Graph();
+            Def outside = copy.add(new Def());
+            Map<Node, Node> replacements = new HashMap<>();
+            replacements.put(defs[0], outside);
+            replacements.put(defs[5], outside);
+            return duplicate(copy, threshold, replacements);
+        });
+    }
+
+    private Map<Node, Node> duplicate(int threshold, Map<Node, Node> replacements) {
+        return duplicate(new Graph(), threshold, replacements);
+    }
+
+    @SuppressWarnings("try")
+    private Map<Node, Node> duplicate(Graph copy, int threshold, Map<Node, Node> replacements) {
+        try (OverrideScope s = OptionValue.override(NodeClass.Options.ParallelGraphDuplicationThreshold, threshold)) {
+            return copy.addDuplicates(graph.getNodes(), graph, graph.getNodeCount(), replacements);
+        }
+    }
+
+    /**
+     * Duplicates the graph sequentially and, with the threshold forced low, in a pool with several
+     * threads, and compares the ids and edges of the copies of each node.
+     */
+    private void assertSameDuplicates(Function<Integer, Map<Node, Node>> duplicator) {
+        Map<Node, Node> sequential = duplicator.apply(0);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<Node, Node> parallel;
+        try {
+            parallel = pool.submit(() -> duplicator.apply(1)).get();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        } finally {
+            pool.shutdown();
+        }
+        for (Node node : graph.getNodes()) {
+            Node expected = sequential.get(node);
+            Node actual = parallel.get(node);
+            assertNotNull(actual);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(id(expected), id(actual));
+            assertEquals(ids(expected.inputs()), ids(actual.inputs()));
+            assertEquals(ids(expected.successors()), ids(actual.successors()));
+            assertEquals(ids(expected.usages()), ids(actual.usages()));
+            assertEquals(id(expected.predecessor()), id(actual.predecessor()));
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int id(Node node) {
+        return node == null ? -1 : node.getId();
+    }
+
+    private static List<Integer> ids(Iterable<Node> nodes) {
+        List<Integer> result = new ArrayList<>();
+        for (Node node : nodes) {
+            result.add(id(node));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static com.oracle.graal.nodeinfo.NodeCycles.CYCLES_IGNORED;
+import static com.oracle.graal.nodeinfo.NodeSize.SIZE_IGNORED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.api.test.Graal;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.Node.ValueNumberable;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+/**
+ * Checks that {@link Graph#findDuplicate(Node)} finds the same duplicates with and without the
+ * value number table after the edits that the table has to follow.
+ */
+public class ValueNumberTableTest {
+
+    @NodeInfo(cycles = CYCLES_IGNORED, size = SIZE_IGNORED)
+    static final class Def extends Node {
+        public static final NodeClass<Def> TYPE = NodeClass.create(Def.class);
+
+        protected Def() {
+            super(TYPE);
+        }
+    }
+
+    @NodeInfo(cycles = CYCLES_IGNORED, size = SIZE_IGNORED)
+    static final class Op extends Node implements ValueNumberable {
+        public static final NodeClass<Op> TYPE = NodeClass.create(Op.class);
+        @Input Node x;
+        @OptionalInput Node y;
+        final int data;
+
+        protected Op(Node x, Node y, int data) {
+            super(TYPE);
+            this.x = x;
+            this.y = y;
+            this.data = data;
+        }
+    }
+
+    private static final int DEF_COUNT = 6;
+    private static final int OP_COUNT = 300;
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+    }
+
+    /**
+     * Builds a graph with many duplicate operations and edits it in the same way with or without
+     * the value number table, so that both graphs end up with the same node ids.
+     */
+    private static Graph buildAndEdit(boolean useTable) {
+        Graph graph = new Graph();
+        if (useTable) {
+            graph.enableValueNumberTable();
+        }
+        Def[] defs = new Def[DEF_COUNT];
+        for (int i = 0; i < defs.length; i++) {
+            defs[i] = graph.add(new Def());
+        }
+        List<Op> ops = new ArrayList<>();
+        for (int i = 0; i < OP_COUNT; i++) {
+            Node x = i < 20 ? defs[i % DEF_COUNT] : ops.get(i % 20);
+            Node y = i % 4 == 0 ? null : defs[(i * 7) % DEF_COUNT];
+            ops.add(graph.add(new Op(x, y, i % 3)));
+        }
+
+        // merges the users of two inputs, which creates new duplicates
+        defs[1].replaceAtUsages(defs[0]);
+        ops.get(3).replaceAtUsages(ops.get(9));
+
+        // deletes enough nodes to trigger compression
+        for (int i = ops.size() - 1; i >= 0; i--) {
+            Op op = ops.get(i);
+            if (op.isAlive() && op.hasNoUsages() && i % 5 != 0) {
+                op.safeDelete();
+            }
+        }
+        assertTrue(graph.maybeCompress());
+
+        // duplicates some of the remaining operations, whose inputs stay in the graph
+        List<Node> toDuplicate = new ArrayList<>();
+        for (Op op : ops) {
+            if (op.isAlive() && toDuplicate.size() < 10) {
+                toDuplicate.add(op);
+            }
+        }
+        graph.addDuplicates(toDuplicate, graph, toDuplicate.size(), (Map<Node, Node>) null);
+
+        // moves a node to another entry of the table
+        ops.get(5).replaceFirstInput(ops.get(5).x, defs[2]);
+        return graph;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int id(Node node) {
+        return node == null ? -1 : node.getId();
+    }
+
+    private static List<Node> duplicatesOf(Graph graph, Node node) {
+        List<Node> result = new ArrayList<>();
+        for (Node other : graph.getNodes()) {
+            if (other != node && other.getNodeClass() == node.getNodeClass() && node.valueEquals(other) && node.getNodeClass().equalInputs(node, other) &&
+                            node.getNodeClass().equalSuccessors(node, other)) {
+                result.add(other);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testSameDuplicates() {
+        Graph withTable = buildAndEdit(true);
+        Graph withoutTable = buildAndEdit(false);
+        assertTrue(withTable.hasValueNumberTable());
+        assertEquals(withoutTable.getNodeCount(), withTable.getNodeCount());
+
+        List<Node> nodes = new ArrayList<>();
+        withoutTable.getNodes().forEach(nodes::add);
+        List<Node> tableNodes = new ArrayList<>();
+        withTable.getNodes().forEach(tableNodes::add);
+
+        int found = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            Node tableNode = tableNodes.get(i);
+            assertEquals(id(node), id(tableNode));
+            if (!(node instanceof Op)) {
+                continue;
+            }
+            List<Node> expected = duplicatesOf(withoutTable, node);
+            Node duplicate = withoutTable.findDuplicate(node);
+            Node tableDuplicate = withTable.findDuplicate(tableNode);
+            assertEquals(expected.isEmpty(), duplicate == null);
+            assertEquals(expected.isEmpty(), tableDuplicate == null);
+            if (expected.size() == 1) {
+                assertEquals(id(duplicate), id(tableDuplicate));
+            } else if (!expected.isEmpty()) {
+                assertTrue(expected.contains(duplicate));
+                assertTrue(duplicatesOf(withTable, tableNode).contains(tableDuplicate));
+            }
+            if (duplicate != null) {
+                found++;
+            }
+        }
+        assertTrue("no duplicates left to find", found > 0);
+    }
+}
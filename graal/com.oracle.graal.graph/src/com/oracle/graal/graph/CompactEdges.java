@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+/**
+ * Read-only snapshot of the input and usage edges of the live nodes of a graph, stored as
+ * primitive arrays indexed by node id. Inputs and usages of all nodes are packed in two int arrays
+ * of node ids, and two offset arrays give the range belonging to each node. Traversals over this
+ * form touch a few dense arrays instead of the fields and usage arrays of each node.
+ *
+ * A snapshot is obtained from {@link Graph#getCompactEdges()} and describes the graph until the
+ * next change to its nodes or edges, after which {@link #isValid()} returns {@code false}.
+ * Successor edges are not recorded.
+ */
+public final class CompactEdges {
+
+    private final Graph graph;
+    private final int edgeModificationCount;
+    private final int compressions;
+
+    /**
+     * The number of node ids covered by this snapshot.
+     */
+    private final int idBound;
+
+    /**
+     * The inputs of the node with id {@code i} are {@code inputs[inputStart[i]]} up to
+     * {@code inputs[inputStart[i + 1] - 1]}.
+     */
+    private final int[] inputStart;
+    private final int[] inputs;
+
+    /**
+     * Laid out like {@link #inputStart} and {@link #inputs}.
+     */
+    private final int[] usageStart;
+    private final int[] usages;
+
+    CompactEdges(Graph graph) {
+        this.graph = graph;
+        this.edgeModificationCount = graph.edgeModificationCount;
+        this.compressions = graph.compressions;
+        this.idBound = graph.nodeIdCount();
+        int edgeCount = 0;
+        for (int id = 0; id < idBound; id++) {
+            Node node = graph.getNode(id);
+            if (node != null) {
+                edgeCount += node.getUsageCount();
+            }
+        }
+        /*
+         * Every non-null input edge of a live node is recorded in the usages of the input, so
+         * both arrays have the same length.
+         */
+        inputStart = new int[idBound + 1];
+        inputs = new int[edgeCount];
+        usageStart = new int[idBound + 1];
+        usages = new int[edgeCount];
+        int inputPos = 0;
+        int usagePos = 0;
+        for (int id = 0; id < idBound; id++) {
+            inputStart[id] = inputPos;
+            usageStart[id] = usagePos;
+            Node node = graph.getNode(id);
+            if (node != null) {
+                inputPos = node.getNodeClass().appendInputIds(node, inputs, inputPos);
+                int usageCount = node.getUsageCount();
+                for (int i = 0; i < usageCount; i++) {
+                    usages[usagePos++] = node.getUsageAt(i).id;
+                }
+            }
+        }
+        inputStart[idBound] = inputPos;
+        usageStart[idBound] = usagePos;
+        assert inputPos == edgeCount : "input and usage edges are inconsistent";
+    }
+
+    /**
+     * Determines if the graph is unchanged since this snapshot was taken.
+     */
+    public boolean isValid() {
+        return graph.edgeModificationCount == edgeModificationCount && graph.compressions == compressions;
+    }
+
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Gets the number of node ids covered by this snapshot. Ids of deleted nodes have no edges.
+     */
+    public int idBound() {
+        return idBound;
+    }
+
+    public int getInputCount(int id) {
+        return inputStart[id + 1] - inputStart[id];
+    }
+
+    /**
+     * Gets the id of the {@code index}th non-null input of the node with id {@code id}, in the
+     * order of {@link Node#inputs()}.
+     */
+    public int getInputId(int id, int index) {
+        assert index < getInputCount(id);
+        return inputs[inputStart[id] + index];
+    }
+
+    public Node getInput(int id, int index) {
+        return graph.getNode(getInputId(id, index));
+    }
+
+    public int getUsageCount(int id) {
+        return usageStart[id + 1] - usageStart[id];
+    }
+
+    /**
+     * Gets the id of the {@code index}th usage of the node with id {@code id}, in the order of
+     * {@link Node#usages()}.
+     */
+    public int getUsageId(int id, int index) {
+        assert index < getUsageCount(id);
+        return usages[usageStart[id] + index];
+    }
+
+    public Node getUsage(int id, int index) {
+        return graph.getNode(getUsageId(id, index));
+    }
+
+    /**
+     * Gets the number of bytes used by the arrays of this snapshot, excluding array headers.
+     */
+    public long getSizeInBytes() {
+        return 4L * (inputStart.length + inputs.length + usageStart.length + usages.length);
+    }
+}
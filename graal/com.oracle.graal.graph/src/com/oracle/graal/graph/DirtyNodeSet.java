@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.Fields;
+import com.oracle.graal.graph.Graph.NodeEventListener;
+
+/**
+ * The nodes of a graph that changed since the graph was last known to be canonical. A graph
+ * {@linkplain Graph#trackDirtyNodes() tracking} dirty nodes receives the same events as a
+ * {@link NodeEventListener} for the whole lifetime of the graph, plus changes to successor edges
+ * and stamps, so that canonicalization can be restricted to the affected nodes. A node whose
+ * inputs change also makes its usages dirty, since their canonicalization may depend on the
+ * inputs of their inputs.
+ *
+ * Data fields can be assigned without any notification. To cover them, the set keeps a hash of
+ * the data fields of each node when tracking is (re)started and compares it with the current
+ * values when the dirty nodes are {@linkplain #take() taken}.
+ */
+public final class DirtyNodeSet implements NodeEventListener {
+
+    private final Graph graph;
+    private final NodeBitMap marked;
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Hashes of the data fields of the nodes, indexed by node id.
+     */
+    private int[] dataHashes;
+
+    DirtyNodeSet(Graph graph) {
+        this.graph = graph;
+        this.marked = graph.createNodeBitMap();
+        snapshotData();
+    }
+
+    public void add(Node node) {
+        if (node.isAlive() && node.graph() == graph && !marked.isMarkedAndGrow(node)) {
+            marked.mark(node);
+            nodes.add(node);
+        }
+    }
+
+    public void addUsages(Node node) {
+        for (Node usage : node.usages()) {
+            add(usage);
+        }
+    }
+
+    /**
+     * Adds {@code node} and its usages, which is used when a property of {@code node} that its
+     * usages may depend on, such as its stamp, changed.
+     */
+    public void addWithUsages(Node node) {
+        add(node);
+        addUsages(node);
+    }
+
+    @Override
+    public void nodeAdded(Node node) {
+        add(node);
+    }
+
+    @Override
+    public void inputChanged(Node node) {
+        addWithUsages(node);
+    }
+
+    @Override
+    public void usagesDroppedToZero(Node node) {
+        add(node);
+    }
+
+    /**
+     * Determines if no change was recorded through node events. Changes to data fields are only
+     * detected by {@link #take()}.
+     */
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Gets the dirty nodes that are still alive, in the order they became dirty, and clears this
+     * set.
+     */
+    public List<Node> take() {
+        collectDataChanges();
+        List<Node> result = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (node.isAlive()) {
+                result.add(node);
+            }
+        }
+        nodes.clear();
+        marked.clearAll();
+        return result;
+    }
+
+    /**
+     * Clears this set and records the current data fields of all nodes.
+     */
+    public void clear() {
+        nodes.clear();
+        marked.clearAll();
+        snapshotData();
+    }
+
+    /**
+     * Adds the nodes whose data fields changed since the last snapshot, together with their
+     * usages.
+     */
+    void collectDataChanges() {
+        for (Node node : graph.getNodes()) {
+            int id = node.id();
+            if (id < dataHashes.length && dataHashes[id] != dataHash(node)) {
+                addWithUsages(node);
+            }
+        }
+    }
+
+    /**
+     * Re-marks the dirty nodes after their ids changed during {@linkplain Graph#maybeCompress()
+     * compression}. The data changes were {@linkplain #collectDataChanges() collected} before the
+     * ids changed.
+     */
+    void nodeIdsChanged() {
+        List<Node> dirty = new ArrayList<>(nodes);
+        nodes.clear();
+        marked.clearAll();
+        for (Node node : dirty) {
+            if (node.isAlive()) {
+                add(node);
+            }
+        }
+        snapshotData();
+    }
+
+    private void snapshotData() {
+        dataHashes = new int[graph.nodeIdCount()];
+        for (Node node : graph.getNodes()) {
+            dataHashes[node.id()] = dataHash(node);
+        }
+    }
+
+    private static int dataHash(Node node) {
+        Fields data = node.getNodeClass().getData();
+        int hash = 0;
+        for (int i = 0; i < data.getCount(); i++) {
+            if (data.getType(i).isPrimitive()) {
+                hash = hash * 31 + Long.hashCode(data.getRawPrimitive(node, i));
+            } else {
+                hash = hash * 31 + Arrays.deepHashCode(new Object[]{data.getObject(node, i)});
+            }
+        }
+        return hash;
+    }
+}
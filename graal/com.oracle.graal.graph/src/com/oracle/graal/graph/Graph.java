@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -56,6 +56,8 @@ public class Graph {
         public static final OptionValue<Integer> GraphCompressionThreshold = new OptionValue<>(70);
         @Option(help = "Use Unsafe to clone graph nodes thus avoiding copying fields that will be re-initialized anyway", type = OptionType.Debug)//
         public static final OptionValue<Boolean> CloneNodesWithUnsafe = new OptionValue<>(true);
+        @Option(help = "Maintain a hash table of value numberable nodes for global value numbering in graphs processed by the canonicalizer", type = OptionType.Expert)//
+        public static final OptionValue<Boolean> GlobalValueNumberingTable = new OptionValue<>(false);
     }
 
     public final String name;
@@ -111,6 +113,29 @@ public class Graph {
      */
     private final HashMap<CacheEntry, Node> cachedLeafNodes = CollectionsFactory.newMap();
 
+    /**
+     * Used to global value number {@link ValueNumberable} non-leaf nodes once
+     * {@linkplain #enableValueNumberTable() enabled}.
+     */
+    private ValueNumberTable valueNumberTable;
+
+    /**
+     * Incremented whenever a node is added or deleted or a usage list changes. Used to detect
+     * outdated {@link CompactEdges} snapshots.
+     */
+    int edgeModificationCount;
+
+    /**
+     * The last snapshot returned by {@link #getCompactEdges()}.
+     */
+    private CompactEdges compactEdges;
+
+    /**
+     * The nodes changed since tracking was {@linkplain #trackDirtyNodes() started}, or {@code null}
+     * if changes are not tracked.
+     */
+    DirtyNodeSet dirtyNodes;
+
     /*
      * Indicates that the graph should no longer be modified. Frozen graphs can be used my multiple
      * threads so it's only safe to read them.
@@ -618,6 +643,69 @@ public class Graph {
         return result;
     }
 
+    /**
+     * Starts maintaining a hash table of the value numberable non-leaf nodes of this graph, which
+     * {@link #findDuplicate(Node)} then uses instead of scanning the usages of an input. The table
+     * is kept up to date until the graph is discarded.
+     */
+    public void enableValueNumberTable() {
+        if (valueNumberTable == null) {
+            valueNumberTable = new ValueNumberTable(this);
+        }
+    }
+
+    public boolean hasValueNumberTable() {
+        return valueNumberTable != null;
+    }
+
+    /**
+     * Gets a {@link CompactEdges} snapshot of the input and usage edges of this graph. The
+     * snapshot is cached and reused until the graph is modified.
+     */
+    public CompactEdges getCompactEdges() {
+        if (compactEdges == null || !compactEdges.isValid()) {
+            compactEdges = new CompactEdges(this);
+        }
+        return compactEdges;
+    }
+
+    /**
+     * Starts recording the nodes that are added or whose edges, usages or stamps change in a
+     * {@link DirtyNodeSet}, or clears the set if changes are already being recorded.
+     */
+    public void trackDirtyNodes() {
+        if (dirtyNodes == null) {
+            dirtyNodes = new DirtyNodeSet(this);
+        } else {
+            dirtyNodes.clear();
+        }
+    }
+
+    /**
+     * Stops recording dirty nodes. This is used when a change to the graph as a whole may enable
+     * canonicalizations of nodes that did not change.
+     */
+    public void stopTrackingDirtyNodes() {
+        dirtyNodes = null;
+    }
+
+    /**
+     * Gets the nodes changed since {@link #trackDirtyNodes()} was called, or {@code null} if changes
+     * are not being recorded.
+     */
+    public DirtyNodeSet getDirtyNodes() {
+        return dirtyNodes;
+    }
+
+    /**
+     * Notifies the value number table that the inputs of {@code node} changed.
+     */
+    void valueNumberInputsChanged(Node node) {
+        if (valueNumberTable != null && node.isAlive() && ValueNumberTable.isCandidate(node)) {
+            valueNumberTable.update(node);
+        }
+    }
+
     /**
      * Returns a possible duplicate for the given node in the graph or {@code null} if no such
      * duplicate exists.
@@ -655,6 +743,9 @@ public class Graph {
                 }
             }
             if (minCountNode != null) {
+                if (valueNumberTable != null) {
+                    return (T) valueNumberTable.find(node);
+                }
                 for (Node usage : minCountNode.usages()) {
                     if (usage != node && nodeClass == usage.getNodeClass() && node.valueEquals(usage) && nodeClass.equalInputs(node, usage) &&
                                     nodeClass.equalSuccessors(node, usage)) {
@@ -795,6 +886,9 @@ public class Graph {
             return false;
         }
         GraphCompressions.increment();
+        if (dirtyNodes != null) {
+            dirtyNodes.collectDataChanges();
+        }
         int nextId = 0;
         for (int i = 0; nextId < liveNodeCount; i++) {
             Node n = nodes[i];
@@ -818,6 +912,12 @@ public class Graph {
         compressions++;
         nodesDeletedBeforeLastCompression += nodesDeletedSinceLastCompression;
         nodesDeletedSinceLastCompression = 0;
+        if (valueNumberTable != null) {
+            valueNumberTable.rebuild();
+        }
+        if (dirtyNodes != null) {
+            dirtyNodes.nodeIdsChanged();
+        }
         return true;
     }
 
@@ -953,9 +1053,16 @@ public class Graph {
         updateNodeCaches(node);
 
         node.id = id;
+        edgeModificationCount++;
+        if (valueNumberTable != null && ValueNumberTable.isCandidate(node)) {
+            valueNumberTable.update(node);
+        }
         if (nodeEventListener != null) {
             nodeEventListener.nodeAdded(node);
         }
+        if (dirtyNodes != null) {
+            dirtyNodes.nodeAdded(node);
+        }
         if (!seenNodeSourcePosition && node.sourcePosition != null) {
             seenNodeSourcePosition = true;
         }
@@ -1004,8 +1111,12 @@ public class Graph {
     void unregister(Node node) {
         assert !isFrozen();
         assert !node.isDeleted() : "cannot delete a node twice! node=" + node;
+        if (valueNumberTable != null) {
+            valueNumberTable.remove(node);
+        }
         nodes[node.id] = null;
         nodesDeletedSinceLastCompression++;
+        edgeModificationCount++;
 
         // nodes aren't removed from the type cache here - they will be removed during iteration
     }
@@ -1068,7 +1179,7 @@ public class Graph {
         Node replacement(Node original);
     }
 
-    private static final class MapReplacement implements DuplicationReplacement {
+    static final class MapReplacement implements DuplicationReplacement {
 
         private final Map<Node, Node> map;
 
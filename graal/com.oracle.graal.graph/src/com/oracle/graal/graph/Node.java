@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -431,6 +431,7 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
      */
     void addUsage(Node node) {
         incUsageModCount();
+        incEdgeModificationCount();
         if (usage0 == null) {
             usage0 = node;
         } else if (usage1 == null) {
@@ -449,6 +450,7 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
     }
 
     private void movUsageFromEndTo(int destIndex) {
+        incEdgeModificationCount();
         int lastIndex = this.getUsageCount() - 1;
         if (destIndex == 0) {
             if (lastIndex == 0) {
@@ -533,6 +535,12 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
         }
     }
 
+    private void incEdgeModificationCount() {
+        if (graph != null) {
+            graph.edgeModificationCount++;
+        }
+    }
+
     public boolean isDeleted() {
         return id <= DELETED_ID_START;
     }
@@ -584,6 +592,15 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
                 assert assertTrue(newSuccessor.predecessor == null, "unexpected non-null predecessor in new successor (%s): %s, this=%s", newSuccessor, newSuccessor.predecessor, this);
                 newSuccessor.predecessor = this;
             }
+            if (graph != null && graph.dirtyNodes != null) {
+                graph.dirtyNodes.add(this);
+                if (newSuccessor != null) {
+                    graph.dirtyNodes.add(newSuccessor);
+                }
+                if (oldSuccessor != null) {
+                    graph.dirtyNodes.add(oldSuccessor);
+                }
+            }
         }
     }
 
@@ -723,10 +740,14 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
     private void maybeNotifyInputChanged(Node node) {
         if (graph != null) {
             assert !graph.isFrozen();
+            graph.valueNumberInputsChanged(node);
             NodeEventListener listener = graph.nodeEventListener;
             if (listener != null) {
                 listener.inputChanged(node);
             }
+            if (graph.dirtyNodes != null) {
+                graph.dirtyNodes.inputChanged(node);
+            }
             if (Fingerprint.ENABLED) {
                 Fingerprint.submit("%s: %s", NodeEvent.INPUT_CHANGED, node);
             }
@@ -740,6 +761,9 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
             if (listener != null && node.isAlive()) {
                 listener.usagesDroppedToZero(node);
             }
+            if (graph.dirtyNodes != null) {
+                graph.dirtyNodes.usagesDroppedToZero(node);
+            }
             if (Fingerprint.ENABLED) {
                 Fingerprint.submit("%s: %s", NodeEvent.ZERO_USAGES, node);
             }
@@ -924,6 +948,34 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
         return newNode;
     }
 
+    /**
+     * Registers {@code newNode}, a copy of this non-leaf node made by {@link #clone(Graph, EnumSet)}
+     * without a target graph, in {@code into} the same way the copy would have been registered by
+     * {@code clone(into, edgesToCopy)}.
+     */
+    final void registerClone(Graph into, Node newNode) {
+        assert newNode.graph == null && newNode.id == INITIAL_ID;
+        assert !getNodeClass().isLeafNode() : "leaf nodes must be cloned through the leaf node cache";
+        newNode.graph = into;
+        into.register(newNode);
+        if (graph != null && sourcePosition != null) {
+            newNode.setNodeSourcePosition(sourcePosition);
+        }
+    }
+
+    /**
+     * Registers this node as a usage of its inputs and as the predecessor of its successors after
+     * its edges were initialized without notifying the nodes on the other end.
+     */
+    final void registerAtEdges() {
+        NodeClass<?> nodeClass = getNodeClass();
+        nodeClass.registerAtInputsAsUsage(this);
+        nodeClass.registerAtSuccessorsAsPredecessor(this);
+        if (inputs().isNotEmpty()) {
+            maybeNotifyInputChanged(this);
+        }
+    }
+
     protected void afterClone(@SuppressWarnings("unused") Node other) {
     }
 
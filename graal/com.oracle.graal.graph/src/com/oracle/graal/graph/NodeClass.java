@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2014, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -42,7 +42,11 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 import com.oracle.graal.compiler.common.FieldIntrospection;
 import com.oracle.graal.compiler.common.Fields;
@@ -69,6 +73,7 @@ import com.oracle.graal.nodeinfo.NodeInfo;
 import com.oracle.graal.nodeinfo.NodeSize;
 import com.oracle.graal.nodeinfo.Verbosity;
 import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
 import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.options.StableOptionValue;
 
@@ -86,6 +91,8 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
         // @formatter:off
         @Option(help = "Verifies that receivers of NodeInfo#size() and NodeInfo#cycles() do not have UNSET values.")
         public static final OptionValue<Boolean> VerifyNodeCostOnAccess = new StableOptionValue<>(false);
+        @Option(help = "Duplicate graphs of at least this many nodes on multiple threads (0 disables parallel duplication).", type = OptionType.Expert)
+        public static final OptionValue<Integer> ParallelGraphDuplicationThreshold = new OptionValue<>(0);
         // @formatter:on
     }
 
@@ -155,6 +162,7 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
     private final long successorIteration;
 
     private static final DebugCounter ITERABLE_NODE_TYPES = Debug.counter("IterableNodeTypes");
+    private static final DebugCounter ParallelGraphDuplications = Debug.counter("ParallelGraphDuplications");
     private final DebugCounter nodeIterableCount;
 
     /**
@@ -718,7 +726,7 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
         return toEdges.isSame(fromEdges, pos.getIndex());
     }
 
-    static void updateEdgesInPlace(Node node, InplaceUpdateClosure duplicationReplacement, Edges edges) {
+    static void updateEdgesInPlace(Node node, InplaceUpdateClosure duplicationReplacement, Edges edges, boolean notify) {
         int index = 0;
         Type curType = edges.type();
         int directCount = edges.getDirectCount();
@@ -727,10 +735,12 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
             Node edge = Edges.getNode(node, curOffsets, index);
             if (edge != null) {
                 Node newEdge = duplicationReplacement.replacement(edge, curType);
-                if (curType == Edges.Type.Inputs) {
-                    node.updateUsages(null, newEdge);
-                } else {
-                    node.updatePredecessor(null, newEdge);
+                if (notify) {
+                    if (curType == Edges.Type.Inputs) {
+                        node.updateUsages(null, newEdge);
+                    } else {
+                        node.updatePredecessor(null, newEdge);
+                    }
                 }
                 edges.initializeNode(node, index, newEdge);
             }
@@ -740,25 +750,38 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
         while (index < edges.getCount()) {
             NodeList<Node> list = Edges.getNodeList(node, curOffsets, index);
             if (list != null) {
-                edges.initializeList(node, index, updateEdgeListCopy(node, list, duplicationReplacement, curType));
+                edges.initializeList(node, index, updateEdgeListCopy(node, list, duplicationReplacement, curType, notify));
             }
             index++;
         }
     }
 
     void updateInputSuccInPlace(Node node, InplaceUpdateClosure duplicationReplacement) {
-        updateEdgesInPlace(node, duplicationReplacement, inputs);
-        updateEdgesInPlace(node, duplicationReplacement, successors);
+        updateEdgesInPlace(node, duplicationReplacement, inputs, true);
+        updateEdgesInPlace(node, duplicationReplacement, successors, true);
+    }
+
+    /**
+     * Like {@link #updateInputSuccInPlace} but without registering {@code node} at its new inputs
+     * and successors. Only {@code node} itself is modified.
+     */
+    void initializeInputSuccInPlace(Node node, InplaceUpdateClosure duplicationReplacement) {
+        updateEdgesInPlace(node, duplicationReplacement, inputs, false);
+        updateEdgesInPlace(node, duplicationReplacement, successors, false);
     }
 
-    private static NodeList<Node> updateEdgeListCopy(Node node, NodeList<Node> list, InplaceUpdateClosure duplicationReplacement, Edges.Type type) {
+    private static NodeList<Node> updateEdgeListCopy(Node node, NodeList<Node> list, InplaceUpdateClosure duplicationReplacement, Edges.Type type, boolean notify) {
         NodeList<Node> result = type == Edges.Type.Inputs ? new NodeInputList<>(node, list.size()) : new NodeSuccessorList<>(node, list.size());
 
         for (int i = 0; i < list.count(); ++i) {
             Node oldNode = list.get(i);
             if (oldNode != null) {
                 Node newNode = duplicationReplacement.replacement(oldNode, type);
-                result.set(i, newNode);
+                if (notify) {
+                    result.set(i, newNode);
+                } else {
+                    result.initialize(i, newNode);
+                }
             }
         }
         return result;
@@ -820,8 +843,6 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
             // Use sparse map
             newNodes = newIdentityMap();
         }
-        createNodeDuplicates(graph, nodes, replacements, newNodes);
-
         InplaceUpdateClosure replacementClosure = new InplaceUpdateClosure() {
 
             @Override
@@ -845,6 +866,15 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
 
         };
 
+        int parallelThreshold = Options.ParallelGraphDuplicationThreshold.getValue();
+        if (parallelThreshold > 0 && estimatedNodeCount >= parallelThreshold && isParallelDuplicationSafe(replacements)) {
+            ParallelGraphDuplications.increment();
+            addGraphDuplicateParallel(graph, nodes, replacements, newNodes, replacementClosure);
+            return newNodes;
+        }
+
+        createNodeDuplicates(graph, nodes, replacements, newNodes);
+
         // re-wire inputs
         for (Node oldNode : nodes) {
             Node node = newNodes.get(oldNode);
@@ -854,6 +884,7 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
             } else {
                 transferEdgesDifferentNodeClass(graph, replacements, newNodes, oldNode, node);
             }
+            graph.valueNumberInputsChanged(node);
         }
 
         return newNodes;
@@ -862,26 +893,146 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
     private static void createNodeDuplicates(final Graph graph, Iterable<? extends Node> nodes, final DuplicationReplacement replacements, final Map<Node, Node> newNodes) {
         for (Node node : nodes) {
             if (node != null) {
-                assert !node.isDeleted() : "trying to duplicate deleted node: " + node;
-                Node replacement = node;
-                if (replacements != null) {
-                    replacement = replacements.replacement(node);
+                createNodeDuplicate(graph, node, replacements, newNodes);
+            }
+        }
+    }
+
+    private static void createNodeDuplicate(final Graph graph, Node node, final DuplicationReplacement replacements, final Map<Node, Node> newNodes) {
+        assert !node.isDeleted() : "trying to duplicate deleted node: " + node;
+        Node replacement = node;
+        if (replacements != null) {
+            replacement = replacements.replacement(node);
+        }
+        if (replacement != node) {
+            if (Fingerprint.ENABLED) {
+                Fingerprint.submit("replacing %s with %s", node, replacement);
+            }
+            assert replacement != null;
+            newNodes.put(node, replacement);
+        } else {
+            if (Fingerprint.ENABLED) {
+                Fingerprint.submit("duplicating %s", node);
+            }
+            Node newNode = node.clone(graph, WithAllEdges);
+            assert newNode.getNodeClass().isLeafNode() || newNode.hasNoUsages();
+            assert newNode.getClass() == node.getClass();
+            newNodes.put(node, newNode);
+        }
+    }
+
+    /**
+     * Parallel duplication calls {@code replacements} from several threads, which is only known to
+     * be safe for the read-only map used by {@link Graph#addDuplicates(Iterable, Graph, int, Map)}.
+     * It is only worthwhile if the pool that {@link DuplicationTask} runs in has more than one
+     * thread.
+     */
+    private static boolean isParallelDuplicationSafe(DuplicationReplacement replacements) {
+        return !Fingerprint.ENABLED && (replacements == null || replacements instanceof Graph.MapReplacement) && DuplicationTask.getParallelism() > 1;
+    }
+
+    /**
+     * Variant of {@link #addGraphDuplicate} that clones the non-leaf nodes and re-wires their edges
+     * on multiple threads. Everything that touches shared state is done on the calling thread in the
+     * order of {@code nodes}: registering the copies in {@code graph}, which assigns the same node
+     * ids as sequential duplication, duplicating leaf nodes through the leaf node cache, and
+     * registering the copies at their inputs and successors.
+     */
+    private static void addGraphDuplicateParallel(final Graph graph, Iterable<? extends Node> nodes, final DuplicationReplacement replacements, final Map<Node, Node> newNodes,
+                    final InplaceUpdateClosure replacementClosure) {
+        ArrayList<Node> nodeList = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node != null) {
+                nodeList.add(node);
+            }
+        }
+        final Node[] oldNodes = nodeList.toArray(new Node[nodeList.size()]);
+        final Node[] copies = new Node[oldNodes.length];
+
+        DuplicationTask.forEach(oldNodes.length, new IntConsumer() {
+            @Override
+            public void accept(int i) {
+                Node oldNode = oldNodes[i];
+                assert !oldNode.isDeleted() : "trying to duplicate deleted node: " + oldNode;
+                if (!oldNode.getNodeClass().isLeafNode() && (replacements == null || replacements.replacement(oldNode) == oldNode)) {
+                    copies[i] = oldNode.clone(null, WithAllEdges);
                 }
-                if (replacement != node) {
-                    if (Fingerprint.ENABLED) {
-                        Fingerprint.submit("replacing %s with %s", node, replacement);
-                    }
-                    assert replacement != null;
-                    newNodes.put(node, replacement);
-                } else {
-                    if (Fingerprint.ENABLED) {
-                        Fingerprint.submit("duplicating %s", node);
-                    }
-                    Node newNode = node.clone(graph, WithAllEdges);
-                    assert newNode.getNodeClass().isLeafNode() || newNode.hasNoUsages();
-                    assert newNode.getClass() == node.getClass();
-                    newNodes.put(node, newNode);
+            }
+        });
+
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (copies[i] != null) {
+                oldNodes[i].registerClone(graph, copies[i]);
+                newNodes.put(oldNodes[i], copies[i]);
+            } else {
+                createNodeDuplicate(graph, oldNodes[i], replacements, newNodes);
+            }
+        }
+
+        DuplicationTask.forEach(copies.length, new IntConsumer() {
+            @Override
+            public void accept(int i) {
+                Node copy = copies[i];
+                if (copy != null) {
+                    copy.getNodeClass().initializeInputSuccInPlace(copy, replacementClosure);
+                }
+            }
+        });
+
+        for (int i = 0; i < oldNodes.length; i++) {
+            Node oldNode = oldNodes[i];
+            Node node = newNodes.get(oldNode);
+            if (copies[i] != null) {
+                node.registerAtEdges();
+            } else if (replacements != null && replacements.replacement(oldNode) != oldNode) {
+                transferEdgesDifferentNodeClass(graph, replacements, newNodes, oldNode, node);
+            }
+            graph.valueNumberInputsChanged(node);
+        }
+    }
+
+    /**
+     * Applies an action to a range of indexes, splitting the range into chunks that are processed in
+     * the current {@link ForkJoinPool} (or the common pool if not called from a pool).
+     */
+    private static final class DuplicationTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 4271698186234217473L;
+
+        private static final int CHUNK_SIZE = 256;
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+
+        private DuplicationTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        static void forEach(int count, IntConsumer action) {
+            new DuplicationTask(action, 0, count).invoke();
+        }
+
+        /**
+         * Gets the parallelism of the pool used by {@link #forEach}, which is the pool of the
+         * current thread if it is a pool thread and the common pool otherwise.
+         */
+        static int getParallelism() {
+            ForkJoinPool pool = ForkJoinTask.getPool();
+            return pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
                 }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DuplicationTask(action, from, middle), new DuplicationTask(action, middle, to));
             }
         }
     }
@@ -1161,6 +1312,38 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
         }
     }
 
+    /**
+     * Stores the ids of the non-null inputs of {@code node} into {@code ids}, starting at index
+     * {@code pos}.
+     *
+     * @return the index after the last id stored
+     */
+    int appendInputIds(Node node, int[] ids, int pos) {
+        int nextPos = pos;
+        long myMask = this.inputsIteration;
+        while (myMask != 0) {
+            long offset = (myMask & OFFSET_MASK);
+            if ((myMask & LIST_MASK) == 0) {
+                Node curNode = Edges.getNodeUnsafe(node, offset);
+                if (curNode != null) {
+                    ids[nextPos++] = curNode.id;
+                }
+            } else {
+                NodeList<Node> list = Edges.getNodeListUnsafe(node, offset);
+                if (list != null) {
+                    for (int i = 0; i < list.size(); ++i) {
+                        Node curNode = list.get(i);
+                        if (curNode != null) {
+                            ids[nextPos++] = curNode.id;
+                        }
+                    }
+                }
+            }
+            myMask >>>= NEXT_EDGE;
+        }
+        return nextPos;
+    }
+
     public void applySuccessors(Node node, EdgeVisitor consumer) {
         applyEdges(node, consumer, this.successorIteration);
     }
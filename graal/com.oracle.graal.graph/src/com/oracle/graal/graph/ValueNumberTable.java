@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Hash table of the {@linkplain NodeClass#valueNumberable() value numberable} non-leaf nodes of a
+ * graph, keyed by {@link NodeClass#valueNumber(Node)} and the ids of the node's inputs. It allows
+ * {@link Graph#findDuplicate(Node)} to find a duplicate without scanning the usages of an input,
+ * which is quadratic for inputs with many usages such as constants and parameters.
+ *
+ * The graph keeps the table up to date when nodes are added or deleted, when the inputs of a node
+ * are changed and when node ids change during compression. An edge update that bypasses these
+ * notifications only leaves the entry of a node under an outdated hash, so candidates are always
+ * compared in full before they are returned.
+ *
+ * Entries are chained through arrays indexed by node id.
+ */
+final class ValueNumberTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Graph graph;
+
+    private Node[] buckets;
+    private Node[] nextEntry;
+    private int[] entryHash;
+    private final BitSet entries = new BitSet();
+    private int size;
+
+    ValueNumberTable(Graph graph) {
+        this.graph = graph;
+        rebuild();
+    }
+
+    static boolean isCandidate(Node node) {
+        NodeClass<?> nodeClass = node.getNodeClass();
+        return nodeClass.valueNumberable() && !nodeClass.isLeafNode();
+    }
+
+    private static int hash(Node node) {
+        int hash = node.getNodeClass().valueNumber(node);
+        for (Node input : node.inputs()) {
+            hash = hash * 31 + input.id;
+        }
+        return hash;
+    }
+
+    private int bucket(int hash) {
+        return (hash ^ (hash >>> 16)) & (buckets.length - 1);
+    }
+
+    /**
+     * Clears the table and adds all live candidate nodes of the graph.
+     */
+    void rebuild() {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < graph.getNodeCount()) {
+            capacity <<= 1;
+        }
+        buckets = new Node[capacity];
+        nextEntry = new Node[graph.nodeIdCount()];
+        entryHash = new int[graph.nodeIdCount()];
+        entries.clear();
+        size = 0;
+        for (Node node : graph.getNodes()) {
+            if (isCandidate(node)) {
+                insert(node, hash(node));
+            }
+        }
+    }
+
+    /**
+     * Adds {@code node} to the table or moves it to the entry for its current inputs.
+     */
+    void update(Node node) {
+        assert isCandidate(node) && node.isAlive();
+        remove(node);
+        insert(node, hash(node));
+    }
+
+    void remove(Node node) {
+        int id = node.id;
+        if (id < 0 || !entries.get(id)) {
+            return;
+        }
+        int index = bucket(entryHash[id]);
+        Node previous = null;
+        Node current = buckets[index];
+        while (current != node) {
+            previous = current;
+            current = nextEntry[current.id];
+        }
+        if (previous == null) {
+            buckets[index] = nextEntry[id];
+        } else {
+            nextEntry[previous.id] = nextEntry[id];
+        }
+        nextEntry[id] = null;
+        entries.clear(id);
+        size--;
+    }
+
+    /**
+     * Returns a node other than {@code node} that has the same class, data, inputs and successors
+     * as {@code node}, or {@code null} if there is no such node in the table.
+     */
+    Node find(Node node) {
+        NodeClass<?> nodeClass = node.getNodeClass();
+        int hash = hash(node);
+        for (Node current = buckets[bucket(hash)]; current != null; current = nextEntry[current.id]) {
+            if (current != node && entryHash[current.id] == hash && current.getNodeClass() == nodeClass && node.valueEquals(current) && nodeClass.equalInputs(node, current) &&
+                            nodeClass.equalSuccessors(node, current)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private void insert(Node node, int hash) {
+        int id = node.id;
+        if (id >= nextEntry.length) {
+            int length = Math.max(id + 1, nextEntry.length * 2);
+            nextEntry = Arrays.copyOf(nextEntry, length);
+            entryHash = Arrays.copyOf(entryHash, length);
+        }
+        if (size >= buckets.length - (buckets.length >> 2)) {
+            grow();
+        }
+        int index = bucket(hash);
+        nextEntry[id] = buckets[index];
+        entryHash[id] = hash;
+        buckets[index] = node;
+        entries.set(id);
+        size++;
+    }
+
+    private void grow() {
+        Node[] oldBuckets = buckets;
+        buckets = new Node[oldBuckets.length * 2];
+        for (Node head : oldBuckets) {
+            Node current = head;
+            while (current != null) {
+                Node next = nextEntry[current.id];
+                int index = bucket(entryHash[current.id]);
+                nextEntry[current.id] = buckets[index];
+                buckets[index] = current;
+                current = next;
+            }
+        }
+    }
+}
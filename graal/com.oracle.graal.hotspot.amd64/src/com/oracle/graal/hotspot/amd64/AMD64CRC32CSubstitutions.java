@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.amd64;
+
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.arrayBaseOffset;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.bytecode.BytecodeProvider;
+import com.oracle.graal.hotspot.nodes.ComputeObjectAddressNode;
+import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins;
+import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins.Registration;
+import com.oracle.graal.word.Word;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@code java.util.zip.CRC32C} that use the SSE4.2 {@code crc32} instruction
+ * directly. These are only registered if the VM does not provide an {@code updateBytesCRC32C} stub
+ * (see {@link com.oracle.graal.hotspot.replacements.CRC32CSubstitutions}).
+ *
+ * @since 9
+ */
+@ClassSubstitution(className = "java.util.zip.CRC32C", optional = true)
+public class AMD64CRC32CSubstitutions {
+
+    public static void registerPlugins(InvocationPlugins plugins, BytecodeProvider bytecodeProvider) {
+        plugins.defer(new Runnable() {
+            @Override
+            public void run() {
+                Registration r = new Registration(plugins, "java.util.zip.CRC32C", bytecodeProvider);
+                r.registerMethodSubstitution(AMD64CRC32CSubstitutions.class, "updateBytes", int.class, byte[].class, int.class, int.class);
+                r.registerMethodSubstitution(AMD64CRC32CSubstitutions.class, "updateDirectByteBuffer", int.class, long.class, int.class, int.class);
+            }
+        });
+    }
+
+    @MethodSubstitution(optional = true)
+    static int updateBytes(int crc, byte[] b, int off, int end) {
+        Word bufAddr = Word.unsigned(ComputeObjectAddressNode.get(b, arrayBaseOffset(JavaKind.Byte) + off));
+        return AMD64CRC32CNode.update(crc, bufAddr, end - off);
+    }
+
+    @MethodSubstitution(optional = true)
+    static int updateDirectByteBuffer(int crc, long addr, int off, int end) {
+        Word bufAddr = Word.unsigned(addr).add(off);
+        return AMD64CRC32CNode.update(crc, bufAddr, end - off);
+    }
+}
@@ -60,6 +60,7 @@ import com.oracle.graal.serviceprovider.ServiceProvider;
 import com.oracle.graal.word.WordTypes;
 
 import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
 import jdk.vm.ci.code.Architecture;
 import jdk.vm.ci.code.Register;
 import jdk.vm.ci.code.RegisterConfig;
@@ -162,6 +163,9 @@ public class AMD64HotSpotBackendFactory implements HotSpotBackendFactory {
                     HotSpotStampProvider stampProvider) {
         Plugins plugins = HotSpotGraphBuilderPlugins.create(config, wordTypes, metaAccess, constantReflection, snippetReflection, foreignCalls, stampProvider, replacements);
         AMD64GraphBuilderPlugins.register(plugins, replacements.getReplacementBytecodeProvider(), (AMD64) target.arch, GraalArithmeticStubs.getValue());
+        if (!config.useCRC32CIntrinsics() && ((AMD64) target.arch).getFeatures().contains(CPUFeature.SSE4_2)) {
+            AMD64CRC32CSubstitutions.registerPlugins(plugins.getInvocationPlugins(), replacements.getReplacementBytecodeProvider());
+        }
         return plugins;
     }
 
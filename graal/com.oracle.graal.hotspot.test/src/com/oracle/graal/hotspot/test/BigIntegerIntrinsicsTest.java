@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
+import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.CompilationContext.ROOT_COMPILATION;
+
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.hotspot.meta.HotSpotProviders;
+import com.oracle.graal.java.GraphBuilderPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext;
+import com.oracle.graal.phases.OptimisticOptimizations;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the intrinsification of the {@link BigInteger} multiplication, squaring and Montgomery
+ * methods by comparing the results of {@link BigInteger#multiply}, squaring and
+ * {@link BigInteger#modPow} before and after the compiled substitutions are installed.
+ */
+public class BigIntegerIntrinsicsTest extends HotSpotGraalCompilerTest {
+
+    private static final String[] INTRINSICS = {"multiplyToLen", "implMultiplyToLen", "implSquareToLen", "implMulAdd", "implMontgomeryMultiply", "implMontgomerySquare"};
+
+    /**
+     * Operand sizes in bits. They cover single word operands, operands that are not a multiple of
+     * the word size and operands around the size from which {@link BigInteger} switches to
+     * Karatsuba multiplication.
+     */
+    private static final int[] BITS = {1, 32, 33, 100, 255, 1000, 2500, 2559, 4000};
+
+    /**
+     * Modulus sizes in bits. The largest one is above the size from which {@link BigInteger} uses
+     * the Montgomery intrinsics.
+     */
+    private static final int[] MODULUS_BITS = {64, 521, 1024, 2048, 16400};
+
+    @Override
+    protected InstalledCode addMethod(ResolvedJavaMethod method, CompilationResult compResult) {
+        return getBackend().createDefaultInstalledCode(method, compResult);
+    }
+
+    private final List<BigInteger> operands = new ArrayList<>();
+    private final List<BigInteger> moduli = new ArrayList<>();
+    private final List<BigInteger> exponents = new ArrayList<>();
+
+    public BigIntegerIntrinsicsTest() {
+        Random random = new Random(17);
+        for (int bits : BITS) {
+            operands.add(new BigInteger(bits, random).setBit(bits - 1));
+            operands.add(BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE));
+        }
+        for (int bits : MODULUS_BITS) {
+            moduli.add(new BigInteger(bits, random).setBit(bits - 1).setBit(0));
+        }
+        exponents.add(BigInteger.valueOf(65537));
+        exponents.add(new BigInteger(64, random));
+    }
+
+    @Test
+    public void testMultiply() {
+        List<BigInteger> expected = multiplyAll();
+        if (compileAndInstallAll()) {
+            Assert.assertEquals(expected, multiplyAll());
+        }
+    }
+
+    @Test
+    public void testSquare() {
+        List<BigInteger> expected = squareAll();
+        if (compileAndInstallAll()) {
+            Assert.assertEquals(expected, squareAll());
+        }
+    }
+
+    @Test
+    public void testModPow() {
+        List<BigInteger> expected = modPowAll();
+        if (compileAndInstallAll()) {
+            Assert.assertEquals(expected, modPowAll());
+        }
+    }
+
+    private List<BigInteger> multiplyAll() {
+        List<BigInteger> results = new ArrayList<>();
+        for (BigInteger a : operands) {
+            for (BigInteger b : operands) {
+                results.add(a.multiply(b));
+                results.add(a.negate().multiply(b));
+            }
+        }
+        return results;
+    }
+
+    private List<BigInteger> squareAll() {
+        List<BigInteger> results = new ArrayList<>();
+        for (BigInteger a : operands) {
+            // multiplying a value with itself squares it
+            results.add(a.multiply(a));
+            results.add(a.pow(2));
+        }
+        return results;
+    }
+
+    private List<BigInteger> modPowAll() {
+        List<BigInteger> results = new ArrayList<>();
+        for (BigInteger m : moduli) {
+            for (BigInteger e : exponents) {
+                // a few bases are enough, the large moduli make modPow expensive
+                for (int i = 0; i < operands.size(); i += 5) {
+                    results.add(operands.get(i).modPow(e, m));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Compiles and installs the substitutions of all {@link BigInteger} intrinsics that are
+     * available in this VM.
+     *
+     * @return true if at least one substitution was compiled and installed
+     */
+    private boolean compileAndInstallAll() {
+        boolean atLeastOneCompiled = false;
+        for (String methodName : INTRINSICS) {
+            Method method = lookup(methodName);
+            if (method != null) {
+                ResolvedJavaMethod installedCodeOwner = getMetaAccess().lookupJavaMethod(method);
+                StructuredGraph subst = getReplacements().getSubstitution(installedCodeOwner, 0);
+                if (subst != null) {
+                    ResolvedJavaMethod substMethod = subst.method();
+                    StructuredGraph graph = new StructuredGraph(substMethod, AllowAssumptions.YES, NO_PROFILING_INFO);
+                    Plugins plugins = new Plugins(((HotSpotProviders) getProviders()).getGraphBuilderPlugins());
+                    GraphBuilderConfiguration config = GraphBuilderConfiguration.getSnippetDefault(plugins);
+                    IntrinsicContext initialReplacementContext = new IntrinsicContext(installedCodeOwner, substMethod, getReplacements().getReplacementBytecodeProvider(), ROOT_COMPILATION);
+                    new GraphBuilderPhase.Instance(getMetaAccess(), getProviders().getStampProvider(), getConstantReflection(), getProviders().getConstantFieldProvider(), config,
+                                    OptimisticOptimizations.NONE, initialReplacementContext).apply(graph);
+                    Assert.assertNotNull(getCode(installedCodeOwner, graph, true));
+                    atLeastOneCompiled = true;
+                }
+            }
+        }
+        return atLeastOneCompiled;
+    }
+
+    private static Method lookup(String methodName) {
+        for (Method m : BigInteger.class.getDeclaredMethods()) {
+            if (m.getName().equals(methodName)) {
+                return m;
+            }
+        }
+        // the set of intrinsified methods differs between JDK versions
+        return null;
+    }
+}
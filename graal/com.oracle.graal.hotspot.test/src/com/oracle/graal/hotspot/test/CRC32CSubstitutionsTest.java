@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
+import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.CompilationContext.ROOT_COMPILATION;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.hotspot.meta.HotSpotProviders;
+import com.oracle.graal.java.GraphBuilderPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext;
+import com.oracle.graal.phases.OptimisticOptimizations;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests compiled code for {@code java.util.zip.CRC32C}. The checksums are compared with a simple
+ * bitwise implementation of the CRC32C polynomial.
+ */
+public class CRC32CSubstitutionsTest extends HotSpotGraalCompilerTest {
+
+    private static final String CRC32C = "java.util.zip.CRC32C";
+
+    @Override
+    protected InstalledCode addMethod(ResolvedJavaMethod method, CompilationResult compResult) {
+        return getBackend().createDefaultInstalledCode(method, compResult);
+    }
+
+    private final byte[] input;
+
+    public CRC32CSubstitutionsTest() throws Exception {
+        String classfileName = CRC32CSubstitutionsTest.class.getSimpleName().replace('.', '/') + ".class";
+        InputStream s = CRC32CSubstitutionsTest.class.getResourceAsStream(classfileName);
+        input = new byte[s.available()];
+        new DataInputStream(s).readFully(input);
+    }
+
+    /**
+     * Tests the substitution that is registered for this VM. It calls the VM stub if there is one.
+     * Otherwise, on AMD64 with SSE4.2, it uses the {@code crc32} instruction directly.
+     */
+    @Test
+    public void testSubstitution() throws Exception {
+        Class<?> c = lookupCRC32C();
+        boolean compiled = compileAndInstallSubstitution(lookup(c, "updateBytes"));
+        compiled |= compileAndInstallSubstitution(lookup(c, "updateDirectByteBuffer"));
+        if (compiled) {
+            checkChecksums(c);
+        }
+    }
+
+    /**
+     * Tests the Java code of {@code CRC32C} compiled without substitution, which is what runs on
+     * platforms without a stub or a {@code crc32} instruction.
+     */
+    @Test
+    public void testFallback() throws Exception {
+        Class<?> c = lookupCRC32C();
+        for (String name : new String[]{"updateBytes", "updateDirectByteBuffer"}) {
+            ResolvedJavaMethod method = getMetaAccess().lookupJavaMethod(lookup(c, name));
+            Assert.assertNotNull(getCode(method, parseEager(method, AllowAssumptions.YES), true));
+        }
+        checkChecksums(c);
+    }
+
+    private static Class<?> lookupCRC32C() {
+        try {
+            return Class.forName(CRC32C);
+        } catch (ClassNotFoundException e) {
+            // CRC32C was added in JDK 9
+            Assume.assumeTrue(false);
+            return null;
+        }
+    }
+
+    private static Method lookup(Class<?> c, String methodName) {
+        for (Method m : c.getDeclaredMethods()) {
+            if (m.getName().equals(methodName)) {
+                return m;
+            }
+        }
+        throw new NoSuchMethodError(CRC32C + "." + methodName);
+    }
+
+    /**
+     * Computes checksums of the input with all offsets modulo 16 and lengths around multiples of 8,
+     * since the compiled code processes 8 bytes at a time and handles the rest separately.
+     */
+    private void checkChecksums(Class<?> c) throws Exception {
+        Checksum crc = (Checksum) c.newInstance();
+        ByteBuffer directBuf = ByteBuffer.allocateDirect(input.length);
+        directBuf.put(input);
+        for (int offset = 0; offset < 16; offset++) {
+            for (int length : new int[]{0, 1, 7, 8, 9, 15, 16, 17, 63, 64, 65, input.length - offset}) {
+                long expected = crc32c(input, offset, length);
+
+                crc.reset();
+                crc.update(input, offset, length);
+                Assert.assertEquals("offset " + offset + ", length " + length, expected, crc.getValue());
+
+                crc.reset();
+                directBuf.limit(offset + length).position(offset);
+                update(crc, directBuf);
+                Assert.assertEquals("direct buffer offset " + offset + ", length " + length, expected, crc.getValue());
+            }
+        }
+    }
+
+    /**
+     * Calls {@code CRC32C.update(ByteBuffer)}, which is not part of the {@link Checksum} interface
+     * in JDK 8.
+     */
+    private static void update(Checksum crc, ByteBuffer buffer) throws Exception {
+        crc.getClass().getMethod("update", ByteBuffer.class).invoke(crc, buffer);
+    }
+
+    private static long crc32c(byte[] b, int off, int len) {
+        int crc = 0xFFFFFFFF;
+        for (int i = off; i < off + len; i++) {
+            crc ^= b[i] & 0xFF;
+            for (int k = 0; k < 8; k++) {
+                crc = (crc >>> 1) ^ (0x82F63B78 & -(crc & 1));
+            }
+        }
+        return ~crc & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Compiles and installs the substitution for a method. Once installed, the next execution of
+     * the method will use the newly installed code.
+     *
+     * @return true if a substitution exists and was compiled and installed
+     */
+    private boolean compileAndInstallSubstitution(Method method) {
+        ResolvedJavaMethod installedCodeOwner = getMetaAccess().lookupJavaMethod(method);
+        StructuredGraph subst = getReplacements().getSubstitution(installedCodeOwner, 0);
+        if (subst == null) {
+            return false;
+        }
+        ResolvedJavaMethod substMethod = subst.method();
+        StructuredGraph graph = new StructuredGraph(substMethod, AllowAssumptions.YES, NO_PROFILING_INFO);
+        Plugins plugins = new Plugins(((HotSpotProviders) getProviders()).getGraphBuilderPlugins());
+        GraphBuilderConfiguration config = GraphBuilderConfiguration.getSnippetDefault(plugins);
+        IntrinsicContext initialReplacementContext = new IntrinsicContext(installedCodeOwner, substMethod, getReplacements().getReplacementBytecodeProvider(), ROOT_COMPILATION);
+        new GraphBuilderPhase.Instance(getMetaAccess(), getProviders().getStampProvider(), getConstantReflection(), getProviders().getConstantFieldProvider(), config,
+                        OptimisticOptimizations.NONE, initialReplacementContext).apply(graph);
+        Assert.assertNotNull(getCode(installedCodeOwner, graph, true));
+        return true;
+    }
+}
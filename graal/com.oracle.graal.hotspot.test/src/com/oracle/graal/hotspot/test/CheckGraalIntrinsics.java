@@ -170,8 +170,6 @@ public class CheckGraalIntrinsics extends GraalTest {
                         "java/lang/Math.negateExact(I)I",
                         "java/lang/Math.negateExact(J)J",
                         "java/lang/String.<init>(Ljava/lang/String;)V",
-                        "java/lang/String.compareTo(Ljava/lang/String;)I",
-                        "java/lang/String.indexOf(Ljava/lang/String;)I",
                         "java/lang/StringBuffer.<init>()V",
                         "java/lang/StringBuffer.<init>(I)V",
                         "java/lang/StringBuffer.<init>(Ljava/lang/String;)V",
@@ -187,7 +185,6 @@ public class CheckGraalIntrinsics extends GraalTest {
                         "java/lang/StringBuilder.append(Ljava/lang/String;)Ljava/lang/StringBuilder;",
                         "java/lang/StringBuilder.toString()Ljava/lang/String;",
                         "java/lang/reflect/Array.newArray(Ljava/lang/Class;I)Ljava/lang/Object;",
-                        "java/math/BigInteger.multiplyToLen([II[II[I)[I",
                         "java/util/Arrays.copyOf([Ljava/lang/Object;ILjava/lang/Class;)[Ljava/lang/Object;",
                         "java/util/Arrays.copyOfRange([Ljava/lang/Object;IILjava/lang/Class;)[Ljava/lang/Object;",
                         "oracle/jrockit/jfr/Timing.counterTime()J",
@@ -233,15 +230,8 @@ public class CheckGraalIntrinsics extends GraalTest {
                         "java/lang/StringUTF16.toBytes([CII)[B",
                         "java/lang/Thread.onSpinWait()V",
                         "java/lang/invoke/MethodHandleImpl.isCompileConstant(Ljava/lang/Object;)Z",
-                        "java/math/BigInteger.implMontgomeryMultiply([I[I[IIJ[I)[I",
-                        "java/math/BigInteger.implMontgomerySquare([I[IIJ[I)[I",
-                        "java/math/BigInteger.implMulAdd([I[IIII)I",
-                        "java/math/BigInteger.implMultiplyToLen([II[II[I)[I",
-                        "java/math/BigInteger.implSquareToLen([II[II)[I",
                         "java/util/ArraysSupport.vectorizedMismatch(Ljava/lang/Object;JLjava/lang/Object;JII)I",
                         "java/util/stream/Streams$RangeIntSpliterator.forEachRemaining(Ljava/util/function/IntConsumer;)V",
-                        "java/util/zip/Adler32.updateByteBuffer(IJII)I",
-                        "java/util/zip/Adler32.updateBytes(I[BII)I",
                         "jdk/internal/misc/Unsafe.allocateUninitializedArray0(Ljava/lang/Class;I)Ljava/lang/Object;",
                         "jdk/internal/misc/Unsafe.compareAndExchangeByteAcquire(Ljava/lang/Object;JBB)B",
                         "jdk/internal/misc/Unsafe.compareAndExchangeByteRelease(Ljava/lang/Object;JBB)B",
@@ -332,6 +322,10 @@ public class CheckGraalIntrinsics extends GraalTest {
                             "sun/misc/Unsafe.getAndSetInt(Ljava/lang/Object;JI)I",
                             "sun/misc/Unsafe.getAndSetLong(Ljava/lang/Object;JJ)J",
                             "sun/misc/Unsafe.getAndSetObject(Ljava/lang/Object;JLjava/lang/Object;)Ljava/lang/Object;");
+            add(TO_BE_INVESTIGATED,
+                            // Only intrinsified on AMD64 so far
+                            "java/lang/String.compareTo(Ljava/lang/String;)I",
+                            "java/lang/String.indexOf(Ljava/lang/String;)I");
             // JDK 9
             add(TO_BE_INVESTIGATED,
                             "jdk/internal/misc/Unsafe.getAndAddInt(Ljava/lang/Object;JI)I",
@@ -374,15 +368,45 @@ public class CheckGraalIntrinsics extends GraalTest {
             } else {
                 add(IGNORE,
                                 "java/util/zip/CRC32.updateByteBuffer0(IJII)I",
-                                "java/util/zip/CRC32.updateBytes0(I[BII)I",
+                                "java/util/zip/CRC32.updateBytes0(I[BII)I");
+            }
+        }
+
+        if (JAVA_SPECIFICATION_VERSION >= 9) {
+            if (!config.useCRC32CIntrinsics()) {
+                // Registration of the CRC32C plugins is guarded by UseCRC32CIntrinsics
+                add(IGNORE,
                                 "java/util/zip/CRC32C.updateBytes(I[BII)I",
                                 "java/util/zip/CRC32C.updateDirectByteBuffer(IJII)I");
             }
+            if (!config.useAdler32Intrinsics()) {
+                // Registration of the Adler32 plugins is guarded by UseAdler32Intrinsics
+                add(IGNORE,
+                                "java/util/zip/Adler32.updateByteBuffer(IJII)I",
+                                "java/util/zip/Adler32.updateBytes(I[BII)I");
+            }
+        }
+
+        // Registration of the BigInteger plugins is guarded by the corresponding Use*Intrinsic flags
+        if (JAVA_SPECIFICATION_VERSION < 9) {
+            if (!config.useMultiplyToLenIntrinsic()) {
+                add(IGNORE, "java/math/BigInteger.multiplyToLen([II[II[I)[I");
+            }
         } else {
-            if (JAVA_SPECIFICATION_VERSION >= 9) {
-                add(TO_BE_INVESTIGATED,
-                                "java/util/zip/CRC32C.updateBytes(I[BII)I",
-                                "java/util/zip/CRC32C.updateDirectByteBuffer(IJII)I");
+            if (!config.useMultiplyToLenIntrinsic()) {
+                add(IGNORE, "java/math/BigInteger.implMultiplyToLen([II[II[I)[I");
+            }
+            if (!config.useSquareToLenIntrinsic()) {
+                add(IGNORE, "java/math/BigInteger.implSquareToLen([II[II)[I");
+            }
+            if (!config.useMulAddIntrinsic()) {
+                add(IGNORE, "java/math/BigInteger.implMulAdd([I[IIII)I");
+            }
+            if (!config.useMontgomeryMultiplyIntrinsic()) {
+                add(IGNORE, "java/math/BigInteger.implMontgomeryMultiply([I[I[IIJ[I)[I");
+            }
+            if (!config.useMontgomerySquareIntrinsic()) {
+                add(IGNORE, "java/math/BigInteger.implMontgomerySquare([I[IIJ[I)[I");
             }
         }
 
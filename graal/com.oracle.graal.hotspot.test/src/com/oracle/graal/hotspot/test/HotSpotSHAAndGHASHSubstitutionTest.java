@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
+import static com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext.CompilationContext.ROOT_COMPILATION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.hotspot.meta.HotSpotGraphBuilderPlugins;
+import com.oracle.graal.hotspot.meta.HotSpotProviders;
+import com.oracle.graal.java.GraphBuilderPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.nodes.graphbuilderconf.IntrinsicContext;
+import com.oracle.graal.phases.OptimisticOptimizations;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the intrinsification of the SHA-1, SHA-256 and SHA-512 compression functions and of the
+ * GHASH block processing used by AES/GCM.
+ */
+public class HotSpotSHAAndGHASHSubstitutionTest extends HotSpotGraalCompilerTest {
+
+    @Override
+    protected InstalledCode addMethod(ResolvedJavaMethod method, CompilationResult compResult) {
+        return getBackend().createDefaultInstalledCode(method, compResult);
+    }
+
+    private static final String[] DIGESTS = {"SHA-1", "SHA-256", "SHA-512"};
+
+    SecretKey aesKey;
+    byte[] input;
+    byte[] iv = new byte[12];
+    ByteArrayOutputStream digestExpected = new ByteArrayOutputStream();
+    ByteArrayOutputStream gcmExpected = new ByteArrayOutputStream();
+
+    public HotSpotSHAAndGHASHSubstitutionTest() throws Exception {
+        byte[] seed = {0x4, 0x7, 0x1, 0x1};
+        SecureRandom random = new SecureRandom(seed);
+        KeyGenerator aesKeyGen = KeyGenerator.getInstance("AES");
+        aesKeyGen.init(128, random);
+        aesKey = aesKeyGen.generateKey();
+        random.nextBytes(iv);
+        input = readClassfile(getClass());
+
+        for (String algorithm : DIGESTS) {
+            digestExpected.write(runDigest(algorithm));
+        }
+        gcmExpected.write(runEncryptDecrypt());
+    }
+
+    @Test
+    public void testSHAIntrinsics() throws Exception {
+        String name = HotSpotGraphBuilderPlugins.shaImplCompressName;
+        boolean compiled = compileAndInstall("sun.security.provider.SHA", name);
+        compiled |= compileAndInstall("sun.security.provider.SHA2", name);
+        compiled |= compileAndInstall("sun.security.provider.SHA5", name);
+        if (compiled) {
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            for (String algorithm : DIGESTS) {
+                actual.write(runDigest(algorithm));
+            }
+            Assert.assertArrayEquals(digestExpected.toByteArray(), actual.toByteArray());
+        }
+    }
+
+    @Test
+    public void testGHASHIntrinsics() throws Exception {
+        if (compileAndInstall("com.sun.crypto.provider.GHASH", "processBlocks")) {
+            Assert.assertArrayEquals(gcmExpected.toByteArray(), runEncryptDecrypt());
+        }
+    }
+
+    /**
+     * Compiles and installs the substitution for a method. Once installed, the next execution of
+     * the method will use the newly installed code.
+     *
+     * @param className the name of the class for which a substitution may be available
+     * @param methodName the name of the substituted method
+     * @return true if the substitution was compiled and installed
+     */
+    private boolean compileAndInstall(String className, String methodName) {
+        Method method = lookup(className, methodName);
+        if (method != null) {
+            ResolvedJavaMethod installedCodeOwner = getMetaAccess().lookupJavaMethod(method);
+            StructuredGraph subst = getReplacements().getSubstitution(installedCodeOwner, 0);
+            if (subst != null) {
+                ResolvedJavaMethod substMethod = subst.method();
+                StructuredGraph graph = new StructuredGraph(substMethod, AllowAssumptions.YES, NO_PROFILING_INFO);
+                Plugins plugins = new Plugins(((HotSpotProviders) getProviders()).getGraphBuilderPlugins());
+                GraphBuilderConfiguration config = GraphBuilderConfiguration.getSnippetDefault(plugins);
+                IntrinsicContext initialReplacementContext = new IntrinsicContext(installedCodeOwner, substMethod, getReplacements().getReplacementBytecodeProvider(), ROOT_COMPILATION);
+                new GraphBuilderPhase.Instance(getMetaAccess(), getProviders().getStampProvider(), getConstantReflection(), getProviders().getConstantFieldProvider(), config,
+                                OptimisticOptimizations.NONE, initialReplacementContext).apply(graph);
+                Assert.assertNotNull(getCode(installedCodeOwner, graph, true));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Method lookup(String className, String methodName) {
+        Class<?> c;
+        try {
+            c = Class.forName(className);
+            for (Method m : c.getDeclaredMethods()) {
+                if (m.getName().equals(methodName)) {
+                    return m;
+                }
+            }
+            // If the expected security provider exists, the specific method should also exist
+            throw new NoSuchMethodError(className + "." + methodName);
+        } catch (ClassNotFoundException e) {
+            // It's ok to not find the class - a different security provider
+            // may have been installed
+            return null;
+        }
+    }
+
+    /**
+     * Digests the input once as a whole and once in small chunks of varying size so that the
+     * compression function is also called with unaligned offsets.
+     */
+    private byte[] runDigest(String algorithm) throws Exception {
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        result.write(md.digest(input));
+        int offset = 0;
+        for (int chunk = 1; offset < input.length; chunk = chunk % 67 + 1) {
+            int length = Math.min(chunk, input.length - offset);
+            md.update(input, offset, length);
+            offset += length;
+        }
+        result.write(md.digest());
+        return result.toByteArray();
+    }
+
+    private byte[] runEncryptDecrypt() throws Exception {
+        byte[] aad = new byte[37];
+        System.arraycopy(input, 0, aad, 0, aad.length);
+
+        Cipher c = Cipher.getInstance("AES/GCM/NoPadding");
+        c.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(128, iv));
+        c.updateAAD(aad);
+        byte[] cipher = c.doFinal(input);
+
+        c.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(128, iv));
+        c.updateAAD(aad);
+        byte[] plain = c.doFinal(cipher);
+        Assert.assertArrayEquals(input, plain);
+        return cipher;
+    }
+
+    private static byte[] readClassfile(Class<? extends HotSpotSHAAndGHASHSubstitutionTest> c) throws IOException {
+        String classFilePath = "/" + c.getName().replace('.', '/') + ".class";
+        InputStream stream = c.getResourceAsStream(classFilePath);
+        byte[] classFile = new byte[stream.available()];
+        new DataInputStream(stream).readFully(classFile);
+        return classFile;
+    }
+}
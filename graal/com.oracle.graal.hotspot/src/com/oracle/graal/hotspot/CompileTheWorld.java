@@ -31,12 +31,15 @@ import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldCon
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldExcludeMethodFilter;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldMethodFilter;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldStartAt;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldStatisticsFile;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldStopAt;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldVerbose;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
@@ -64,10 +67,11 @@ import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -75,10 +79,12 @@ import java.util.stream.Collectors;
 
 import com.oracle.graal.api.replacements.Snippet;
 import com.oracle.graal.bytecode.Bytecodes;
-import com.oracle.graal.compiler.CompilerThreadFactory;
 import com.oracle.graal.compiler.CompilerThreadFactory.DebugConfigAccess;
 import com.oracle.graal.compiler.common.util.Util;
+import com.oracle.graal.debug.CSVUtil;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugConfig;
+import com.oracle.graal.debug.DebugDumpHandler;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.GraalDebugConfig;
 import com.oracle.graal.debug.MethodFilter;
@@ -201,12 +207,99 @@ public final class CompileTheWorld {
     private boolean verbose;
     private final Config config;
 
+    private ForkJoinPool threadPool;
+
+    /**
+     * Methods collected for compilation in multithreaded mode. They are only compiled once all
+     * classes have been loaded.
+     */
+    private List<MethodToCompile> methodsToCompile;
+
+    /**
+     * Stream to which per-method statistics are written if
+     * {@link CompileTheWorldOptions#CompileTheWorldStatisticsFile} is set.
+     */
+    private PrintStream statistics;
+
+    private static final String STATISTICS_FORMAT = CSVUtil.buildFormatString("%s", "%d", "%d", "%d", "%d");
+
+    /**
+     * A method to compile and the index of the class file it was found in.
+     */
+    private static final class MethodToCompile {
+        final HotSpotResolvedJavaMethod method;
+        final int classFileIndex;
+
+        MethodToCompile(HotSpotResolvedJavaMethod method, int classFileIndex) {
+            this.method = method;
+            this.classFileIndex = classFileIndex;
+        }
+    }
+
+    /**
+     * Index of the next method in {@link #methodsToCompile} to be claimed by a
+     * {@link CompileMethods} task.
+     */
+    private AtomicInteger nextMethodToCompile;
+
+    /**
+     * Compiles methods of {@link #methodsToCompile} until all of them have been claimed. One task
+     * runs on each thread of the pool. The tasks claim the methods through the shared
+     * {@link #nextMethodToCompile} cursor, so the methods start compiling in exactly the order of
+     * the list. The list is sorted by decreasing bytecode size, so the largest methods start first.
+     */
+    private final class CompileMethods implements Runnable {
+        @Override
+        @SuppressWarnings("try")
+        public void run() {
+            try (OverrideScope s = config.apply()) {
+                int index;
+                while ((index = nextMethodToCompile.getAndIncrement()) < methodsToCompile.size()) {
+                    MethodToCompile m = methodsToCompile.get(index);
+                    compileMethod(m.method, m.classFileIndex);
+                }
+            }
+        }
+    }
+
     /**
-     * Signal that the threads should start compiling in multithreaded mode.
+     * A {@link ForkJoinWorkerThread} with the same properties as a
+     * {@link com.oracle.graal.compiler.CompilerThread}.
      */
-    private boolean running;
+    private static final class CompileTheWorldThread extends ForkJoinWorkerThread {
+        private final DebugConfigAccess debugConfigAccess;
+        private DebugConfig debugConfig;
+
+        CompileTheWorldThread(ForkJoinPool pool, DebugConfigAccess debugConfigAccess) {
+            super(pool);
+            this.setName("CompileTheWorld-" + this.getId());
+            this.setPriority(Thread.MAX_PRIORITY);
+            this.debugConfigAccess = debugConfigAccess;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            debugConfig = debugConfigAccess.getDebugConfig();
+            setContextClassLoader(getClass().getClassLoader());
+        }
 
-    private ThreadPoolExecutor threadPool;
+        @Override
+        protected void onTermination(Throwable exception) {
+            try {
+                if (debugConfig != null) {
+                    for (DebugDumpHandler dumpHandler : debugConfig.dumpHandlers()) {
+                        try {
+                            dumpHandler.close();
+                        } catch (Throwable t) {
+                        }
+                    }
+                }
+            } finally {
+                super.onTermination(exception);
+            }
+        }
+    }
 
     /**
      * Creates a compile-the-world instance.
@@ -513,7 +606,7 @@ public final class CompileTheWorld {
         final String[] entries = classPath.split(File.pathSeparator);
         long start = System.currentTimeMillis();
 
-        CompilerThreadFactory factory = new CompilerThreadFactory("CompileTheWorld", new DebugConfigAccess() {
+        DebugConfigAccess debugConfigAccess = new DebugConfigAccess() {
             @Override
             public GraalDebugConfig getDebugConfig() {
                 if (Debug.isEnabled() && DebugScope.getConfig() == null) {
@@ -521,7 +614,13 @@ public final class CompileTheWorld {
                 }
                 return null;
             }
-        });
+        };
+        ForkJoinWorkerThreadFactory factory = new ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                return new CompileTheWorldThread(pool, debugConfigAccess);
+            }
+        };
 
         try {
             // compile dummy method to get compiler initialized outside of the
@@ -547,10 +646,15 @@ public final class CompileTheWorld {
             if (threadCount == 0) {
                 threadCount = Runtime.getRuntime().availableProcessors();
             }
-        } else {
-            running = true;
+            methodsToCompile = new ArrayList<>();
+        }
+        threadPool = new ForkJoinPool(threadCount, factory, null, false);
+
+        String statisticsFile = CompileTheWorldStatisticsFile.getValue();
+        if (statisticsFile != null) {
+            statistics = new PrintStream(new FileOutputStream(statisticsFile));
+            statistics.println(CSVUtil.buildFormatString("method", "bytecode_size", "compile_time_ns", "allocated_bytes", "code_size"));
         }
-        threadPool = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), factory);
 
         try (OverrideScope s = config.apply()) {
             for (int i = 0; i < entries.length; i++) {
@@ -659,21 +763,28 @@ public final class CompileTheWorld {
             }
         }
 
-        if (!running) {
-            startThreads();
-        }
-        int wakeups = 0;
-        while (threadPool.getCompletedTaskCount() != threadPool.getTaskCount()) {
-            if (wakeups % 15 == 0) {
-                TTY.println("CompileTheWorld : Waiting for " + (threadPool.getTaskCount() - threadPool.getCompletedTaskCount()) + " compiles");
-            }
-            try {
-                threadPool.awaitTermination(1, TimeUnit.SECONDS);
-                wakeups++;
-            } catch (InterruptedException e) {
+        if (methodsToCompile != null) {
+            if (!methodsToCompile.isEmpty()) {
+                TTY.println("CompileTheWorld : Compiling " + methodsToCompile.size() + " methods");
+                // Start with the largest methods so that they do not delay the end of the run
+                methodsToCompile.sort((m1, m2) -> Integer.compare(m2.method.getCodeSize(), m1.method.getCodeSize()));
+                nextMethodToCompile = new AtomicInteger();
+                List<ForkJoinTask<?>> tasks = new ArrayList<>();
+                for (int i = 0; i < threadPool.getParallelism(); i++) {
+                    tasks.add(threadPool.submit(new CompileMethods()));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
             }
+            methodsToCompile = null;
         }
+        threadPool.shutdown();
         threadPool = null;
+        if (statistics != null) {
+            statistics.close();
+            statistics = null;
+        }
 
         long elapsedTime = System.currentTimeMillis() - start;
 
@@ -686,21 +797,6 @@ public final class CompileTheWorld {
         }
     }
 
-    private synchronized void startThreads() {
-        running = true;
-        // Wake up any waiting threads
-        notifyAll();
-    }
-
-    private synchronized void waitToRun() {
-        while (!running) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-            }
-        }
-    }
-
     @SuppressWarnings("try")
     private void compileMethod(HotSpotResolvedJavaMethod method) throws InterruptedException, ExecutionException {
         if (methodFilters != null && !MethodFilter.matches(methodFilters, method)) {
@@ -709,18 +805,19 @@ public final class CompileTheWorld {
         if (excludeMethodFilters != null && MethodFilter.matches(excludeMethodFilters, method)) {
             return;
         }
-        Future<?> task = threadPool.submit(new Runnable() {
+        if (methodsToCompile != null) {
+            methodsToCompile.add(new MethodToCompile(method, classFileCounter));
+            return;
+        }
+        int counter = classFileCounter;
+        threadPool.submit(new Runnable() {
             @Override
             public void run() {
-                waitToRun();
                 try (OverrideScope s = config.apply()) {
-                    compileMethod(method, classFileCounter);
+                    compileMethod(method, counter);
                 }
             }
-        });
-        if (threadPool.getCorePoolSize() == 1) {
-            task.get();
-        }
+        }).get();
     }
 
     /**
@@ -729,6 +826,7 @@ public final class CompileTheWorld {
     private void compileMethod(HotSpotResolvedJavaMethod method, int counter) {
         try {
             long start = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
             long allocatedAtStart = MemUseTrackerImpl.getCurrentThreadAllocatedBytes();
             int entryBCI = JVMCICompiler.INVOCATION_ENTRY_BCI;
             HotSpotCompilationRequest request = new HotSpotCompilationRequest(method, entryBCI, 0L);
@@ -738,15 +836,25 @@ public final class CompileTheWorld {
             CompilationTask task = new CompilationTask(jvmciRuntime, compiler, request, useProfilingInfo, installAsDefault);
             task.runCompilation();
 
+            long duration = System.nanoTime() - startNanos;
+            long allocated = MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+
             // Invalidate the generated code so the code cache doesn't fill up
             HotSpotInstalledCode installedCode = task.getInstalledCode();
+            long codeSize = 0;
             if (installedCode != null) {
+                codeSize = installedCode.getCodeSize();
                 installedCode.invalidate();
             }
 
-            memoryUsed.getAndAdd(MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart);
+            memoryUsed.getAndAdd(allocated);
             compileTime.getAndAdd(System.currentTimeMillis() - start);
             compiledMethodsCounter.incrementAndGet();
+            if (statistics != null) {
+                synchronized (statistics) {
+                    CSVUtil.Escape.println(statistics, STATISTICS_FORMAT, method.format("%H.%n(%p)"), method.getCodeSize(), duration, allocated, codeSize);
+                }
+            }
         } catch (Throwable t) {
             // Catch everything and print a message
             println("CompileTheWorld (%d) : Error compiling method: %s", counter, method.format("%H.%n(%p):%r"));
@@ -57,6 +57,8 @@ public class CompileTheWorldOptions {
     public static final OptionValue<Boolean> CompileTheWorldMultiThreaded = new OptionValue<>(false);
     @Option(help = "Number of threads to use for multithreaded CTW.  Defaults to Runtime.getRuntime().availableProcessors()", type = OptionType.Debug)
     public static final OptionValue<Integer> CompileTheWorldThreads = new OptionValue<>(0);
+    @Option(help = "File to which the compile time, allocated bytes and code size of each compiled method are written in CSV format", type = OptionType.Debug)
+    public static final OptionValue<String> CompileTheWorldStatisticsFile = new OptionValue<>(null);
     // @formatter:on
 
     /**
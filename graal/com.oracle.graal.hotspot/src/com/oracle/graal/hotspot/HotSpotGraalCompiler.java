@@ -35,8 +35,12 @@ import com.oracle.graal.api.runtime.GraalJVMCICompiler;
 import com.oracle.graal.code.CompilationResult;
 import com.oracle.graal.compiler.GraalCompiler;
 import com.oracle.graal.compiler.common.util.CompilationAlarm;
+import com.oracle.graal.compiler.common.util.CompilationMemoryBudget;
+import com.oracle.graal.compiler.common.util.CompilationMemoryBudget.BudgetExceededException;
+import com.oracle.graal.compiler.phases.EconomyCompilerConfiguration;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugConfigScope;
+import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.TTY;
 import com.oracle.graal.debug.TopLevelDebugConfig;
@@ -44,6 +48,7 @@ import com.oracle.graal.debug.internal.DebugScope;
 import com.oracle.graal.debug.internal.method.MethodMetricsRootScopeInfo;
 import com.oracle.graal.hotspot.CompilationCounters.Options;
 import com.oracle.graal.hotspot.meta.HotSpotProviders;
+import com.oracle.graal.hotspot.meta.HotSpotSuitesProvider;
 import com.oracle.graal.hotspot.phases.OnStackReplacementPhase;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.lir.asm.CompilationResultBuilderFactory;
@@ -81,6 +86,15 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler {
     private final CompilationCounters compilationCounters;
     private final BootstrapWatchDog bootstrapWatchDog;
 
+    private static final DebugCounter CompilationsExceedingMemoryBudget = Debug.counter("CompilationsExceedingMemoryBudget");
+
+    /**
+     * Suites used to retry compilations that exceeded their {@linkplain CompilationMemoryBudget
+     * memory budget}. Created on first use.
+     */
+    private Suites economySuites;
+    private LIRSuites economyLirSuites;
+
     HotSpotGraalCompiler(HotSpotJVMCIRuntimeProvider jvmciRuntime, HotSpotGraalRuntimeProvider graalRuntime) {
         this.jvmciRuntime = jvmciRuntime;
         this.graalRuntime = graalRuntime;
@@ -107,7 +121,8 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler {
         HotSpotCompilationRequest hsRequest = (HotSpotCompilationRequest) request;
         try (CompilationWatchDog w1 = CompilationWatchDog.watch(method, hsRequest.getId());
                         BootstrapWatchDog.Watch w2 = bootstrapWatchDog == null ? null : bootstrapWatchDog.watch(request);
-                        CompilationAlarm alarm = CompilationAlarm.trackCompilationPeriod();) {
+                        CompilationAlarm alarm = CompilationAlarm.trackCompilationPeriod();
+                        CompilationMemoryBudget budget = CompilationMemoryBudget.trackCompilationAllocations();) {
             if (compilationCounters != null) {
                 compilationCounters.countCompilation(method);
             }
@@ -139,6 +154,36 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler {
     }
 
     public CompilationResult compile(ResolvedJavaMethod method, int entryBCI, boolean useProfilingInfo) {
+        HotSpotProviders providers = graalRuntime.getHostBackend().getProviders();
+        try {
+            return compile(method, entryBCI, useProfilingInfo, getSuites(providers), getLIRSuites(providers));
+        } catch (BudgetExceededException e) {
+            if (!(providers.getSuites() instanceof HotSpotSuitesProvider)) {
+                throw e;
+            }
+            // Retry with fewer optimizations instead of failing the compilation
+            CompilationsExceedingMemoryBudget.increment();
+            return compile(method, entryBCI, useProfilingInfo, getEconomySuites(providers), getEconomyLIRSuites(providers));
+        }
+    }
+
+    private synchronized Suites getEconomySuites(HotSpotProviders providers) {
+        if (economySuites == null) {
+            economySuites = ((HotSpotSuitesProvider) providers.getSuites()).createSuites(new EconomyCompilerConfiguration());
+            economySuites.setImmutable();
+        }
+        return economySuites;
+    }
+
+    private synchronized LIRSuites getEconomyLIRSuites(HotSpotProviders providers) {
+        if (economyLirSuites == null) {
+            economyLirSuites = ((HotSpotSuitesProvider) providers.getSuites()).createLIRSuites(new EconomyCompilerConfiguration());
+            economyLirSuites.setImmutable();
+        }
+        return economyLirSuites;
+    }
+
+    private CompilationResult compile(ResolvedJavaMethod method, int entryBCI, boolean useProfilingInfo, Suites suites, LIRSuites lirSuites) {
         HotSpotBackend backend = graalRuntime.getHostBackend();
         HotSpotProviders providers = backend.getProviders();
         final boolean isOSR = entryBCI != JVMCICompiler.INVOCATION_ENTRY_BCI;
@@ -152,8 +197,6 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler {
             graph = new StructuredGraph(method, entryBCI, AllowAssumptions.from(OptAssumptions.getValue()), speculationLog, useProfilingInfo);
         }
 
-        Suites suites = getSuites(providers);
-        LIRSuites lirSuites = getLIRSuites(providers);
         ProfilingInfo profilingInfo = useProfilingInfo ? method.getProfilingInfo(!isOSR, isOSR) : DefaultProfilingInfo.get(TriState.FALSE);
         OptimisticOptimizations optimisticOpts = getOptimisticOpts(profilingInfo);
         if (isOSR) {
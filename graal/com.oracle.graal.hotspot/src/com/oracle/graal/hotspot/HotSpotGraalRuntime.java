@@ -44,7 +44,9 @@ import com.oracle.graal.compiler.target.Backend;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.debug.PhaseProfiler;
 import com.oracle.graal.debug.TTY;
+import com.oracle.graal.debug.internal.DebugValuesExporter;
 import com.oracle.graal.debug.internal.DebugValuesPrinter;
 import com.oracle.graal.debug.internal.method.MethodMetricsPrinter;
 import com.oracle.graal.graph.DefaultNodeCollectionsProvider;
@@ -86,6 +88,7 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
 
     private final HotSpotBackend hostBackend;
     private DebugValuesPrinter debugValuesPrinter;
+    private DebugValuesExporter debugValuesExporter;
 
     private final Map<Class<? extends Architecture>, HotSpotBackend> backends = new HashMap<>();
 
@@ -184,6 +187,7 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
                     break;
             }
         }
+        debugValuesExporter = DebugValuesExporter.start();
 
         // Complete initialization of backends
         try (InitTimer st = timer(hostBackend.getTarget().arch.getName(), ".completeInitialization")) {
@@ -273,9 +277,13 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
     }
 
     void shutdown() {
+        if (debugValuesExporter != null) {
+            debugValuesExporter.shutdown();
+        }
         if (debugValuesPrinter != null) {
             debugValuesPrinter.printDebugValues();
         }
+        PhaseProfiler.shutdown();
         phaseTransition("final");
 
         SnippetCounter.printGroups(TTY.out().out());
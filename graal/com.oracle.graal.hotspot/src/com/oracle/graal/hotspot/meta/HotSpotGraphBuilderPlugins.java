@@ -29,6 +29,8 @@ import static com.oracle.graal.java.BytecodeParserOptions.InlineDuringParsing;
 import java.lang.invoke.ConstantCallSite;
 import java.lang.invoke.MutableCallSite;
 import java.lang.invoke.VolatileCallSite;
+import java.math.BigInteger;
+import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 
 import com.oracle.graal.api.replacements.SnippetReflectionProvider;
@@ -38,16 +40,23 @@ import com.oracle.graal.compiler.common.spi.ForeignCallsProvider;
 import com.oracle.graal.hotspot.GraalHotSpotVMConfig;
 import com.oracle.graal.hotspot.nodes.CurrentJavaThreadNode;
 import com.oracle.graal.hotspot.replacements.AESCryptSubstitutions;
+import com.oracle.graal.hotspot.replacements.Adler32Substitutions;
+import com.oracle.graal.hotspot.replacements.BigIntegerSubstitutions;
+import com.oracle.graal.hotspot.replacements.CRC32CSubstitutions;
 import com.oracle.graal.hotspot.replacements.CRC32Substitutions;
 import com.oracle.graal.hotspot.replacements.CallSiteTargetNode;
 import com.oracle.graal.hotspot.replacements.CipherBlockChainingSubstitutions;
 import com.oracle.graal.hotspot.replacements.ClassGetHubNode;
+import com.oracle.graal.hotspot.replacements.GHASHSubstitutions;
 import com.oracle.graal.hotspot.replacements.IdentityHashCodeNode;
 import com.oracle.graal.hotspot.replacements.HotSpotClassSubstitutions;
 import com.oracle.graal.hotspot.replacements.ObjectCloneNode;
 import com.oracle.graal.hotspot.replacements.ObjectSubstitutions;
 import com.oracle.graal.hotspot.replacements.ReflectionGetCallerClassNode;
 import com.oracle.graal.hotspot.replacements.ReflectionSubstitutions;
+import com.oracle.graal.hotspot.replacements.SHA2Substitutions;
+import com.oracle.graal.hotspot.replacements.SHA5Substitutions;
+import com.oracle.graal.hotspot.replacements.SHASubstitutions;
 import com.oracle.graal.hotspot.replacements.ThreadSubstitutions;
 import com.oracle.graal.hotspot.replacements.arraycopy.ArrayCopyNode;
 import com.oracle.graal.hotspot.word.HotSpotWordTypes;
@@ -141,6 +150,11 @@ public class HotSpotGraphBuilderPlugins {
                 registerStableOptionPlugins(invocationPlugins, snippetReflection);
                 registerAESPlugins(invocationPlugins, config, replacementBytecodeProvider);
                 registerCRC32Plugins(invocationPlugins, config, replacementBytecodeProvider);
+                registerCRC32CPlugins(invocationPlugins, config, replacementBytecodeProvider);
+                registerAdler32Plugins(invocationPlugins, config, replacementBytecodeProvider);
+                registerSHAPlugins(invocationPlugins, config, replacementBytecodeProvider);
+                registerGHASHPlugins(invocationPlugins, config, replacementBytecodeProvider);
+                registerBigIntegerPlugins(invocationPlugins, config, replacementBytecodeProvider);
                 StandardGraphBuilderPlugins.registerInvocationPlugins(metaAccess, snippetReflection, invocationPlugins, replacementBytecodeProvider, true);
 
                 for (NodeIntrinsicPluginFactory factory : GraalServices.load(NodeIntrinsicPluginFactory.class)) {
@@ -392,6 +406,7 @@ public class HotSpotGraphBuilderPlugins {
     public static final String aesEncryptName;
     public static final String aesDecryptName;
 
+    public static final String shaImplCompressName;
     public static final String reflectionClass;
     public static final String constantPoolClass;
 
@@ -401,6 +416,7 @@ public class HotSpotGraphBuilderPlugins {
             cbcDecryptName = "decrypt";
             aesEncryptName = "encryptBlock";
             aesDecryptName = "decryptBlock";
+            shaImplCompressName = "implCompress";
             reflectionClass = "sun.reflect.Reflection";
             constantPoolClass = "sun.reflect.ConstantPool";
         } else {
@@ -408,6 +424,7 @@ public class HotSpotGraphBuilderPlugins {
             cbcDecryptName = "implDecrypt";
             aesEncryptName = "implEncryptBlock";
             aesDecryptName = "implDecryptBlock";
+            shaImplCompressName = "implCompress0";
             reflectionClass = "jdk.internal.reflect.Reflection";
             constantPoolClass = "jdk.internal.reflect.ConstantPool";
         }
@@ -444,4 +461,67 @@ public class HotSpotGraphBuilderPlugins {
             }
         }
     }
+
+    private static void registerCRC32CPlugins(InvocationPlugins plugins, GraalHotSpotVMConfig config, BytecodeProvider bytecodeProvider) {
+        if (config.useCRC32CIntrinsics()) {
+            Registration r = new Registration(plugins, "java.util.zip.CRC32C", bytecodeProvider);
+            r.registerMethodSubstitution(CRC32CSubstitutions.class, "updateBytes", int.class, byte[].class, int.class, int.class);
+            r.registerMethodSubstitution(CRC32CSubstitutions.class, "updateDirectByteBuffer", int.class, long.class, int.class, int.class);
+        }
+    }
+
+    private static void registerAdler32Plugins(InvocationPlugins plugins, GraalHotSpotVMConfig config, BytecodeProvider bytecodeProvider) {
+        if (config.useAdler32Intrinsics()) {
+            Registration r = new Registration(plugins, Adler32.class, bytecodeProvider);
+            r.registerMethodSubstitution(Adler32Substitutions.class, "updateBytes", int.class, byte[].class, int.class, int.class);
+            r.registerMethodSubstitution(Adler32Substitutions.class, "updateByteBuffer", int.class, long.class, int.class, int.class);
+        }
+    }
+
+    private static void registerSHAPlugins(InvocationPlugins plugins, GraalHotSpotVMConfig config, BytecodeProvider bytecodeProvider) {
+        if (config.useSHA1Intrinsics()) {
+            Registration r = new Registration(plugins, "sun.security.provider.SHA", bytecodeProvider);
+            r.registerMethodSubstitution(SHASubstitutions.class, shaImplCompressName, Receiver.class, byte[].class, int.class);
+        }
+        if (config.useSHA256Intrinsics()) {
+            Registration r = new Registration(plugins, "sun.security.provider.SHA2", bytecodeProvider);
+            r.registerMethodSubstitution(SHA2Substitutions.class, shaImplCompressName, Receiver.class, byte[].class, int.class);
+        }
+        if (config.useSHA512Intrinsics()) {
+            Registration r = new Registration(plugins, "sun.security.provider.SHA5", bytecodeProvider);
+            r.registerMethodSubstitution(SHA5Substitutions.class, shaImplCompressName, Receiver.class, byte[].class, int.class);
+        }
+    }
+
+    private static void registerGHASHPlugins(InvocationPlugins plugins, GraalHotSpotVMConfig config, BytecodeProvider bytecodeProvider) {
+        if (config.useGHASHIntrinsics()) {
+            Registration r = new Registration(plugins, "com.sun.crypto.provider.GHASH", bytecodeProvider);
+            r.registerMethodSubstitution(GHASHSubstitutions.class, "processBlocks", byte[].class, int.class, int.class, long[].class, long[].class);
+        }
+    }
+
+    private static void registerBigIntegerPlugins(InvocationPlugins plugins, GraalHotSpotVMConfig config, BytecodeProvider bytecodeProvider) {
+        Registration r = new Registration(plugins, BigInteger.class, bytecodeProvider);
+        if (Java8OrEarlier) {
+            if (config.useMultiplyToLenIntrinsic()) {
+                r.registerMethodSubstitution(BigIntegerSubstitutions.class, "multiplyToLen", Receiver.class, int[].class, int.class, int[].class, int.class, int[].class);
+            }
+            return;
+        }
+        if (config.useMultiplyToLenIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMultiplyToLen", int[].class, int.class, int[].class, int.class, int[].class);
+        }
+        if (config.useSquareToLenIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implSquareToLen", int[].class, int.class, int[].class, int.class);
+        }
+        if (config.useMulAddIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMulAdd", int[].class, int[].class, int.class, int.class, int.class);
+        }
+        if (config.useMontgomeryMultiplyIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMontgomeryMultiply", int[].class, int[].class, int[].class, int.class, long.class, int[].class);
+        }
+        if (config.useMontgomerySquareIntrinsic()) {
+            r.registerMethodSubstitution(BigIntegerSubstitutions.class, "implMontgomerySquare", int[].class, int[].class, int.class, long.class, int[].class);
+        }
+    }
 }
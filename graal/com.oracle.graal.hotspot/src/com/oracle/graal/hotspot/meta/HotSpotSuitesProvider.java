@@ -47,6 +47,7 @@ import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.AddressLoweringPhase;
 import com.oracle.graal.phases.common.AddressLoweringPhase.AddressLowering;
 import com.oracle.graal.phases.common.ExpandLogicPhase;
+import com.oracle.graal.phases.tiers.CompilerConfiguration;
 import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.tiers.Suites;
 import com.oracle.graal.phases.tiers.SuitesCreator;
@@ -72,8 +73,18 @@ public class HotSpotSuitesProvider extends SuitesProviderBase {
 
     @Override
     public Suites createSuites() {
-        Suites ret = defaultSuitesCreator.createSuites();
+        return addHotSpotPhases(defaultSuitesCreator.createSuites());
+    }
+
+    /**
+     * Creates a new set of phase suites based on {@code compilerConfiguration} instead of the
+     * default compiler configuration, including the phases required for HotSpot.
+     */
+    public Suites createSuites(CompilerConfiguration compilerConfiguration) {
+        return addHotSpotPhases(Suites.createSuites(compilerConfiguration));
+    }
 
+    private Suites addHotSpotPhases(Suites ret) {
         if (ImmutableCode.getValue()) {
             // lowering introduces class constants, therefore it must be after lowering
             ret.getHighTier().appendPhase(new LoadJavaMirrorWithKlassPhase(config.classMirrorOffset, config.useCompressedOops ? config.getOopEncoding() : null));
@@ -137,7 +148,18 @@ public class HotSpotSuitesProvider extends SuitesProviderBase {
 
     @Override
     public LIRSuites createLIRSuites() {
-        LIRSuites suites = defaultSuitesCreator.createLIRSuites();
+        return addHotSpotPhases(defaultSuitesCreator.createLIRSuites());
+    }
+
+    /**
+     * Creates a new set of LIR phase suites based on {@code compilerConfiguration} instead of the
+     * default compiler configuration, including the phases required for HotSpot.
+     */
+    public LIRSuites createLIRSuites(CompilerConfiguration compilerConfiguration) {
+        return addHotSpotPhases(Suites.createLIRSuites(compilerConfiguration));
+    }
+
+    private static LIRSuites addHotSpotPhases(LIRSuites suites) {
         String profileInstructions = HotSpotBackend.Options.ASMInstructionProfiling.getValue();
         if (profileInstructions != null) {
             suites.getPostAllocationOptimizationStage().appendPhase(new HotSpotInstructionProfiling(profileInstructions));
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.replacements;
+
+import static com.oracle.graal.hotspot.HotSpotBackend.GHASH_PROCESS_BLOCKS;
+import static com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil.arrayBaseOffset;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.compiler.common.spi.ForeignCallDescriptor;
+import com.oracle.graal.graph.Node.ConstantNodeParameter;
+import com.oracle.graal.graph.Node.NodeIntrinsic;
+import com.oracle.graal.hotspot.nodes.ComputeObjectAddressNode;
+import com.oracle.graal.nodes.extended.ForeignCallNode;
+import com.oracle.graal.word.Word;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@code com.sun.crypto.provider.GHASH} methods.
+ */
+@ClassSubstitution(className = "com.sun.crypto.provider.GHASH", optional = true)
+public class GHASHSubstitutions {
+
+    /**
+     * Multiplies {@code blocks} 16 byte blocks of {@code data} into the GHASH state {@code st}
+     * using the hash subkey {@code subH}. The caller has already checked the bounds of
+     * {@code data}.
+     */
+    @MethodSubstitution
+    static void processBlocks(byte[] data, int inOfs, int blocks, long[] st, long[] subH) {
+        Word dataAddr = Word.unsigned(ComputeObjectAddressNode.get(data, arrayBaseOffset(JavaKind.Byte) + inOfs));
+        Word stAddr = Word.unsigned(ComputeObjectAddressNode.get(st, arrayBaseOffset(JavaKind.Long)));
+        Word subHAddr = Word.unsigned(ComputeObjectAddressNode.get(subH, arrayBaseOffset(JavaKind.Long)));
+        processBlocksStub(GHASH_PROCESS_BLOCKS, stAddr, subHAddr, dataAddr, blocks);
+    }
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    public static native void processBlocksStub(@ConstantNodeParameter ForeignCallDescriptor descriptor, Word state, Word subkeyH, Word data, int blocks);
+}
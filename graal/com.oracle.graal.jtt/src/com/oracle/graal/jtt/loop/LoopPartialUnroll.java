@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import org.junit.Test;
+
+import com.oracle.graal.jtt.JTTTest;
+
+/*
+ */
+public class LoopPartialUnroll extends JTTTest {
+
+    private static int[] array(int length) {
+        int[] a = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 3 + 1;
+        }
+        return a;
+    }
+
+    public static int sum(int n) {
+        int[] a = array(Math.max(0, n));
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int sumRange(int start, int end) {
+        int sum = 0;
+        for (int i = start; i < end; i++) {
+            sum = sum * 31 + i;
+        }
+        return sum;
+    }
+
+    public static long sumStride(int start, int end, int step) {
+        long sum = 0;
+        int stride = (step & 0xF) + 1;
+        for (int i = start; i < end; i += stride) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    public static int countDown(int start, int end) {
+        int result = 0;
+        for (int i = start; i > end; i -= 3) {
+            result ^= i * 17;
+        }
+        return result;
+    }
+
+    public static int dot(int n) {
+        int[] a = array(16);
+        int[] b = array(16);
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    public static int swap(int n) {
+        int x = 1;
+        int y = 2;
+        for (int i = 0; i < n; i++) {
+            int t = x;
+            x = y * 3 + i;
+            y = t;
+        }
+        return x * 31 + y;
+    }
+
+    public static int afterLoop(int n) {
+        int[] a = array(10);
+        int i;
+        for (i = 0; i < n; i++) {
+            a[i] += i;
+        }
+        return a[i - 1] + i;
+    }
+
+    @Test
+    public void runSum() throws Throwable {
+        for (int n = -1; n < 20; n++) {
+            runTest("sum", n);
+        }
+        runTest("sum", 1000);
+    }
+
+    @Test
+    public void runSumRange() throws Throwable {
+        runTest("sumRange", 0, 100);
+        runTest("sumRange", 5, 6);
+        runTest("sumRange", 10, 3);
+        runTest("sumRange", Integer.MAX_VALUE - 10, Integer.MAX_VALUE);
+        runTest("sumRange", Integer.MIN_VALUE, Integer.MIN_VALUE + 5);
+        runTest("sumRange", Integer.MIN_VALUE + 1, Integer.MIN_VALUE + 2);
+    }
+
+    @Test
+    public void runSumStride() throws Throwable {
+        runTest("sumStride", 0, 100, 0);
+        runTest("sumStride", 0, 100, 2);
+        runTest("sumStride", -50, 7, 6);
+        runTest("sumStride", Integer.MAX_VALUE - 100, Integer.MAX_VALUE, 4);
+        runTest("sumStride", Integer.MIN_VALUE, Integer.MIN_VALUE + 40, 15);
+    }
+
+    @Test
+    public void runCountDown() throws Throwable {
+        runTest("countDown", 100, 0);
+        runTest("countDown", 2, 0);
+        runTest("countDown", 0, 2);
+        runTest("countDown", Integer.MIN_VALUE + 20, Integer.MIN_VALUE);
+        runTest("countDown", Integer.MAX_VALUE, Integer.MAX_VALUE - 13);
+    }
+
+    @Test
+    public void runDot() throws Throwable {
+        runTest("dot", 0);
+        runTest("dot", 7);
+        runTest("dot", 16);
+        runTest("dot", 17);
+    }
+
+    @Test
+    public void runSwap() throws Throwable {
+        for (int n = 0; n < 12; n++) {
+            runTest("swap", n);
+        }
+    }
+
+    @Test
+    public void runAfterLoop() throws Throwable {
+        runTest("afterLoop", 1);
+        runTest("afterLoop", 9);
+        runTest("afterLoop", 10);
+        runTest("afterLoop", 11);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which compares two byte or char arrays lexicographically. The common prefix is
+ * skipped 16 bytes at a time with SSE2 compares; the first differing element is then located with
+ * the compare mask.
+ */
+@Opcode("ARRAY_COMPARE_TO")
+public final class AMD64ArrayCompareToOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayCompareToOp> TYPE = LIRInstructionClass.create(AMD64ArrayCompareToOp.class);
+
+    /**
+     * Vector size used in the main loop.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value length1Value;
+    @Alive({REG}) protected Value length2Value;
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value limitTemp;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayCompareToOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array1, Value array2, Value length1, Value length2) {
+        super(TYPE);
+        assert kind == JavaKind.Byte || kind == JavaKind.Char : kind;
+        this.kind = kind;
+        this.arrayBaseOffset = tool.getMetaAccess().getArrayBaseOffset(kind);
+        this.arrayIndexScale = Scale.fromInt(tool.getMetaAccess().getArrayIndexScale(kind));
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.array2Value = array2;
+        this.length1Value = length1;
+        this.length2Value = length2;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.limitTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.temp1 = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.temp2 = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array1 = asRegister(array1Value);
+        Register array2 = asRegister(array2Value);
+        Register length1 = asRegister(length1Value);
+        Register length2 = asRegister(length2Value);
+        Register index = asRegister(indexTemp);
+        Register limit = asRegister(limitTemp);
+        Register tmp1 = asRegister(temp1);
+        Register tmp2 = asRegister(temp2);
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        int elementsPerVector = VECTOR_SIZE / arrayIndexScale.value;
+
+        Label vectorLoop = new Label();
+        Label vectorMismatch = new Label();
+        Label scalarTail = new Label();
+        Label scalarLoop = new Label();
+        Label elementDifference = new Label();
+        Label lengthDifference = new Label();
+        Label done = new Label();
+
+        // Only the common prefix of both arrays is compared.
+        masm.movl(limit, length1);
+        masm.cmpl(limit, length2);
+        masm.cmovl(ConditionFlag.Greater, limit, length2);
+        masm.xorl(index, index);
+
+        // The last index at which a whole vector can be loaded.
+        masm.movl(result, limit);
+        masm.subl(result, elementsPerVector);
+        masm.cmpl(index, result);
+        masm.jcc(ConditionFlag.Greater, scalarTail);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        masm.movdqu(vector1, new AMD64Address(array1, index, arrayIndexScale, arrayBaseOffset));
+        masm.movdqu(vector2, new AMD64Address(array2, index, arrayIndexScale, arrayBaseOffset));
+        if (kind == JavaKind.Byte) {
+            masm.pcmpeqb(vector1, vector2);
+        } else {
+            masm.pcmpeqw(vector1, vector2);
+        }
+        masm.pmovmskb(tmp1, vector1);
+        masm.cmpl(tmp1, 0xFFFF);
+        masm.jcc(ConditionFlag.NotEqual, vectorMismatch);
+        masm.addl(index, elementsPerVector);
+        masm.cmpl(index, result);
+        masm.jcc(ConditionFlag.LessEqual, vectorLoop);
+
+        masm.bind(scalarTail);
+        masm.cmpl(index, limit);
+        masm.jcc(ConditionFlag.GreaterEqual, lengthDifference);
+
+        masm.bind(scalarLoop);
+        emitElementDifference(masm, array1, array2, index, tmp1, tmp2);
+        masm.jcc(ConditionFlag.NotZero, elementDifference);
+        masm.addl(index, 1);
+        masm.cmpl(index, limit);
+        masm.jcc(ConditionFlag.Less, scalarLoop);
+
+        masm.bind(lengthDifference);
+        masm.movl(result, length1);
+        masm.subl(result, length2);
+        masm.jmp(done);
+
+        // The lowest clear bit of the mask is the byte offset of the first difference.
+        masm.bind(vectorMismatch);
+        masm.notl(tmp1);
+        AMD64RMOp.BSF.emit(masm, OperandSize.DWORD, tmp1, tmp1);
+        if (kind == JavaKind.Char) {
+            masm.shrl(tmp1, 1);
+        }
+        masm.addl(index, tmp1);
+        emitElementDifference(masm, array1, array2, index, tmp1, tmp2);
+
+        masm.bind(elementDifference);
+        masm.movl(result, tmp1);
+
+        masm.bind(done);
+    }
+
+    /**
+     * Computes {@code array1[index] - array2[index]} into {@code tmp1} and sets the flags
+     * accordingly.
+     */
+    private void emitElementDifference(AMD64MacroAssembler masm, Register array1, Register array2, Register index, Register tmp1, Register tmp2) {
+        AMD64Address element1 = new AMD64Address(array1, index, arrayIndexScale, arrayBaseOffset);
+        AMD64Address element2 = new AMD64Address(array2, index, arrayIndexScale, arrayBaseOffset);
+        if (kind == JavaKind.Byte) {
+            masm.movsbl(tmp1, element1);
+            masm.movsbl(tmp2, element2);
+        } else {
+            masm.movzwl(tmp1, element1);
+            masm.movzwl(tmp2, element2);
+        }
+        masm.subl(tmp1, tmp2);
+    }
+}
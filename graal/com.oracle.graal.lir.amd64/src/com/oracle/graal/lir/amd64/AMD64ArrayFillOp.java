@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which stores a value into a range of array elements. The value is broadcast to a 16
+ * byte SSE register which is stored to the array as long as a whole vector fits into the range; the
+ * remaining elements are stored one by one.
+ */
+@Opcode("ARRAY_FILL")
+public final class AMD64ArrayFillOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayFillOp> TYPE = LIRInstructionClass.create(AMD64ArrayFillOp.class);
+
+    /**
+     * Vector size used in the main loop.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value startValue;
+    @Alive({REG}) protected Value limitValue;
+    @Alive({REG}) protected Value fillValue;
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value temp;
+    @Temp({REG}) protected Value vectorTemp;
+
+    public AMD64ArrayFillOp(LIRGeneratorTool tool, JavaKind kind, Value array, Value start, Value limit, Value value) {
+        super(TYPE);
+        this.kind = kind;
+        this.arrayBaseOffset = tool.getMetaAccess().getArrayBaseOffset(kind);
+        this.arrayIndexScale = Scale.fromInt(tool.getMetaAccess().getArrayIndexScale(kind));
+
+        this.arrayValue = array;
+        this.startValue = start;
+        this.limitValue = limit;
+        this.fillValue = value;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.vectorTemp = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register array = asRegister(arrayValue);
+        Register limit = asRegister(limitValue);
+        Register value = asRegister(fillValue);
+        Register index = asRegister(indexTemp);
+        Register tmp = asRegister(temp);
+        Register vector = asRegister(vectorTemp, AMD64Kind.DOUBLE);
+
+        int elementsPerVector = VECTOR_SIZE / arrayIndexScale.value;
+
+        Label vectorLoop = new Label();
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        masm.movl(index, asRegister(startValue));
+        masm.cmpl(index, limit);
+        masm.jcc(ConditionFlag.GreaterEqual, done);
+
+        broadcast(masm, vector, value, tmp);
+
+        // The last index at which a whole vector can be stored.
+        masm.movl(tmp, limit);
+        masm.subl(tmp, elementsPerVector);
+        masm.cmpl(index, tmp);
+        masm.jcc(ConditionFlag.Greater, scalarLoop);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        masm.movdqu(new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset), vector);
+        masm.addl(index, elementsPerVector);
+        masm.cmpl(index, tmp);
+        masm.jcc(ConditionFlag.LessEqual, vectorLoop);
+
+        masm.cmpl(index, limit);
+        masm.jcc(ConditionFlag.GreaterEqual, done);
+
+        masm.bind(scalarLoop);
+        storeElement(masm, new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset), value);
+        masm.addl(index, 1);
+        masm.cmpl(index, limit);
+        masm.jcc(ConditionFlag.Less, scalarLoop);
+
+        masm.bind(done);
+    }
+
+    /**
+     * Copies {@code value} into all elements of {@code dst}, using {@code tmp} to replicate
+     * sub-word values into a whole 32 bit lane.
+     */
+    private void broadcast(AMD64MacroAssembler masm, Register dst, Register value, Register tmp) {
+        switch (kind) {
+            case Boolean:
+            case Byte:
+                masm.movl(tmp, value);
+                masm.andl(tmp, 0xFF);
+                masm.imull(tmp, tmp, 0x01010101);
+                masm.movdl(dst, tmp);
+                masm.pshufd(dst, dst, 0x00);
+                break;
+            case Char:
+            case Short:
+                masm.movl(tmp, value);
+                masm.andl(tmp, 0xFFFF);
+                masm.imull(tmp, tmp, 0x00010001);
+                masm.movdl(dst, tmp);
+                masm.pshufd(dst, dst, 0x00);
+                break;
+            case Int:
+                masm.movdl(dst, value);
+                masm.pshufd(dst, dst, 0x00);
+                break;
+            case Long:
+                masm.movdq(dst, value);
+                masm.pshufd(dst, dst, 0x44);
+                break;
+            case Float:
+                masm.pshufd(dst, value, 0x00);
+                break;
+            case Double:
+                masm.pshufd(dst, value, 0x44);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unsupported kind " + kind);
+        }
+    }
+
+    private void storeElement(AMD64MacroAssembler masm, AMD64Address address, Register value) {
+        switch (kind) {
+            case Boolean:
+            case Byte:
+                masm.movb(address, value);
+                break;
+            case Char:
+            case Short:
+                masm.movw(address, value);
+                break;
+            case Int:
+                masm.movl(address, value);
+                break;
+            case Long:
+                masm.movq(address, value);
+                break;
+            case Float:
+                masm.movss(address, value);
+                break;
+            case Double:
+                masm.movsd(address, value);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unsupported kind " + kind);
+        }
+    }
+}
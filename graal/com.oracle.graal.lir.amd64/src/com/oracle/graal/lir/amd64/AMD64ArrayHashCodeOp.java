@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which computes the polynomial hash {@code h = 31 * h + a[i]} of an array. The main
+ * loop keeps four partial hashes in the lanes of an SSE register, where lane {@code j} accumulates
+ * the elements {@code a[4 * k + j]}. Each iteration multiplies all lanes by {@code 31^4} and adds
+ * the next four elements, so after the loop the hash is
+ * {@code lane0 * 31^3 + lane1 * 31^2 + lane2 * 31 + lane3}. The initial value is placed in lane 3
+ * so that it is scaled by the right power of 31 as well. Requires SSE4.1.
+ */
+@Opcode("ARRAY_HASH_CODE")
+public final class AMD64ArrayHashCodeOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayHashCodeOp> TYPE = LIRInstructionClass.create(AMD64ArrayHashCodeOp.class);
+
+    /**
+     * Number of elements processed per iteration of the main loop.
+     */
+    private static final int ELEMENTS_PER_VECTOR = 4;
+
+    /**
+     * {@code 31^4}, the factor by which the partial hashes are scaled in each iteration.
+     */
+    private static final int MULTIPLIER = 31 * 31 * 31 * 31;
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value initialValue;
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value limitTemp;
+    @Temp({REG}) protected Value temp;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+    @Temp({REG}) protected Value vectorTemp3;
+
+    public AMD64ArrayHashCodeOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array, Value length, Value initialValue) {
+        super(TYPE);
+        this.kind = kind;
+        this.arrayBaseOffset = tool.getMetaAccess().getArrayBaseOffset(kind);
+        this.arrayIndexScale = Scale.fromInt(tool.getMetaAccess().getArrayIndexScale(kind));
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+        this.initialValue = initialValue;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.limitTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.temp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp3 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayValue);
+        Register length = asRegister(lengthValue);
+        Register index = asRegister(indexTemp);
+        Register limit = asRegister(limitTemp);
+        Register tmp = asRegister(temp);
+        Register hashes = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register multiplier = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+        Register vector = asRegister(vectorTemp3, AMD64Kind.DOUBLE);
+
+        Label vectorLoop = new Label();
+        Label scalarTail = new Label();
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        masm.movl(result, asRegister(initialValue));
+        masm.xorl(index, index);
+        masm.movl(limit, length);
+        masm.andl(limit, ~(ELEMENTS_PER_VECTOR - 1));
+        masm.jcc(ConditionFlag.Zero, scalarTail);
+
+        // Lanes 0 to 2 start with zero, lane 3 with the initial value.
+        masm.movdl(hashes, result);
+        masm.pshufd(hashes, hashes, 0x15);
+        masm.movl(tmp, MULTIPLIER);
+        masm.movdl(multiplier, tmp);
+        masm.pshufd(multiplier, multiplier, 0);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        masm.pmulld(hashes, multiplier);
+        AMD64Address elements = new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset);
+        switch (kind) {
+            case Byte:
+                masm.pmovsxbd(vector, elements);
+                break;
+            case Char:
+                masm.pmovzxwd(vector, elements);
+                break;
+            case Short:
+                masm.pmovsxwd(vector, elements);
+                break;
+            case Int:
+                masm.movdqu(vector, elements);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+        masm.paddd(hashes, vector);
+        masm.addl(index, ELEMENTS_PER_VECTOR);
+        masm.cmpl(index, limit);
+        masm.jcc(ConditionFlag.Less, vectorLoop);
+
+        // Combine the lanes with Horner's scheme.
+        masm.movdl(result, hashes);
+        for (int lane = 1; lane < ELEMENTS_PER_VECTOR; lane++) {
+            masm.pshufd(vector, hashes, lane);
+            masm.movdl(tmp, vector);
+            masm.imull(result, result, 31);
+            masm.addl(result, tmp);
+        }
+
+        masm.bind(scalarTail);
+        masm.cmpl(index, length);
+        masm.jcc(ConditionFlag.GreaterEqual, done);
+
+        masm.bind(scalarLoop);
+        AMD64Address element = new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset);
+        switch (kind) {
+            case Byte:
+                masm.movsbl(tmp, element);
+                break;
+            case Char:
+                masm.movzwl(tmp, element);
+                break;
+            case Short:
+                masm.movswl(tmp, element);
+                break;
+            case Int:
+                masm.movl(tmp, element);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+        masm.imull(result, result, 31);
+        masm.addl(result, tmp);
+        masm.addl(index, 1);
+        masm.cmpl(index, length);
+        masm.jcc(ConditionFlag.Less, scalarLoop);
+
+        masm.bind(done);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which searches a byte or char array for the first occurrence of a value. The bulk of
+ * the array is compared 16 bytes at a time with SSE2 compares; the remaining elements are compared
+ * one by one.
+ */
+@Opcode("ARRAY_INDEX_OF")
+public final class AMD64ArrayIndexOfOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayIndexOfOp> TYPE = LIRInstructionClass.create(AMD64ArrayIndexOfOp.class);
+
+    /**
+     * Vector size used in the main loop.
+     */
+    private static final int VECTOR_SIZE = 16;
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value fromIndexValue;
+    @Alive({REG}) protected Value searchValue;
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value temp;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayIndexOfOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array, Value length, Value fromIndex, Value searchValue) {
+        super(TYPE);
+        assert kind == JavaKind.Byte || kind == JavaKind.Char : kind;
+        this.kind = kind;
+        this.arrayBaseOffset = tool.getMetaAccess().getArrayBaseOffset(kind);
+        this.arrayIndexScale = Scale.fromInt(tool.getMetaAccess().getArrayIndexScale(kind));
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+        this.fromIndexValue = fromIndex;
+        this.searchValue = searchValue;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayValue);
+        Register length = asRegister(lengthValue);
+        Register value = asRegister(searchValue);
+        Register index = asRegister(indexTemp);
+        Register tmp = asRegister(temp);
+        Register needle = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        int elementsPerVector = VECTOR_SIZE / arrayIndexScale.value;
+
+        Label vectorLoop = new Label();
+        Label vectorFound = new Label();
+        Label scalarTail = new Label();
+        Label scalarLoop = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+
+        masm.movl(index, asRegister(fromIndexValue));
+
+        // Broadcast the search value to all elements of the needle vector.
+        masm.movl(tmp, value);
+        if (kind == JavaKind.Byte) {
+            masm.andl(tmp, 0xFF);
+            masm.imull(tmp, tmp, 0x01010101);
+        } else {
+            masm.andl(tmp, 0xFFFF);
+            masm.movl(result, tmp);
+            masm.shll(result, 16);
+            masm.orl(tmp, result);
+        }
+        masm.movdl(needle, tmp);
+        masm.pshufd(needle, needle, 0);
+
+        // The last index at which a whole vector can be loaded.
+        masm.movl(result, length);
+        masm.subl(result, elementsPerVector);
+        masm.cmpl(index, result);
+        masm.jcc(ConditionFlag.Greater, scalarTail);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        masm.movdqu(vector, new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset));
+        if (kind == JavaKind.Byte) {
+            masm.pcmpeqb(vector, needle);
+        } else {
+            masm.pcmpeqw(vector, needle);
+        }
+        masm.pmovmskb(tmp, vector);
+        masm.testl(tmp, tmp);
+        masm.jcc(ConditionFlag.NotZero, vectorFound);
+        masm.addl(index, elementsPerVector);
+        masm.cmpl(index, result);
+        masm.jcc(ConditionFlag.LessEqual, vectorLoop);
+
+        masm.bind(scalarTail);
+        masm.cmpl(index, length);
+        masm.jcc(ConditionFlag.GreaterEqual, notFound);
+
+        masm.bind(scalarLoop);
+        AMD64Address element = new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset);
+        if (kind == JavaKind.Byte) {
+            masm.movsbl(tmp, element);
+        } else {
+            masm.movzwl(tmp, element);
+        }
+        masm.cmpl(tmp, value);
+        masm.jcc(ConditionFlag.Equal, found);
+        masm.addl(index, 1);
+        masm.cmpl(index, length);
+        masm.jcc(ConditionFlag.Less, scalarLoop);
+
+        masm.bind(notFound);
+        masm.movl(result, -1);
+        masm.jmp(done);
+
+        // The mask has one bit per byte, so the lowest set bit is the byte offset of the match.
+        masm.bind(vectorFound);
+        AMD64RMOp.BSF.emit(masm, OperandSize.DWORD, tmp, tmp);
+        if (kind == JavaKind.Char) {
+            masm.shrl(tmp, 1);
+        }
+        masm.addl(index, tmp);
+
+        masm.bind(found);
+        masm.movl(result, index);
+
+        masm.bind(done);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which updates a CRC32C checksum with {@code length} bytes starting at a raw
+ * {@code address}, using the SSE4.2 {@code crc32} instruction. The bulk of the input is consumed 8
+ * bytes at a time; the remaining bytes are consumed one by one. Like
+ * {@code java.util.zip.CRC32C.updateBytes}, the checksum is neither inverted on entry nor on exit.
+ */
+@Opcode("CRC32C")
+public final class AMD64CRC32COp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64CRC32COp> TYPE = LIRInstructionClass.create(AMD64CRC32COp.class);
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value crcValue;
+    @Alive({REG}) protected Value addressValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value addressTemp;
+    @Temp({REG}) protected Value lengthTemp;
+
+    public AMD64CRC32COp(LIRGeneratorTool tool, Value result, Value crc, Value address, Value length) {
+        super(TYPE);
+        this.resultValue = result;
+        this.crcValue = crc;
+        this.addressValue = address;
+        this.lengthValue = length;
+
+        this.addressTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.lengthTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register address = asRegister(addressTemp);
+        Register length = asRegister(lengthTemp);
+
+        Label quadLoop = new Label();
+        Label byteTail = new Label();
+        Label byteLoop = new Label();
+        Label done = new Label();
+
+        masm.movl(result, asRegister(crcValue));
+        masm.movq(address, asRegister(addressValue));
+        masm.movl(length, asRegister(lengthValue));
+
+        masm.cmpl(length, 8);
+        masm.jcc(ConditionFlag.Less, byteTail);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(quadLoop);
+        masm.crc32q(result, new AMD64Address(address));
+        masm.addq(address, 8);
+        masm.subl(length, 8);
+        masm.cmpl(length, 8);
+        masm.jcc(ConditionFlag.GreaterEqual, quadLoop);
+
+        masm.bind(byteTail);
+        masm.testl(length, length);
+        masm.jcc(ConditionFlag.LessEqual, done);
+
+        masm.bind(byteLoop);
+        masm.crc32b(result, new AMD64Address(address));
+        masm.addq(address, 1);
+        masm.subl(length, 1);
+        masm.jcc(ConditionFlag.NotZero, byteLoop);
+
+        masm.bind(done);
+    }
+}
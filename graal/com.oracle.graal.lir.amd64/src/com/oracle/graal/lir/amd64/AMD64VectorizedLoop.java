@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64BinaryArithmetic;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.LIRKind;
+import com.oracle.graal.compiler.common.type.ArithmeticOpTable.BinaryOp;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Loops over primitive arrays that process one 16 byte SSE vector per iteration. They are emitted
+ * in front of counted loops that were vectorized; the original scalar loop handles the remaining
+ * iterations. The start index is zero extended to a 64 bit index register, so it must not be
+ * negative if it is less than the limit.
+ */
+public final class AMD64VectorizedLoop {
+
+    /**
+     * Size of the vectors in bytes.
+     */
+    public static final int VECTOR_SIZE = 16;
+
+    private AMD64VectorizedLoop() {
+    }
+
+    /**
+     * Determines whether {@link MapOp} can compute {@code op} on arrays of {@code kind}. Only loops
+     * for which this holds must be vectorized.
+     */
+    public static boolean supportsMap(JavaKind kind, BinaryOp<?> op) {
+        switch (kind) {
+            case Int:
+            case Long:
+                return op instanceof BinaryOp.Add || op instanceof BinaryOp.Sub || op instanceof BinaryOp.And || op instanceof BinaryOp.Or || op instanceof BinaryOp.Xor;
+            case Float:
+            case Double:
+                return op instanceof BinaryOp.Add || op instanceof BinaryOp.Sub || op instanceof BinaryOp.Mul;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Determines whether {@link ReduceOp} can reduce arrays of {@code kind} with {@code op}. Only
+     * loops for which this holds must be vectorized. Floating point reductions are not supported
+     * since reordering the operations changes the result.
+     */
+    public static boolean supportsReduction(JavaKind kind, BinaryOp<?> op) {
+        return (kind == JavaKind.Int || kind == JavaKind.Long) && supportsMap(kind, op);
+    }
+
+    /**
+     * Computes {@code result[i] = x[i] op y[i]} where either {@code x} or {@code y} may be a scalar
+     * that is broadcast to all vector elements.
+     */
+    @Opcode("VECTORIZED_ARRAY_MAP")
+    public static final class MapOp extends AMD64LIRInstruction {
+        public static final LIRInstructionClass<MapOp> TYPE = LIRInstructionClass.create(MapOp.class);
+
+        private final JavaKind kind;
+        private final BinaryOp<?> op;
+        private final int arrayBaseOffset;
+        private final Scale arrayIndexScale;
+        private final boolean xIsArray;
+        private final boolean yIsArray;
+
+        @Alive({REG}) protected Value resultValue;
+        @Alive({REG}) protected Value xValue;
+        @Alive({REG}) protected Value yValue;
+        @Alive({REG}) protected Value startValue;
+        @Alive({REG}) protected Value limitValue;
+        @Temp({REG}) protected Value indexTemp;
+        @Temp({REG}) protected Value vectorTemp1;
+        @Temp({REG}) protected Value vectorTemp2;
+        @Temp({REG, ILLEGAL}) protected Value vectorTemp3;
+
+        public MapOp(LIRGeneratorTool tool, JavaKind kind, BinaryOp<?> op, Value result, Value x, boolean xIsArray, Value y, boolean yIsArray, Value start, Value limit) {
+            super(TYPE);
+            assert supportsMap(kind, op) : "unsupported operation " + op + " on " + kind;
+            this.kind = kind;
+            this.op = op;
+            this.arrayBaseOffset = tool.getMetaAccess().getArrayBaseOffset(kind);
+            this.arrayIndexScale = Scale.fromInt(tool.getMetaAccess().getArrayIndexScale(kind));
+            this.xIsArray = xIsArray;
+            this.yIsArray = yIsArray;
+
+            this.resultValue = result;
+            this.xValue = x;
+            this.yValue = y;
+            this.startValue = start;
+            this.limitValue = limit;
+
+            this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+            this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            // A scalar x needs its own register since the operation overwrites its first operand.
+            this.vectorTemp3 = xIsArray ? Value.ILLEGAL : tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        }
+
+        @Override
+        public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+            Register result = asRegister(resultValue);
+            Register index = asRegister(indexTemp);
+            Register limit = asRegister(limitValue);
+            Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+            Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+            Label loop = new Label();
+            Label done = new Label();
+
+            masm.movl(index, asRegister(startValue));
+            masm.cmpl(index, limit);
+            masm.jcc(ConditionFlag.GreaterEqual, done);
+
+            Register scalarX = Register.None;
+            if (!xIsArray) {
+                scalarX = asRegister(vectorTemp3, AMD64Kind.DOUBLE);
+                broadcast(masm, kind, scalarX, asRegister(xValue));
+            }
+            if (!yIsArray) {
+                broadcast(masm, kind, vector2, asRegister(yValue));
+            }
+
+            // Align the main loop
+            masm.align(crb.target.wordSize * 2);
+            masm.bind(loop);
+            if (xIsArray) {
+                masm.movdqu(vector1, new AMD64Address(asRegister(xValue), index, arrayIndexScale, arrayBaseOffset));
+            } else {
+                masm.movdqu(vector1, scalarX);
+            }
+            if (yIsArray) {
+                masm.movdqu(vector2, new AMD64Address(asRegister(yValue), index, arrayIndexScale, arrayBaseOffset));
+            }
+            emitVectorOp(masm, kind, op, vector1, vector2);
+            masm.movdqu(new AMD64Address(result, index, arrayIndexScale, arrayBaseOffset), vector1);
+            masm.addl(index, VECTOR_SIZE / kind.getByteCount());
+            masm.cmpl(index, limit);
+            masm.jcc(ConditionFlag.Less, loop);
+
+            masm.bind(done);
+        }
+    }
+
+    /**
+     * Combines a scalar with all elements of an integer array. The elements are first combined
+     * vertically into one vector which is folded into a scalar after the loop.
+     */
+    @Opcode("VECTORIZED_ARRAY_REDUCE")
+    public static final class ReduceOp extends AMD64LIRInstruction {
+        public static final LIRInstructionClass<ReduceOp> TYPE = LIRInstructionClass.create(ReduceOp.class);
+
+        private final JavaKind kind;
+        private final BinaryOp<?> op;
+        private final int arrayBaseOffset;
+        private final Scale arrayIndexScale;
+
+        @Def({REG}) protected Value resultValue;
+        @Alive({REG}) protected Value arrayValue;
+        @Alive({REG}) protected Value initValue;
+        @Alive({REG}) protected Value startValue;
+        @Alive({REG}) protected Value limitValue;
+        @Temp({REG}) protected Value indexTemp;
+        @Temp({REG}) protected Value vectorTemp1;
+        @Temp({REG}) protected Value vectorTemp2;
+
+        public ReduceOp(LIRGeneratorTool tool, JavaKind kind, BinaryOp<?> op, Value result, Value array, Value init, Value start, Value limit) {
+            super(TYPE);
+            assert supportsReduction(kind, op) : "unsupported reduction " + op + " on " + kind;
+            this.kind = kind;
+            this.op = op;
+            this.arrayBaseOffset = tool.getMetaAccess().getArrayBaseOffset(kind);
+            this.arrayIndexScale = Scale.fromInt(tool.getMetaAccess().getArrayIndexScale(kind));
+
+            this.resultValue = result;
+            this.arrayValue = array;
+            this.initValue = init;
+            this.startValue = start;
+            this.limitValue = limit;
+
+            this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+            this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        }
+
+        @Override
+        public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+            Register result = asRegister(resultValue);
+            Register array = asRegister(arrayValue);
+            Register index = asRegister(indexTemp);
+            Register limit = asRegister(limitValue);
+            Register accumulator = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+            Register vector = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+            OperandSize size = kind == JavaKind.Long ? OperandSize.QWORD : OperandSize.DWORD;
+            int vectorLength = VECTOR_SIZE / kind.getByteCount();
+
+            Label loop = new Label();
+            Label fold = new Label();
+            Label done = new Label();
+
+            if (size == OperandSize.QWORD) {
+                masm.movq(result, asRegister(initValue));
+            } else {
+                masm.movl(result, asRegister(initValue));
+            }
+            masm.movl(index, asRegister(startValue));
+            masm.cmpl(index, limit);
+            masm.jcc(ConditionFlag.GreaterEqual, done);
+
+            masm.movdqu(accumulator, new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset));
+            masm.addl(index, vectorLength);
+            masm.cmpl(index, limit);
+            masm.jcc(ConditionFlag.GreaterEqual, fold);
+
+            // Align the main loop
+            masm.align(crb.target.wordSize * 2);
+            masm.bind(loop);
+            masm.movdqu(vector, new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset));
+            emitReduceOp(masm, accumulator, vector);
+            masm.addl(index, vectorLength);
+            masm.cmpl(index, limit);
+            masm.jcc(ConditionFlag.Less, loop);
+
+            // Fold the upper half of the accumulator into the lower half until one element is left
+            masm.bind(fold);
+            masm.pshufd(vector, accumulator, 0x4E);
+            emitReduceOp(masm, accumulator, vector);
+            if (size == OperandSize.QWORD) {
+                masm.movdq(index, accumulator);
+            } else {
+                masm.pshufd(vector, accumulator, 0xB1);
+                emitReduceOp(masm, accumulator, vector);
+                masm.movdl(index, accumulator);
+            }
+            scalarOp(op).getRMOpcode(size).emit(masm, size, result, index);
+
+            masm.bind(done);
+        }
+
+        private void emitReduceOp(AMD64MacroAssembler masm, Register dst, Register src) {
+            if (op instanceof BinaryOp.Sub) {
+                // x - a - b == x - (a + b), so the elements are summed up first
+                emitVectorAdd(masm, kind, dst, src);
+            } else {
+                emitVectorOp(masm, kind, op, dst, src);
+            }
+        }
+
+        private static AMD64BinaryArithmetic scalarOp(BinaryOp<?> op) {
+            if (op instanceof BinaryOp.Add) {
+                return AMD64BinaryArithmetic.ADD;
+            } else if (op instanceof BinaryOp.Sub) {
+                return AMD64BinaryArithmetic.SUB;
+            } else if (op instanceof BinaryOp.And) {
+                return AMD64BinaryArithmetic.AND;
+            } else if (op instanceof BinaryOp.Or) {
+                return AMD64BinaryArithmetic.OR;
+            } else if (op instanceof BinaryOp.Xor) {
+                return AMD64BinaryArithmetic.XOR;
+            }
+            throw GraalError.shouldNotReachHere("unsupported reduction " + op);
+        }
+    }
+
+    /**
+     * Copies the scalar in {@code src} into all elements of {@code dst}.
+     */
+    private static void broadcast(AMD64MacroAssembler masm, JavaKind kind, Register dst, Register src) {
+        switch (kind) {
+            case Int:
+                masm.movdl(dst, src);
+                masm.pshufd(dst, dst, 0x00);
+                break;
+            case Long:
+                masm.movdq(dst, src);
+                masm.pshufd(dst, dst, 0x44);
+                break;
+            case Float:
+                masm.pshufd(dst, src, 0x00);
+                break;
+            case Double:
+                masm.pshufd(dst, src, 0x44);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unsupported kind " + kind);
+        }
+    }
+
+    private static void emitVectorAdd(AMD64MacroAssembler masm, JavaKind kind, Register dst, Register src) {
+        switch (kind) {
+            case Int:
+                masm.paddd(dst, src);
+                break;
+            case Long:
+                masm.paddq(dst, src);
+                break;
+            case Float:
+                masm.addps(dst, src);
+                break;
+            case Double:
+                masm.addpd(dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unsupported kind " + kind);
+        }
+    }
+
+    /**
+     * Emits {@code dst = dst op src} for all elements of the vectors. The operation must be
+     * {@linkplain #supportsMap(JavaKind, BinaryOp) supported}.
+     */
+    private static void emitVectorOp(AMD64MacroAssembler masm, JavaKind kind, BinaryOp<?> op, Register dst, Register src) {
+        if (op instanceof BinaryOp.Add) {
+            emitVectorAdd(masm, kind, dst, src);
+        } else if (op instanceof BinaryOp.Sub) {
+            switch (kind) {
+                case Int:
+                    masm.psubd(dst, src);
+                    break;
+                case Long:
+                    masm.psubq(dst, src);
+                    break;
+                case Float:
+                    masm.subps(dst, src);
+                    break;
+                case Double:
+                    masm.subpd(dst, src);
+                    break;
+                default:
+                    throw GraalError.shouldNotReachHere("unsupported kind " + kind);
+            }
+        } else if (op instanceof BinaryOp.Mul && kind == JavaKind.Float) {
+            masm.mulps(dst, src);
+        } else if (op instanceof BinaryOp.Mul && kind == JavaKind.Double) {
+            masm.mulpd(dst, src);
+        } else if (op instanceof BinaryOp.And && kind.isNumericInteger()) {
+            masm.pand(dst, src);
+        } else if (op instanceof BinaryOp.Or && kind.isNumericInteger()) {
+            masm.por(dst, src);
+        } else if (op instanceof BinaryOp.Xor && kind.isNumericInteger()) {
+            masm.pxor(dst, src);
+        } else {
+            throw GraalError.shouldNotReachHere("unsupported operation " + op + " on " + kind);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
 import com.oracle.graal.compiler.common.spi.CodeGenProviders;
 import com.oracle.graal.compiler.common.spi.ForeignCallLinkage;
 import com.oracle.graal.compiler.common.spi.ForeignCallsProvider;
+import com.oracle.graal.compiler.common.type.ArithmeticOpTable.BinaryOp;
 import com.oracle.graal.compiler.common.type.Stamp;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.graph.NodeSourcePosition;
@@ -246,6 +247,51 @@ public interface LIRGeneratorTool extends DiagnosticLIRGeneratorTool, ValueKindF
 
     Variable emitArrayEquals(JavaKind kind, Value array1, Value array2, Value length);
 
+    /**
+     * Emits code that returns the index of the first element in {@code [fromIndex, length)} of
+     * {@code array} that is equal to {@code searchValue}, or -1 if there is no such element.
+     */
+    Variable emitArrayIndexOf(JavaKind kind, Value array, Value length, Value fromIndex, Value searchValue);
+
+    /**
+     * Emits code that compares two arrays lexicographically with the semantics of
+     * {@link String#compareTo(String)}.
+     */
+    Variable emitArrayCompareTo(JavaKind kind, Value array1, Value array2, Value length1, Value length2);
+
+    /**
+     * Emits code that computes {@code h = 31 * h + array[i]} over the first {@code length}
+     * elements of {@code array}, starting with {@code h = initialValue}.
+     */
+    Variable emitArrayHashCode(JavaKind kind, Value array, Value length, Value initialValue);
+
+    /**
+     * Emits code that stores {@code value} into all elements of {@code array} with an index in
+     * {@code [start, limit)}. The array must not be null and the index range must be within its
+     * bounds.
+     */
+    void emitArrayFill(JavaKind kind, Value array, Value start, Value limit, Value value);
+
+    /**
+     * Emits a vectorized loop that computes {@code result[i] = x[i] op y[i]} for all indexes
+     * {@code i} in {@code [start, limit)}. If {@code x} or {@code y} is not an array, the scalar
+     * value is used for every element instead. The arrays must not be null, the index range must
+     * be within their bounds and {@code limit - start} must be a multiple of the number of elements
+     * in a 16 byte vector.
+     *
+     * @param kind the element kind of all arrays
+     */
+    void emitVectorizedArrayMap(JavaKind kind, BinaryOp<?> op, Value result, Value x, boolean xIsArray, Value y, boolean yIsArray, Value start, Value limit);
+
+    /**
+     * Emits a vectorized loop that combines {@code init} with the elements of {@code array} in
+     * {@code [start, limit)} using {@code op}. The same restrictions as for
+     * {@link #emitVectorizedArrayMap} apply.
+     *
+     * @param kind the element kind of {@code array}
+     */
+    Variable emitVectorizedArrayReduce(JavaKind kind, BinaryOp<?> op, Value array, Value init, Value start, Value limit);
+
     void emitBlackhole(Value operand);
 
     LIRKind getLIRKind(Stamp stamp);
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Graph.Mark;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopPolicies;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+/**
+ * Splits counted loops into a partially unrolled main loop and a post loop for the remaining
+ * iterations. The transformation relies on floating guards and on the value proxies being removed,
+ * so this phase has to run in the mid tier before guards are lowered.
+ */
+public class LoopPartialUnrollPhase extends LoopPhase<LoopPolicies> {
+
+    private static final DebugCounter PARTIALLY_UNROLLED_LOOPS = Debug.counter("PartialUnrolls");
+    private final CanonicalizerPhase canonicalizer;
+
+    public LoopPartialUnrollPhase(CanonicalizerPhase canonicalizer, LoopPolicies policies) {
+        super(policies);
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        if (graph.hasLoops() && graph.getGuardsStage().allowsFloatingGuards() && !graph.hasValueProxies()) {
+            NodeBitMap processed = graph.createNodeBitMap();
+            boolean unrolled;
+            do {
+                unrolled = false;
+                LoopsData data = new LoopsData(graph);
+                data.detectedCountedLoops();
+                for (LoopEx loop : data.countedLoops()) {
+                    LoopBeginNode loopBegin = loop.loopBegin();
+                    if (processed.isMarkedAndGrow(loopBegin)) {
+                        continue;
+                    }
+                    processed.markAndGrow(loopBegin);
+                    int factor = getPolicies().partialUnrollFactor(loop);
+                    if (factor > 1) {
+                        Debug.log("PartialUnroll %s by %d", loop, factor);
+                        Mark mark = graph.getMark();
+                        LoopBeginNode mainLoopBegin = LoopTransformations.partialUnroll(loop, factor);
+                        processed.markAndGrow(mainLoopBegin);
+                        canonicalizer.applyIncremental(graph, context, mark);
+                        PARTIALLY_UNROLLED_LOOPS.increment();
+                        Debug.dump(Debug.INFO_LOG_LEVEL, graph, "PartialUnroll %s", loop);
+                        unrolled = true;
+                        break;
+                    }
+                }
+                data.deleteUnusedNodes();
+            } while (unrolled);
+        }
+    }
+
+    @Override
+    public boolean checkContract() {
+        return false;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.loop.MathUtil.add;
+import static com.oracle.graal.loop.MathUtil.divBefore;
+import static com.oracle.graal.loop.MathUtil.mul;
+import static com.oracle.graal.loop.MathUtil.sub;
+import static com.oracle.graal.nodes.extended.BranchProbabilityNode.NOT_FREQUENT_PROBABILITY;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.DerivedOffsetInductionVariable;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Replaces bounds checks inside counted loops by a single predicate in front of the loop. A guard
+ * {@code index |<| length} that is executed in every iteration of the loop body can be hoisted if
+ * {@code length} is loop invariant and {@code index} is the loop counter or the counter plus or
+ * minus a loop invariant offset. The predicate checks that the smallest and the largest value the
+ * index takes in the loop are within the bounds. It is evaluated with 64 bit arithmetic so that it
+ * cannot overflow. If it fails, the code deoptimizes before the loop and the interpreter throws the
+ * exception in the right iteration.
+ *
+ * Since the predicate is only a conservative approximation of the original checks, it can fail
+ * although no iteration would have failed. The predicate therefore deoptimizes with its own reason,
+ * {@link OptimisticOptimizations#LOOP_PREDICATE_REASON}, and
+ * {@link DeoptimizationAction#InvalidateRecompile}, which disables loop predication for the method
+ * after {@link com.oracle.graal.compiler.common.GraalOptions#DeoptsToDisableOptimisticOptimization}
+ * failed predicates. Bounds checks failing elsewhere in the method do not disable predication.
+ */
+public class LoopPredicationPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugCounter PREDICATED_GUARDS = Debug.counter("LoopPredicatedGuards");
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (graph.hasLoops() && context.getOptimisticOptimizations().useLoopPredication() && graph.getGuardsStage().allowsFloatingGuards()) {
+            LoopsData data = new LoopsData(graph);
+            data.detectedCountedLoops();
+            for (LoopEx loop : data.countedLoops()) {
+                predicate(data, loop);
+            }
+            data.deleteUnusedNodes();
+        }
+    }
+
+    private static void predicate(LoopsData data, LoopEx loop) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        CountedLoopInfo counted = loop.counted();
+        if (counted.getStamp().getBits() > 32) {
+            return;
+        }
+        Block body = data.getCFG().blockFor(counted.getBody());
+        List<GuardNode> guards = new ArrayList<>();
+        for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class)) {
+            if (!guard.isNegated() && guard.getCondition() instanceof IntegerBelowNode && !loop.isOutsideLoop(guard.getAnchor().asNode()) &&
+                            isExecutedInEveryIteration(data, loop, body, guard)) {
+                IntegerBelowNode below = (IntegerBelowNode) guard.getCondition();
+                if (loop.isOutsideLoop(below.getY()) && isPredicatableIndex(loop, below.getX())) {
+                    guards.add(guard);
+                }
+            }
+        }
+        if (guards.isEmpty()) {
+            return;
+        }
+
+        /*
+         * The values of the counter in the loop body are start, start + stride, ... up to the last
+         * value that does not pass the limit. With a stride other than 1 or -1, the last value is
+         * computed exactly so that the predicate does not check an index the loop never uses.
+         */
+        Stamp longStamp = StampFactory.forKind(JavaKind.Long);
+        ValueNode start = IntegerConvertNode.convert(counted.getStart(), longStamp, graph);
+        ValueNode limit = IntegerConvertNode.convert(counted.getLimit(), longStamp, graph);
+        ValueNode stride = IntegerConvertNode.convert(counted.getCounter().strideNode(), longStamp, graph);
+        ValueNode bound;
+        LogicNode notEntered;
+        if (counted.getDirection() == Direction.Up) {
+            bound = counted.isLimitIncluded() ? limit : sub(graph, limit, ConstantNode.forLong(1, graph));
+            notEntered = graph.unique(new IntegerLessThanNode(bound, start));
+        } else {
+            bound = counted.isLimitIncluded() ? limit : add(graph, limit, ConstantNode.forLong(1, graph));
+            notEntered = graph.unique(new IntegerLessThanNode(start, bound));
+        }
+        ValueNode last = add(graph, start, mul(graph, divBefore(graph, loop.entryPoint(), sub(graph, bound, start), stride), stride));
+        ValueNode low = counted.getDirection() == Direction.Up ? start : last;
+        ValueNode high = counted.getDirection() == Direction.Up ? last : start;
+        AbstractBeginNode anchor = AbstractBeginNode.prevBegin(loop.entryPoint());
+
+        // the predicates rely on the counter not wrapping around
+        counted.createOverFlowGuard();
+        for (GuardNode guard : guards) {
+            IntegerBelowNode below = (IntegerBelowNode) guard.getCondition();
+            ValueNode length = IntegerConvertNode.convert(below.getY(), longStamp, graph);
+            ValueNode indexLow;
+            ValueNode indexHigh;
+            InductionVariable iv = loop.getInductionVariables().get(below.getX());
+            if (iv instanceof BasicInductionVariable) {
+                indexLow = low;
+                indexHigh = high;
+            } else {
+                DerivedOffsetInductionVariable derived = (DerivedOffsetInductionVariable) iv;
+                ValueNode offset = IntegerConvertNode.convert(derived.getOffset(), longStamp, graph);
+                if (!(derived.valueNode() instanceof SubNode)) {
+                    indexLow = add(graph, low, offset);
+                    indexHigh = add(graph, high, offset);
+                } else if (((SubNode) derived.valueNode()).getX() == counted.getCounter().valueNode()) {
+                    indexLow = sub(graph, low, offset);
+                    indexHigh = sub(graph, high, offset);
+                } else {
+                    indexLow = sub(graph, offset, high);
+                    indexHigh = sub(graph, offset, low);
+                }
+            }
+            // notEntered || (indexLow |<| length && indexHigh |<| length)
+            LogicNode lowInBounds = graph.unique(new IntegerBelowNode(indexLow, length));
+            LogicNode highInBounds = graph.unique(new IntegerBelowNode(indexHigh, length));
+            LogicNode outOfBounds = graph.unique(new ShortCircuitOrNode(lowInBounds, true, highInBounds, true, NOT_FREQUENT_PROBABILITY));
+            LogicNode condition = graph.unique(new ShortCircuitOrNode(notEntered, false, outOfBounds, true, NOT_FREQUENT_PROBABILITY));
+            GuardNode predicate = graph.unique(new GuardNode(condition, anchor, OptimisticOptimizations.LOOP_PREDICATE_REASON, DeoptimizationAction.InvalidateRecompile, false, JavaConstant.NULL_POINTER));
+            Debug.log("Predicating %s in %s with %s", guard, loop, predicate);
+            guard.replaceAtUsages(predicate);
+            GraphUtil.killWithUnusedFloatingInputs(guard);
+            PREDICATED_GUARDS.increment();
+        }
+    }
+
+    /**
+     * Checks whether {@code guard} is executed in every iteration of the loop, i.e., whether its
+     * anchor is in the loop body and dominates all loop ends. A guard that is only executed on some
+     * paths through the loop body must not be predicated since the predicate would also fail for
+     * indexes the guard never checks.
+     */
+    private static boolean isExecutedInEveryIteration(LoopsData data, LoopEx loop, Block body, GuardNode guard) {
+        Block anchorBlock = data.getCFG().blockFor(guard.getAnchor().asNode());
+        if (!AbstractControlFlowGraph.dominates(body, anchorBlock)) {
+            return false;
+        }
+        for (LoopEndNode end : loop.loopBegin().loopEnds()) {
+            if (!AbstractControlFlowGraph.dominates(anchorBlock, data.getCFG().blockFor(end))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether {@code index} is the counter of the loop or the counter plus or minus a loop
+     * invariant value.
+     */
+    private static boolean isPredicatableIndex(LoopEx loop, ValueNode index) {
+        InductionVariable counter = loop.counted().getCounter();
+        InductionVariable iv = loop.getInductionVariables().get(index);
+        if (iv == counter) {
+            return counter instanceof BasicInductionVariable;
+        }
+        if (iv instanceof DerivedOffsetInductionVariable) {
+            DerivedOffsetInductionVariable derived = (DerivedOffsetInductionVariable) iv;
+            return derived.getBase() == counter && counter instanceof BasicInductionVariable && loop.isOutsideLoop(derived.getOffset());
+        }
+        return false;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2012, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -23,28 +23,39 @@
 package com.oracle.graal.loop.phases;
 
 import static com.oracle.graal.compiler.common.GraalOptions.MaximumDesiredSize;
+import static com.oracle.graal.loop.MathUtil.sub;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import com.oracle.graal.compiler.common.type.IntegerStamp;
 import com.oracle.graal.graph.Graph.Mark;
 import com.oracle.graal.graph.Position;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.InductionVariable.Direction;
 import com.oracle.graal.loop.LoopEx;
 import com.oracle.graal.loop.LoopFragmentWhole;
+import com.oracle.graal.loop.LoopsData;
 import com.oracle.graal.nodeinfo.InputType;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
 import com.oracle.graal.nodes.ControlSplitNode;
 import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.LoopBeginNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.CompareNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
 import com.oracle.graal.nodes.extended.SwitchNode;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.tiers.PhaseContext;
 
 import jdk.vm.ci.code.BailoutException;
+import jdk.vm.ci.code.CodeUtil;
 
 public abstract class LoopTransformations {
 
@@ -73,6 +84,70 @@ public abstract class LoopTransformations {
         }
     }
 
+    /**
+     * Partially unrolls a counted loop. A copy of the loop is inserted in front of it as the main
+     * loop, whose body executes {@code factor} iterations of the original loop. The main loop only
+     * starts an iteration if all of these iterations are within the bounds of the loop, the
+     * original loop then executes the remaining iterations.
+     *
+     * @return the loop begin of the main loop
+     */
+    public static LoopBeginNode partialUnroll(LoopEx loop, int factor) {
+        assert factor > 1 && Integer.bitCount(factor) == 1;
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        CountedLoopInfo counted = loop.counted();
+        IfNode exitIf = (IfNode) loopBegin.next();
+        ValueNode mainLimit = mainLoopLimit(counted, factor);
+
+        // the main loop relies on the counter not wrapping around
+        counted.createOverFlowGuard();
+
+        LoopFragmentWhole main = new LoopFragmentWhole(loop.whole());
+        main.insertBefore(loop);
+
+        IfNode mainExitIf = main.getDuplicatedNode(exitIf);
+        CompareNode compare = (CompareNode) mainExitIf.condition();
+        if (compare.getX() == counted.getLimit()) {
+            mainExitIf.setCondition(graph.unique(new IntegerLessThanNode(mainLimit, compare.getY())));
+        } else {
+            assert compare.getY() == counted.getLimit();
+            mainExitIf.setCondition(graph.unique(new IntegerLessThanNode(compare.getX(), mainLimit)));
+        }
+
+        LoopBeginNode mainLoopBegin = main.getDuplicatedNode(loopBegin);
+        mainLoopBegin.setLoopFrequency(Math.max(1.0, loopBegin.loopFrequency() / factor));
+        loopBegin.setLoopFrequency(Math.min(loopBegin.loopFrequency(), factor - 1));
+
+        // every round doubles the number of iterations in the body of the main loop
+        for (int iterations = 1; iterations < factor; iterations *= 2) {
+            LoopEx mainLoop = new LoopsData(graph).loop(mainLoopBegin);
+            mainLoop.inside().duplicate().appendInside(mainLoop);
+        }
+        return mainLoopBegin;
+    }
+
+    /**
+     * Computes {@code limit - (factor - 1) * stride}. If this overflows, the most extreme value of
+     * the counter's type is returned instead, for which the main loop is never entered.
+     */
+    private static ValueNode mainLoopLimit(CountedLoopInfo counted, int factor) {
+        StructuredGraph graph = counted.getLimit().graph();
+        IntegerStamp stamp = counted.getStamp();
+        ValueNode limit = counted.getLimit();
+        long delta = counted.getCounter().constantStride() * (factor - 1);
+        LogicNode overflow;
+        ValueNode extreme;
+        if (counted.getDirection() == Direction.Up) {
+            overflow = graph.unique(new IntegerLessThanNode(limit, ConstantNode.forIntegerStamp(stamp, CodeUtil.minValue(stamp.getBits()) + delta, graph)));
+            extreme = ConstantNode.forIntegerStamp(stamp, CodeUtil.minValue(stamp.getBits()), graph);
+        } else {
+            overflow = graph.unique(new IntegerLessThanNode(ConstantNode.forIntegerStamp(stamp, CodeUtil.maxValue(stamp.getBits()) + delta, graph), limit));
+            extreme = ConstantNode.forIntegerStamp(stamp, CodeUtil.maxValue(stamp.getBits()), graph);
+        }
+        return graph.unique(new ConditionalNode(overflow, extreme, sub(graph, limit, ConstantNode.forIntegerStamp(stamp, delta, graph))));
+    }
+
     public static void unswitch(LoopEx loop, List<ControlSplitNode> controlSplitNodeSet) {
         ControlSplitNode firstNode = controlSplitNodeSet.iterator().next();
         LoopFragmentWhole originalLoop = loop.whole();
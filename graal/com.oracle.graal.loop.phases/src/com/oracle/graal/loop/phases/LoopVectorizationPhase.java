@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.loop.MathUtil.add;
+import static com.oracle.graal.loop.MathUtil.sub;
+import static com.oracle.graal.nodes.extended.BranchProbabilityNode.NOT_FREQUENT_PROBABILITY;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import com.oracle.graal.compiler.common.type.ArithmeticOpTable.BinaryOp;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.AbstractEndNode;
+import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicConstantNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.MergeNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.VirtualState.NodeClosure;
+import com.oracle.graal.nodes.calc.AndNode;
+import com.oracle.graal.nodes.calc.BinaryArithmeticNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.extended.ArrayFillNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayMapNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayReduceNode;
+import com.oracle.graal.nodes.java.AccessIndexedNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.java.LoadIndexedNode;
+import com.oracle.graal.nodes.java.StoreIndexedNode;
+import com.oracle.graal.nodes.type.StampTool;
+import com.oracle.graal.phases.Phase;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Vectorizes counted loops over {@code int}, {@code long}, {@code float} and {@code double} arrays
+ * that either compute one array element per iteration from elements of other arrays at the same
+ * index:
+ *
+ * <pre>
+ * for (int i = start; i < end; i++) {
+ *     a[i] = b[i] op c[i]; // b[i] or c[i] may also be a loop invariant value
+ * }
+ * </pre>
+ *
+ * or reduce an integer array with an associative operation:
+ *
+ * <pre>
+ * for (int i = start; i < end; i++) {
+ *     s = s op a[i];
+ * }
+ * </pre>
+ *
+ * or fill an array of any primitive type with a loop invariant value:
+ *
+ * <pre>
+ * for (int i = start; i < end; i++) {
+ *     a[i] = v;
+ * }
+ * </pre>
+ *
+ * The original loop is kept as the scalar post loop. A {@link VectorizedArrayMapNode} or
+ * {@link VectorizedArrayReduceNode} is inserted in front of it that processes the longest prefix of
+ * the iteration space that is a multiple of the vector length and does not fail a null or bounds
+ * check. The scalar loop then continues where the vectorized loop stopped, so exceptions are still
+ * thrown by the same iteration. For a fill loop, an {@link ArrayFillNode} processes the whole prefix
+ * that does not fail a check, so the scalar loop only runs if an exception is thrown.
+ *
+ * Only the operations for which the backend can emit a vectorized loop are vectorized, see
+ * {@link #LoopVectorizationPhase(int, BiPredicate, BiPredicate)}. Floating point reductions must not
+ * be supported since reordering the operations changes the result.
+ */
+public class LoopVectorizationPhase extends Phase {
+
+    private static final DebugCounter VECTORIZED_LOOPS = Debug.counter("VectorizedLoops");
+
+    private final int vectorSize;
+    private final BiPredicate<JavaKind, BinaryOp<?>> supportsMap;
+    private final BiPredicate<JavaKind, BinaryOp<?>> supportsReduction;
+
+    /**
+     * @param vectorSize the size of the vector registers in bytes
+     * @param supportsMap determines whether the backend can emit a {@link VectorizedArrayMapNode}
+     *            for an operation on arrays of a kind
+     * @param supportsReduction determines whether the backend can emit a
+     *            {@link VectorizedArrayReduceNode} for an operation on arrays of a kind
+     */
+    public LoopVectorizationPhase(int vectorSize, BiPredicate<JavaKind, BinaryOp<?>> supportsMap, BiPredicate<JavaKind, BinaryOp<?>> supportsReduction) {
+        this.vectorSize = vectorSize;
+        this.supportsMap = supportsMap;
+        this.supportsReduction = supportsReduction;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        if (graph.hasLoops()) {
+            LoopsData data = new LoopsData(graph);
+            data.detectedCountedLoops();
+            for (LoopEx loop : data.countedLoops()) {
+                VectorizableLoop vectorizable = VectorizableLoop.match(loop, this);
+                if (vectorizable != null) {
+                    Debug.log("Vectorize %s", loop);
+                    vectorizable.vectorize();
+                    VECTORIZED_LOOPS.increment();
+                    Debug.dump(Debug.INFO_LOG_LEVEL, graph, "Vectorize %s", loop);
+                }
+            }
+            data.deleteUnusedNodes();
+        }
+    }
+
+    @Override
+    public boolean checkContract() {
+        return false;
+    }
+
+    /**
+     * A loop that matches one of the vectorizable shapes.
+     */
+    private static final class VectorizableLoop {
+
+        private final LoopEx loop;
+        private final int vectorLength;
+        private final JavaKind kind;
+        private final ValuePhiNode counter;
+
+        /**
+         * The operation of a map loop or reduction or null for a fill loop.
+         */
+        private final BinaryArithmeticNode<?> operation;
+        private final Set<ValueNode> arrays;
+
+        /**
+         * The store of a map or fill loop or null for a reduction.
+         */
+        private final StoreIndexedNode store;
+
+        /**
+         * The accumulator of a reduction or null for a map loop.
+         */
+        private final ValuePhiNode accumulator;
+
+        private VectorizableLoop(LoopEx loop, int vectorLength, JavaKind kind, ValuePhiNode counter, BinaryArithmeticNode<?> operation, Set<ValueNode> arrays, StoreIndexedNode store,
+                        ValuePhiNode accumulator) {
+            this.loop = loop;
+            this.vectorLength = vectorLength;
+            this.kind = kind;
+            this.counter = counter;
+            this.operation = operation;
+            this.arrays = arrays;
+            this.store = store;
+            this.accumulator = accumulator;
+        }
+
+        static VectorizableLoop match(LoopEx loop, LoopVectorizationPhase phase) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            CountedLoopInfo counted = loop.counted();
+            if (!loop.loop().getChildren().isEmpty() || loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1 || loopBegin.stateAfter() == null) {
+                return null;
+            }
+            if (counted.getDirection() != Direction.Up || counted.isLimitIncluded() || counted.getStamp().getBits() != 32) {
+                return null;
+            }
+            InductionVariable iv = counted.getCounter();
+            if (!(iv instanceof BasicInductionVariable) || !iv.isConstantStride() || iv.constantStride() != 1) {
+                return null;
+            }
+            if (counted.getBody().predecessor() != loopBegin.next()) {
+                // something is executed before the exit test
+                return null;
+            }
+            ValuePhiNode counter = ((BasicInductionVariable) iv).valueNode();
+
+            // The body must be a sequence of array accesses at the counter's index
+            List<LoadIndexedNode> loads = new ArrayList<>();
+            StoreIndexedNode store = null;
+            JavaKind kind = null;
+            FixedNode node = counted.getBody().next();
+            while (!(node instanceof LoopEndNode)) {
+                if (node instanceof LoadIndexedNode) {
+                    loads.add((LoadIndexedNode) node);
+                } else if (node instanceof StoreIndexedNode && store == null) {
+                    store = (StoreIndexedNode) node;
+                } else {
+                    return null;
+                }
+                AccessIndexedNode access = (AccessIndexedNode) node;
+                if (access.index() != counter || !loop.isOutsideLoop(access.array()) || !access.elementKind().isPrimitive() || (kind != null && kind != access.elementKind())) {
+                    return null;
+                }
+                kind = access.elementKind();
+                node = access.next();
+            }
+            boolean isFill = store != null && loads.isEmpty();
+            if (kind == null) {
+                return null;
+            }
+            int vectorLength = phase.vectorSize / kind.getByteCount();
+            if (vectorLength < 2 || (counted.isConstantMaxTripCount() && counted.constantMaxTripCount() < 2 * vectorLength)) {
+                return null;
+            }
+
+            ValuePhiNode accumulator = null;
+            for (PhiNode phi : loopBegin.phis()) {
+                if (phi != counter) {
+                    if (accumulator != null || !(phi instanceof ValuePhiNode)) {
+                        return null;
+                    }
+                    accumulator = (ValuePhiNode) phi;
+                }
+            }
+
+            Set<ValueNode> arrays = new LinkedHashSet<>();
+            for (LoadIndexedNode load : loads) {
+                arrays.add(load.array());
+            }
+            BinaryArithmeticNode<?> operation;
+            if (isFill && accumulator == null) {
+                if (!loop.isOutsideLoop(store.value())) {
+                    return null;
+                }
+                operation = null;
+                arrays.add(store.array());
+            } else if (store != null && accumulator == null) {
+                if (!(store.value() instanceof BinaryArithmeticNode)) {
+                    return null;
+                }
+                operation = (BinaryArithmeticNode<?>) store.value();
+                if (!phase.supportsMap.test(kind, operation.getArithmeticOp()) || !isOperand(loop, loads, operation.getX()) || !isOperand(loop, loads, operation.getY())) {
+                    return null;
+                }
+                if (!loads.contains(operation.getX()) && !loads.contains(operation.getY())) {
+                    return null;
+                }
+                arrays.add(store.array());
+            } else if (store == null && accumulator != null && loads.size() == 1) {
+                if (!(accumulator.singleBackValue() instanceof BinaryArithmeticNode)) {
+                    return null;
+                }
+                operation = (BinaryArithmeticNode<?>) accumulator.singleBackValue();
+                LoadIndexedNode load = loads.get(0);
+                BinaryOp<?> op = operation.getArithmeticOp();
+                if (!phase.supportsReduction.test(kind, op) || accumulator.getStackKind() != kind) {
+                    return null;
+                }
+                boolean accumulatorFirst = operation.getX() == accumulator && operation.getY() == load;
+                boolean accumulatorSecond = operation.getX() == load && operation.getY() == accumulator;
+                if (!accumulatorFirst && !(accumulatorSecond && op.isCommutative())) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            return new VectorizableLoop(loop, vectorLength, kind, counter, operation, arrays, store, accumulator);
+        }
+
+        /**
+         * Checks whether {@code value} is an element loaded in the loop body or a loop invariant.
+         */
+        private static boolean isOperand(LoopEx loop, List<LoadIndexedNode> loads, ValueNode value) {
+            return loads.contains(value) || loop.isOutsideLoop(value);
+        }
+
+        /**
+         * Inserts the vectorized loop in front of the scalar loop:
+         *
+         * <pre>
+         * if (any array is null) {
+         *     vectorLimit = start;
+         * } else {
+         *     limit = min(end, array lengths)
+         *     vectorLimit = 0 <= start < limit ? start + ((limit - start) & -vectorLength) : start
+         *     // for a fill loop: vectorLimit = 0 <= start < limit ? limit : start
+         *     vectorized loop over [start, vectorLimit)
+         * }
+         * scalar loop over [vectorLimit, end)
+         * </pre>
+         */
+        void vectorize() {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            StructuredGraph graph = loopBegin.graph();
+            AbstractEndNode forwardEnd = loopBegin.forwardEnd();
+            ValueNode start = counter.valueAt(forwardEnd);
+
+            LogicNode anyNull = null;
+            for (ValueNode array : arrays) {
+                if (!StampTool.isPointerNonNull(array)) {
+                    LogicNode isNull = graph.unique(new IsNullNode(array));
+                    anyNull = anyNull == null ? isNull : graph.unique(new ShortCircuitOrNode(anyNull, false, isNull, false, NOT_FREQUENT_PROBABILITY));
+                }
+            }
+            if (anyNull == null) {
+                anyNull = LogicConstantNode.contradiction(graph);
+            }
+            AbstractBeginNode nullBranch = graph.add(new BeginNode());
+            AbstractBeginNode vectorBranch = graph.add(new BeginNode());
+            IfNode nullCheck = graph.add(new IfNode(anyNull, nullBranch, vectorBranch, NOT_FREQUENT_PROBABILITY));
+            EndNode nullEnd = graph.add(new EndNode());
+            nullBranch.setNext(nullEnd);
+
+            FixedWithNextNode last = vectorBranch;
+            ValueNode limit = loop.counted().getLimit();
+            for (ValueNode array : arrays) {
+                ValueNode nonNullArray = array;
+                if (!StampTool.isPointerNonNull(array)) {
+                    nonNullArray = graph.unique(new PiNode(array, array.stamp().join(StampFactory.objectNonNull()), vectorBranch));
+                }
+                ArrayLengthNode length = graph.add(new ArrayLengthNode(nonNullArray));
+                last.setNext(length);
+                last = length;
+                limit = graph.unique(new ConditionalNode(graph.unique(new IntegerLessThanNode(length, limit)), length, limit));
+            }
+            ValueNode vectorLimit;
+            if (operation == null) {
+                // A fill also stores the elements that do not make up a whole vector
+                vectorLimit = limit;
+            } else {
+                vectorLimit = add(graph, start, graph.unique(new AndNode(sub(graph, limit, start), ConstantNode.forInt(-vectorLength, graph))));
+            }
+            vectorLimit = graph.unique(new ConditionalNode(graph.unique(new IntegerLessThanNode(start, limit)), vectorLimit, start));
+            if (!((IntegerStamp) start.stamp()).isPositive()) {
+                vectorLimit = graph.unique(new ConditionalNode(graph.unique(new IntegerLessThanNode(start, ConstantNode.forInt(0, graph))), start, vectorLimit));
+            }
+            assert isEmptyForNegativeStart(start, vectorLimit) : "the vectorized loops use start as a zero extended 64 bit index and must not run for a negative start";
+
+            FixedWithNextNode vectorized;
+            ValueNode accumulatorInit = null;
+            if (operation == null) {
+                ArrayFillNode fill = graph.add(new ArrayFillNode(store.array(), start, vectorLimit, store.value(), kind));
+                fill.setStateAfter(loopEntryState(counter, vectorLimit, null, null));
+                vectorized = fill;
+            } else if (store != null) {
+                ValueNode x = operation.getX();
+                ValueNode y = operation.getY();
+                boolean xIsArray = x instanceof LoadIndexedNode && !loop.isOutsideLoop(x);
+                boolean yIsArray = y instanceof LoadIndexedNode && !loop.isOutsideLoop(y);
+                VectorizedArrayMapNode map = graph.add(new VectorizedArrayMapNode(kind, operation.getArithmeticOp(), store.array(), xIsArray ? ((LoadIndexedNode) x).array() : x, xIsArray,
+                                yIsArray ? ((LoadIndexedNode) y).array() : y, yIsArray, start, vectorLimit));
+                map.setStateAfter(loopEntryState(counter, vectorLimit, null, null));
+                vectorized = map;
+            } else {
+                accumulatorInit = accumulator.valueAt(forwardEnd);
+                vectorized = graph.add(new VectorizedArrayReduceNode(kind, operation.getArithmeticOp(), arrays.iterator().next(), accumulatorInit, start, vectorLimit));
+            }
+            last.setNext(vectorized);
+            EndNode vectorEnd = graph.add(new EndNode());
+            vectorized.setNext(vectorEnd);
+
+            MergeNode merge = graph.add(new MergeNode());
+            merge.addForwardEnd(nullEnd);
+            merge.addForwardEnd(vectorEnd);
+            ValuePhiNode counterInit = graph.addWithoutUnique(new ValuePhiNode(start.stamp().meet(vectorLimit.stamp()), merge, new ValueNode[]{start, vectorLimit}));
+            ValuePhiNode newAccumulatorInit = null;
+            if (accumulator != null) {
+                newAccumulatorInit = graph.addWithoutUnique(new ValuePhiNode(accumulatorInit.stamp().meet(vectorized.stamp()), merge, new ValueNode[]{accumulatorInit, vectorized}));
+            }
+            merge.setStateAfter(loopEntryState(counter, counterInit, accumulator, newAccumulatorInit));
+
+            forwardEnd.replaceAtPredecessor(nullCheck);
+            merge.setNext(forwardEnd);
+            counter.setValueAt(forwardEnd, counterInit);
+            if (accumulator != null) {
+                accumulator.setValueAt(forwardEnd, newAccumulatorInit);
+            }
+        }
+
+        /**
+         * Checks that the range {@code [start, vectorLimit)} processed by the vectorized loop is
+         * empty if {@code start} is negative.
+         */
+        private static boolean isEmptyForNegativeStart(ValueNode start, ValueNode vectorLimit) {
+            if (((IntegerStamp) start.stamp()).isPositive()) {
+                return true;
+            }
+            if (vectorLimit instanceof ConditionalNode) {
+                ConditionalNode conditional = (ConditionalNode) vectorLimit;
+                if (conditional.condition() instanceof IntegerLessThanNode && conditional.trueValue() == start) {
+                    IntegerLessThanNode lessThan = (IntegerLessThanNode) conditional.condition();
+                    return lessThan.getX() == start && lessThan.getY().isConstant() && lessThan.getY().asJavaConstant().asInt() == 0;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Creates the state for entering the loop with new initial values for the counter and the
+         * accumulator. All other phis keep their initial values.
+         */
+        private FrameState loopEntryState(ValuePhiNode counterPhi, ValueNode counterValue, ValuePhiNode accumulatorPhi, ValueNode accumulatorValue) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            FrameState state = loopBegin.stateAfter().duplicateWithVirtualState();
+            state.applyToNonVirtual(new NodeClosure<ValueNode>() {
+
+                @Override
+                public void apply(Node from, ValueNode node) {
+                    if (node instanceof PhiNode && ((PhiNode) node).merge() == loopBegin) {
+                        ValueNode replacement;
+                        if (node == counterPhi) {
+                            replacement = counterValue;
+                        } else if (node == accumulatorPhi) {
+                            replacement = accumulatorValue;
+                        } else {
+                            replacement = ((PhiNode) node).valueAt(loopBegin.forwardEnd());
+                        }
+                        from.replaceFirstInput(node, replacement);
+                    }
+                }
+            });
+            return state;
+        }
+    }
+}
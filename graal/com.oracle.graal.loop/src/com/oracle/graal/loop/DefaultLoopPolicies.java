@@ -38,10 +38,12 @@ import com.oracle.graal.nodes.DeoptimizeNode;
 import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.FixedWithNextNode;
 import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.IfNode;
 import com.oracle.graal.nodes.LoopBeginNode;
 import com.oracle.graal.nodes.MergeNode;
 import com.oracle.graal.nodes.VirtualState;
 import com.oracle.graal.nodes.VirtualState.VirtualClosure;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
 import com.oracle.graal.nodes.cfg.Block;
 import com.oracle.graal.nodes.cfg.ControlFlowGraph;
 import com.oracle.graal.nodes.debug.ControlFlowAnchorNode;
@@ -62,24 +64,18 @@ public class DefaultLoopPolicies implements LoopPolicies {
     @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> FullUnrollMaxIterations = new OptionValue<>(600);
     @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> ExactFullUnrollMaxNodes = new OptionValue<>(1200);
 
+    @Option(help = "Maximum number of iterations of the original loop in one iteration of a partially unrolled loop", type = OptionType.Expert)
+    public static final OptionValue<Integer> PartialUnrollMaxFactor = new OptionValue<>(4);
+    @Option(help = "Maximum size of the body of a partially unrolled loop", type = OptionType.Expert)
+    public static final OptionValue<Integer> PartialUnrollMaxNodes = new OptionValue<>(200);
+
     @Override
     public boolean shouldPeel(LoopEx loop, ControlFlowGraph cfg, MetaAccessProvider metaAccess) {
         LoopBeginNode loopBegin = loop.loopBegin();
         double entryProbability = cfg.blockFor(loopBegin.forwardEnd()).probability();
         if (entryProbability > MinimumPeelProbability.getValue() && loop.size() + loopBegin.graph().getNodeCount() < MaximumDesiredSize.getValue()) {
             // check whether we're allowed to peel this loop
-            for (Node node : loop.inside().nodes()) {
-                if (node instanceof ControlFlowAnchorNode) {
-                    return false;
-                }
-                if (node instanceof FrameState) {
-                    FrameState frameState = (FrameState) node;
-                    if (frameState.bci == BytecodeFrame.AFTER_EXCEPTION_BCI || frameState.bci == BytecodeFrame.UNWIND_BCI) {
-                        return false;
-                    }
-                }
-            }
-            return true;
+            return canDuplicateLoopBody(loop);
         } else {
             return false;
         }
@@ -97,21 +93,51 @@ public class DefaultLoopPolicies implements LoopPolicies {
         int size = Math.max(1, loop.size() - 1 - loop.loopBegin().phis().count());
         if (maxTrips <= FullUnrollMaxIterations.getValue() && size * (maxTrips - 1) <= maxNodes) {
             // check whether we're allowed to unroll this loop
-            for (Node node : loop.inside().nodes()) {
-                if (node instanceof ControlFlowAnchorNode) {
+            return canDuplicateLoopBody(loop);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int partialUnrollFactor(LoopEx loop) {
+        if (!loop.isCounted() || !loop.loop().getChildren().isEmpty()) {
+            return 1;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        CountedLoopInfo counted = loop.counted();
+        if (loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1 || counted.isLimitIncluded() || !counted.getCounter().isConstantStride() || counted.getStamp().getBits() > 32) {
+            return 1;
+        }
+        // the loop has to be left before anything else is executed in an iteration
+        if (!(loopBegin.next() instanceof IfNode) || counted.getBody().predecessor() != loopBegin.next() || !(((IfNode) loopBegin.next()).condition() instanceof IntegerLessThanNode)) {
+            return 1;
+        }
+        int size = Math.max(1, loop.size() - 1 - loopBegin.phis().count());
+        int maxNodes = Math.min(PartialUnrollMaxNodes.getValue(), Math.max(0, MaximumDesiredSize.getValue() - loopBegin.graph().getNodeCount() - loop.size()));
+        int factor = 1;
+        while (factor * 2 <= PartialUnrollMaxFactor.getValue() && size * factor * 2 <= maxNodes) {
+            factor *= 2;
+        }
+        if (factor == 1 || (counted.isConstantMaxTripCount() && counted.constantMaxTripCount() < 2 * factor) || !canDuplicateLoopBody(loop)) {
+            return 1;
+        }
+        return factor;
+    }
+
+    private static boolean canDuplicateLoopBody(LoopEx loop) {
+        for (Node node : loop.inside().nodes()) {
+            if (node instanceof ControlFlowAnchorNode) {
+                return false;
+            }
+            if (node instanceof FrameState) {
+                FrameState frameState = (FrameState) node;
+                if (frameState.bci == BytecodeFrame.AFTER_EXCEPTION_BCI || frameState.bci == BytecodeFrame.UNWIND_BCI) {
                     return false;
                 }
-                if (node instanceof FrameState) {
-                    FrameState frameState = (FrameState) node;
-                    if (frameState.bci == BytecodeFrame.AFTER_EXCEPTION_BCI || frameState.bci == BytecodeFrame.UNWIND_BCI) {
-                        return false;
-                    }
-                }
             }
-            return true;
-        } else {
-            return false;
         }
+        return true;
     }
 
     @Override
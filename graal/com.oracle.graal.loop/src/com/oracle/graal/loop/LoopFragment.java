@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2012, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -36,6 +36,7 @@ import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.EndNode;
 import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.GuardNode;
 import com.oracle.graal.nodes.GuardPhiNode;
 import com.oracle.graal.nodes.GuardProxyNode;
 import com.oracle.graal.nodes.Invoke;
@@ -51,6 +52,7 @@ import com.oracle.graal.nodes.VirtualState;
 import com.oracle.graal.nodes.cfg.Block;
 import com.oracle.graal.nodes.java.MonitorEnterNode;
 import com.oracle.graal.nodes.spi.NodeWithState;
+import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.nodes.virtual.CommitAllocationNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 
@@ -170,6 +172,23 @@ public abstract class LoopFragment {
         }
     }
 
+    /**
+     * Removes the duplicates of guards that are anchored outside of the original fragment. Once the
+     * value proxies are gone, guards that belong to the code after the loop can use values of the
+     * loop directly, so they are part of the fragment although their duplicates must not be
+     * executed.
+     */
+    protected void removeOutsideGuards() {
+        assert isDuplicate();
+        for (GuardNode guard : original().nodes().filter(GuardNode.class)) {
+            GuardNode duplicate = getDuplicatedNode(guard);
+            if (duplicate != null && duplicate.isAlive() && duplicate.getAnchor() == guard.getAnchor()) {
+                duplicate.replaceAtUsages(guard);
+                GraphUtil.killWithUnusedFloatingInputs(duplicate);
+            }
+        }
+    }
+
     protected static NodeBitMap computeNodes(Graph graph, Iterable<AbstractBeginNode> blocks) {
         return computeNodes(graph, blocks, Collections.emptyList());
     }
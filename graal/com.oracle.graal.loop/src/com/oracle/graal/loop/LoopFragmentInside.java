@@ -39,6 +39,7 @@ import com.oracle.graal.nodes.BeginNode;
 import com.oracle.graal.nodes.EndNode;
 import com.oracle.graal.nodes.FrameState;
 import com.oracle.graal.nodes.GuardPhiNode;
+import com.oracle.graal.nodes.IfNode;
 import com.oracle.graal.nodes.LoopBeginNode;
 import com.oracle.graal.nodes.LoopEndNode;
 import com.oracle.graal.nodes.LoopExitNode;
@@ -93,9 +94,59 @@ public class LoopFragmentInside extends LoopFragment {
         return (LoopFragmentInside) super.original();
     }
 
-    @SuppressWarnings("unused")
+    /**
+     * Appends this duplicate to the body of {@code loop} so that every iteration of the loop
+     * executes two iterations of the original body. The exit tests of the duplicate are removed,
+     * i.e., the caller has to guarantee that the appended iteration never leaves the loop. Only
+     * loops with a single loop end whose exits are all controlled by {@link IfNode}s are supported.
+     */
     public void appendInside(LoopEx loop) {
-        // TODO (gd)
+        assert this.isDuplicate() && this.original().loop() == loop;
+        LoopBeginNode loopBegin = loop.loopBegin();
+        assert loopBegin.loopEnds().count() == 1;
+        LoopEndNode loopEnd = loopBegin.loopEnds().first();
+        StructuredGraph graph = graph();
+
+        // in the duplicate, the loop phis are replaced by the values of the back edge
+        Map<Node, ValueNode> backValues = Node.newIdentityMap();
+        for (PhiNode phi : loopBegin.phis()) {
+            backValues.put(phi, phi.valueAt(loopEnd));
+        }
+        patchNodes(new DuplicationReplacement() {
+
+            @Override
+            public Node replacement(Node original) {
+                ValueNode backValue = backValues.get(original);
+                return backValue != null ? backValue : original;
+            }
+        });
+        removeOutsideGuards();
+
+        for (LoopExitNode exit : original().exits()) {
+            IfNode ifNode = (IfNode) exit.predecessor();
+            AbstractBeginNode survivingSuccessor = ifNode.trueSuccessor() == exit ? ifNode.falseSuccessor() : ifNode.trueSuccessor();
+            graph.removeSplitPropagate(getDuplicatedNode(ifNode), getDuplicatedNode(survivingSuccessor));
+        }
+
+        AbstractBeginNode entry = getDuplicatedNode(loopBegin);
+        AbstractEndNode end = getDuplicatedNode(loopEnd);
+        loopEnd.replaceAtPredecessor(entry);
+        end.replaceAtPredecessor(loopEnd);
+        end.safeDelete();
+
+        for (PhiNode phi : loopBegin.phis()) {
+            ValueNode backValue = backValues.get(phi);
+            ValueNode newBackValue;
+            if (loopBegin.isPhiAtMerge(backValue)) {
+                newBackValue = backValues.get(backValue);
+            } else {
+                newBackValue = getDuplicatedNode(backValue);
+                if (newBackValue == null) {
+                    newBackValue = backValue;
+                }
+            }
+            phi.setValueAt(loopEnd, newBackValue);
+        }
     }
 
     @Override
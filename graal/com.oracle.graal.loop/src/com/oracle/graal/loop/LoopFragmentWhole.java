@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2012, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -32,6 +32,8 @@ import com.oracle.graal.graph.NodeBitMap;
 import com.oracle.graal.nodes.EndNode;
 import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopExitNode;
+import com.oracle.graal.nodes.PhiNode;
 import com.oracle.graal.nodes.StructuredGraph.GuardsStage;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.cfg.Block;
@@ -113,9 +115,31 @@ public class LoopFragmentWhole extends LoopFragment {
         // TODO (gd) ?
     }
 
+    /**
+     * Inserts this duplicate in front of {@code loop}: the duplicated loop is executed first and
+     * {@code loop} continues with the values the loop phis have when the duplicate exits. This
+     * fragment must have been created with {@link #LoopFragmentWhole(LoopFragmentWhole)} and not
+     * yet been reified. The loop must have a single exit which is taken before anything else is
+     * executed in an iteration, and the graph must not contain value proxies anymore.
+     */
     @Override
     public void insertBefore(LoopEx loop) {
-        // TODO Auto-generated method stub
+        assert this.isDuplicate() && this.original().loop() == loop;
+        assert !graph().hasValueProxies();
+        LoopBeginNode loopBegin = loop.loopBegin();
+        assert loopBegin.loopExits().count() == 1 && loopBegin.loopExits().first().predecessor() == loopBegin.next();
 
+        patchNodes(null);
+        removeOutsideGuards();
+
+        LoopBeginNode newLoopBegin = getDuplicatedNode(loopBegin);
+        LoopExitNode newExit = getDuplicatedNode(loopBegin.loopExits().first());
+        FixedNode entry = loop.entryPoint();
+        entry.replaceAtPredecessor(newLoopBegin.forwardEnd());
+        newExit.setNext(entry);
+        for (PhiNode phi : loopBegin.phis()) {
+            PhiNode newPhi = getDuplicatedNode(phi);
+            phi.setValueAt(loopBegin.forwardEnd(), newPhi);
+        }
     }
 }
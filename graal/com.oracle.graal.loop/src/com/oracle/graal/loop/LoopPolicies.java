@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -33,6 +33,13 @@ public interface LoopPolicies {
 
     boolean shouldFullUnroll(LoopEx loop);
 
+    /**
+     * Returns the number of iterations of the original loop that one iteration of the main loop
+     * should execute after partial unrolling. This is a power of two, 1 means the loop is not
+     * unrolled.
+     */
+    int partialUnrollFactor(LoopEx loop);
+
     boolean shouldTryUnswitch(LoopEx loop);
 
     boolean shouldUnswitch(LoopEx loop, List<ControlSplitNode> controlSplits);
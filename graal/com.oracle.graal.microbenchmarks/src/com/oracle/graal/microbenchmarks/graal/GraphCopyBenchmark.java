@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,14 +22,29 @@
  */
 package com.oracle.graal.microbenchmarks.graal;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
 import com.oracle.graal.microbenchmarks.graal.util.GraalState;
 import com.oracle.graal.microbenchmarks.graal.util.GraphState;
 import com.oracle.graal.microbenchmarks.graal.util.MethodSpec;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
 
 /**
  * Benchmarks the performance of {@link Graph#copy()}.
@@ -130,4 +145,61 @@ public class GraphCopyBenchmark extends GraalBenchmark {
     public StructuredGraph search(Search s, @SuppressWarnings("unused") GraalState g) {
         return (StructuredGraph) s.graph.copy();
     }
+
+    private static final int LARGE_GRAPH_REPLICAS = 200;
+
+    /**
+     * The graph of {@link #searchSnippet} replicated until it is large enough for parallel
+     * duplication.
+     */
+    @MethodSpec(declaringClass = GraphCopyBenchmark.class, name = "searchSnippet")
+    public static class Large extends GraphState {
+        @Override
+        protected StructuredGraph preprocessOriginal(StructuredGraph graph) {
+            List<Node> nodes = graph.getNodes().snapshot();
+            for (int i = 0; i < LARGE_GRAPH_REPLICAS; i++) {
+                graph.addDuplicates(nodes, graph, nodes.size(), (Map<Node, Node>) null);
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * The pool in which parallel duplication runs, sized to measure scaling by core count.
+     */
+    @State(Scope.Benchmark)
+    public static class DuplicationPool {
+        @Param({"1", "2", "4", "8"}) public int threads;
+
+        ForkJoinPool pool;
+
+        @Setup
+        public void setup() {
+            pool = new ForkJoinPool(threads);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 20)
+    public StructuredGraph large(Large s, @SuppressWarnings("unused") GraalState g) {
+        return (StructuredGraph) s.graph.copy();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 20)
+    public StructuredGraph largeParallel(Large s, DuplicationPool p, @SuppressWarnings("unused") GraalState g) {
+        return p.pool.invoke(ForkJoinTask.adapt(new Callable<StructuredGraph>() {
+            @Override
+            public StructuredGraph call() {
+                try (OverrideScope o = OptionValue.override(NodeClass.Options.ParallelGraphDuplicationThreshold, 1)) {
+                    return (StructuredGraph) s.graph.copy();
+                }
+            }
+        }));
+    }
 }
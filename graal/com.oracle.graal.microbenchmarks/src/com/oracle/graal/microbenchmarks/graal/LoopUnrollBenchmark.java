@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the throughput of tight numeric loops. Run with {@code -G:-PartialUnroll} to compare
+ * against the loops without partial unrolling.
+ */
+public class LoopUnrollBenchmark extends GraalBenchmark {
+
+    @State(Scope.Thread)
+    public static class ArrayState {
+        @Param({"17", "1000", "100000"}) int length;
+
+        int[] ints;
+        double[] x;
+        double[] y;
+
+        @Setup
+        public void setup() {
+            ints = new int[length];
+            x = new double[length];
+            y = new double[length];
+            for (int i = 0; i < length; i++) {
+                ints[i] = i * 7;
+                x[i] = i * 0.5;
+                y[i] = length - i;
+            }
+        }
+    }
+
+    @Benchmark
+    public int sumInts(ArrayState s) {
+        int[] a = s.ints;
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double dotProduct(ArrayState s) {
+        double[] x = s.x;
+        double[] y = s.y;
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double[] axpy(ArrayState s) {
+        double[] x = s.x;
+        double[] y = s.y;
+        for (int i = 0; i < x.length; i++) {
+            y[i] = 1.5 * x[i] + y[i];
+        }
+        return y;
+    }
+
+    @Benchmark
+    public int polynomial(ArrayState s) {
+        int[] a = s.ints;
+        int result = 0;
+        for (int i = a.length; i > 0; i--) {
+            result = result * 31 + a[i - 1];
+        }
+        return result;
+    }
+}
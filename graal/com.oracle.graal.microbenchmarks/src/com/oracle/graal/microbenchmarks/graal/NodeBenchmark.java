@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -28,6 +28,7 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
+import com.oracle.graal.graph.CompactEdges;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.NodeBitMap;
 import com.oracle.graal.microbenchmarks.graal.util.GraalState;
@@ -123,6 +124,33 @@ public class NodeBenchmark extends GraalBenchmark {
         }
     }
 
+    @Benchmark
+    public void inputsCompact(StringEquals s, Blackhole bh) {
+        CompactEdges edges = s.graph.getCompactEdges();
+        for (int id = 0; id < edges.idBound(); id++) {
+            for (int i = 0; i < edges.getInputCount(id); i++) {
+                bh.consume(edges.getInput(id, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void usagesCompact(StringEquals s, Blackhole bh) {
+        CompactEdges edges = s.graph.getCompactEdges();
+        for (int id = 0; id < edges.idBound(); id++) {
+            for (int i = 0; i < edges.getUsageCount(id); i++) {
+                bh.consume(edges.getUsage(id, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void createCompactEdges(StringEquals s, Blackhole bh) {
+        // Adding and deleting a node invalidates the cached snapshot
+        createAndDeleteConstant(s, bh);
+        bh.consume(s.graph.getCompactEdges());
+    }
+
     @Benchmark
     @Warmup(iterations = 20)
     public void nodeBitmap(StringEquals s, @SuppressWarnings("unused") GraalState g) {
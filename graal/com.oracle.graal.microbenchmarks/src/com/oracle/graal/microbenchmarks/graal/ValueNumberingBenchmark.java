@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import jdk.vm.ci.meta.JavaKind;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.compiler.common.type.StampPair;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.AddNode;
+
+/**
+ * Benchmarks {@link Graph#findDuplicate} for non-leaf nodes whose inputs all have many usages,
+ * with and without the global value numbering table.
+ */
+public class ValueNumberingBenchmark extends GraalBenchmark {
+
+    private static final int NODES = 4096;
+
+    @State(Scope.Thread)
+    public static class ScanState {
+        StructuredGraph graph;
+        ValueNode parameter;
+        ValueNode[] constants;
+
+        @Setup
+        public void setup() {
+            graph = new StructuredGraph(AllowAssumptions.NO);
+            parameter = graph.addWithoutUnique(new ParameterNode(0, StampPair.createSingle(StampFactory.forKind(JavaKind.Int))));
+            constants = new ValueNode[NODES];
+            for (int i = 0; i < NODES; i++) {
+                constants[i] = ConstantNode.forInt(i, graph);
+                graph.unique(new AddNode(parameter, constants[i]));
+                /* Give every constant a high usage count as well. */
+                graph.addWithoutUnique(new AddNode(constants[i], constants[i]));
+                graph.addWithoutUnique(new AddNode(constants[i], parameter));
+            }
+            prepare();
+        }
+
+        protected void prepare() {
+        }
+    }
+
+    public static class TableState extends ScanState {
+        @Override
+        protected void prepare() {
+            graph.enableValueNumberTable();
+        }
+    }
+
+    private static void findDuplicates(ScanState s, Blackhole bh) {
+        for (int i = 0; i < NODES; i++) {
+            bh.consume(s.graph.findDuplicate(new AddNode(s.parameter, s.constants[i])));
+        }
+    }
+
+    @Benchmark
+    public void findDuplicateUsageScan(ScanState s, Blackhole bh) {
+        findDuplicates(s, bh);
+    }
+
+    @Benchmark
+    public void findDuplicateTable(TableState s, Blackhole bh) {
+        findDuplicates(s, bh);
+    }
+}
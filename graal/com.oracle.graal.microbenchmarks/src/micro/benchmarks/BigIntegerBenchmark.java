@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oracle.graal.microbenchmarks.graal.GraalBenchmark;
+
+/**
+ * Benchmarks cost of the {@link BigInteger} intrinsics. The operand sizes are below the Karatsuba
+ * thresholds so that {@link BigInteger#multiply} and {@link BigInteger#pow} reach the multiplyToLen
+ * and squareToLen stubs and {@link BigInteger#modPow} reaches the Montgomery stubs. Run with
+ * {@code -XX:-UseJVMCICompiler} to get the C2 numbers to compare against.
+ */
+public class BigIntegerBenchmark extends GraalBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ThreadState {
+        @Param({"512", "2048"}) int bits;
+
+        BigInteger a;
+        BigInteger b;
+        BigInteger exponent;
+        BigInteger modulus;
+
+        @Setup
+        public void setup() {
+            Random r = new Random(17);
+            a = new BigInteger(bits, r);
+            b = new BigInteger(bits, r);
+            exponent = new BigInteger(bits, r);
+            // modPow only uses Montgomery multiplication for odd moduli
+            modulus = new BigInteger(bits, r).setBit(0).setBit(bits - 1);
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5)
+    public BigInteger multiply(ThreadState state) {
+        return state.a.multiply(state.b);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5)
+    public BigInteger square(ThreadState state) {
+        return state.a.pow(2);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5)
+    public BigInteger modPow(ThreadState state) {
+        return state.a.modPow(state.exponent, state.modulus);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -131,6 +131,7 @@ public class GraphDecoder {
                     for (int i = 0; i < nodeCount; i++) {
                         nodeStartOffsets[i] = encodedGraph.getStartOffset() - reader.getUV();
                     }
+                    /* Publish the table only after it was completely filled. */
                     encodedGraph.nodeStartOffsets = nodeStartOffsets;
                 }
             } else {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2015, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -578,6 +578,9 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void setGuardsStage(GuardsStage guardsStage) {
         assert guardsStage.ordinal() >= this.guardsStage.ordinal();
+        if (guardsStage != this.guardsStage) {
+            stopTrackingDirtyNodes();
+        }
         this.guardsStage = guardsStage;
     }
 
@@ -587,6 +590,7 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void setAfterFloatingReadPhase(boolean state) {
         assert state : "cannot 'unapply' floating read phase on graph";
+        stopTrackingDirtyNodes();
         isAfterFloatingReadPhase = state;
     }
 
@@ -596,6 +600,7 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void setHasValueProxies(boolean state) {
         assert !state : "cannot 'unapply' value proxy removal on graph";
+        stopTrackingDirtyNodes();
         hasValueProxies = state;
     }
 
@@ -60,6 +60,9 @@ public abstract class ValueNode extends com.oracle.graal.graph.Node implements V
     public final void setStamp(Stamp stamp) {
         this.stamp = stamp;
         assert !isAlive() || !inferStamp() : "setStamp called on a node that overrides inferStamp: " + this;
+        if (isAlive() && graph().getDirtyNodes() != null) {
+            graph().getDirtyNodes().addWithUsages(this);
+        }
     }
 
     @Override
@@ -79,6 +82,9 @@ public abstract class ValueNode extends com.oracle.graal.graph.Node implements V
             return false;
         } else {
             stamp = newStamp;
+            if (isAlive() && graph().getDirtyNodes() != null) {
+                graph().getDirtyNodes().addUsages(this);
+            }
             return true;
         }
     }
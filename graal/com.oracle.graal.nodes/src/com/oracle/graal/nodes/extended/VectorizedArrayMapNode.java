@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.extended;
+
+import static com.oracle.graal.nodeinfo.InputType.Memory;
+import static com.oracle.graal.nodeinfo.NodeCycles.CYCLES_UNKNOWN;
+import static com.oracle.graal.nodeinfo.NodeSize.SIZE_50;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.ArithmeticOpTable.BinaryOp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.memory.AbstractMemoryCheckpoint;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Computes {@code result[i] = x[i] op y[i]} for all {@code i} in {@code [start, limit)} using
+ * vector instructions. Either {@code x} or {@code y} may be a scalar instead of an array. The
+ * arrays must be non-null, the index range must be within their bounds and its length must be a
+ * multiple of the vector length.
+ */
+@NodeInfo(allowedUsageTypes = Memory, cycles = CYCLES_UNKNOWN, size = SIZE_50)
+public final class VectorizedArrayMapNode extends AbstractMemoryCheckpoint implements LIRLowerable, MemoryCheckpoint.Single {
+
+    public static final NodeClass<VectorizedArrayMapNode> TYPE = NodeClass.create(VectorizedArrayMapNode.class);
+
+    protected final JavaKind kind;
+    protected final BinaryOp<?> op;
+    protected final boolean xIsArray;
+    protected final boolean yIsArray;
+
+    @Input ValueNode result;
+    @Input ValueNode x;
+    @Input ValueNode y;
+    @Input ValueNode start;
+    @Input ValueNode limit;
+
+    public VectorizedArrayMapNode(JavaKind kind, BinaryOp<?> op, ValueNode result, ValueNode x, boolean xIsArray, ValueNode y, boolean yIsArray, ValueNode start, ValueNode limit) {
+        super(TYPE, StampFactory.forVoid());
+        assert xIsArray || yIsArray;
+        this.kind = kind;
+        this.op = op;
+        this.xIsArray = xIsArray;
+        this.yIsArray = yIsArray;
+        this.result = result;
+        this.x = x;
+        this.y = y;
+        this.start = start;
+        this.limit = limit;
+    }
+
+    public JavaKind getKind() {
+        return kind;
+    }
+
+    public BinaryOp<?> getOp() {
+        return op;
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.getLIRGeneratorTool().emitVectorizedArrayMap(kind, op, gen.operand(result), gen.operand(x), xIsArray, gen.operand(y), yIsArray, gen.operand(start), gen.operand(limit));
+    }
+}
@@ -46,6 +46,7 @@ import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.calc.ConditionalNode;
 import com.oracle.graal.nodes.cfg.Block;
 import com.oracle.graal.nodes.extended.SwitchNode;
+import com.oracle.graal.nodes.virtual.StackAllocationNode;
 
 import jdk.vm.ci.code.CallingConvention;
 import jdk.vm.ci.meta.Value;
@@ -78,6 +79,8 @@ public interface NodeLIRBuilderTool extends NodeValueMap {
 
     void visitFullInfopointNode(FullInfopointNode i);
 
+    void emitStackAllocation(StackAllocationNode i);
+
     void setSourcePosition(NodeSourcePosition position);
 
     LIRGeneratorTool getLIRGeneratorTool();
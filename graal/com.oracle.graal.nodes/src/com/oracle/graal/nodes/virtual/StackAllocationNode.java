@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.virtual;
+
+import static com.oracle.graal.nodeinfo.NodeCycles.CYCLES_1;
+import static com.oracle.graal.nodeinfo.NodeSize.SIZE_1;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.compiler.common.type.TypeReference;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * An object whose storage lives in the stack frame of the compiled method instead of the heap. The
+ * node has the stamp of the object, but its operand is the address of a block of
+ * {@link #SLOT_SIZE}-byte slots, one slot per field or array element. Object slots are reported in
+ * every reference map of the method, so they are zeroed right after method entry. On
+ * deoptimization the object is rematerialized on the heap from the contents of its slots.
+ */
+@NodeInfo(cycles = CYCLES_1, size = SIZE_1)
+public final class StackAllocationNode extends FixedWithNextNode implements LIRLowerable {
+
+    public static final NodeClass<StackAllocationNode> TYPE = NodeClass.create(StackAllocationNode.class);
+
+    /**
+     * The size of each slot in the block. A slot holds any primitive value or an uncompressed
+     * object pointer.
+     */
+    public static final int SLOT_SIZE = 8;
+
+    protected final ResolvedJavaType type;
+
+    /**
+     * The stack kinds of the values stored in the slots, in the order of the fields returned by
+     * {@link ResolvedJavaType#getInstanceFields(boolean) getInstanceFields(true)} or in array
+     * element order.
+     */
+    protected final JavaKind[] slotKinds;
+
+    public StackAllocationNode(ResolvedJavaType type, JavaKind[] slotKinds) {
+        super(TYPE, StampFactory.objectNonNull(TypeReference.createExactTrusted(type)));
+        this.type = type;
+        this.slotKinds = slotKinds;
+    }
+
+    public ResolvedJavaType type() {
+        return type;
+    }
+
+    public int slotCount() {
+        return slotKinds.length;
+    }
+
+    public JavaKind slotKind(int index) {
+        return slotKinds[index];
+    }
+
+    public static long slotOffset(int index) {
+        return (long) index * SLOT_SIZE;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.emitStackAllocation(this);
+    }
+}
@@ -22,10 +22,13 @@
  */
 package com.oracle.graal.phases.common;
 
+import java.util.List;
+
 import com.oracle.graal.compiler.common.spi.ConstantFieldProvider;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugCloseable;
 import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.DirtyNodeSet;
 import com.oracle.graal.graph.Graph;
 import com.oracle.graal.graph.Graph.Mark;
 import com.oracle.graal.graph.Graph.NodeEventListener;
@@ -48,6 +51,9 @@ import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.calc.FloatingNode;
 import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.phases.BasePhase;
 import com.oracle.graal.phases.Phase;
 import com.oracle.graal.phases.tiers.PhaseContext;
@@ -59,6 +65,14 @@ import jdk.vm.ci.meta.MetaAccessProvider;
 
 public class CanonicalizerPhase extends BasePhase<PhaseContext> {
 
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Once a graph has been canonicalized, only canonicalize the nodes that changed since then.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> IncrementalCanonicalization = new OptionValue<>(false);
+        // @formatter:on
+    }
+
     private static final int MAX_ITERATION_PER_NODE = 10;
     private static final DebugCounter COUNTER_CANONICALIZED_NODES = Debug.counter("CanonicalizedNodes");
     private static final DebugCounter COUNTER_PROCESSED_NODES = Debug.counter("ProcessedNodes");
@@ -67,6 +81,7 @@ public class CanonicalizerPhase extends BasePhase<PhaseContext> {
     private static final DebugCounter COUNTER_STAMP_CHANGED = Debug.counter("StampChanged");
     private static final DebugCounter COUNTER_SIMPLIFICATION_CONSIDERED_NODES = Debug.counter("SimplificationConsideredNodes");
     private static final DebugCounter COUNTER_GLOBAL_VALUE_NUMBERING_HITS = Debug.counter("GlobalValueNumberingHits");
+    private static final DebugCounter COUNTER_INCREMENTAL_RUNS = Debug.counter("IncrementalCanonicalizerRuns");
 
     private boolean canonicalizeReads = true;
     private boolean simplify = true;
@@ -111,7 +126,29 @@ public class CanonicalizerPhase extends BasePhase<PhaseContext> {
 
     @Override
     protected void run(StructuredGraph graph, PhaseContext context) {
-        new Instance(context).run(graph);
+        if (!Options.IncrementalCanonicalization.getValue() || customCanonicalizer != null || !canonicalizeReads || !simplify) {
+            new Instance(context).run(graph);
+            return;
+        }
+        DirtyNodeSet dirtyNodes = graph.getDirtyNodes();
+        List<Node> changed = dirtyNodes == null ? null : dirtyNodes.take();
+        if (changed == null || changed.isEmpty()) {
+            /*
+             * Without recorded changes the graph is swept completely, since a change that is not
+             * recorded, such as a new fact about the graph as a whole, may still enable
+             * canonicalizations.
+             */
+            new Instance(context).run(graph);
+        } else {
+            COUNTER_INCREMENTAL_RUNS.increment();
+            new Instance(context, changed).run(graph);
+        }
+        /*
+         * The graph is canonical now, so the nodes changed from here on are the only candidates
+         * for the next run. A configuration that skips some canonicalizations must not reset the
+         * set, which is why only the default configuration gets here.
+         */
+        graph.trackDirtyNodes();
     }
 
     /**
@@ -186,6 +223,9 @@ public class CanonicalizerPhase extends BasePhase<PhaseContext> {
             if (!wholeGraph) {
                 workList.addAll(graph.getNewNodes(newNodesMark));
             }
+            if (Graph.Options.GlobalValueNumberingTable.getValue()) {
+                graph.enableValueNumberTable();
+            }
             tool = new Tool(graph.getAssumptions());
             processWorkSet(graph);
         }
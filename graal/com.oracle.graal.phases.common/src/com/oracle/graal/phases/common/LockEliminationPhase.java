@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -22,28 +22,120 @@
  */
 package com.oracle.graal.phases.common;
 
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.NodeMap;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.DeoptimizingNode;
 import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.SafepointNode;
+import com.oracle.graal.nodes.StateSplit;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.java.AccessMonitorNode;
 import com.oracle.graal.nodes.java.MonitorEnterNode;
 import com.oracle.graal.nodes.java.MonitorExitNode;
+import com.oracle.graal.nodes.java.MonitorIdNode;
 import com.oracle.graal.nodes.java.RawMonitorEnterNode;
 import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.phases.Phase;
 
+/**
+ * Merges a monitor exit with a following monitor enter on the same object and at the same lock
+ * depth. Code between the two regions joins the coarsened region if it is a short straight-line
+ * sequence without side effects, calls, safepoints or frame states of its own: a deoptimization in
+ * that code then resumes the interpreter in the first region, which still holds the lock. The
+ * number of regions merged into one is bounded by {@link Options#LockCoarseningMaxRegions} so that
+ * coarsening does not hold a lock for an unbounded time.
+ */
 public class LockEliminationPhase extends Phase {
 
+    public static class Options {
+        //@formatter:off
+        @Option(help = "Maximum number of fixed nodes between two synchronized regions that are merged.", type = OptionType.Expert)
+        public static final OptionValue<Integer> LockCoarseningMaxGap = new OptionValue<>(16);
+        @Option(help = "Maximum number of synchronized regions that are merged into one.", type = OptionType.Expert)
+        public static final OptionValue<Integer> LockCoarseningMaxRegions = new OptionValue<>(8);
+        //@formatter:on
+    }
+
+    private static final DebugCounter CoarsenedLocks = Debug.counter("CoarsenedLocks");
+
     @Override
     protected void run(StructuredGraph graph) {
+        NodeMap<Integer> regionCounts = new NodeMap<>(graph);
         for (MonitorExitNode node : graph.getNodes(MonitorExitNode.TYPE)) {
-            FixedNode next = node.next();
+            AccessMonitorNode monitorEnterNode = findMatchingEnter(node);
+            if (monitorEnterNode != null) {
+                MonitorIdNode monitorId = node.getMonitorId();
+                MonitorIdNode mergedMonitorId = monitorEnterNode.getMonitorId();
+                int regions = regionCount(regionCounts, monitorId) + regionCount(regionCounts, mergedMonitorId);
+                if (regions > Options.LockCoarseningMaxRegions.getValue()) {
+                    continue;
+                }
+                GraphUtil.removeFixedWithUnusedInputs(monitorEnterNode);
+                GraphUtil.removeFixedWithUnusedInputs(node);
+                if (mergedMonitorId != monitorId && mergedMonitorId.isAlive()) {
+                    mergedMonitorId.replaceAtUsages(monitorId);
+                    GraphUtil.killWithUnusedFloatingInputs(mergedMonitorId);
+                }
+                regionCounts.setAndGrow(monitorId, regions);
+                CoarsenedLocks.increment();
+            }
+        }
+    }
+
+    private static int regionCount(NodeMap<Integer> regionCounts, MonitorIdNode monitorId) {
+        Integer count = regionCounts.isNew(monitorId) ? null : regionCounts.get(monitorId);
+        return count == null ? 1 : count;
+    }
+
+    /**
+     * Finds a monitor enter that locks the object of {@code exit} again after a gap that can be
+     * included in the synchronized region.
+     */
+    private static AccessMonitorNode findMatchingEnter(MonitorExitNode exit) {
+        int gap = 0;
+        FixedNode next = exit.next();
+        while (true) {
             if (next instanceof MonitorEnterNode || next instanceof RawMonitorEnterNode) {
                 AccessMonitorNode monitorEnterNode = (AccessMonitorNode) next;
-                if (GraphUtil.unproxify(monitorEnterNode.object()) == GraphUtil.unproxify(node.object())) {
-                    GraphUtil.removeFixedWithUnusedInputs(monitorEnterNode);
-                    GraphUtil.removeFixedWithUnusedInputs(node);
+                if (GraphUtil.unproxify(monitorEnterNode.object()) == GraphUtil.unproxify(exit.object()) &&
+                                monitorEnterNode.getMonitorId().getLockDepth() == exit.getMonitorId().getLockDepth()) {
+                    return monitorEnterNode;
                 }
+                return null;
+            }
+            if (gap >= Options.LockCoarseningMaxGap.getValue() || !canJoinSynchronizedRegion(next)) {
+                return null;
+            }
+            gap++;
+            next = ((FixedWithNextNode) next).next();
+        }
+    }
+
+    private static boolean canJoinSynchronizedRegion(FixedNode node) {
+        if (!(node instanceof FixedWithNextNode) || node instanceof SafepointNode) {
+            return false;
+        }
+        if (node instanceof AbstractBeginNode && !(node.predecessor() instanceof FixedWithNextNode)) {
+            return false;
+        }
+        if (node instanceof StateSplit) {
+            StateSplit stateSplit = (StateSplit) node;
+            if (stateSplit.hasSideEffect() || stateSplit.stateAfter() != null) {
+                return false;
             }
         }
+        if (node instanceof DeoptimizingNode.DeoptBefore && ((DeoptimizingNode.DeoptBefore) node).stateBefore() != null) {
+            return false;
+        }
+        if (node instanceof DeoptimizingNode.DeoptDuring && ((DeoptimizingNode.DeoptDuring) node).stateDuring() != null) {
+            return false;
+        }
+        return true;
     }
 }
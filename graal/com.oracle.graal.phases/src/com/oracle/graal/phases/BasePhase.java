@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -31,6 +31,7 @@ import com.oracle.graal.debug.DebugCounter;
 import com.oracle.graal.debug.DebugMemUseTracker;
 import com.oracle.graal.debug.DebugTimer;
 import com.oracle.graal.debug.Fingerprint;
+import com.oracle.graal.debug.PhaseProfiler;
 import com.oracle.graal.graph.Graph;
 import com.oracle.graal.graph.Graph.Mark;
 import com.oracle.graal.nodes.StructuredGraph;
@@ -150,7 +151,8 @@ public abstract class BasePhase<C> implements PhaseSizeContract {
 
     @SuppressWarnings("try")
     protected final void apply(final StructuredGraph graph, final C context, final boolean dumpGraph) {
-        try (DebugCloseable a = timer.start(); Scope s = Debug.scope(getClass(), this); DebugCloseable c = memUseTracker.start()) {
+        try (DebugCloseable a = timer.start(); Scope s = Debug.scope(getClass(), this); DebugCloseable c = memUseTracker.start();
+                        PhaseProfiler.Entry p = PhaseProfiler.enterPhase(getName(), graph.getNodeCount())) {
             int sizeBefore = 0;
             Mark before = null;
             if (PhaseOptions.VerifyGraalPhasesSize.getValue() && checkContract()) {
@@ -165,6 +167,9 @@ public abstract class BasePhase<C> implements PhaseSizeContract {
             inputNodesCount.add(graph.getNodeCount());
             this.run(graph, context);
             executionCount.increment();
+            if (p != null) {
+                p.setNodeCountAfter(graph.getNodeCount());
+            }
             if (PhaseOptions.VerifyGraalPhasesSize.getValue() && checkContract()) {
                 if (context instanceof PhaseContext) {
                     if (!before.isCurrent()) {
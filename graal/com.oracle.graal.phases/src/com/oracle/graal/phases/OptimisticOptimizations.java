@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -38,13 +38,23 @@ public final class OptimisticOptimizations {
     public static final OptimisticOptimizations NONE = new OptimisticOptimizations(EnumSet.noneOf(Optimization.class));
     private static final DebugCounter disabledOptimisticOptsCounter = Debug.counter("DisabledOptimisticOpts");
 
+    /**
+     * The reason with which a failing loop predicate deoptimizes. There is no dedicated reason for
+     * loop predicates and {@link DeoptimizationReason#Aliasing} is not used otherwise, so only
+     * failing predicates disable {@link Optimization#UseLoopPredication}. Using
+     * {@link DeoptimizationReason#BoundsCheckException} would let any out of bounds access in the
+     * method disable predication although no predicate ever failed.
+     */
+    public static final DeoptimizationReason LOOP_PREDICATE_REASON = DeoptimizationReason.Aliasing;
+
     public enum Optimization {
         RemoveNeverExecutedCode,
         UseTypeCheckedInlining,
         UseTypeCheckHints,
         UseExceptionProbabilityForOperations,
         UseExceptionProbability,
-        UseLoopLimitChecks
+        UseLoopLimitChecks,
+        UseLoopPredication
     }
 
     private final Set<Optimization> enabledOpts;
@@ -58,6 +68,7 @@ public final class OptimisticOptimizations {
         addOptimization(info, DeoptimizationReason.OptimizedTypeCheckViolated, Optimization.UseTypeCheckHints);
         addOptimization(info, DeoptimizationReason.NotCompiledExceptionHandler, Optimization.UseExceptionProbability);
         addOptimization(info, DeoptimizationReason.LoopLimitCheck, Optimization.UseLoopLimitChecks);
+        addOptimization(info, LOOP_PREDICATE_REASON, Optimization.UseLoopPredication);
     }
 
     private void addOptimization(ProfilingInfo info, DeoptimizationReason deoptReason, Optimization optimization) {
@@ -124,6 +135,10 @@ public final class OptimisticOptimizations {
         return GraalOptions.UseLoopLimitChecks.getValue() && enabledOpts.contains(Optimization.UseLoopLimitChecks);
     }
 
+    public boolean useLoopPredication() {
+        return GraalOptions.LoopPredication.getValue() && enabledOpts.contains(Optimization.UseLoopPredication);
+    }
+
     public boolean lessOptimisticThan(OptimisticOptimizations other) {
         for (Optimization opt : Optimization.values()) {
             if (!enabledOpts.contains(opt) && other.enabledOpts.contains(opt)) {
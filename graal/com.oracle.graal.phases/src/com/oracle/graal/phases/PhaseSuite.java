@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -27,6 +27,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 
+import com.oracle.graal.compiler.common.util.CompilationMemoryBudget;
 import com.oracle.graal.nodes.StructuredGraph;
 
 /**
@@ -151,6 +152,7 @@ public class PhaseSuite<C> extends BasePhase<C> {
     @Override
     protected void run(StructuredGraph graph, C context) {
         for (BasePhase<? super C> phase : phases) {
+            CompilationMemoryBudget.check();
             phase.apply(graph, context);
         }
     }
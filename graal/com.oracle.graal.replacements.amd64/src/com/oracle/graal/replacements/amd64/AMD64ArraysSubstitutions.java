@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.amd64;
+
+import java.util.Arrays;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.nodes.extended.ArrayFillNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@link java.util.Arrays} methods that use SIMD instructions on AMD64.
+ */
+@ClassSubstitution(Arrays.class)
+public class AMD64ArraysSubstitutions {
+
+    @MethodSubstitution
+    public static int hashCode(byte[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length, 1);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(char[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length, 1);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(short[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length, 1);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(int[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length, 1);
+    }
+
+    @MethodSubstitution
+    public static void fill(boolean[] a, boolean val) {
+        ArrayFillNode.fill(a, 0, a.length, val ? 1 : 0, JavaKind.Boolean);
+    }
+
+    @MethodSubstitution
+    public static void fill(boolean[] a, int fromIndex, int toIndex, boolean val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val ? 1 : 0, JavaKind.Boolean);
+        }
+    }
+
+    @MethodSubstitution
+    public static void fill(byte[] a, byte val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Byte);
+    }
+
+    @MethodSubstitution
+    public static void fill(byte[] a, int fromIndex, int toIndex, byte val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val, JavaKind.Byte);
+        }
+    }
+
+    @MethodSubstitution
+    public static void fill(char[] a, char val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Char);
+    }
+
+    @MethodSubstitution
+    public static void fill(char[] a, int fromIndex, int toIndex, char val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val, JavaKind.Char);
+        }
+    }
+
+    @MethodSubstitution
+    public static void fill(short[] a, short val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Short);
+    }
+
+    @MethodSubstitution
+    public static void fill(short[] a, int fromIndex, int toIndex, short val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val, JavaKind.Short);
+        }
+    }
+
+    @MethodSubstitution
+    public static void fill(int[] a, int val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Int);
+    }
+
+    @MethodSubstitution
+    public static void fill(int[] a, int fromIndex, int toIndex, int val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val, JavaKind.Int);
+        }
+    }
+
+    @MethodSubstitution
+    public static void fill(long[] a, long val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Long);
+    }
+
+    @MethodSubstitution
+    public static void fill(long[] a, int fromIndex, int toIndex, long val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val, JavaKind.Long);
+        }
+    }
+
+    @MethodSubstitution
+    public static void fill(float[] a, float val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Float);
+    }
+
+    @MethodSubstitution
+    public static void fill(float[] a, int fromIndex, int toIndex, float val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val, JavaKind.Float);
+        }
+    }
+
+    @MethodSubstitution
+    public static void fill(double[] a, double val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Double);
+    }
+
+    @MethodSubstitution
+    public static void fill(double[] a, int fromIndex, int toIndex, double val) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > a.length) {
+            // Let the original method throw the exception
+            fill(a, fromIndex, toIndex, val);
+        } else {
+            ArrayFillNode.fill(a, fromIndex, toIndex, val, JavaKind.Double);
+        }
+    }
+}
@@ -31,8 +31,13 @@ import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOp
 import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.SIN;
 import static com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.TAN;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
 import com.oracle.graal.bytecode.BytecodeProvider;
 import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.lir.amd64.AMD64ArithmeticLIRGeneratorTool.RoundingMode;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
@@ -43,6 +48,8 @@ import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins;
 import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins.Registration;
 import com.oracle.graal.nodes.java.AtomicReadAndAddNode;
 import com.oracle.graal.nodes.java.AtomicReadAndWriteNode;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
 import com.oracle.graal.nodes.memory.address.AddressNode;
 import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
 import com.oracle.graal.replacements.IntegerSubstitutions;
@@ -58,6 +65,7 @@ import com.oracle.graal.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation
 import jdk.vm.ci.amd64.AMD64;
 import jdk.vm.ci.amd64.AMD64.CPUFeature;
 import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaField;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import sun.misc.Unsafe;
 
@@ -72,10 +80,26 @@ public class AMD64GraphBuilderPlugins {
                 registerIntegerLongPlugins(invocationPlugins, LongSubstitutions.class, JavaKind.Long, arch, replacementsBytecodeProvider);
                 registerUnsafePlugins(invocationPlugins, replacementsBytecodeProvider);
                 registerMathPlugins(invocationPlugins, arch, arithmeticStubs, replacementsBytecodeProvider);
+                if (Java8OrEarlier) {
+                    registerStringPlugins(invocationPlugins, arch, replacementsBytecodeProvider);
+                }
+                registerArraysPlugins(invocationPlugins, arch, replacementsBytecodeProvider);
             }
         });
     }
 
+    private static final Field STRING_VALUE_FIELD;
+    private static final Field STRING_HASH_FIELD;
+
+    static {
+        try {
+            STRING_VALUE_FIELD = String.class.getDeclaredField("value");
+            STRING_HASH_FIELD = String.class.getDeclaredField("hash");
+        } catch (NoSuchFieldException e) {
+            throw new GraalError(e);
+        }
+    }
+
     private static void registerIntegerLongPlugins(InvocationPlugins plugins, Class<?> substituteDeclaringClass, JavaKind kind, AMD64 arch, BytecodeProvider bytecodeProvider) {
         Class<?> declaringClass = kind.toBoxedJavaClass();
         Class<?> type = kind.toJavaClass();
@@ -177,6 +201,60 @@ public class AMD64GraphBuilderPlugins {
         });
     }
 
+    private static void registerStringPlugins(InvocationPlugins plugins, AMD64 arch, BytecodeProvider bytecodeProvider) {
+        Registration r = new Registration(plugins, String.class, bytecodeProvider);
+        r.registerMethodSubstitution(AMD64StringSubstitutions.class, "indexOf", Receiver.class, int.class);
+        r.registerMethodSubstitution(AMD64StringSubstitutions.class, "indexOf", Receiver.class, int.class, int.class);
+        r.registerMethodSubstitution(AMD64StringSubstitutions.class, "indexOf", Receiver.class, String.class);
+        r.registerMethodSubstitution(AMD64StringSubstitutions.class, "indexOf", Receiver.class, String.class, int.class);
+        r.registerMethodSubstitution(AMD64StringSubstitutions.class, "compareTo", Receiver.class, String.class);
+        if (arch.getFeatures().contains(CPUFeature.SSE4_1)) {
+            r.registerMethodSubstitution(AMD64StringSubstitutions.class, "hashCode", Receiver.class);
+        }
+
+        r = new Registration(plugins, AMD64StringSubstitutions.class);
+        r.register1("getValue", String.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode value) {
+                ResolvedJavaField field = b.getMetaAccess().lookupJavaField(STRING_VALUE_FIELD);
+                b.addPush(JavaKind.Object, LoadFieldNode.create(b.getAssumptions(), b.nullCheckedValue(value), field));
+                return true;
+            }
+        });
+        r.register1("getHash", String.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode value) {
+                ResolvedJavaField field = b.getMetaAccess().lookupJavaField(STRING_HASH_FIELD);
+                b.addPush(JavaKind.Int, LoadFieldNode.create(b.getAssumptions(), value, field));
+                return true;
+            }
+        });
+        r.register2("setHash", String.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode value, ValueNode hash) {
+                ResolvedJavaField field = b.getMetaAccess().lookupJavaField(STRING_HASH_FIELD);
+                b.add(new StoreFieldNode(value, field, hash));
+                return true;
+            }
+        });
+    }
+
+    private static void registerArraysPlugins(InvocationPlugins plugins, AMD64 arch, BytecodeProvider bytecodeProvider) {
+        Registration r = new Registration(plugins, Arrays.class, bytecodeProvider);
+        if (arch.getFeatures().contains(CPUFeature.SSE4_1)) {
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", byte[].class);
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", char[].class);
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", short[].class);
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", int[].class);
+        }
+        for (JavaKind kind : new JavaKind[]{JavaKind.Boolean, JavaKind.Byte, JavaKind.Char, JavaKind.Short, JavaKind.Int, JavaKind.Long, JavaKind.Float, JavaKind.Double}) {
+            Class<?> type = kind.toJavaClass();
+            Class<?> arrayType = Array.newInstance(type, 0).getClass();
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "fill", arrayType, type);
+            r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "fill", arrayType, int.class, int.class, type);
+        }
+    }
+
     private static void registerUnsafePlugins(InvocationPlugins plugins, BytecodeProvider replacementsBytecodeProvider) {
         Registration r;
         if (Java8OrEarlier) {
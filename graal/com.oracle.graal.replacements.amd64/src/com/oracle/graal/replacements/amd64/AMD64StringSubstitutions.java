@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.amd64;
+
+import com.oracle.graal.api.replacements.ClassSubstitution;
+import com.oracle.graal.api.replacements.MethodSubstitution;
+import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugin;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
+import com.oracle.graal.replacements.nodes.ArrayCompareToNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
+import com.oracle.graal.replacements.nodes.ArrayIndexOfNode;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@link java.lang.String} methods that use SIMD instructions to search, compare
+ * and hash the character array of a string.
+ */
+@ClassSubstitution(String.class)
+public class AMD64StringSubstitutions {
+
+    @MethodSubstitution(isStatic = false)
+    public static int indexOf(String source, int ch) {
+        return indexOf(source, ch, 0);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int indexOf(String source, int ch, int fromIndex) {
+        if (ch >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            // Supplementary characters are stored as surrogate pairs, leave them to the original.
+            return source.indexOf(ch, fromIndex);
+        }
+        char[] value = getValue(source);
+        int max = value.length;
+        int from = fromIndex < 0 ? 0 : fromIndex;
+        if (from >= max || ch < 0) {
+            return -1;
+        }
+        return ArrayIndexOfNode.indexOf(value, max, from, (char) ch);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int indexOf(String source, String str) {
+        return indexOf(source, str, 0);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int indexOf(String source, String str, int fromIndex) {
+        char[] sourceValue = getValue(source);
+        char[] targetValue = getValue(str);
+        int sourceCount = sourceValue.length;
+        int targetCount = targetValue.length;
+        if (fromIndex >= sourceCount) {
+            return targetCount == 0 ? sourceCount : -1;
+        }
+        int from = fromIndex < 0 ? 0 : fromIndex;
+        if (targetCount == 0) {
+            return from;
+        }
+
+        char first = targetValue[0];
+        int max = sourceCount - targetCount;
+        int i = from;
+        while (i <= max) {
+            // Look for the first character, then compare the rest one by one.
+            i = ArrayIndexOfNode.indexOf(sourceValue, max + 1, i, first);
+            if (i < 0) {
+                return -1;
+            }
+            int j = 1;
+            while (j < targetCount && sourceValue[i + j] == targetValue[j]) {
+                j++;
+            }
+            if (j == targetCount) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int compareTo(String thisString, String anotherString) {
+        char[] value1 = getValue(thisString);
+        char[] value2 = getValue(anotherString);
+        return ArrayCompareToNode.compareTo(value1, value2, value1.length, value2.length);
+    }
+
+    @MethodSubstitution(isStatic = false)
+    public static int hashCode(String thisString) {
+        int h = getHash(thisString);
+        if (h == 0) {
+            char[] value = getValue(thisString);
+            if (value.length > 0) {
+                h = ArrayHashCodeNode.hashCode(value, value.length, 0);
+                setHash(thisString, h);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Will be intrinsified with an {@link InvocationPlugin} to a null checked {@link LoadFieldNode}.
+     */
+    private static native char[] getValue(String s);
+
+    /**
+     * Will be intrinsified with an {@link InvocationPlugin} to a {@link LoadFieldNode}.
+     */
+    private static native int getHash(String s);
+
+    /**
+     * Will be intrinsified with an {@link InvocationPlugin} to a {@link StoreFieldNode}.
+     */
+    private static native void setHash(String s, int hash);
+}
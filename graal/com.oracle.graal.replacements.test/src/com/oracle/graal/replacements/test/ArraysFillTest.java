@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.extended.ArrayFillNode;
+
+import jdk.vm.ci.amd64.AMD64;
+
+/**
+ * Tests the AMD64 substitutions of {@link Arrays#fill} for all primitive element kinds.
+ */
+public class ArraysFillTest extends MethodSubstitutionTest {
+
+    /**
+     * Array lengths around multiples of the 16 byte vector size of all element kinds.
+     */
+    private static final int[] LENGTHS = {0, 1, 2, 3, 4, 7, 8, 9, 15, 16, 17, 31, 32, 33, 100};
+
+    /**
+     * Ranges for an array of length 40: empty ranges, ranges whose length is not a multiple of the
+     * vector size, the whole array and ranges that throw an exception.
+     */
+    private static final int[][] RANGES = {{0, 0}, {5, 5}, {40, 40}, {0, 1}, {3, 4}, {1, 16}, {3, 20}, {7, 40}, {0, 40}, {-1, 5}, {5, 4}, {0, 41}, {41, 41}, {-1, -1}};
+
+    public static boolean[] fillBoolean(boolean[] a, boolean v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static boolean[] fillBooleanRange(boolean[] a, int from, int to, boolean v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    public static byte[] fillByte(byte[] a, byte v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static byte[] fillByteRange(byte[] a, int from, int to, byte v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    public static char[] fillChar(char[] a, char v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static char[] fillCharRange(char[] a, int from, int to, char v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    public static short[] fillShort(short[] a, short v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static short[] fillShortRange(short[] a, int from, int to, short v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    public static int[] fillInt(int[] a, int v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static int[] fillIntRange(int[] a, int from, int to, int v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    public static long[] fillLong(long[] a, long v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static long[] fillLongRange(long[] a, int from, int to, long v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    public static float[] fillFloat(float[] a, float v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static float[] fillFloatRange(float[] a, int from, int to, float v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    public static double[] fillDouble(double[] a, double v) {
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    public static double[] fillDoubleRange(double[] a, int from, int to, double v) {
+        Arrays.fill(a, from, to, v);
+        return a;
+    }
+
+    @Test
+    public void testFillBoolean() {
+        testFill("Boolean", boolean.class, true);
+    }
+
+    @Test
+    public void testFillByte() {
+        testFill("Byte", byte.class, (byte) -3);
+    }
+
+    @Test
+    public void testFillChar() {
+        testFill("Char", char.class, '\uabcd');
+    }
+
+    @Test
+    public void testFillShort() {
+        testFill("Short", short.class, (short) -1234);
+    }
+
+    @Test
+    public void testFillInt() {
+        testFill("Int", int.class, 0x12345678);
+    }
+
+    @Test
+    public void testFillLong() {
+        testFill("Long", long.class, 0x123456789abcdefL);
+    }
+
+    @Test
+    public void testFillFloat() {
+        testFill("Float", float.class, -0.5f);
+    }
+
+    @Test
+    public void testFillDouble() {
+        testFill("Double", double.class, Math.PI);
+    }
+
+    private void testFill(String kindName, Class<?> componentType, Object value) {
+        Assume.assumeTrue(getTarget().arch instanceof AMD64);
+        String name = "fill" + kindName;
+        assertInGraph(testGraph(name), ArrayFillNode.class);
+        // the range variant calls the original method to throw exceptions, so testGraph cannot be used
+        assertInGraph(parseEager(name + "Range", AllowAssumptions.YES), ArrayFillNode.class);
+        // a fresh array for each execution so that the compiled code cannot see the reference result
+        for (int length : LENGTHS) {
+            test(name, supply(() -> Array.newInstance(componentType, length)), value);
+        }
+        for (int[] range : RANGES) {
+            test(name + "Range", supply(() -> Array.newInstance(componentType, 40)), range[0], range[1], value);
+        }
+        test(name, null, value);
+        test(name + "Range", null, 0, 0, value);
+    }
+}
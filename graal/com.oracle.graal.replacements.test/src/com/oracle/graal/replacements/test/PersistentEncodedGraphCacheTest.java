@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.GraphEncoder;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.nodes.graphbuilderconf.InvocationPlugins;
+import com.oracle.graal.nodes.graphbuilderconf.NodePlugin;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.replacements.PersistentEncodedGraphCache;
+
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaField;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import sun.misc.Unsafe;
+
+public class PersistentEncodedGraphCacheTest extends GraalCompilerTest {
+
+    private static final Unsafe UNSAFE = getUnsafe();
+
+    private static Unsafe getUnsafe() {
+        try {
+            Field theUnsafeInstance = Unsafe.class.getDeclaredField("theUnsafe");
+            theUnsafeInstance.setAccessible(true);
+            return (Unsafe) theUnsafeInstance.get(Unsafe.class);
+        } catch (Exception e) {
+            throw new RuntimeException("exception while trying to get Unsafe.theUnsafe via reflection:", e);
+        }
+    }
+
+    static final int STATIC_FINAL = Integer.getInteger("graal.PersistentEncodedGraphCacheTest.value", 42);
+
+    public static int simpleSnippet(int a) {
+        return a * 3 + 1;
+    }
+
+    public static int staticFinalSnippet(int a) {
+        return a + STATIC_FINAL;
+    }
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("PersistentEncodedGraphCacheTest");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        for (Path file : files()) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private List<Path> files() throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    private PersistentEncodedGraphCache createCache() {
+        return new PersistentEncodedGraphCache(directory, getMetaAccess(), getConstantReflection(), getTarget().arch, getClass().getClassLoader());
+    }
+
+    private EncodedGraph encode(String name) {
+        StructuredGraph graph = parseEager(name, AllowAssumptions.NO);
+        return GraphEncoder.encodeSingleGraph(graph, getTarget().arch);
+    }
+
+    private static void assertSameGraph(EncodedGraph expected, EncodedGraph actual) {
+        Assert.assertNotNull("graph must be loaded from the cache", actual);
+        Assert.assertArrayEquals(expected.getEncoding(), actual.getEncoding());
+        Assert.assertEquals(expected.getStartOffset(), actual.getStartOffset());
+        Assert.assertArrayEquals(expected.getNodeClasses(), actual.getNodeClasses());
+        Assert.assertEquals(expected.getObjects().length, actual.getObjects().length);
+        for (int i = 0; i < expected.getObjects().length; i++) {
+            Object e = expected.getObjects()[i];
+            Object a = actual.getObjects()[i];
+            if (e instanceof JavaConstant || e instanceof ResolvedJavaMethod || e instanceof ResolvedJavaType || e instanceof ResolvedJavaField || e == null) {
+                Assert.assertEquals(e, a);
+            } else {
+                Assert.assertEquals(e.getClass(), a.getClass());
+            }
+        }
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("simpleSnippet");
+        EncodedGraph graph = encode("simpleSnippet");
+        createCache().store(method, "context", graph);
+        Assert.assertEquals(1, files().size());
+
+        assertSameGraph(graph, createCache().load(method, "context"));
+        Assert.assertNull("graphs are only shared with the same context", createCache().load(method, "other context"));
+    }
+
+    /**
+     * Template of a class that is loaded under another name by a {@link GuestClassLoader}, so that
+     * the class loader of the test and of the compiler cannot find it.
+     */
+    public static class GuestAAAA {
+        public int value;
+
+        public static GuestAAAA create(int value) {
+            GuestAAAA guest = new GuestAAAA();
+            guest.value = value;
+            return guest;
+        }
+    }
+
+    /**
+     * Defines a copy of {@link GuestAAAA} named {@code GuestCopy}, like the loader of an
+     * application or of a guest language defines classes the compiler does not know.
+     */
+    private static class GuestClassLoader extends ClassLoader {
+
+        static final String NAME = PersistentEncodedGraphCacheTest.class.getName() + "$GuestCopy";
+
+        GuestClassLoader() {
+            super(PersistentEncodedGraphCacheTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!name.equals(NAME)) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] classData;
+            try (InputStream is = PersistentEncodedGraphCacheTest.class.getResourceAsStream("PersistentEncodedGraphCacheTest$GuestAAAA.class")) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] buf = new byte[1024];
+                int size;
+                while ((size = is.read(buf, 0, buf.length)) != -1) {
+                    baos.write(buf, 0, size);
+                }
+                classData = baos.toByteArray();
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+            // the replacement has the same length, so the class file stays valid
+            byte[] pattern = "AAAA".getBytes();
+            byte[] replacement = "Copy".getBytes();
+            for (int i = 0; i <= classData.length - pattern.length; i++) {
+                boolean match = true;
+                for (int j = 0; j < pattern.length; j++) {
+                    if (classData[i + j] != pattern[j]) {
+                        match = false;
+                        break;
+                    }
+                }
+                if (match) {
+                    System.arraycopy(replacement, 0, classData, i, replacement.length);
+                }
+            }
+            return defineClass(name, classData, 0, classData.length);
+        }
+    }
+
+    @Test
+    public void testStoreAndLoadGuestClass() throws ReflectiveOperationException {
+        Class<?> guestClass = Class.forName(GuestClassLoader.NAME, true, new GuestClassLoader());
+        try {
+            Class.forName(GuestClassLoader.NAME, false, getClass().getClassLoader());
+            Assert.fail("the guest class must not be visible to the loader of the cache");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+        ResolvedJavaMethod method = getMetaAccess().lookupJavaMethod(guestClass.getDeclaredMethod("create", int.class));
+        EncodedGraph graph = GraphEncoder.encodeSingleGraph(parseEager(method, AllowAssumptions.NO), getTarget().arch);
+        boolean referencesGuestClass = false;
+        for (Object object : graph.getObjects()) {
+            referencesGuestClass |= object instanceof ResolvedJavaType && ((ResolvedJavaType) object).toJavaName().equals(GuestClassLoader.NAME);
+        }
+        Assert.assertTrue("graph must reference the guest class", referencesGuestClass);
+
+        createCache().store(method, "context", graph);
+        assertSameGraph(graph, createCache().load(method, "context"));
+        Assert.assertEquals("entries of guest classes must not be discarded", 1, files().size());
+    }
+
+    @Test
+    public void testInvalidateOnOptionChange() {
+        ResolvedJavaMethod method = getResolvedJavaMethod("simpleSnippet");
+        createCache().store(method, "context", encode("simpleSnippet"));
+        try (OverrideScope s = OptionValue.override(GraalOptions.OptImplicitNullChecks, !GraalOptions.OptImplicitNullChecks.getValue())) {
+            Assert.assertNull("graphs built with different options must not be reused", createCache().load(method, "context"));
+        }
+        Assert.assertNotNull(createCache().load(method, "context"));
+    }
+
+    @Test
+    public void testInvalidateOnStaticFinalChange() throws Exception {
+        ResolvedJavaMethod method = getResolvedJavaMethod("staticFinalSnippet");
+        EncodedGraph graph = encode("staticFinalSnippet");
+        createCache().store(method, "context", graph);
+        assertSameGraph(graph, createCache().load(method, "context"));
+
+        Field field = PersistentEncodedGraphCacheTest.class.getDeclaredField("STATIC_FINAL");
+        Object base = UNSAFE.staticFieldBase(field);
+        long offset = UNSAFE.staticFieldOffset(field);
+        int value = UNSAFE.getInt(base, offset);
+        UNSAFE.putInt(base, offset, value + 1);
+        try {
+            Assert.assertNull("graph may contain the folded old value", createCache().load(method, "context"));
+            Assert.assertTrue("invalid entries are deleted", files().isEmpty());
+        } finally {
+            UNSAFE.putInt(base, offset, value);
+        }
+    }
+
+    @Test
+    public void testCorruptEntry() throws IOException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("simpleSnippet");
+        createCache().store(method, "context", encode("simpleSnippet"));
+        Path file = files().get(0);
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] truncated = new byte[bytes.length / 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        Files.write(file, truncated);
+
+        Assert.assertNull(createCache().load(method, "context"));
+        Assert.assertTrue("invalid entries are deleted", files().isEmpty());
+    }
+
+    /**
+     * A null constant other than {@link JavaConstant#NULL_POINTER}, like the compressed null
+     * pointer of HotSpot.
+     */
+    public static final class OtherNullConstant implements JavaConstant {
+        public static final JavaConstant OTHER_NULL = new OtherNullConstant();
+
+        private OtherNullConstant() {
+        }
+
+        @Override
+        public JavaKind getJavaKind() {
+            return JavaKind.Object;
+        }
+
+        @Override
+        public boolean isNull() {
+            return true;
+        }
+
+        @Override
+        public boolean isDefaultForKind() {
+            return true;
+        }
+
+        @Override
+        public Object asBoxedPrimitive() {
+            throw new IllegalArgumentException();
+        }
+
+        @Override
+        public int asInt() {
+            throw new IllegalArgumentException();
+        }
+
+        @Override
+        public boolean asBoolean() {
+            throw new IllegalArgumentException();
+        }
+
+        @Override
+        public long asLong() {
+            throw new IllegalArgumentException();
+        }
+
+        @Override
+        public float asFloat() {
+            throw new IllegalArgumentException();
+        }
+
+        @Override
+        public double asDouble() {
+            throw new IllegalArgumentException();
+        }
+
+        @Override
+        public String toValueString() {
+            return "other null";
+        }
+    }
+
+    @Test
+    public void testNullConstants() {
+        ResolvedJavaMethod method = getResolvedJavaMethod("simpleSnippet");
+        EncodedGraph graph = new EncodedGraph(new byte[0], 0, new Object[]{JavaConstant.NULL_POINTER, OtherNullConstant.OTHER_NULL}, new NodeClass<?>[0], null, null);
+        createCache().store(method, "context", graph);
+
+        EncodedGraph loaded = createCache().load(method, "context");
+        Assert.assertNotNull(loaded);
+        Assert.assertSame(JavaConstant.NULL_POINTER, loaded.getObjects()[0]);
+        Assert.assertSame(OtherNullConstant.OTHER_NULL, loaded.getObjects()[1]);
+    }
+
+    @Test
+    public void testDescribe() {
+        GraphBuilderConfiguration config = GraphBuilderConfiguration.getDefault(new Plugins(new InvocationPlugins(getMetaAccess())));
+        String description = PersistentEncodedGraphCache.describe(config);
+        Assert.assertEquals(description, PersistentEncodedGraphCache.describe(config.copy()));
+        Assert.assertNotEquals(description, PersistentEncodedGraphCache.describe(config.withOmitAssertions(!config.omitAssertions())));
+
+        Plugins plugins = new Plugins(new InvocationPlugins(getMetaAccess()));
+        plugins.appendNodePlugin(new NodePlugin() {
+        });
+        Assert.assertNotEquals(description, PersistentEncodedGraphCache.describe(GraphBuilderConfiguration.getDefault(plugins)));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.replacements.SharedEncodedGraphCache;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+public class SharedEncodedGraphCacheTest extends GraalCompilerTest {
+
+    public static int method1() {
+        return 1;
+    }
+
+    public static int method2() {
+        return 2;
+    }
+
+    public static int method3() {
+        return Integer.bitCount(3);
+    }
+
+    private static EncodedGraph createGraph(ResolvedJavaMethod... inlinedMethods) {
+        return new EncodedGraph(new byte[0], 0, new Object[0], new NodeClass<?>[0], null, inlinedMethods.length == 0 ? null : Arrays.asList(inlinedMethods));
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        SharedEncodedGraphCache cache = new SharedEncodedGraphCache(16);
+        ResolvedJavaMethod method = getResolvedJavaMethod("method1");
+        Assert.assertNull(cache.get(method));
+
+        EncodedGraph first = createGraph();
+        Assert.assertSame(first, cache.putIfAbsent(method, first));
+        Assert.assertSame(first, cache.putIfAbsent(method, createGraph()));
+        Assert.assertSame(first, cache.get(method));
+    }
+
+    @Test
+    public void testEviction() {
+        SharedEncodedGraphCache cache = new SharedEncodedGraphCache(2);
+        ResolvedJavaMethod m1 = getResolvedJavaMethod("method1");
+        ResolvedJavaMethod m2 = getResolvedJavaMethod("method2");
+        ResolvedJavaMethod m3 = getResolvedJavaMethod("method3");
+        cache.putIfAbsent(m1, createGraph());
+        cache.putIfAbsent(m2, createGraph());
+        cache.get(m1);
+        cache.putIfAbsent(m3, createGraph());
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull("least recently used graph must be evicted", cache.get(m2));
+        Assert.assertNotNull(cache.get(m1));
+        Assert.assertNotNull(cache.get(m3));
+    }
+
+    @Test
+    public void testInvalidate() {
+        SharedEncodedGraphCache cache = new SharedEncodedGraphCache(16);
+        ResolvedJavaMethod m1 = getResolvedJavaMethod("method1");
+        ResolvedJavaMethod m3 = getResolvedJavaMethod("method3");
+        ResolvedJavaMethod bitCount = getResolvedJavaMethod(Integer.class, "bitCount");
+        cache.putIfAbsent(m1, createGraph());
+        cache.putIfAbsent(m3, createGraph(bitCount));
+
+        cache.invalidate(bitCount.getDeclaringClass());
+        Assert.assertNotNull(cache.get(m1));
+        Assert.assertNull(cache.get(m3));
+
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+    }
+}
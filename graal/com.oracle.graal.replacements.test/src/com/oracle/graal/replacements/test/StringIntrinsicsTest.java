@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import java.util.Arrays;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.replacements.nodes.ArrayCompareToNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
+import com.oracle.graal.replacements.nodes.ArrayIndexOfNode;
+
+import jdk.vm.ci.amd64.AMD64;
+
+/**
+ * Tests the AMD64 intrinsics for {@link String#indexOf}, {@link String#compareTo},
+ * {@link String#hashCode} and {@link Arrays#hashCode}.
+ */
+public class StringIntrinsicsTest extends MethodSubstitutionTest {
+
+    private static final String[] STRINGS = {"", "a", "ab", "abc", "\"key\":", "0123456789abcdef", "0123456789abcdefg", "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n",
+                    "{\"name\":\"value\",\"list\":[1,2,3],\"nested\":{\"x\":\"\u00e4\u4e2d\"}}", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaab"};
+
+    private void assumeAMD64() {
+        Assume.assumeTrue(Java8OrEarlier);
+        Assume.assumeTrue(getTarget().arch instanceof AMD64);
+    }
+
+    public static int indexOfChar(String s, int ch) {
+        return s.indexOf(ch);
+    }
+
+    public static int indexOfCharFrom(String s, int ch, int fromIndex) {
+        return s.indexOf(ch, fromIndex);
+    }
+
+    @Test
+    public void testIndexOfChar() {
+        assumeAMD64();
+        assertInGraph(testGraph("indexOfChar"), ArrayIndexOfNode.class);
+        int[] chars = {'a', 'b', '"', ':', '\n', 'z', '\u4e2d', -1, 0x1F600};
+        for (String s : STRINGS) {
+            for (int ch : chars) {
+                test("indexOfChar", s, ch);
+                for (int fromIndex = -1; fromIndex <= s.length() + 1; fromIndex += 3) {
+                    test("indexOfCharFrom", s, ch, fromIndex);
+                }
+            }
+        }
+    }
+
+    public static int indexOfString(String s, String str) {
+        return s.indexOf(str);
+    }
+
+    public static int indexOfStringFrom(String s, String str, int fromIndex) {
+        return s.indexOf(str, fromIndex);
+    }
+
+    @Test
+    public void testIndexOfString() {
+        assumeAMD64();
+        assertInGraph(testGraph("indexOfString"), ArrayIndexOfNode.class);
+        String[] targets = {"", "a", "ab", "abd", "\"list\"", "\r\n", "ab\u0000", "aaab", "cdefg"};
+        for (String s : STRINGS) {
+            for (String str : targets) {
+                test("indexOfString", s, str);
+                for (int fromIndex = -1; fromIndex <= s.length() + 1; fromIndex += 5) {
+                    test("indexOfStringFrom", s, str, fromIndex);
+                }
+            }
+        }
+        test("indexOfString", "abc", null);
+    }
+
+    public static int compareTo(String s1, String s2) {
+        return s1.compareTo(s2);
+    }
+
+    @Test
+    public void testCompareTo() {
+        assumeAMD64();
+        assertInGraph(testGraph("compareTo"), ArrayCompareToNode.class);
+        for (String s1 : STRINGS) {
+            for (String s2 : STRINGS) {
+                test("compareTo", s1, s2);
+                test("compareTo", s1, s2 + "\uffff");
+                test("compareTo", s1 + "\u0000", s2);
+            }
+        }
+        test("compareTo", "abc", null);
+    }
+
+    /**
+     * Creates the string in the snippet so that every execution computes the hash code instead of
+     * reading the value cached by a previous execution.
+     */
+    public static int stringHashCode(char[] value) {
+        return new String(value).hashCode();
+    }
+
+    @Test
+    public void testStringHashCode() {
+        assumeAMD64();
+        Assume.assumeTrue(((AMD64) getTarget().arch).getFeatures().contains(AMD64.CPUFeature.SSE4_1));
+        assertInGraph(testGraph("stringHashCode"), ArrayHashCodeNode.class);
+        for (String s : STRINGS) {
+            test("stringHashCode", s.toCharArray());
+        }
+    }
+
+    public static int arraysHashCodeInt(int[] a) {
+        return Arrays.hashCode(a);
+    }
+
+    public static int arraysHashCodeByte(byte[] a) {
+        return Arrays.hashCode(a);
+    }
+
+    @Test
+    public void testArraysHashCode() {
+        assumeAMD64();
+        Assume.assumeTrue(((AMD64) getTarget().arch).getFeatures().contains(AMD64.CPUFeature.SSE4_1));
+        assertInGraph(testGraph("arraysHashCodeInt"), ArrayHashCodeNode.class);
+        test("arraysHashCodeInt", (Object) null);
+        test("arraysHashCodeByte", (Object) null);
+        for (int length = 0; length < 20; length++) {
+            int[] ints = new int[length];
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                ints[i] = i * 0x9E3779B9;
+                bytes[i] = (byte) (i * 37);
+            }
+            test("arraysHashCodeInt", ints);
+            test("arraysHashCodeByte", bytes);
+        }
+    }
+}
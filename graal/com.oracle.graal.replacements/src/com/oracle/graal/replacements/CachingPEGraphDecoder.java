@@ -47,7 +47,9 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 
 /**
  * A graph decoder that provides all necessary encoded graphs on-the-fly (by parsing the methods and
- * encoding the graphs).
+ * encoding the graphs). Graphs can be shared with other decoders through a
+ * {@link SharedEncodedGraphCache}. If {@link PersistentEncodedGraphCache.Options#PEGraphCacheDirectory}
+ * is set, encoded graphs are additionally stored on disk and reused by later VM runs.
  */
 public class CachingPEGraphDecoder extends PEGraphDecoder {
 
@@ -56,9 +58,21 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
     protected final OptimisticOptimizations optimisticOpts;
     private final AllowAssumptions allowAssumptions;
     private final Map<ResolvedJavaMethod, EncodedGraph> graphCache;
+    private final SharedEncodedGraphCache sharedCache;
+    private final PersistentEncodedGraphCache persistentCache;
+    private String persistentCacheContext;
 
     public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions,
                     Architecture architecture) {
+        this(providers, graphBuilderConfig, optimisticOpts, allowAssumptions, architecture, null);
+    }
+
+    /**
+     * @param sharedCache cache of graphs shared with other decoders using the same graph builder
+     *            configuration, or {@code null}
+     */
+    public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions,
+                    Architecture architecture, SharedEncodedGraphCache sharedCache) {
         super(providers.getMetaAccess(), providers.getConstantReflection(), providers.getConstantFieldProvider(), providers.getStampProvider(), architecture);
 
         this.providers = providers;
@@ -66,6 +80,19 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
         this.optimisticOpts = optimisticOpts;
         this.allowAssumptions = allowAssumptions;
         this.graphCache = new HashMap<>();
+        this.sharedCache = sharedCache;
+        this.persistentCache = PersistentEncodedGraphCache.create(providers.getMetaAccess(), providers.getConstantReflection(), architecture);
+    }
+
+    /**
+     * Describes how graphs are built by this decoder. Graphs in the persistent cache are only
+     * reused by decoders with the same context.
+     */
+    protected String persistentCacheContext() {
+        if (persistentCacheContext == null) {
+            persistentCacheContext = getClass().getName() + " " + allowAssumptions + " " + optimisticOpts + " " + PersistentEncodedGraphCache.describe(graphBuilderConfig);
+        }
+        return persistentCacheContext;
     }
 
     protected GraphBuilderPhase.Instance createGraphBuilderPhaseInstance(IntrinsicContext initialIntrinsicContext) {
@@ -91,7 +118,13 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
             new ConvertDeoptimizeToGuardPhase().apply(graph, context);
 
             EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
+            if (sharedCache != null && intrinsicBytecodeProvider == null && (graph.getAssumptions() == null || graph.getAssumptions().isEmpty())) {
+                encodedGraph = sharedCache.putIfAbsent(method, encodedGraph);
+            }
             graphCache.put(method, encodedGraph);
+            if (persistentCache != null && intrinsicBytecodeProvider == null) {
+                persistentCache.store(method, persistentCacheContext(), encodedGraph);
+            }
             return encodedGraph;
 
         } catch (Throwable ex) {
@@ -102,6 +135,21 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
     @Override
     protected EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, BytecodeProvider intrinsicBytecodeProvider) {
         EncodedGraph result = graphCache.get(method);
+        if (result == null && sharedCache != null && intrinsicBytecodeProvider == null) {
+            result = sharedCache.get(method);
+            if (result != null) {
+                graphCache.put(method, result);
+            }
+        }
+        if (result == null && persistentCache != null && intrinsicBytecodeProvider == null) {
+            result = persistentCache.load(method, persistentCacheContext());
+            if (result != null) {
+                if (sharedCache != null) {
+                    result = sharedCache.putIfAbsent(method, result);
+                }
+                graphCache.put(method, result);
+            }
+        }
         if (result == null && method.hasBytecodes()) {
             result = createGraph(method, intrinsicBytecodeProvider);
         }
@@ -0,0 +1,980 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.oracle.graal.bytecode.BytecodeStream;
+import com.oracle.graal.bytecode.Bytecodes;
+import com.oracle.graal.bytecode.ResolvedJavaMethodBytecode;
+
+import com.oracle.graal.compiler.common.Fields;
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.FloatStamp;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.ObjectStamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.debug.GraalError;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeSourcePosition;
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.FieldLocationIdentity;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import com.oracle.graal.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionDescriptor;
+import com.oracle.graal.options.OptionDescriptors;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaField;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.PrimitiveConstant;
+import jdk.vm.ci.meta.ResolvedJavaField;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Stores {@link EncodedGraph encoded graphs} in files so that they can be reused by later VM runs
+ * without parsing the methods again. Each file holds the graph of one method and is read through a
+ * memory mapping.
+ *
+ * An entry is keyed by the signature of the method, a context string describing how the graph was
+ * built (see {@link #describe(GraphBuilderConfiguration)}) and the values of all options that
+ * differ from their defaults. It records a hash of the bytecodes of the method and of all methods
+ * inlined into the graph during parsing, a fingerprint of every class declaring one of these
+ * methods or a static final field they read, and the values of these static final fields, which
+ * the graph builder may have folded into the graph. The entry is discarded when any of them
+ * changed. Values of static final fields are compared only for primitive fields; for object fields
+ * only their nullness is compared, so objects folded through a static final field must be
+ * immutable or be covered by the option values (as is the case for {@link OptionValue}s). The file
+ * format is versioned by {@link #FORMAT_VERSION} and by a fingerprint of the fields of every
+ * {@link NodeClass} used in the graph, so entries written by a different version of the compiler
+ * are discarded too.
+ *
+ * Only graphs whose {@link EncodedGraph#getObjects() objects} can be described symbolically (e.g.
+ * primitive constants, types, methods, fields and common stamps) are stored. Graphs that reference
+ * heap objects or that were built with speculative assumptions are never persisted.
+ */
+public class PersistentEncodedGraphCache {
+
+    public static class Options {
+        @Option(help = "Directory in which graphs for partial evaluation are cached across VM runs (disabled if not set).", type = OptionType.Expert)//
+        public static final OptionValue<String> PEGraphCacheDirectory = new OptionValue<>(null);
+    }
+
+    private static final DebugCounter PersistentGraphCacheHits = Debug.counter("PersistentGraphCacheHits");
+    private static final DebugCounter PersistentGraphCacheMisses = Debug.counter("PersistentGraphCacheMisses");
+    private static final DebugCounter PersistentGraphCacheInvalidated = Debug.counter("PersistentGraphCacheInvalidated");
+    private static final DebugCounter PersistentGraphCacheStored = Debug.counter("PersistentGraphCacheStored");
+    private static final DebugCounter PersistentGraphCacheNotPersistable = Debug.counter("PersistentGraphCacheNotPersistable");
+
+    private static final int MAGIC = 0x47454e43;
+
+    /**
+     * Incremented whenever the format of the files changes.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOXED_PRIMITIVE = 2;
+    private static final byte ENUM = 3;
+    private static final byte PRIMITIVE_CONSTANT = 4;
+    private static final byte NULL_CONSTANT = 5;
+    private static final byte TYPE = 6;
+    private static final byte METHOD = 7;
+    private static final byte FIELD = 8;
+    private static final byte INTEGER_STAMP = 9;
+    private static final byte FLOAT_STAMP = 10;
+    private static final byte OBJECT_STAMP = 11;
+    private static final byte VOID_STAMP = 12;
+    private static final byte SOURCE_POSITION = 13;
+    private static final byte ANY_LOCATION = 14;
+    private static final byte FINAL_LOCATION = 15;
+    private static final byte ARRAY_LENGTH_LOCATION = 16;
+    private static final byte ARRAY_LOCATION = 17;
+    private static final byte FIELD_LOCATION = 18;
+    private static final byte INT_ARRAY = 19;
+    private static final byte LONG_ARRAY = 20;
+    private static final byte DOUBLE_ARRAY = 21;
+    private static final byte METHOD_BYTECODE = 22;
+
+    /**
+     * Thrown if an entry cannot be written or is no longer valid.
+     */
+    @SuppressWarnings("serial")
+    private static final class InvalidEntryException extends Exception {
+        InvalidEntryException(String message) {
+            super(message);
+        }
+    }
+
+    private final Path directory;
+    private final MetaAccessProvider metaAccess;
+    private final ConstantReflectionProvider constantReflection;
+    private final Architecture architecture;
+
+    /**
+     * Loader of the compiler classes, used for the classes that are not visible to the class
+     * declaring the method of an entry.
+     */
+    private final ClassLoader loader;
+
+    /**
+     * Digest of the values of all options that differ from their defaults when this cache was
+     * created.
+     */
+    private final String optionsDigest;
+
+    /**
+     * Creates a cache if {@link Options#PEGraphCacheDirectory} is set.
+     *
+     * @return the cache or {@code null} if persistent caching is disabled
+     */
+    public static PersistentEncodedGraphCache create(MetaAccessProvider metaAccess, ConstantReflectionProvider constantReflection, Architecture architecture) {
+        String directory = Options.PEGraphCacheDirectory.getValue();
+        if (directory == null) {
+            return null;
+        }
+        ClassLoader cl = PersistentEncodedGraphCache.class.getClassLoader();
+        return new PersistentEncodedGraphCache(Paths.get(directory), metaAccess, constantReflection, architecture, cl == null ? ClassLoader.getSystemClassLoader() : cl);
+    }
+
+    public PersistentEncodedGraphCache(Path directory, MetaAccessProvider metaAccess, ConstantReflectionProvider constantReflection, Architecture architecture, ClassLoader loader) {
+        this.directory = directory;
+        this.metaAccess = metaAccess;
+        this.constantReflection = constantReflection;
+        this.architecture = architecture;
+        this.loader = loader;
+        this.optionsDigest = digest(describeOptions());
+    }
+
+    /**
+     * Lazily loaded descriptors of all options, sorted by name.
+     */
+    private static class AllOptions {
+        static final OptionDescriptor[] DESCRIPTORS;
+
+        static {
+            SortedMap<String, OptionDescriptor> sorted = new TreeMap<>();
+            for (OptionDescriptors opts : ServiceLoader.load(OptionDescriptors.class, OptionDescriptors.class.getClassLoader())) {
+                for (OptionDescriptor desc : opts) {
+                    sorted.put(desc.getName(), desc);
+                }
+            }
+            DESCRIPTORS = sorted.values().toArray(new OptionDescriptor[sorted.size()]);
+        }
+    }
+
+    /**
+     * Describes the values of all options that differ from their defaults. Options can change the
+     * graphs built by plugins, e.g., when an option value is folded during parsing.
+     */
+    private static String describeOptions() {
+        StringBuilder sb = new StringBuilder();
+        for (OptionDescriptor desc : AllOptions.DESCRIPTORS) {
+            OptionValue<?> option = desc.getOptionValue();
+            Object value = option.getValue();
+            if (value == null ? option.getDefaultValue() != null : !value.equals(option.getDefaultValue())) {
+                sb.append(desc.getName()).append('=').append(value).append(' ');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Describes a graph builder configuration, including the classes of all its plugins and the
+     * methods for which invocation plugins are registered, so that graphs built with a different
+     * configuration are not reused.
+     */
+    public static String describe(GraphBuilderConfiguration config) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(config.eagerResolving()).append(' ').append(config.getBytecodeExceptionMode()).append(' ').append(config.omitAssertions()).append(' ').append(config.insertFullInfopoints());
+        sb.append(' ').append(config.trackNodeSourcePosition()).append(' ').append(config.clearNonLiveLocals());
+        for (ResolvedJavaType type : config.getSkippedExceptionTypes()) {
+            sb.append(' ').append(type.getName());
+        }
+        Plugins plugins = config.getPlugins();
+        describePlugins(sb, "node", plugins.getNodePlugins());
+        describePlugins(sb, "parameter", plugins.getParameterPlugins());
+        describePlugins(sb, "type", plugins.getTypePlugins());
+        describePlugins(sb, "inline", plugins.getInlineInvokePlugins());
+        describePlugins(sb, "loop", plugins.getLoopExplosionPlugin() == null ? new Object[0] : new Object[]{plugins.getLoopExplosionPlugin()});
+        sb.append(" invocation");
+        List<String> methods = new ArrayList<>();
+        for (ResolvedJavaMethod method : plugins.getInvocationPlugins().getMethods()) {
+            methods.add(method.format("%H.%n(%P)") + pluginClassName(plugins.getInvocationPlugins().lookupInvocation(method)));
+        }
+        methods.sort(Comparator.naturalOrder());
+        for (String method : methods) {
+            sb.append(' ').append(method);
+        }
+        return digest(sb.toString());
+    }
+
+    private static void describePlugins(StringBuilder sb, String kind, Object[] plugins) {
+        sb.append(' ').append(kind);
+        for (Object plugin : plugins) {
+            sb.append(' ').append(pluginClassName(plugin));
+        }
+    }
+
+    /**
+     * Gets the name of the class of a plugin. The names of lambda classes are not stable across VM
+     * runs, so only the name of the class defining the lambda is used for them.
+     */
+    private static String pluginClassName(Object plugin) {
+        if (plugin == null) {
+            return "";
+        }
+        String name = plugin.getClass().getName();
+        int lambda = name.indexOf("$$Lambda$");
+        return lambda == -1 ? name : name.substring(0, lambda);
+    }
+
+    private String key(ResolvedJavaMethod method, String context) {
+        return architecture.getName() + " " + context + " " + optionsDigest + " " + method.format("%H.%n") + method.getSignature().toMethodDescriptor();
+    }
+
+    private static String digest(String s) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest(s.getBytes(StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new GraalError(e);
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(digest(key) + ".graph");
+    }
+
+    /**
+     * Loads the encoded graph of {@code method}.
+     *
+     * @param context describes how the graph was built, e.g., the graph builder configuration
+     * @return the graph or {@code null} if there is no valid entry for {@code method}
+     */
+    public EncodedGraph load(ResolvedJavaMethod method, String context) {
+        String key = key(method, context);
+        Path file = file(key);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            EncodedGraph result = readEntry(buffer, key, method.getDeclaringClass());
+            if (result == null) {
+                PersistentGraphCacheMisses.increment();
+            } else {
+                PersistentGraphCacheHits.increment();
+            }
+            return result;
+        } catch (NoSuchFileException e) {
+            PersistentGraphCacheMisses.increment();
+            return null;
+        } catch (IOException | InvalidEntryException | BufferUnderflowException | LinkageError | ClassNotFoundException e) {
+            Debug.log("discarding cached graph of %s: %s", method, e);
+            PersistentGraphCacheInvalidated.increment();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                // another compiler thread or VM will overwrite the entry
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the encoded graph of {@code method}. Graphs that cannot be persisted are silently
+     * ignored.
+     *
+     * @param context describes how the graph was built, e.g., the graph builder configuration
+     */
+    public void store(ResolvedJavaMethod method, String context, EncodedGraph encodedGraph) {
+        if (encodedGraph.getAssumptions() != null && !encodedGraph.getAssumptions().isEmpty()) {
+            PersistentGraphCacheNotPersistable.increment();
+            return;
+        }
+        String key = key(method, context);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeEntry(out, key, method, encodedGraph);
+        } catch (InvalidEntryException e) {
+            PersistentGraphCacheNotPersistable.increment();
+            return;
+        } catch (IOException e) {
+            throw new GraalError(e);
+        }
+
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, null, ".tmp");
+            Files.write(tmp, bytes.toByteArray());
+            Files.move(tmp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            PersistentGraphCacheStored.increment();
+        } catch (IOException e) {
+            Debug.log("could not store graph of %s: %s", method, e);
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, String key, ResolvedJavaMethod method, EncodedGraph encodedGraph) throws IOException, InvalidEntryException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, key);
+
+        List<ResolvedJavaMethod> methods = new ArrayList<>();
+        methods.add(method);
+        if (encodedGraph.getInlinedMethods() != null) {
+            methods.addAll(encodedGraph.getInlinedMethods());
+        }
+        out.writeInt(methods.size());
+        for (ResolvedJavaMethod m : methods) {
+            writeMethod(out, m);
+            out.writeLong(bytecodeHash(m));
+        }
+
+        Set<ResolvedJavaType> classes = new LinkedHashSet<>();
+        Set<ResolvedJavaField> staticFinalFields = new LinkedHashSet<>();
+        collectDependencies(methods, classes, staticFinalFields);
+        out.writeInt(classes.size());
+        for (ResolvedJavaType type : classes) {
+            writeType(out, type);
+            out.writeLong(classFingerprint(type));
+        }
+        out.writeInt(staticFinalFields.size());
+        for (ResolvedJavaField field : staticFinalFields) {
+            writeField(out, field);
+            out.writeLong(staticFieldValue(field));
+        }
+
+        NodeClass<?>[] nodeClasses = encodedGraph.getNodeClasses();
+        out.writeInt(nodeClasses.length);
+        for (NodeClass<?> nodeClass : nodeClasses) {
+            writeString(out, nodeClass.getJavaClass().getName());
+            out.writeLong(fingerprint(nodeClass));
+        }
+
+        Object[] objects = encodedGraph.getObjects();
+        out.writeInt(objects.length);
+        for (Object object : objects) {
+            writeObject(out, object);
+        }
+
+        out.writeLong(encodedGraph.getStartOffset());
+        byte[] encoding = encodedGraph.getEncoding();
+        out.writeInt(encoding.length);
+        out.write(encoding);
+    }
+
+    private EncodedGraph readEntry(ByteBuffer in, String key, ResolvedJavaType accessingClass) throws InvalidEntryException, ClassNotFoundException {
+        if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+            throw new InvalidEntryException("unknown format");
+        }
+        if (!key.equals(readString(in))) {
+            throw new InvalidEntryException("key collision");
+        }
+
+        int methodCount = in.getInt();
+        List<ResolvedJavaMethod> inlinedMethods = new ArrayList<>(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            ResolvedJavaMethod m = readMethod(in, accessingClass);
+            if (bytecodeHash(m) != in.getLong()) {
+                throw new InvalidEntryException("bytecodes of " + m.format("%H.%n(%p)") + " changed");
+            }
+            if (i > 0) {
+                inlinedMethods.add(m);
+            }
+        }
+
+        int classCount = in.getInt();
+        for (int i = 0; i < classCount; i++) {
+            ResolvedJavaType type = readType(in, accessingClass);
+            if (classFingerprint(type) != in.getLong()) {
+                throw new InvalidEntryException("class " + type.toJavaName() + " changed");
+            }
+        }
+        int fieldCount = in.getInt();
+        for (int i = 0; i < fieldCount; i++) {
+            ResolvedJavaField field = readField(in, accessingClass);
+            long value = in.getLong();
+            if (!field.getDeclaringClass().isInitialized()) {
+                /*
+                 * The value cannot be checked without initializing the class. The entry may
+                 * become usable once the class was initialized by the application.
+                 */
+                return null;
+            }
+            if (staticFieldValue(field) != value) {
+                throw new InvalidEntryException("value of " + field.format("%H.%n") + " changed");
+            }
+        }
+
+        NodeClass<?>[] nodeClasses = new NodeClass<?>[in.getInt()];
+        for (int i = 0; i < nodeClasses.length; i++) {
+            Class<?> c = Class.forName(readString(in), false, loader);
+            if (!Node.class.isAssignableFrom(c)) {
+                throw new InvalidEntryException(c + " is not a node class");
+            }
+            nodeClasses[i] = NodeClass.get(c);
+            if (fingerprint(nodeClasses[i]) != in.getLong()) {
+                throw new InvalidEntryException("fields of " + c.getName() + " changed");
+            }
+        }
+
+        Object[] objects = new Object[in.getInt()];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = readObject(in, accessingClass);
+        }
+
+        long startOffset = in.getLong();
+        byte[] encoding = new byte[in.getInt()];
+        in.get(encoding);
+        return new EncodedGraph(encoding, startOffset, objects, nodeClasses, null, inlinedMethods);
+    }
+
+    private static long hash(long initial, byte[] bytes) {
+        long h = initial;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long bytecodeHash(ResolvedJavaMethod method) {
+        byte[] code = method.getCode();
+        return code == null ? 0 : hash(0xcbf29ce484222325L, code);
+    }
+
+    /**
+     * Collects the classes declaring {@code methods} and the static final fields read by
+     * {@code methods}, which the graph builder may have folded, together with their declaring
+     * classes.
+     */
+    private static void collectDependencies(List<ResolvedJavaMethod> methods, Set<ResolvedJavaType> classes, Set<ResolvedJavaField> staticFinalFields) {
+        for (ResolvedJavaMethod m : methods) {
+            classes.add(m.getDeclaringClass());
+            byte[] code = m.getCode();
+            if (code == null) {
+                continue;
+            }
+            BytecodeStream stream = new BytecodeStream(code);
+            while (stream.currentBC() != Bytecodes.END) {
+                if (stream.currentBC() == Bytecodes.GETSTATIC) {
+                    JavaField field = m.getConstantPool().lookupField(stream.readCPI(), m, Bytecodes.GETSTATIC);
+                    if (field instanceof ResolvedJavaField && ((ResolvedJavaField) field).isFinal() && ((ResolvedJavaField) field).getDeclaringClass().isInitialized()) {
+                        classes.add(((ResolvedJavaField) field).getDeclaringClass());
+                        staticFinalFields.add((ResolvedJavaField) field);
+                    }
+                }
+                stream.next();
+            }
+        }
+    }
+
+    /**
+     * Computes a hash of the methods and fields of {@code type}, including the bytecodes of all
+     * its methods and of its static initializer.
+     */
+    private static long classFingerprint(ResolvedJavaType type) {
+        List<ResolvedJavaMethod> methods = new ArrayList<>();
+        methods.addAll(Arrays.asList(type.getDeclaredConstructors()));
+        methods.addAll(Arrays.asList(type.getDeclaredMethods()));
+        if (type.getClassInitializer() != null) {
+            methods.add(type.getClassInitializer());
+        }
+        methods.sort(Comparator.comparing(m -> m.getName() + m.getSignature().toMethodDescriptor()));
+        long h = 0xcbf29ce484222325L;
+        for (ResolvedJavaMethod m : methods) {
+            h = hash(h, (m.getName() + m.getSignature().toMethodDescriptor()).getBytes(StandardCharsets.UTF_8));
+            h = h * 31 + bytecodeHash(m);
+        }
+        List<ResolvedJavaField> fields = new ArrayList<>();
+        fields.addAll(Arrays.asList(type.getInstanceFields(false)));
+        fields.addAll(Arrays.asList(type.getStaticFields()));
+        for (ResolvedJavaField f : fields) {
+            h = hash(h, (f.getName() + " " + f.getType().getName() + " " + f.getModifiers()).getBytes(StandardCharsets.UTF_8));
+        }
+        return h;
+    }
+
+    /**
+     * Reads the value of a static final field in a form that can be compared across VM runs: the
+     * raw bits of primitive values and only the nullness of object values.
+     */
+    private long staticFieldValue(ResolvedJavaField field) {
+        JavaConstant value = constantReflection.readFieldValue(field, null);
+        if (value == null) {
+            return -1;
+        } else if (value.getJavaKind().isPrimitive()) {
+            return rawValue(value);
+        } else {
+            return value.isNull() ? 0 : 1;
+        }
+    }
+
+    /**
+     * Computes a hash of the names and types of all fields of {@code nodeClass}, which determine
+     * the encoding of its nodes.
+     */
+    private static long fingerprint(NodeClass<?> nodeClass) {
+        long h = 0xcbf29ce484222325L;
+        for (Fields fields : nodeClass.getAllFields()) {
+            for (int i = 0; i < fields.getCount(); i++) {
+                h = hash(h, fields.getName(i).getBytes(StandardCharsets.UTF_8));
+                h = hash(h, fields.getType(i).getName().getBytes(StandardCharsets.UTF_8));
+            }
+            h = hash(h, new byte[]{'|'});
+        }
+        return h;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeType(DataOutputStream out, ResolvedJavaType type) throws IOException {
+        writeString(out, type.getName());
+    }
+
+    /**
+     * Resolves a type with the class loader of {@code accessingClass}, the class declaring the
+     * method of the entry, so that classes of the application or of a guest language are found.
+     * Compiler classes, e.g., of method substitutions, may not be visible to that loader and are
+     * resolved with the loader of the compiler.
+     */
+    private ResolvedJavaType readType(ByteBuffer in, ResolvedJavaType accessingClass) throws ClassNotFoundException {
+        String descriptor = readString(in);
+        if (descriptor.length() == 1) {
+            return metaAccess.lookupJavaType(JavaKind.fromPrimitiveOrVoidTypeChar(descriptor.charAt(0)).toJavaClass());
+        }
+        try {
+            return metaAccess.parseMethodDescriptor("()" + descriptor).getReturnType(accessingClass).resolve(accessingClass);
+        } catch (NoClassDefFoundError e) {
+            // not visible to the loader of the accessing class
+        }
+        String name;
+        if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+            name = descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+        } else {
+            name = descriptor.replace('/', '.');
+        }
+        return metaAccess.lookupJavaType(Class.forName(name, false, loader));
+    }
+
+    private static void writeMethod(DataOutputStream out, ResolvedJavaMethod method) throws IOException {
+        writeType(out, method.getDeclaringClass());
+        writeString(out, method.getName());
+        writeString(out, method.getSignature().toMethodDescriptor());
+        out.writeBoolean(method.isStatic());
+    }
+
+    private ResolvedJavaMethod readMethod(ByteBuffer in, ResolvedJavaType accessingClass) throws ClassNotFoundException, InvalidEntryException {
+        ResolvedJavaType type = readType(in, accessingClass);
+        String name = readString(in);
+        String descriptor = readString(in);
+        boolean isStatic = in.get() != 0;
+        ResolvedJavaMethod method = findMethod(type, name, descriptor, isStatic);
+        if (method == null) {
+            throw new InvalidEntryException("method " + type.toJavaName() + "." + name + descriptor + " not found");
+        }
+        return method;
+    }
+
+    private static ResolvedJavaMethod findMethod(ResolvedJavaType type, String name, String descriptor, boolean isStatic) {
+        if (isStatic && name.equals("<clinit>")) {
+            return type.getClassInitializer();
+        }
+        ResolvedJavaMethod[] methodsToSearch = name.equals("<init>") ? type.getDeclaredConstructors() : type.getDeclaredMethods();
+        for (ResolvedJavaMethod method : methodsToSearch) {
+            if (method.isStatic() == isStatic && method.getName().equals(name) && method.getSignature().toMethodDescriptor().equals(descriptor)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static ResolvedJavaField findField(ResolvedJavaType type, String name, String fieldType, boolean isStatic) {
+        ResolvedJavaField[] fields = isStatic ? type.getStaticFields() : type.getInstanceFields(false);
+        for (ResolvedJavaField field : fields) {
+            if (field.getName().equals(name) && field.getType().getName().equals(fieldType)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static void writeField(DataOutputStream out, ResolvedJavaField field) throws IOException {
+        writeType(out, field.getDeclaringClass());
+        writeString(out, field.getName());
+        writeString(out, field.getType().getName());
+        out.writeBoolean(field.isStatic());
+    }
+
+    private ResolvedJavaField readField(ByteBuffer in, ResolvedJavaType accessingClass) throws ClassNotFoundException, InvalidEntryException {
+        ResolvedJavaType type = readType(in, accessingClass);
+        String name = readString(in);
+        String fieldType = readString(in);
+        boolean isStatic = in.get() != 0;
+        ResolvedJavaField field = findField(type, name, fieldType, isStatic);
+        if (field == null) {
+            throw new InvalidEntryException("field " + type.toJavaName() + "." + name + " not found");
+        }
+        return field;
+    }
+
+    private static void writePrimitive(DataOutputStream out, JavaKind kind, long rawValue) throws IOException {
+        out.writeByte(kind.getTypeChar());
+        out.writeLong(rawValue);
+    }
+
+    private static long rawValue(JavaConstant constant) {
+        switch (constant.getJavaKind()) {
+            case Float:
+                return Float.floatToRawIntBits(constant.asFloat());
+            case Double:
+                return Double.doubleToRawLongBits(constant.asDouble());
+            case Boolean:
+                return constant.asBoolean() ? 1 : 0;
+            default:
+                return constant.asLong();
+        }
+    }
+
+    private static JavaConstant readPrimitiveConstant(ByteBuffer in) {
+        JavaKind kind = JavaKind.fromPrimitiveOrVoidTypeChar((char) in.get());
+        long raw = in.getLong();
+        switch (kind) {
+            case Boolean:
+                return JavaConstant.forBoolean(raw != 0);
+            case Byte:
+                return JavaConstant.forByte((byte) raw);
+            case Short:
+                return JavaConstant.forShort((short) raw);
+            case Char:
+                return JavaConstant.forChar((char) raw);
+            case Int:
+                return JavaConstant.forInt((int) raw);
+            case Long:
+                return JavaConstant.forLong(raw);
+            case Float:
+                return JavaConstant.forFloat(Float.intBitsToFloat((int) raw));
+            case Double:
+                return JavaConstant.forDouble(Double.longBitsToDouble(raw));
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static void writeBoxed(DataOutputStream out, Object o) throws IOException {
+        out.writeByte(BOXED_PRIMITIVE);
+        if (o instanceof Boolean) {
+            writePrimitive(out, JavaKind.Boolean, ((Boolean) o) ? 1 : 0);
+        } else if (o instanceof Byte) {
+            writePrimitive(out, JavaKind.Byte, (Byte) o);
+        } else if (o instanceof Short) {
+            writePrimitive(out, JavaKind.Short, (Short) o);
+        } else if (o instanceof Character) {
+            writePrimitive(out, JavaKind.Char, (Character) o);
+        } else if (o instanceof Integer) {
+            writePrimitive(out, JavaKind.Int, (Integer) o);
+        } else if (o instanceof Long) {
+            writePrimitive(out, JavaKind.Long, (Long) o);
+        } else if (o instanceof Float) {
+            writePrimitive(out, JavaKind.Float, Float.floatToRawIntBits((Float) o));
+        } else {
+            writePrimitive(out, JavaKind.Double, Double.doubleToRawLongBits((Double) o));
+        }
+    }
+
+    private static boolean isBoxedPrimitive(Object o) {
+        return o instanceof Boolean || o instanceof Byte || o instanceof Short || o instanceof Character || o instanceof Integer || o instanceof Long || o instanceof Float || o instanceof Double;
+    }
+
+    private void writeObject(DataOutputStream out, Object o) throws IOException, InvalidEntryException {
+        if (o == null) {
+            out.writeByte(NULL);
+        } else if (o instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) o);
+        } else if (isBoxedPrimitive(o)) {
+            writeBoxed(out, o);
+        } else if (o instanceof Enum) {
+            out.writeByte(ENUM);
+            writeString(out, ((Enum<?>) o).getDeclaringClass().getName());
+            writeString(out, ((Enum<?>) o).name());
+        } else if (o instanceof PrimitiveConstant) {
+            PrimitiveConstant constant = (PrimitiveConstant) o;
+            out.writeByte(PRIMITIVE_CONSTANT);
+            writePrimitive(out, constant.getJavaKind(), rawValue(constant));
+        } else if (o instanceof JavaConstant && ((JavaConstant) o).isNull()) {
+            /*
+             * There are several null constants, e.g., compressed and uncompressed null pointers.
+             * They are singletons, so the field holding the constant is stored.
+             */
+            Field field = findConstantField(o);
+            if (field == null) {
+                throw new InvalidEntryException("null constant " + o);
+            }
+            out.writeByte(NULL_CONSTANT);
+            writeString(out, field.getDeclaringClass().getName());
+            writeString(out, field.getName());
+        } else if (o instanceof ResolvedJavaType) {
+            out.writeByte(TYPE);
+            writeType(out, (ResolvedJavaType) o);
+        } else if (o instanceof ResolvedJavaMethod) {
+            out.writeByte(METHOD);
+            writeMethod(out, (ResolvedJavaMethod) o);
+        } else if (o.getClass() == ResolvedJavaMethodBytecode.class) {
+            out.writeByte(METHOD_BYTECODE);
+            writeMethod(out, ((ResolvedJavaMethodBytecode) o).getMethod());
+        } else if (o instanceof ResolvedJavaField) {
+            out.writeByte(FIELD);
+            writeField(out, (ResolvedJavaField) o);
+        } else if (o instanceof IntegerStamp) {
+            IntegerStamp stamp = (IntegerStamp) o;
+            out.writeByte(INTEGER_STAMP);
+            out.writeInt(stamp.getBits());
+            out.writeLong(stamp.lowerBound());
+            out.writeLong(stamp.upperBound());
+            out.writeLong(stamp.downMask());
+            out.writeLong(stamp.upMask());
+        } else if (o instanceof FloatStamp) {
+            FloatStamp stamp = (FloatStamp) o;
+            out.writeByte(FLOAT_STAMP);
+            out.writeInt(stamp.getBits());
+            out.writeDouble(stamp.lowerBound());
+            out.writeDouble(stamp.upperBound());
+            out.writeBoolean(stamp.isNonNaN());
+        } else if (o.getClass() == ObjectStamp.class) {
+            ObjectStamp stamp = (ObjectStamp) o;
+            out.writeByte(OBJECT_STAMP);
+            writeObject(out, stamp.type());
+            out.writeBoolean(stamp.isExactType());
+            out.writeBoolean(stamp.nonNull());
+            out.writeBoolean(stamp.alwaysNull());
+        } else if (o == StampFactory.forVoid()) {
+            out.writeByte(VOID_STAMP);
+        } else if (o instanceof NodeSourcePosition) {
+            NodeSourcePosition position = (NodeSourcePosition) o;
+            if (position.getReceiver() != null) {
+                throw new InvalidEntryException("source position with receiver");
+            }
+            out.writeByte(SOURCE_POSITION);
+            writeObject(out, position.getCaller());
+            writeMethod(out, position.getMethod());
+            out.writeInt(position.getBCI());
+        } else if (o == LocationIdentity.any()) {
+            out.writeByte(ANY_LOCATION);
+        } else if (o == NamedLocationIdentity.FINAL_LOCATION) {
+            out.writeByte(FINAL_LOCATION);
+        } else if (o == NamedLocationIdentity.ARRAY_LENGTH_LOCATION) {
+            out.writeByte(ARRAY_LENGTH_LOCATION);
+        } else if (o instanceof NamedLocationIdentity) {
+            for (JavaKind kind : JavaKind.values()) {
+                if (o == NamedLocationIdentity.getArrayLocation(kind)) {
+                    out.writeByte(ARRAY_LOCATION);
+                    out.writeByte(kind.getTypeChar());
+                    return;
+                }
+            }
+            throw new InvalidEntryException("location identity " + o);
+        } else if (o instanceof FieldLocationIdentity) {
+            out.writeByte(FIELD_LOCATION);
+            writeField(out, ((FieldLocationIdentity) o).getField());
+        } else if (o instanceof int[]) {
+            int[] array = (int[]) o;
+            out.writeByte(INT_ARRAY);
+            out.writeInt(array.length);
+            for (int value : array) {
+                out.writeInt(value);
+            }
+        } else if (o instanceof long[]) {
+            long[] array = (long[]) o;
+            out.writeByte(LONG_ARRAY);
+            out.writeInt(array.length);
+            for (long value : array) {
+                out.writeLong(value);
+            }
+        } else if (o instanceof double[]) {
+            double[] array = (double[]) o;
+            out.writeByte(DOUBLE_ARRAY);
+            out.writeInt(array.length);
+            for (double value : array) {
+                out.writeDouble(value);
+            }
+        } else {
+            throw new InvalidEntryException("object of " + o.getClass());
+        }
+    }
+
+    /**
+     * Finds a public static final field whose value is {@code constant}.
+     */
+    private static Field findConstantField(Object constant) {
+        for (Field field : constant.getClass().getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && Modifier.isFinal(field.getModifiers())) {
+                try {
+                    if (field.get(null) == constant) {
+                        return field;
+                    }
+                } catch (IllegalAccessException e) {
+                    // try the next field
+                }
+            }
+        }
+        return null;
+    }
+
+    private JavaConstant readConstantField(ByteBuffer in) throws ClassNotFoundException, InvalidEntryException {
+        Class<?> declaringClass = Class.forName(readString(in), true, loader);
+        String name = readString(in);
+        try {
+            Object value = declaringClass.getField(name).get(null);
+            if (value instanceof JavaConstant && ((JavaConstant) value).isNull()) {
+                return (JavaConstant) value;
+            }
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            // handled below
+        }
+        throw new InvalidEntryException("null constant " + declaringClass.getName() + "." + name + " not found");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readObject(ByteBuffer in, ResolvedJavaType accessingClass) throws ClassNotFoundException, InvalidEntryException {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOXED_PRIMITIVE:
+                return readPrimitiveConstant(in).asBoxedPrimitive();
+            case ENUM:
+                Class<?> enumClass = Class.forName(readString(in), false, loader);
+                return Enum.valueOf((Class<? extends Enum>) enumClass, readString(in));
+            case PRIMITIVE_CONSTANT:
+                return readPrimitiveConstant(in);
+            case NULL_CONSTANT:
+                return readConstantField(in);
+            case TYPE:
+                return readType(in, accessingClass);
+            case METHOD:
+                return readMethod(in, accessingClass);
+            case METHOD_BYTECODE:
+                return new ResolvedJavaMethodBytecode(readMethod(in, accessingClass));
+            case FIELD:
+                return readField(in, accessingClass);
+            case INTEGER_STAMP:
+                return new IntegerStamp(in.getInt(), in.getLong(), in.getLong(), in.getLong(), in.getLong());
+            case FLOAT_STAMP:
+                return new FloatStamp(in.getInt(), in.getDouble(), in.getDouble(), in.get() != 0);
+            case OBJECT_STAMP:
+                ResolvedJavaType type = (ResolvedJavaType) readObject(in, accessingClass);
+                return new ObjectStamp(type, in.get() != 0, in.get() != 0, in.get() != 0);
+            case VOID_STAMP:
+                return StampFactory.forVoid();
+            case SOURCE_POSITION:
+                NodeSourcePosition caller = (NodeSourcePosition) readObject(in, accessingClass);
+                return new NodeSourcePosition(null, caller, readMethod(in, accessingClass), in.getInt());
+            case ANY_LOCATION:
+                return LocationIdentity.any();
+            case FINAL_LOCATION:
+                return NamedLocationIdentity.FINAL_LOCATION;
+            case ARRAY_LENGTH_LOCATION:
+                return NamedLocationIdentity.ARRAY_LENGTH_LOCATION;
+            case ARRAY_LOCATION:
+                return NamedLocationIdentity.getArrayLocation(JavaKind.fromPrimitiveOrVoidTypeChar((char) in.get()));
+            case FIELD_LOCATION:
+                return new FieldLocationIdentity(readField(in, accessingClass));
+            case INT_ARRAY: {
+                int[] array = new int[in.getInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.getInt();
+                }
+                return array;
+            }
+            case LONG_ARRAY: {
+                long[] array = new long[in.getInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.getLong();
+                }
+                return array;
+            }
+            case DOUBLE_ARRAY: {
+                double[] array = new double[in.getInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.getDouble();
+                }
+                return array;
+            }
+            default:
+                throw new InvalidEntryException("unknown tag " + tag);
+        }
+    }
+}
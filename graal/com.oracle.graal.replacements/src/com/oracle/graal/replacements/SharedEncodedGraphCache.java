@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.nodes.EncodedGraph;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * A thread-safe cache of {@link EncodedGraph encoded graphs} that can be shared by
+ * {@link CachingPEGraphDecoder decoders} of concurrent compilations. The cache holds at most
+ * {@code maxSize} graphs; when it grows beyond that, the least recently used graphs are evicted.
+ *
+ * Only graphs that do not depend on {@linkplain EncodedGraph#getAssumptions() assumptions} may be
+ * added, since the assumptions of a shared graph would not be registered with the compilations
+ * using it. When classes are redefined, {@link #invalidate(ResolvedJavaType)} must be called so
+ * that graphs of or inlining methods of these classes are no longer used.
+ */
+public class SharedEncodedGraphCache {
+
+    private static final DebugCounter SharedGraphCacheHits = Debug.counter("SharedGraphCacheHits");
+    private static final DebugCounter SharedGraphCacheMisses = Debug.counter("SharedGraphCacheMisses");
+    private static final DebugCounter SharedGraphCacheEvictions = Debug.counter("SharedGraphCacheEvictions");
+    private static final DebugCounter SharedGraphCacheInvalidations = Debug.counter("SharedGraphCacheInvalidations");
+
+    private static final class Entry {
+        final EncodedGraph graph;
+        volatile long lastUse;
+
+        Entry(EncodedGraph graph, long lastUse) {
+            this.graph = graph;
+            this.lastUse = lastUse;
+        }
+
+        boolean dependsOn(ResolvedJavaType type) {
+            List<ResolvedJavaMethod> inlinedMethods = graph.getInlinedMethods();
+            if (inlinedMethods != null) {
+                for (ResolvedJavaMethod method : inlinedMethods) {
+                    if (method.getDeclaringClass().equals(type)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private final int maxSize;
+    private final ConcurrentHashMap<ResolvedJavaMethod, Entry> graphs;
+
+    /**
+     * Logical clock used to find the least recently used graphs.
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    public SharedEncodedGraphCache(int maxSize) {
+        assert maxSize > 0;
+        this.maxSize = maxSize;
+        this.graphs = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the cached graph of {@code method}.
+     *
+     * @return the graph or {@code null} if no graph of {@code method} is cached
+     */
+    public EncodedGraph get(ResolvedJavaMethod method) {
+        Entry entry = graphs.get(method);
+        if (entry == null) {
+            SharedGraphCacheMisses.increment();
+            return null;
+        }
+        SharedGraphCacheHits.increment();
+        entry.lastUse = clock.incrementAndGet();
+        return entry.graph;
+    }
+
+    /**
+     * Adds the graph of {@code method} unless another thread already added one.
+     *
+     * @return the graph of {@code method} that is in the cache
+     */
+    public EncodedGraph putIfAbsent(ResolvedJavaMethod method, EncodedGraph graph) {
+        assert graph.getAssumptions() == null || graph.getAssumptions().isEmpty() : "graphs with assumptions cannot be shared";
+        Entry entry = new Entry(graph, clock.incrementAndGet());
+        Entry existing = graphs.putIfAbsent(method, entry);
+        if (existing != null) {
+            return existing.graph;
+        }
+        if (graphs.size() > maxSize) {
+            evict();
+        }
+        return graph;
+    }
+
+    /**
+     * Evicts the least recently used eighth of the graphs. Evicting in batches amortizes the cost
+     * of sorting the entries.
+     */
+    private synchronized void evict() {
+        int size = graphs.size();
+        if (size <= maxSize) {
+            return;
+        }
+        List<Map.Entry<ResolvedJavaMethod, Entry>> entries = new ArrayList<>(graphs.entrySet());
+        Collections.sort(entries, (e1, e2) -> Long.compare(e1.getValue().lastUse, e2.getValue().lastUse));
+        int count = size - maxSize + maxSize / 8;
+        for (int i = 0; i < count && i < entries.size(); i++) {
+            Map.Entry<ResolvedJavaMethod, Entry> e = entries.get(i);
+            if (graphs.remove(e.getKey(), e.getValue())) {
+                SharedGraphCacheEvictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all graphs of methods declared by {@code type} and all graphs into which such methods
+     * were inlined.
+     */
+    public void invalidate(ResolvedJavaType type) {
+        for (Map.Entry<ResolvedJavaMethod, Entry> e : graphs.entrySet()) {
+            if (e.getKey().getDeclaringClass().equals(type) || e.getValue().dependsOn(type)) {
+                if (graphs.remove(e.getKey(), e.getValue())) {
+                    SharedGraphCacheInvalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all graphs.
+     */
+    public void invalidateAll() {
+        graphs.clear();
+    }
+
+    public int size() {
+        return graphs.size();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import static com.oracle.graal.nodeinfo.InputType.Memory;
+import static com.oracle.graal.nodeinfo.NodeCycles.CYCLES_100;
+import static com.oracle.graal.nodeinfo.NodeSize.SIZE_50;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.spi.Canonicalizable;
+import com.oracle.graal.graph.spi.CanonicalizerTool;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+// JaCoCo Exclude
+
+/**
+ * Computes the polynomial hash {@code h = 31 * h + a[i]} over the first {@code length} elements
+ * of an array, starting with {@code h = initialValue}. This is the hash used by
+ * {@link String#hashCode()} and {@link java.util.Arrays#hashCode(int[])}.
+ */
+@NodeInfo(cycles = CYCLES_100, size = SIZE_50)
+public final class ArrayHashCodeNode extends FixedWithNextNode implements LIRLowerable, Canonicalizable, MemoryAccess {
+
+    public static final NodeClass<ArrayHashCodeNode> TYPE = NodeClass.create(ArrayHashCodeNode.class);
+    /** {@link JavaKind} of the array to hash. */
+    protected final JavaKind kind;
+
+    /** The array to hash. */
+    @Input ValueNode array;
+
+    /** Number of elements to hash. */
+    @Input ValueNode length;
+
+    /** The hash value of an empty array. */
+    @Input ValueNode initialValue;
+
+    @OptionalInput(Memory) MemoryNode lastLocationAccess;
+
+    public ArrayHashCodeNode(ValueNode array, ValueNode length, ValueNode initialValue, @ConstantNodeParameter JavaKind kind) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        assert kind == JavaKind.Byte || kind == JavaKind.Char || kind == JavaKind.Short || kind == JavaKind.Int : kind;
+        this.kind = kind;
+        this.array = array;
+        this.length = length;
+        this.initialValue = initialValue;
+    }
+
+    public ValueNode getArray() {
+        return array;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    public ValueNode getInitialValue() {
+        return initialValue;
+    }
+
+    @Override
+    public Node canonical(CanonicalizerTool tool) {
+        if (tool.allUsagesAvailable() && hasNoUsages()) {
+            return null;
+        }
+        if (length.isConstant() && length.asJavaConstant().asInt() == 0) {
+            return initialValue;
+        }
+        return this;
+    }
+
+    @NodeIntrinsic
+    public static native int hashCode(Object array, int length, int initialValue, @ConstantNodeParameter JavaKind kind);
+
+    public static int hashCode(byte[] array, int length, int initialValue) {
+        return hashCode(array, length, initialValue, JavaKind.Byte);
+    }
+
+    public static int hashCode(char[] array, int length, int initialValue) {
+        return hashCode(array, length, initialValue, JavaKind.Char);
+    }
+
+    public static int hashCode(short[] array, int length, int initialValue) {
+        return hashCode(array, length, initialValue, JavaKind.Short);
+    }
+
+    public static int hashCode(int[] array, int length, int initialValue) {
+        return hashCode(array, length, initialValue, JavaKind.Int);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitArrayHashCode(kind, gen.operand(array), gen.operand(length), gen.operand(initialValue));
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    @Override
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
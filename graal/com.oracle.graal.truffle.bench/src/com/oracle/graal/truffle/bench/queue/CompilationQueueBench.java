@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.bench.queue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+
+/**
+ * Measures the time until a hot call target runs compiled code while a large number of cold call
+ * targets that crossed the compilation threshold shortly before are waiting in the compilation
+ * queue. The call targets are created before each invocation, so that only their execution and
+ * the compilation queue are measured. They cannot be reused across invocations since compiled call
+ * targets are not queued again.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class CompilationQueueBench {
+
+    private static final int COLD_TARGETS = 200;
+    private static final int COLD_CALLS = 1100;
+
+    private abstract static class BenchLanguage extends TruffleLanguage<Object> {
+    }
+
+    private static final class ColdRootNode extends RootNode {
+
+        ColdRootNode() {
+            super(BenchLanguage.class, null, new FrameDescriptor());
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            int value = (int) frame.getArguments()[0];
+            int result = 0;
+            for (int i = 0; i < 16; i++) {
+                result = result * 31 + (value ^ i);
+            }
+            return result;
+        }
+    }
+
+    private static final class HotRootNode extends RootNode {
+
+        HotRootNode() {
+            super(BenchLanguage.class, null, new FrameDescriptor());
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            return CompilerDirectives.inCompiledCode();
+        }
+    }
+
+    private final CallTarget[] coldTargets = new CallTarget[COLD_TARGETS];
+    private CallTarget hot;
+
+    @Setup(Level.Invocation)
+    public void createCallTargets() {
+        for (int i = 0; i < COLD_TARGETS; i++) {
+            coldTargets[i] = Truffle.getRuntime().createCallTarget(new ColdRootNode());
+        }
+        hot = Truffle.getRuntime().createCallTarget(new HotRootNode());
+    }
+
+    @Benchmark
+    public long mixedHotAndCold() {
+        for (CallTarget cold : coldTargets) {
+            for (int j = 0; j < COLD_CALLS; j++) {
+                cold.call(j);
+            }
+        }
+        long calls = 0;
+        while (!((Boolean) hot.call())) {
+            calls++;
+        }
+        return calls;
+    }
+}
@@ -25,6 +25,7 @@ package com.oracle.graal.truffle.hotspot;
 import com.oracle.graal.api.replacements.SnippetReflectionProvider;
 import com.oracle.graal.api.runtime.GraalRuntime;
 import com.oracle.graal.code.CompilationResult;
+import com.oracle.graal.compiler.phases.EconomyCompilerConfiguration;
 import com.oracle.graal.compiler.target.Backend;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
@@ -37,6 +38,7 @@ import com.oracle.graal.hotspot.HotSpotBackend;
 import com.oracle.graal.hotspot.HotSpotCompiledCodeBuilder;
 import com.oracle.graal.hotspot.HotSpotGraalRuntimeProvider;
 import com.oracle.graal.hotspot.meta.HotSpotProviders;
+import com.oracle.graal.hotspot.meta.HotSpotSuitesProvider;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.lir.asm.CompilationResultBuilderFactory;
 import com.oracle.graal.lir.phases.LIRSuites;
@@ -171,6 +173,28 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
         }
     }
 
+    @Override
+    protected Suites createFirstTierSuites(Backend backend) {
+        SuitesProvider suitesProvider = backend.getSuites();
+        if (suitesProvider instanceof HotSpotSuitesProvider) {
+            Suites suites = ((HotSpotSuitesProvider) suitesProvider).createSuites(new EconomyCompilerConfiguration());
+            suites.setImmutable();
+            return suites;
+        }
+        return super.createFirstTierSuites(backend);
+    }
+
+    @Override
+    protected LIRSuites createFirstTierLIRSuites(Backend backend) {
+        SuitesProvider suitesProvider = backend.getSuites();
+        if (suitesProvider instanceof HotSpotSuitesProvider) {
+            LIRSuites lirSuites = ((HotSpotSuitesProvider) suitesProvider).createLIRSuites(new EconomyCompilerConfiguration());
+            lirSuites.setImmutable();
+            return lirSuites;
+        }
+        return super.createFirstTierLIRSuites(backend);
+    }
+
     @Override
     protected OptimizedCallTarget createOptimizedCallTarget(OptimizedCallTarget source, RootNode rootNode) {
         /* No HotSpot-specific subclass is currently necessary for call targets. */
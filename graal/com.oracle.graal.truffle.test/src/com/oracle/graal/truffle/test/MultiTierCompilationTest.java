@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.OptimizedCompilationProfile;
+import com.oracle.graal.truffle.TruffleCompilerOptions;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class MultiTierCompilationTest {
+    private static final GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+
+    private static final int SECOND_TIER_THRESHOLD = 100;
+
+    private static void assertCompiled(OptimizedCallTarget target) {
+        try {
+            runtime.waitForCompilation(target, 10000);
+        } catch (ExecutionException | TimeoutException e) {
+            fail("timeout");
+        }
+        assertTrue(target.isValid());
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void testFirstTierThenSecondTier() {
+        final int compilationThreshold = TruffleCompilerOptions.TruffleCompilationThreshold.getValue();
+        OptimizedCallTarget target;
+        try (OverrideScope scope = OptionValue.override(TruffleCompilerOptions.TruffleMultiTier, true, TruffleCompilerOptions.TruffleSecondTierCompilationThreshold, SECOND_TIER_THRESHOLD)) {
+            target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), "multiTier", new ConstantTestNode(42)));
+        }
+        OptimizedCompilationProfile profile = target.getCompilationProfile();
+
+        for (int i = 0; i < compilationThreshold; i++) {
+            assertEquals(42, target.call());
+        }
+        assertCompiled(target);
+        assertTrue("first compilation is a first-tier compilation", profile.isFirstTierCompilation());
+        assertEquals(0, profile.getFirstTierCallCount());
+
+        for (int i = 0; i < SECOND_TIER_THRESHOLD; i++) {
+            assertEquals(42, target.call());
+        }
+        assertCompiled(target);
+        assertFalse("hot first-tier code is recompiled in the second tier", profile.isFirstTierCompilation());
+        assertEquals(SECOND_TIER_THRESHOLD, profile.getFirstTierCallCount());
+
+        for (int i = 0; i < SECOND_TIER_THRESHOLD; i++) {
+            assertEquals(42, target.call());
+        }
+        assertTrue(target.isValid());
+        assertEquals("second-tier code does not count calls", SECOND_TIER_THRESHOLD, profile.getFirstTierCallCount());
+    }
+
+    @Test
+    public void testSingleTier() {
+        final int compilationThreshold = TruffleCompilerOptions.TruffleCompilationThreshold.getValue();
+        OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), "singleTier", new ConstantTestNode(42)));
+        for (int i = 0; i < compilationThreshold; i++) {
+            assertEquals(42, target.call());
+        }
+        assertCompiled(target);
+        assertFalse(target.getCompilationProfile().isFirstTierCompilation());
+    }
+}
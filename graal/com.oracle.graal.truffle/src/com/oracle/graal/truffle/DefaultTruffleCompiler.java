@@ -41,11 +41,14 @@ public final class DefaultTruffleCompiler extends TruffleCompiler {
         GraphBuilderPhase phase = (GraphBuilderPhase) backend.getSuites().getDefaultGraphBuilderSuite().findPhase(GraphBuilderPhase.class).previous();
         Plugins plugins = phase.getGraphBuilderConfig().getPlugins();
         SnippetReflectionProvider snippetReflection = runtime.getRequiredGraalCapability(SnippetReflectionProvider.class);
-        return new DefaultTruffleCompiler(plugins, suites, lirSuites, backend, snippetReflection);
+        Suites firstTierSuites = runtime.createFirstTierSuites(backend);
+        LIRSuites firstTierLirSuites = runtime.createFirstTierLIRSuites(backend);
+        return new DefaultTruffleCompiler(plugins, suites, lirSuites, firstTierSuites, firstTierLirSuites, backend, snippetReflection);
     }
 
-    private DefaultTruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Backend backend, SnippetReflectionProvider snippetReflection) {
-        super(plugins, suites, lirSuites, backend, snippetReflection);
+    private DefaultTruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Suites firstTierSuites, LIRSuites firstTierLirSuites, Backend backend,
+                    SnippetReflectionProvider snippetReflection) {
+        super(plugins, suites, lirSuites, firstTierSuites, firstTierLirSuites, backend, snippetReflection);
     }
 
     @Override
@@ -23,36 +23,54 @@
 package com.oracle.graal.truffle;
 
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationQueueAgingWeight;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationQueueStaleDelay;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompileOnly;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilerThreads;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilerThreadsMaxCPUShare;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleEnableInfopoints;
 
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractQueue;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.ServiceLoader;
 import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 import com.oracle.graal.api.runtime.GraalRuntime;
 import com.oracle.graal.code.CompilationResult;
 import com.oracle.graal.compiler.CompilerThreadFactory;
+import com.oracle.graal.compiler.phases.EconomyCompilerConfiguration;
+import com.oracle.graal.compiler.target.Backend;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.GraalError;
 import com.oracle.graal.debug.TTY;
+import com.oracle.graal.lir.phases.LIRSuites;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.phases.tiers.Suites;
 import com.oracle.graal.serviceprovider.GraalServices;
 import com.oracle.graal.truffle.debug.CompilationStatisticsListener;
 import com.oracle.graal.truffle.debug.PrintCallTargetProfiling;
@@ -101,23 +119,370 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
     private final Map<RootCallTarget, Void> callTargets = Collections.synchronizedMap(new WeakHashMap<RootCallTarget, Void>());
 
     protected abstract static class BackgroundCompileQueue implements CompilerThreadFactory.DebugConfigAccess {
-        private final ExecutorService compileQueue;
+        /**
+         * Number of queued compilations per compiler thread above which an adaptively sized queue
+         * starts another thread.
+         */
+        private static final int TASKS_PER_THREAD = 4;
+
+        /**
+         * Time in seconds after which an idle compiler thread of an adaptively sized queue
+         * terminates.
+         */
+        private static final long IDLE_THREAD_TIMEOUT = 10;
+
+        private final ThreadPoolExecutor compileQueue;
+        private final CompilationTaskQueue taskQueue;
+        private final long creationTime = System.nanoTime();
+
+        /**
+         * Maximum number of compiler threads or 0 if the number of threads is fixed.
+         */
+        private final int maxThreads;
 
         protected BackgroundCompileQueue() {
             CompilerThreadFactory factory = new CompilerThreadFactory("TruffleCompilerThread", this);
 
-            int selectedProcessors = TruffleCompilerOptions.TruffleCompilerThreads.getValue();
-            if (selectedProcessors == 0) {
-                // No manual selection made, check how many processors are available.
-                int availableProcessors = Runtime.getRuntime().availableProcessors();
-                if (availableProcessors >= 12) {
-                    selectedProcessors = 4;
-                } else if (availableProcessors >= 4) {
-                    selectedProcessors = 2;
+            taskQueue = new CompilationTaskQueue();
+            int selectedProcessors = TruffleCompilerThreads.getValue();
+            if (selectedProcessors > 0) {
+                maxThreads = 0;
+                compileQueue = new ThreadPoolExecutor(selectedProcessors, selectedProcessors, 0L, TimeUnit.MILLISECONDS, taskQueue, factory);
+            } else {
+                // No manual selection made: start with one thread and add more under backlog
+                maxThreads = Math.max(1, (int) (getAvailableProcessors() * TruffleCompilerThreadsMaxCPUShare.getValue() / 100));
+                compileQueue = new ThreadPoolExecutor(1, maxThreads, IDLE_THREAD_TIMEOUT, TimeUnit.SECONDS, taskQueue, factory);
+                compileQueue.allowCoreThreadTimeOut(true);
+            }
+        }
+
+        /**
+         * Adapts the number of compiler threads to the number of queued compilations. The thread
+         * pool never starts threads beyond its core size since its queue is unbounded, so the core
+         * size is raised when the backlog grows. When it is lowered, the excess threads terminate
+         * once they become idle.
+         */
+        private void adjustThreadCount() {
+            if (maxThreads == 0) {
+                return;
+            }
+            int desired = Math.min(maxThreads, 1 + taskQueue.size() / TASKS_PER_THREAD);
+            synchronized (compileQueue) {
+                if (desired != compileQueue.getCorePoolSize()) {
+                    compileQueue.setCorePoolSize(desired);
+                }
+            }
+        }
+
+        /**
+         * Gets the number of processors the process may use, taking the CPU quota of its Linux
+         * control group into account.
+         */
+        private static double getAvailableProcessors() {
+            double processors = Runtime.getRuntime().availableProcessors();
+            double quota = getCGroupCPUQuota();
+            return quota > 0 ? Math.min(processors, quota) : processors;
+        }
+
+        /**
+         * Reads the CPU quota of the process from the cgroup v2 or v1 file system.
+         *
+         * @return the number of CPUs the quota corresponds to or -1 if there is no quota
+         */
+        private static double getCGroupCPUQuota() {
+            try {
+                Path cpuMax = Paths.get("/sys/fs/cgroup/cpu.max");
+                if (Files.isReadable(cpuMax)) {
+                    // Format: "$MAX $PERIOD" where $MAX is "max" if there is no limit
+                    String[] values = new String(Files.readAllBytes(cpuMax), StandardCharsets.US_ASCII).trim().split("\\s+");
+                    if (values.length == 2 && !values[0].equals("max")) {
+                        return Double.parseDouble(values[0]) / Double.parseDouble(values[1]);
+                    }
+                    return -1;
+                }
+                Path quota = Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_quota_us");
+                Path period = Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_period_us");
+                if (Files.isReadable(quota) && Files.isReadable(period)) {
+                    double q = Double.parseDouble(new String(Files.readAllBytes(quota), StandardCharsets.US_ASCII).trim());
+                    double p = Double.parseDouble(new String(Files.readAllBytes(period), StandardCharsets.US_ASCII).trim());
+                    if (q > 0 && p > 0) {
+                        return q / p;
+                    }
+                }
+            } catch (IOException | NumberFormatException | SecurityException e) {
+                // no usable quota
+            }
+            return -1;
+        }
+
+        private long getPriority(OptimizedCallTarget callTarget, long submitTime) {
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(submitTime - creationTime);
+            /*
+             * Waiting in the queue is credited as if the call target had been executed more often.
+             * Since all tasks are credited at the same rate, crediting the time waited until now is
+             * equivalent to debiting the time of submission, which keeps the priority independent
+             * of the time at which it is computed.
+             */
+            return callTarget.getCompilationProfile().getInterpreterCallAndLoopCount() - waitedMillis * TruffleCompilationQueueAgingWeight.getValue();
+        }
+    }
+
+    /**
+     * A call target waiting in the {@link BackgroundCompileQueue}. The priority of a task is the
+     * hotness of its call target plus a credit for the time it has been waiting, so that a very
+     * hot call target overtakes colder ones without starving them. Tasks whose call target was not
+     * executed at all while they were waiting for longer than
+     * {@link TruffleCompilerOptions#TruffleCompilationQueueStaleDelay} are dropped.
+     */
+    private final class CompilationTask extends FutureTask<Void> {
+        private final BackgroundCompileQueue queue;
+        private final WeakReference<OptimizedCallTarget> weakCallTarget;
+        private final long submitTime;
+        private final int submitCallAndLoopCount;
+
+        CompilationTask(BackgroundCompileQueue queue, OptimizedCallTarget callTarget, WeakReference<OptimizedCallTarget> weakCallTarget, Runnable compilation) {
+            super(compilation, null);
+            this.queue = queue;
+            this.weakCallTarget = weakCallTarget;
+            this.submitTime = System.nanoTime();
+            this.submitCallAndLoopCount = callTarget.getCompilationProfile().getInterpreterCallAndLoopCount();
+        }
+
+        /**
+         * Computes the current priority of this task. Queued call targets keep executing in the
+         * interpreter, so the priority changes while the task is waiting.
+         */
+        long getPriority() {
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            if (callTarget == null) {
+                // nothing to compile any more, get rid of the task as soon as possible
+                return Long.MAX_VALUE;
+            }
+            return queue.getPriority(callTarget, submitTime);
+        }
+
+        @Override
+        public void run() {
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            if (callTarget != null && !isDone() && isStale(callTarget)) {
+                cancel(false);
+                callTarget.resetCompilationTask();
+                getCompilationNotify().notifyCompilationDequeued(callTarget, this, "Not executed while waiting in the compilation queue");
+                return;
+            }
+            super.run();
+        }
+
+        private boolean isStale(OptimizedCallTarget callTarget) {
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitTime);
+            return waitedMillis > TruffleCompilationQueueStaleDelay.getValue() && callTarget.getCompilationProfile().getInterpreterCallAndLoopCount() == submitCallAndLoopCount;
+        }
+    }
+
+    /**
+     * The queue of the {@link BackgroundCompileQueue}. It hands out the {@link CompilationTask}
+     * with the highest priority at the time the task is taken. Since the priorities of waiting
+     * tasks keep changing, they are computed when a task is dequeued instead of ordering the tasks
+     * by priorities computed earlier. Dequeuing a task is linear in the number of waiting tasks,
+     * which is cheap compared to a compilation.
+     */
+    private static final class CompilationTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        /**
+         * Gets the index of the task with the highest current priority. Of tasks with the same
+         * priority, the one queued first is selected. Must be called with {@link #lock} held and
+         * a non-empty queue.
+         */
+        private int indexOfHighestPriority() {
+            int result = 0;
+            long highest = ((CompilationTask) tasks.get(0)).getPriority();
+            for (int i = 1; i < tasks.size(); i++) {
+                long priority = ((CompilationTask) tasks.get(i)).getPriority();
+                if (priority > highest) {
+                    highest = priority;
+                    result = i;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            Objects.requireNonNull(task);
+            lock.lock();
+            try {
+                tasks.add(task);
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void put(Runnable task) {
+            offer(task);
+        }
+
+        @Override
+        public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+            return offer(task);
+        }
+
+        @Override
+        public Runnable take() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (tasks.isEmpty()) {
+                    notEmpty.await();
+                }
+                return tasks.remove(indexOfHighestPriority());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                while (tasks.isEmpty()) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return tasks.remove(indexOfHighestPriority());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Runnable poll() {
+            lock.lock();
+            try {
+                return tasks.isEmpty() ? null : tasks.remove(indexOfHighestPriority());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Runnable peek() {
+            lock.lock();
+            try {
+                return tasks.isEmpty() ? null : tasks.get(indexOfHighestPriority());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.lock();
+            try {
+                return tasks.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean remove(Object task) {
+            lock.lock();
+            try {
+                for (Iterator<Runnable> it = tasks.iterator(); it.hasNext();) {
+                    if (it.next() == task) {
+                        it.remove();
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void clear() {
+            lock.lock();
+            try {
+                tasks.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Iterates over a snapshot of the queued tasks in the order they were queued. Removing a
+         * task through the iterator removes it from the queue.
+         */
+        @Override
+        public Iterator<Runnable> iterator() {
+            Runnable[] snapshot;
+            lock.lock();
+            try {
+                snapshot = tasks.toArray(new Runnable[tasks.size()]);
+            } finally {
+                lock.unlock();
+            }
+            return new Iterator<Runnable>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < snapshot.length;
                 }
+
+                @Override
+                public Runnable next() {
+                    if (next >= snapshot.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return snapshot[next++];
+                }
+
+                @Override
+                public void remove() {
+                    if (next == 0) {
+                        throw new IllegalStateException();
+                    }
+                    CompilationTaskQueue.this.remove(snapshot[next - 1]);
+                }
+            };
+        }
+
+        @Override
+        public int drainTo(Collection<? super Runnable> c) {
+            return drainTo(c, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int drainTo(Collection<? super Runnable> c, int maxElements) {
+            Objects.requireNonNull(c);
+            if (c == this) {
+                throw new IllegalArgumentException();
+            }
+            lock.lock();
+            try {
+                int n = Math.min(tasks.size(), maxElements);
+                List<Runnable> drained = tasks.subList(0, n);
+                c.addAll(drained);
+                drained.clear();
+                return n;
+            } finally {
+                lock.unlock();
             }
-            selectedProcessors = Math.max(1, selectedProcessors);
-            compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
         }
     }
 
@@ -152,6 +517,26 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     public abstract TruffleCompiler getTruffleCompiler();
 
+    /**
+     * Creates the phase suites for first-tier compilations (see
+     * {@link TruffleCompilerOptions#TruffleMultiTier}).
+     */
+    protected Suites createFirstTierSuites(@SuppressWarnings("unused") Backend backend) {
+        Suites suites = Suites.createSuites(new EconomyCompilerConfiguration());
+        suites.setImmutable();
+        return suites;
+    }
+
+    /**
+     * Creates the LIR phase suites for first-tier compilations (see
+     * {@link TruffleCompilerOptions#TruffleMultiTier}).
+     */
+    protected LIRSuites createFirstTierLIRSuites(@SuppressWarnings("unused") Backend backend) {
+        LIRSuites lirSuites = Suites.createLIRSuites(new EconomyCompilerConfiguration());
+        lirSuites.setImmutable();
+        return lirSuites;
+    }
+
     public <T> T getRequiredGraalCapability(Class<T> clazz) {
         T ret = graalRuntime.get().getCapability(clazz);
         if (ret == null) {
@@ -492,7 +877,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
     public Future<?> submitForCompilation(OptimizedCallTarget optimizedCallTarget) {
         BackgroundCompileQueue l = getCompileQueue();
         final WeakReference<OptimizedCallTarget> weakCallTarget = new WeakReference<>(optimizedCallTarget);
-        return l.compileQueue.submit(new Runnable() {
+        CompilationTask task = new CompilationTask(l, optimizedCallTarget, weakCallTarget, new Runnable() {
             @Override
             public void run() {
                 OptimizedCallTarget callTarget = weakCallTarget.get();
@@ -501,6 +886,9 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
                 }
             }
         });
+        l.compileQueue.execute(task);
+        l.adjustThreadCount();
+        return task;
     }
 
     public void finishCompilation(OptimizedCallTarget optimizedCallTarget, Future<?> future, boolean mayBeAsynchronous) {
@@ -552,12 +940,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
     }
 
     public int getCompilationQueueSize() {
-        ExecutorService executor = getCompileQueue().compileQueue;
-        if (executor instanceof ThreadPoolExecutor) {
-            return ((ThreadPoolExecutor) executor).getQueue().size();
-        } else {
-            return 0;
-        }
+        return getCompileQueue().taskQueue.size();
     }
 
     public boolean isCompiling(OptimizedCallTarget optimizedCallTarget) {
@@ -207,6 +207,7 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     public final Object callRoot(Object[] originalArguments) {
         Object[] args = originalArguments;
         if (CompilerDirectives.inCompiledCode()) {
+            this.compilationProfile.compiledCall(this);
             args = this.compilationProfile.injectArgumentProfile(originalArguments);
         }
         Object result = callProxy(createFrame(getRootNode().getFrameDescriptor(), args));
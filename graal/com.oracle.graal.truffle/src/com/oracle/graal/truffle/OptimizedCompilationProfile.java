@@ -26,8 +26,10 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleArgumentTyp
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationThreshold;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleInvalidationReprofileCount;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMinInvokeThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMultiTier;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReplaceReprofileCount;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReturnTypeSpeculation;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleSecondTierCompilationThreshold;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleTimeThreshold;
 
 import java.util.LinkedHashMap;
@@ -37,6 +39,7 @@ import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.CompilerOptions;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
@@ -56,6 +59,23 @@ public class OptimizedCompilationProfile {
 
     private long timestamp;
 
+    /**
+     * Number of calls executed by first-tier compiled code.
+     */
+    private int firstTierCallCount;
+    /**
+     * Set once the first-tier code requested its second-tier compilation. First-tier code keeps
+     * running until the second-tier code is installed and must not request it again.
+     */
+    private boolean secondTierRequested;
+    @CompilationFinal private int secondTierCompilationThreshold;
+    private final boolean multiTier;
+    /**
+     * Set while the call target is compiled in the first tier. Partial evaluation folds this flag,
+     * so only first-tier code counts its calls.
+     */
+    @CompilationFinal private boolean firstTierCompilation;
+
     @CompilationFinal(dimensions = 1) private Class<?>[] profiledArgumentTypes;
     @CompilationFinal private Assumption profiledArgumentTypesAssumption;
     @CompilationFinal private Class<?> profiledReturnType;
@@ -67,6 +87,8 @@ public class OptimizedCompilationProfile {
     public OptimizedCompilationProfile() {
         compilationCallThreshold = TruffleMinInvokeThreshold.getValue();
         compilationCallAndLoopThreshold = TruffleCompilationThreshold.getValue();
+        secondTierCompilationThreshold = TruffleSecondTierCompilationThreshold.getValue();
+        multiTier = TruffleMultiTier.getValue();
     }
 
     @Override
@@ -225,6 +247,45 @@ public class OptimizedCompilationProfile {
         }
     }
 
+    /**
+     * Called on every call of compiled code of the call target.
+     */
+    final void compiledCall(OptimizedCallTarget callTarget) {
+        if (firstTierCompilation && !secondTierRequested) {
+            int count = ++firstTierCallCount;
+            if (count >= secondTierCompilationThreshold) {
+                requestSecondTierCompilation(callTarget);
+            }
+        }
+    }
+
+    @TruffleBoundary
+    private void requestSecondTierCompilation(OptimizedCallTarget callTarget) {
+        secondTierRequested = true;
+        if (!callTarget.isCompiling() && !compilationFailed) {
+            callTarget.compile();
+        }
+    }
+
+    /**
+     * Decides whether the next compilation of the call target is a first-tier compilation. The
+     * call target is compiled in the first tier until its first-tier code was called often enough.
+     *
+     * @return {@code true} if the call target should be compiled in the first tier
+     */
+    final boolean prepareCompilation() {
+        firstTierCompilation = multiTier && !secondTierRequested;
+        return firstTierCompilation;
+    }
+
+    /**
+     * Determines whether the current or last compilation of the call target is a first-tier
+     * compilation.
+     */
+    public boolean isFirstTierCompilation() {
+        return firstTierCompilation;
+    }
+
     private boolean isDeferredCompile(OptimizedCallTarget target) {
         long threshold = TruffleTimeThreshold.getValue();
 
@@ -320,6 +381,10 @@ public class OptimizedCompilationProfile {
         return interpreterCallCount;
     }
 
+    public int getFirstTierCallCount() {
+        return firstTierCallCount;
+    }
+
     public int getDeferredCount() {
         return deferredCount;
     }
@@ -25,6 +25,7 @@ package com.oracle.graal.truffle;
 import static com.oracle.graal.nodes.StructuredGraph.NO_PROFILING_INFO;
 import static com.oracle.graal.nodes.graphbuilderconf.InlineInvokePlugin.InlineInfo.createStandardInlineInfo;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.PrintTruffleExpansionHistogram;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TrufflePEGraphCacheSize;
 
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayDeque;
@@ -75,6 +76,7 @@ import com.oracle.graal.replacements.CachingPEGraphDecoder;
 import com.oracle.graal.replacements.InlineDuringParsingPlugin;
 import com.oracle.graal.replacements.PEGraphDecoder;
 import com.oracle.graal.replacements.ReplacementsImpl;
+import com.oracle.graal.replacements.SharedEncodedGraphCache;
 import com.oracle.graal.serviceprovider.GraalServices;
 import com.oracle.graal.truffle.debug.AbstractDebugCompilationListener;
 import com.oracle.graal.truffle.debug.HistogramInlineInvokePlugin;
@@ -113,6 +115,11 @@ public class PartialEvaluator {
     private final GraphBuilderConfiguration configForParsing;
     private final InvocationPlugins decodingInvocationPlugins;
 
+    /**
+     * Graphs parsed for partial evaluation, shared by all compiler threads.
+     */
+    private final SharedEncodedGraphCache graphCache;
+
     public PartialEvaluator(Providers providers, GraphBuilderConfiguration configForRoot, SnippetReflectionProvider snippetReflection, Architecture architecture) {
         this.providers = providers;
         this.architecture = architecture;
@@ -130,12 +137,20 @@ public class PartialEvaluator {
 
         this.configForParsing = createGraphBuilderConfig(configForRoot, true);
         this.decodingInvocationPlugins = createDecodingInvocationPlugins(configForRoot.getPlugins());
+        this.graphCache = TrufflePEGraphCacheSize.getValue() > 0 ? new SharedEncodedGraphCache(TrufflePEGraphCacheSize.getValue()) : null;
     }
 
     public Providers getProviders() {
         return providers;
     }
 
+    /**
+     * Gets the cache of graphs shared by all compilations, or {@code null} if it is disabled.
+     */
+    public SharedEncodedGraphCache getGraphCache() {
+        return graphCache;
+    }
+
     public SnippetReflectionProvider getSnippetReflection() {
         return snippetReflection;
     }
@@ -365,7 +380,7 @@ public class PartialEvaluator {
         }
 
         return new CachingPEGraphDecoder(providers, newConfig, TruffleCompiler.Optimizations,
-                        AllowAssumptions.from(graph.getAssumptions() != null), architecture) {
+                        AllowAssumptions.from(graph.getAssumptions() != null), architecture, graphCache) {
             @Override
             protected GraphBuilderPhase.Instance createGraphBuilderPhaseInstance(IntrinsicContext initialIntrinsicContext) {
                 return new GraphBuilderPhase.Instance(providers.getMetaAccess(), providers.getStampProvider(), providers.getConstantReflection(),
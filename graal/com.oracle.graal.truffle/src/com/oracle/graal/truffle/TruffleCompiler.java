@@ -38,6 +38,7 @@ import com.oracle.graal.debug.DebugCloseable;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.DebugMemUseTracker;
 import com.oracle.graal.debug.DebugTimer;
+import com.oracle.graal.debug.PhaseProfiler;
 import com.oracle.graal.lir.phases.LIRSuites;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
@@ -67,6 +68,8 @@ public abstract class TruffleCompiler {
     protected final Suites suites;
     protected final GraphBuilderConfiguration config;
     protected final LIRSuites lirSuites;
+    protected final Suites firstTierSuites;
+    protected final LIRSuites firstTierLirSuites;
     protected final PartialEvaluator partialEvaluator;
     protected final Backend backend;
     protected final SnippetReflectionProvider snippetReflection;
@@ -88,6 +91,15 @@ public abstract class TruffleCompiler {
                     OptimisticOptimizations.Optimization.RemoveNeverExecutedCode, OptimisticOptimizations.Optimization.UseTypeCheckedInlining, OptimisticOptimizations.Optimization.UseTypeCheckHints);
 
     public TruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Backend backend, SnippetReflectionProvider snippetReflection) {
+        this(plugins, suites, lirSuites, suites, lirSuites, backend, snippetReflection);
+    }
+
+    /**
+     * @param firstTierSuites the suites used for first-tier compilations if
+     *            {@link TruffleCompilerOptions#TruffleMultiTier} is enabled
+     * @param firstTierLirSuites the LIR suites used for first-tier compilations
+     */
+    public TruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Suites firstTierSuites, LIRSuites firstTierLirSuites, Backend backend, SnippetReflectionProvider snippetReflection) {
         GraalTruffleRuntime graalTruffleRuntime = ((GraalTruffleRuntime) Truffle.getRuntime());
         this.compilationNotify = graalTruffleRuntime.getCompilationNotify();
         this.backend = backend;
@@ -97,6 +109,8 @@ public abstract class TruffleCompiler {
         this.providers = backendProviders.copyWith(constantFieldProvider);
         this.suites = suites;
         this.lirSuites = lirSuites;
+        this.firstTierSuites = firstTierSuites;
+        this.firstTierLirSuites = firstTierLirSuites;
 
         ResolvedJavaType[] skippedExceptionTypes = getSkippedExceptionTypes(providers.getMetaAccess());
 
@@ -141,8 +155,10 @@ public abstract class TruffleCompiler {
 
         compilationNotify.notifyCompilationStarted(compilable);
 
-        try (CompilationAlarm alarm = CompilationAlarm.trackCompilationPeriod()) {
-            TruffleInlining inliningDecision = new TruffleInlining(compilable, new DefaultInliningPolicy());
+        try (CompilationAlarm alarm = CompilationAlarm.trackCompilationPeriod(); PhaseProfiler.Entry p = PhaseProfiler.enterCompilation(compilable)) {
+            boolean firstTier = compilable.getCompilationProfile().prepareCompilation();
+            TruffleInliningPolicy inliningPolicy = firstTier ? new FirstTierInliningPolicy() : new DefaultInliningPolicy();
+            TruffleInlining inliningDecision = new TruffleInlining(compilable, inliningPolicy);
 
             PhaseSuite<HighTierContext> graphBuilderSuite = createGraphBuilderSuite();
 
@@ -157,7 +173,12 @@ public abstract class TruffleCompiler {
             dequeueInlinedCallSites(inliningDecision);
 
             compilationNotify.notifyCompilationTruffleTierFinished(compilable, inliningDecision, graph);
-            CompilationResult compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable);
+            CompilationResult compilationResult;
+            if (firstTier) {
+                compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable, firstTierSuites, firstTierLirSuites);
+            } else {
+                compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable, suites, lirSuites);
+            }
             compilationNotify.notifyCompilationSuccess(compilable, inliningDecision, graph, compilationResult);
             dequeueInlinedCallSites(inliningDecision);
         } catch (Throwable t) {
@@ -178,8 +199,13 @@ public abstract class TruffleCompiler {
         }
     }
 
-    @SuppressWarnings("try")
     public CompilationResult compileMethodHelper(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, InstalledCode predefinedInstalledCode) {
+        return compileMethodHelper(graph, name, graphBuilderSuite, predefinedInstalledCode, suites, lirSuites);
+    }
+
+    @SuppressWarnings("try")
+    public CompilationResult compileMethodHelper(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, InstalledCode predefinedInstalledCode, Suites compilationSuites,
+                    LIRSuites compilationLirSuites) {
         try (Scope s = Debug.scope("TruffleFinal")) {
             Debug.dump(Debug.BASIC_LOG_LEVEL, graph, "After TruffleTier");
         } catch (Throwable e) {
@@ -199,7 +225,8 @@ public abstract class TruffleCompiler {
             }
 
             CompilationResult compilationResult = new CompilationResult(name);
-            result = compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), suites, lirSuites, compilationResult, factory);
+            result = compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), compilationSuites, compilationLirSuites, compilationResult,
+                            factory);
         } catch (Throwable e) {
             throw Debug.handle(e);
         }
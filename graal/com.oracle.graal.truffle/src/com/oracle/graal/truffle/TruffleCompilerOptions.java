@@ -92,9 +92,27 @@ public class TruffleCompilerOptions {
     @Option(help = "Enable asynchronous truffle compilation in background thread", type = OptionType.Expert)
     public static final OptionValue<Boolean> TruffleBackgroundCompilation = new OptionValue<>(true);
 
-    @Option(help = "Manually set the number of compiler threads", type = OptionType.Expert)
+    @Option(help = "Manually set the number of compiler threads (0 to adapt the number of threads to the length of the compilation queue)", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleCompilerThreads = new OptionValue<>(0);
 
+    @Option(help = "Maximum percentage of the CPUs available to the process that adaptively sized compiler threads may use", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleCompilerThreadsMaxCPUShare = new OptionValue<>(50);
+
+    @Option(help = "Compile call targets with few optimizations first and recompile them with all optimizations once the first-tier code gets hot", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleMultiTier = new OptionValue<>(false);
+
+    @Option(help = "Number of calls of first-tier compiled code after which a call target is recompiled with all optimizations", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleSecondTierCompilationThreshold = new OptionValue<>(10000);
+
+    @Option(help = "Number of calls and loop iterations a queued call target is credited per millisecond of waiting for compilation", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleCompilationQueueAgingWeight = new OptionValue<>(10);
+
+    @Option(help = "Drop queued compilations of call targets that were not executed for this many milliseconds while waiting", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleCompilationQueueStaleDelay = new OptionValue<>(30000);
+
+    @Option(help = "Maximum number of parsed methods cached for partial evaluation across compilations (0 disables the cache)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TrufflePEGraphCacheSize = new OptionValue<>(4096);
+
     @Option(help = "Enable inlining across Truffle boundary", type = OptionType.Expert)
     public static final OptionValue<Boolean> TruffleInlineAcrossTruffleBoundary = new OptionValue<>(false);
 
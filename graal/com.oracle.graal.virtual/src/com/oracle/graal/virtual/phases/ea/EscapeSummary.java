@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.virtual.phases.ea;
+
+import java.util.Arrays;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Describes what a method may do with the objects passed to it as arguments. The summary is
+ * computed from the graph of the method by {@link EscapeSummaryCache} and allows the escape
+ * analysis of a caller to keep an argument virtual across a call that is not inlined.
+ */
+public final class EscapeSummary {
+
+    public enum ParameterEscape {
+        /**
+         * The argument may be stored in the heap, returned, thrown, locked, written to or passed to
+         * code that is not known.
+         */
+        ESCAPES,
+        /**
+         * The argument does not escape the method and the method only reads from it.
+         */
+        READ_ONLY;
+
+        public ParameterEscape meet(ParameterEscape other) {
+            return ordinal() <= other.ordinal() ? this : other;
+        }
+    }
+
+    private final ResolvedJavaMethod method;
+    private final ParameterEscape[] parameters;
+    private final ResolvedJavaMethod[] dependencies;
+
+    EscapeSummary(ResolvedJavaMethod method, ParameterEscape[] parameters, ResolvedJavaMethod[] dependencies) {
+        this.method = method;
+        this.parameters = parameters;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Creates a summary in which all arguments of {@code method} escape.
+     */
+    static EscapeSummary escapesAll(ResolvedJavaMethod method) {
+        ParameterEscape[] parameters = new ParameterEscape[method.getSignature().getParameterCount(!method.isStatic())];
+        Arrays.fill(parameters, ParameterEscape.ESCAPES);
+        return new EscapeSummary(method, parameters, new ResolvedJavaMethod[0]);
+    }
+
+    public ResolvedJavaMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the escape state of the argument at {@code index}, where index 0 is the receiver of
+     * non-static methods.
+     */
+    public ParameterEscape getParameterEscape(int index) {
+        return parameters[index];
+    }
+
+    public int getParameterCount() {
+        return parameters.length;
+    }
+
+    /**
+     * Gets the methods whose bytecodes this summary was computed from. A compilation that relies on
+     * the summary must record these methods so that it is invalidated if one of them is redefined.
+     */
+    public ResolvedJavaMethod[] getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public String toString() {
+        return "EscapeSummary[" + method.format("%H.%n(%p)") + " " + Arrays.toString(parameters) + "]";
+    }
+}
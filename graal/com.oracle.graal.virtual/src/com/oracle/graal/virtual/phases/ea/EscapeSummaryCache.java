@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.virtual.phases.ea;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.nodes.AbstractDeoptimizeNode;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.ValueProxyNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.calc.PointerEqualsNode;
+import com.oracle.graal.nodes.java.AccessIndexedNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.java.InstanceOfNode;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.java.MethodCallTargetNode;
+import com.oracle.graal.nodes.java.StoreIndexedNode;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.util.Providers;
+import com.oracle.graal.virtual.phases.ea.EscapeSummary.ParameterEscape;
+
+import jdk.vm.ci.code.BailoutException;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Computes and caches {@link EscapeSummary escape summaries} of methods.
+ *
+ * A summary is computed by parsing the method with the graph builder suite of the current
+ * compilation and following the usages of each object parameter. Reads, null checks, type checks
+ * and reference comparisons do not let the argument escape, and passing it to a statically bound
+ * callee uses the summary of that callee up to a depth of {@link Options#EscapeSummaryMaxDepth}.
+ * Every other usage, including a store into its fields or elements, lets the argument escape.
+ *
+ * The graph is parsed without optimistic optimizations and a method whose graph can deoptimize is
+ * treated as letting all arguments escape, because the interpreter could then execute bytecodes
+ * that were not analyzed. Summaries do not depend on assumptions and are therefore shared between
+ * compilations that use the same graph builder suite. Callees reached recursively or beyond the
+ * depth limit are conservatively assumed to let their arguments escape, and summaries computed
+ * with such a callee are cached as well.
+ *
+ * A summary records the methods it was computed from. A cached summary is discarded if one of
+ * these methods is no longer declared by its class because the class was redefined, and a
+ * compilation that uses a summary records these methods so that it is invalidated by a later
+ * redefinition.
+ */
+public final class EscapeSummaryCache {
+
+    public static class Options {
+        //@formatter:off
+        @Option(help = "Use escape summaries of callees to keep objects passed to calls that are not inlined virtual.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> EscapeSummaries = new OptionValue<>(true);
+        @Option(help = "Maximum depth of calls followed when computing an escape summary.", type = OptionType.Expert)
+        public static final OptionValue<Integer> EscapeSummaryMaxDepth = new OptionValue<>(3);
+        @Option(help = "Maximum bytecode size of methods for which an escape summary is computed.", type = OptionType.Expert)
+        public static final OptionValue<Integer> EscapeSummaryMaxBytecodeSize = new OptionValue<>(300);
+        @Option(help = "Maximum number of escape summaries that are cached.", type = OptionType.Expert)
+        public static final OptionValue<Integer> EscapeSummaryCacheSize = new OptionValue<>(4096);
+        @Option(help = "Maximum number of copies of a virtual object that are passed to callees which only read it before the object is materialized instead.", type = OptionType.Expert)
+        public static final OptionValue<Integer> EscapeSummaryMaxCopies = new OptionValue<>(2);
+        //@formatter:on
+    }
+
+    private static final DebugCounter EscapeSummariesComputed = Debug.counter("EscapeSummariesComputed");
+    private static final DebugCounter EscapeSummaryCacheHits = Debug.counter("EscapeSummaryCacheHits");
+    private static final DebugCounter EscapeSummariesTruncated = Debug.counter("EscapeSummariesTruncated");
+
+    private static final DebugCounter EscapeSummariesInvalidated = Debug.counter("EscapeSummariesInvalidated");
+
+    /**
+     * Key of a cached summary. The graph builder suite is compared by identity since its
+     * configuration determines which calls are intrinsified or inlined during parsing.
+     */
+    private static final class Key {
+        private final ResolvedJavaMethod method;
+        private final PhaseSuite<HighTierContext> graphBuilderSuite;
+
+        Key(ResolvedJavaMethod method, PhaseSuite<HighTierContext> graphBuilderSuite) {
+            this.method = method;
+            this.graphBuilderSuite = graphBuilderSuite;
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() ^ System.identityHashCode(graphBuilderSuite);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return method.equals(other.method) && graphBuilderSuite == other.graphBuilderSuite;
+            }
+            return false;
+        }
+    }
+
+    private static final ConcurrentHashMap<Key, EscapeSummary> summaries = new ConcurrentHashMap<>();
+
+    private final HighTierContext parseContext;
+
+    /**
+     * Creates an object that computes summaries with the graph builder suite of {@code context}.
+     */
+    public EscapeSummaryCache(HighTierContext context) {
+        this.parseContext = new HighTierContext(new Providers(context), context.getGraphBuilderSuite(), OptimisticOptimizations.NONE);
+    }
+
+    public EscapeSummary getSummary(ResolvedJavaMethod method) {
+        return getSummary(method, new ArrayDeque<>());
+    }
+
+    private EscapeSummary getSummary(ResolvedJavaMethod method, ArrayDeque<ResolvedJavaMethod> callers) {
+        Key key = new Key(method, parseContext.getGraphBuilderSuite());
+        EscapeSummary summary = summaries.get(key);
+        if (summary != null) {
+            if (isCurrent(summary)) {
+                EscapeSummaryCacheHits.increment();
+                return summary;
+            }
+            EscapeSummariesInvalidated.increment();
+            summaries.remove(key, summary);
+        }
+        if (callers.size() > Options.EscapeSummaryMaxDepth.getValue() || callers.contains(method)) {
+            EscapeSummariesTruncated.increment();
+            return EscapeSummary.escapesAll(method);
+        }
+        callers.push(method);
+        try {
+            summary = computeSummary(method, callers);
+        } finally {
+            callers.pop();
+        }
+        if (summaries.size() >= Options.EscapeSummaryCacheSize.getValue()) {
+            summaries.clear();
+        }
+        EscapeSummary existing = summaries.putIfAbsent(key, summary);
+        return existing != null ? existing : summary;
+    }
+
+    /**
+     * Determines if all methods a summary was computed from are still declared by their classes. A
+     * method that was replaced by a redefinition of its class is no longer among them.
+     */
+    private static boolean isCurrent(EscapeSummary summary) {
+        for (ResolvedJavaMethod dependency : summary.getDependencies()) {
+            ResolvedJavaType holder = dependency.getDeclaringClass();
+            ResolvedJavaMethod[] declared = dependency.isConstructor() ? holder.getDeclaredConstructors() : holder.getDeclaredMethods();
+            if (!Arrays.asList(declared).contains(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("try")
+    private EscapeSummary computeSummary(ResolvedJavaMethod method, ArrayDeque<ResolvedJavaMethod> callers) {
+        if (!method.hasBytecodes() || method.getCodeSize() > Options.EscapeSummaryMaxBytecodeSize.getValue() || parseContext.getGraphBuilderSuite() == null) {
+            return EscapeSummary.escapesAll(method);
+        }
+        EscapeSummariesComputed.increment();
+        StructuredGraph graph = new StructuredGraph(method, AllowAssumptions.NO);
+        try (Debug.Scope s = Debug.scope("EscapeSummary", graph)) {
+            parseContext.getGraphBuilderSuite().apply(graph, parseContext);
+            if (graph.getNodes().filter(AbstractDeoptimizeNode.class).isNotEmpty() || graph.getNodes().filter(FixedGuardNode.class).isNotEmpty()) {
+                return EscapeSummary.escapesAll(method);
+            }
+            ParameterEscape[] parameters = new ParameterEscape[method.getSignature().getParameterCount(!method.isStatic())];
+            Arrays.fill(parameters, ParameterEscape.READ_ONLY);
+            Set<ResolvedJavaMethod> dependencies = new LinkedHashSet<>();
+            dependencies.add(method);
+            for (ParameterNode param : graph.getNodes(ParameterNode.TYPE)) {
+                if (param.getStackKind() == JavaKind.Object) {
+                    parameters[param.index()] = analyzeParameter(graph, param, callers, dependencies);
+                }
+            }
+            dependencies.addAll(graph.getMethods());
+            EscapeSummary summary = new EscapeSummary(method, parameters, dependencies.toArray(new ResolvedJavaMethod[dependencies.size()]));
+            Debug.log("%s", summary);
+            return summary;
+        } catch (BailoutException e) {
+            return EscapeSummary.escapesAll(method);
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+
+    private ParameterEscape analyzeParameter(StructuredGraph graph, ParameterNode param, ArrayDeque<ResolvedJavaMethod> callers, Set<ResolvedJavaMethod> dependencies) {
+        ParameterEscape result = ParameterEscape.READ_ONLY;
+        NodeBitMap visited = graph.createNodeBitMap();
+        ArrayDeque<ValueNode> worklist = new ArrayDeque<>();
+        visited.mark(param);
+        worklist.push(param);
+        while (!worklist.isEmpty()) {
+            ValueNode value = worklist.pop();
+            for (Node usage : value.usages()) {
+                if (usage instanceof FrameState || usage instanceof LoadFieldNode || usage instanceof ArrayLengthNode || usage instanceof IsNullNode || usage instanceof InstanceOfNode ||
+                                usage instanceof PointerEqualsNode) {
+                    continue;
+                } else if (usage instanceof AccessIndexedNode && ((AccessIndexedNode) usage).array() == value && !(usage instanceof StoreIndexedNode)) {
+                    continue;
+                } else if (usage instanceof PiNode || usage instanceof ValuePhiNode || usage instanceof ValueProxyNode) {
+                    if (!visited.isMarked(usage)) {
+                        visited.mark(usage);
+                        worklist.push((ValueNode) usage);
+                    }
+                } else if (usage instanceof MethodCallTargetNode) {
+                    MethodCallTargetNode callTarget = (MethodCallTargetNode) usage;
+                    ResolvedJavaMethod target = callTarget.targetMethod();
+                    if (!callTarget.invokeKind().isDirect() && !target.canBeStaticallyBound()) {
+                        return ParameterEscape.ESCAPES;
+                    }
+                    EscapeSummary calleeSummary = getSummary(target, callers);
+                    dependencies.addAll(Arrays.asList(calleeSummary.getDependencies()));
+                    for (int i = 0; i < callTarget.arguments().size(); i++) {
+                        if (callTarget.arguments().get(i) == value) {
+                            result = result.meet(calleeSummary.getParameterEscape(i));
+                        }
+                    }
+                } else {
+                    return ParameterEscape.ESCAPES;
+                }
+                if (result == ParameterEscape.ESCAPES) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+}
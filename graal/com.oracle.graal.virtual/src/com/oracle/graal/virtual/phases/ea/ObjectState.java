@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2014, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -50,6 +50,12 @@ public class ObjectState {
     private LockState locks;
     private boolean ensureVirtualized;
 
+    /**
+     * An allocated copy of this virtual object whose entries are equal to the current entries. It
+     * can be passed to callees that only read from it.
+     */
+    private ValueNode readOnlyCopy;
+
     private EscapeObjectState cachedState;
 
     boolean copyOnWrite;
@@ -80,6 +86,7 @@ public class ObjectState {
         locks = other.locks;
         cachedState = other.cachedState;
         ensureVirtualized = other.ensureVirtualized;
+        readOnlyCopy = other.readOnlyCopy;
     }
 
     public ObjectState cloneState() {
@@ -122,6 +129,7 @@ public class ObjectState {
     public void setEntry(int index, ValueNode value) {
         assert isVirtual();
         cachedState = null;
+        readOnlyCopy = null;
         entries[index] = value;
     }
 
@@ -131,6 +139,7 @@ public class ObjectState {
         materializedValue = materialized;
         entries = null;
         cachedState = null;
+        readOnlyCopy = null;
         assert !isVirtual();
     }
 
@@ -141,6 +150,16 @@ public class ObjectState {
         materializedValue = value;
     }
 
+    public ValueNode getReadOnlyCopy() {
+        assert isVirtual();
+        return readOnlyCopy;
+    }
+
+    public void setReadOnlyCopy(ValueNode copy) {
+        assert isVirtual();
+        readOnlyCopy = copy;
+    }
+
     public void addLock(MonitorIdNode monitorId) {
         locks = new LockState(monitorId, locks);
     }
@@ -222,6 +241,9 @@ public class ObjectState {
         if (!locksEqual(other)) {
             return false;
         }
+        if (readOnlyCopy != other.readOnlyCopy) {
+            return false;
+        }
         if (materializedValue == null) {
             if (other.materializedValue != null) {
                 return false;
@@ -87,6 +87,11 @@ public class PEReadEliminationClosure extends PartialEscapeClosure<PEReadElimina
         super(schedule, metaAccess, constantReflection, constantFieldProvider, loweringProvider);
     }
 
+    public PEReadEliminationClosure(ScheduleResult schedule, MetaAccessProvider metaAccess, ConstantReflectionProvider constantReflection, ConstantFieldProvider constantFieldProvider,
+                    LoweringProvider loweringProvider, EscapeSummaryCache escapeSummaries) {
+        super(schedule, metaAccess, constantReflection, constantFieldProvider, loweringProvider, escapeSummaries);
+    }
+
     @Override
     protected PEReadEliminationBlockState getInitialState() {
         return new PEReadEliminationBlockState();
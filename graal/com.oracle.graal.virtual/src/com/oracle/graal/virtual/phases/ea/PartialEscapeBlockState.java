@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2016, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -24,6 +24,7 @@ package com.oracle.graal.virtual.phases.ea;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +37,7 @@ import com.oracle.graal.nodes.java.MonitorIdNode;
 import com.oracle.graal.nodes.virtual.AllocatedObjectNode;
 import com.oracle.graal.nodes.virtual.CommitAllocationNode;
 import com.oracle.graal.nodes.virtual.LockState;
+import com.oracle.graal.nodes.virtual.VirtualInstanceNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 
 public abstract class PartialEscapeBlockState<T extends PartialEscapeBlockState<T>> extends EffectsBlockState<T> {
@@ -191,6 +193,66 @@ public abstract class PartialEscapeBlockState<T extends PartialEscapeBlockState<
         });
     }
 
+    /**
+     * Allocates a copy of a virtual object before {@code fixed} while leaving the object itself
+     * virtual. The copy is recorded in the object state and reused until an entry of the object
+     * changes or the object is materialized.
+     *
+     * @return the copy, or null if the object cannot be copied because it is locked, must stay
+     *         virtual, has a finalizer or refers to other virtual objects
+     */
+    public ValueNode materializeReadOnlyCopyBefore(FixedNode fixed, VirtualObjectNode virtual, GraphEffectList materializeEffects) {
+        ObjectState obj = getObjectState(virtual);
+        if (obj.getReadOnlyCopy() != null) {
+            return obj.getReadOnlyCopy();
+        }
+        if (obj.hasLocks() || obj.getEnsureVirtualized()) {
+            return null;
+        }
+        if (virtual instanceof VirtualInstanceNode && ((VirtualInstanceNode) virtual).type().hasFinalizer()) {
+            return null;
+        }
+        ValueNode[] entries = obj.getEntries();
+        for (ValueNode entry : entries) {
+            if (entry instanceof VirtualObjectNode) {
+                return null;
+            }
+        }
+        VirtualObjectNode copyVirtual = virtual.duplicate();
+        ValueNode representation = copyVirtual.getMaterializedRepresentation(fixed, entries, null);
+        if (!(representation instanceof AllocatedObjectNode)) {
+            return null;
+        }
+        AllocatedObjectNode copy = (AllocatedObjectNode) representation;
+        ValueNode[] values = entries.clone();
+        PartialEscapeClosure.COUNTER_READ_ONLY_COPIES.increment();
+
+        materializeEffects.add("materializeReadOnlyCopyBefore", (graph, obsoleteNodes) -> {
+            graph.addWithoutUnique(copyVirtual);
+            CommitAllocationNode commit;
+            if (fixed.predecessor() instanceof CommitAllocationNode) {
+                commit = (CommitAllocationNode) fixed.predecessor();
+            } else {
+                commit = graph.add(new CommitAllocationNode());
+                graph.addBeforeFixed(fixed, commit);
+            }
+            graph.addWithoutUnique(copy);
+            commit.getVirtualObjects().add(copyVirtual);
+            copy.setCommit(commit);
+            for (ValueNode value : values) {
+                if (value instanceof AllocatedObjectNode && ((AllocatedObjectNode) value).getCommit() == commit) {
+                    commit.getValues().add(((AllocatedObjectNode) value).getVirtualObject());
+                } else {
+                    commit.getValues().add(value);
+                }
+            }
+            commit.addLocks(Collections.emptyList());
+            commit.getEnsureVirtual().add(false);
+        });
+        getObjectStateForModification(virtual.getObjectId()).setReadOnlyCopy(copy);
+        return copy;
+    }
+
     private void materializeWithCommit(FixedNode fixed, VirtualObjectNode virtual, List<AllocatedObjectNode> objects, List<List<MonitorIdNode>> locks, List<ValueNode> values,
                     List<Boolean> ensureVirtual, List<ValueNode> otherAllocations) {
         ObjectState obj = getObjectState(virtual);
@@ -63,17 +63,20 @@ import com.oracle.graal.nodes.ValueProxyNode;
 import com.oracle.graal.nodes.VirtualState;
 import com.oracle.graal.nodes.VirtualState.NodeClosure;
 import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.java.MethodCallTargetNode;
 import com.oracle.graal.nodes.spi.LoweringProvider;
 import com.oracle.graal.nodes.spi.NodeWithState;
 import com.oracle.graal.nodes.spi.Virtualizable;
 import com.oracle.graal.nodes.spi.VirtualizableAllocation;
 import com.oracle.graal.nodes.spi.VirtualizerTool;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
+import com.oracle.graal.virtual.phases.ea.EscapeSummary.ParameterEscape;
 
 import jdk.vm.ci.meta.ConstantReflectionProvider;
 import jdk.vm.ci.meta.JavaConstant;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
 
 public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockState<BlockT>> extends EffectsClosure<BlockT> {
 
@@ -85,9 +88,12 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
     public static final DebugCounter COUNTER_MATERIALIZATIONS_LOOP_END = Debug.counter("MaterializationsLoopEnd");
     public static final DebugCounter COUNTER_ALLOCATION_REMOVED = Debug.counter("AllocationsRemoved");
     public static final DebugCounter COUNTER_MEMORYCHECKPOINT = Debug.counter("MemoryCheckpoint");
+    public static final DebugCounter COUNTER_READ_ONLY_COPIES = Debug.counter("ReadOnlyCopies");
 
     private final NodeBitMap hasVirtualInputs;
     private final VirtualizerToolImpl tool;
+    private final EscapeSummaryCache escapeSummaries;
+    private final Map<VirtualObjectNode, Integer> readOnlyCopies = new HashMap<>();
 
     public final ArrayList<VirtualObjectNode> virtualObjects = new ArrayList<>();
 
@@ -131,6 +137,11 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
             super(schedule, metaAccess, constantReflection, constantFieldProvider, loweringProvider);
         }
 
+        public Final(ScheduleResult schedule, MetaAccessProvider metaAccess, ConstantReflectionProvider constantReflection, ConstantFieldProvider constantFieldProvider,
+                        LoweringProvider loweringProvider, EscapeSummaryCache escapeSummaries) {
+            super(schedule, metaAccess, constantReflection, constantFieldProvider, loweringProvider, escapeSummaries);
+        }
+
         @Override
         protected PartialEscapeBlockState.Final getInitialState() {
             return new PartialEscapeBlockState.Final();
@@ -148,10 +159,20 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
 
     public PartialEscapeClosure(ScheduleResult schedule, MetaAccessProvider metaAccess, ConstantReflectionProvider constantReflection, ConstantFieldProvider constantFieldProvider,
                     LoweringProvider loweringProvider) {
+        this(schedule, metaAccess, constantReflection, constantFieldProvider, loweringProvider, null);
+    }
+
+    /**
+     * @param escapeSummaries if non-null, objects passed to calls that only read them are kept
+     *            virtual and the callee receives a copy
+     */
+    public PartialEscapeClosure(ScheduleResult schedule, MetaAccessProvider metaAccess, ConstantReflectionProvider constantReflection, ConstantFieldProvider constantFieldProvider,
+                    LoweringProvider loweringProvider, EscapeSummaryCache escapeSummaries) {
         super(schedule, schedule.getCFG());
         StructuredGraph graph = schedule.getCFG().graph;
         this.hasVirtualInputs = graph.createNodeBitMap();
         this.tool = new VirtualizerToolImpl(metaAccess, constantReflection, constantFieldProvider, this, graph.getAssumptions(), loweringProvider);
+        this.escapeSummaries = escapeSummaries;
     }
 
     /**
@@ -291,10 +312,15 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
 
     private void processNodeInputs(ValueNode node, FixedNode insertBefore, BlockT state, GraphEffectList effects) {
         VirtualUtil.trace("processing nodewithstate: %s", node);
+        EscapeSummary summary = getEscapeSummary(node);
         for (Node input : node.inputs()) {
             if (input instanceof ValueNode) {
                 ValueNode alias = getAlias((ValueNode) input);
                 if (alias instanceof VirtualObjectNode) {
+                    if (summary != null && isOnlyReadByCallee((MethodCallTargetNode) node, summary, (VirtualObjectNode) alias)) {
+                        // handled below, after all other arguments have been materialized
+                        continue;
+                    }
                     int id = ((VirtualObjectNode) alias).getObjectId();
                     ensureMaterialized(state, id, insertBefore, effects, COUNTER_MATERIALIZATIONS_UNHANDLED);
                     effects.replaceFirstInput(node, input, state.getObjectState(id).getMaterializedValue());
@@ -302,11 +328,83 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
                 }
             }
         }
+        if (summary != null) {
+            processReadOnlyArguments((MethodCallTargetNode) node, summary, insertBefore, state, effects);
+        }
         if (node instanceof NodeWithState) {
             processNodeWithState((NodeWithState) node, state, effects);
         }
     }
 
+    private EscapeSummary getEscapeSummary(ValueNode node) {
+        if (escapeSummaries != null && node instanceof MethodCallTargetNode) {
+            MethodCallTargetNode callTarget = (MethodCallTargetNode) node;
+            if (callTarget.invokeKind().isDirect() || callTarget.targetMethod().canBeStaticallyBound()) {
+                return escapeSummaries.getSummary(callTarget.targetMethod());
+            }
+        }
+        return null;
+    }
+
+    private boolean isOnlyReadByCallee(MethodCallTargetNode callTarget, EscapeSummary summary, VirtualObjectNode virtual) {
+        for (int i = 0; i < callTarget.arguments().size(); i++) {
+            if (getAlias(callTarget.arguments().get(i)) == virtual && summary.getParameterEscape(i) != ParameterEscape.READ_ONLY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Passes a copy of each virtual argument that the callee only reads, so that the argument can
+     * stay virtual after the call. Arguments that cannot be copied are materialized.
+     *
+     * A copy is only worth an allocation if it saves the allocation of the object itself. Calls in
+     * loops therefore materialize the object, since a copy would be allocated in every iteration,
+     * and an object is materialized once {@link EscapeSummaryCache.Options#EscapeSummaryMaxCopies}
+     * copies of it were allocated.
+     */
+    private void processReadOnlyArguments(MethodCallTargetNode callTarget, EscapeSummary summary, FixedNode insertBefore, BlockT state, GraphEffectList effects) {
+        boolean inLoop = cfg.blockFor(callTarget.invoke().asNode()).getLoop() != null;
+        boolean copied = false;
+        for (ValueNode argument : callTarget.arguments()) {
+            ValueNode alias = getAlias(argument);
+            if (alias instanceof VirtualObjectNode && isOnlyReadByCallee(callTarget, summary, (VirtualObjectNode) alias)) {
+                VirtualObjectNode virtual = (VirtualObjectNode) alias;
+                int id = virtual.getObjectId();
+                ValueNode value = null;
+                ObjectState obj = state.getObjectState(id);
+                if (obj.isVirtual() && (obj.getReadOnlyCopy() != null || (!inLoop && allowReadOnlyCopy(virtual)))) {
+                    value = state.materializeReadOnlyCopyBefore(insertBefore, virtual, effects);
+                    VirtualUtil.trace("passing copy %s of %s to %s", value, virtual, callTarget);
+                    copied |= value != null;
+                }
+                if (value == null) {
+                    ensureMaterialized(state, id, insertBefore, effects, COUNTER_MATERIALIZATIONS_UNHANDLED);
+                    value = state.getObjectState(id).getMaterializedValue();
+                }
+                effects.replaceFirstInput(callTarget, argument, value);
+            }
+        }
+        if (copied) {
+            ResolvedJavaMethod[] dependencies = summary.getDependencies();
+            effects.add("recordEscapeSummaryDependencies", graph -> {
+                for (ResolvedJavaMethod dependency : dependencies) {
+                    graph.recordMethod(dependency);
+                }
+            });
+        }
+    }
+
+    private boolean allowReadOnlyCopy(VirtualObjectNode virtual) {
+        int count = readOnlyCopies.getOrDefault(virtual, 0);
+        if (count >= EscapeSummaryCache.Options.EscapeSummaryMaxCopies.getValue()) {
+            return false;
+        }
+        readOnlyCopies.put(virtual, count + 1);
+        return true;
+    }
+
     private boolean processVirtualizable(ValueNode node, FixedNode insertBefore, BlockT state, GraphEffectList effects) {
         tool.reset(state, node, insertBefore, effects);
         return virtualize(node, tool);
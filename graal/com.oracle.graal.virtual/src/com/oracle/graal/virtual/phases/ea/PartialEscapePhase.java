@@ -37,6 +37,7 @@ import com.oracle.graal.options.OptionType;
 import com.oracle.graal.options.OptionValue;
 import com.oracle.graal.phases.BasePhase;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.tiers.PhaseContext;
 
 public class PartialEscapePhase extends EffectsPhase<PhaseContext> {
@@ -88,10 +89,14 @@ public class PartialEscapePhase extends EffectsPhase<PhaseContext> {
             virtual.resetObjectId();
         }
         assert schedule != null;
+        EscapeSummaryCache escapeSummaries = null;
+        if (EscapeSummaryCache.Options.EscapeSummaries.getValue() && context instanceof HighTierContext) {
+            escapeSummaries = new EscapeSummaryCache((HighTierContext) context);
+        }
         if (readElimination) {
-            return new PEReadEliminationClosure(schedule, context.getMetaAccess(), context.getConstantReflection(), context.getConstantFieldProvider(), context.getLowerer());
+            return new PEReadEliminationClosure(schedule, context.getMetaAccess(), context.getConstantReflection(), context.getConstantFieldProvider(), context.getLowerer(), escapeSummaries);
         } else {
-            return new PartialEscapeClosure.Final(schedule, context.getMetaAccess(), context.getConstantReflection(), context.getConstantFieldProvider(), context.getLowerer());
+            return new PartialEscapeClosure.Final(schedule, context.getMetaAccess(), context.getConstantReflection(), context.getConstantFieldProvider(), context.getLowerer(), escapeSummaries);
         }
     }
 
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2016, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.virtual.phases.ea;
+
+import static jdk.vm.ci.meta.DeoptimizationAction.InvalidateReprofile;
+import static jdk.vm.ci.meta.DeoptimizationReason.BoundsCheckException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.graal.compiler.common.LocationIdentity;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugCounter;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FieldLocationIdentity;
+import com.oracle.graal.nodes.FixedGuardNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.PiNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.VirtualState;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.LeftShiftNode;
+import com.oracle.graal.nodes.calc.NarrowNode;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.calc.ZeroExtendNode;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+import com.oracle.graal.nodes.java.AccessIndexedNode;
+import com.oracle.graal.nodes.java.AccessMonitorNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.java.LoadFieldNode;
+import com.oracle.graal.nodes.java.LoadIndexedNode;
+import com.oracle.graal.nodes.java.MonitorEnterNode;
+import com.oracle.graal.nodes.java.MonitorExitNode;
+import com.oracle.graal.nodes.java.StoreFieldNode;
+import com.oracle.graal.nodes.java.StoreIndexedNode;
+import com.oracle.graal.nodes.memory.HeapAccess.BarrierType;
+import com.oracle.graal.nodes.memory.ReadNode;
+import com.oracle.graal.nodes.memory.WriteNode;
+import com.oracle.graal.nodes.memory.address.AddressNode;
+import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
+import com.oracle.graal.nodes.type.StampTool;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.nodes.virtual.AllocatedObjectNode;
+import com.oracle.graal.nodes.virtual.CommitAllocationNode;
+import com.oracle.graal.nodes.virtual.StackAllocationNode;
+import com.oracle.graal.nodes.virtual.VirtualArrayNode;
+import com.oracle.graal.nodes.virtual.VirtualInstanceNode;
+import com.oracle.graal.nodes.virtual.VirtualObjectNode;
+import com.oracle.graal.options.Option;
+import com.oracle.graal.options.OptionType;
+import com.oracle.graal.options.OptionValue;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+import jdk.vm.ci.code.CodeUtil;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaField;
+import jdk.vm.ci.meta.ResolvedJavaType;
+
+/**
+ * Moves objects that were materialized by partial escape analysis but never leave the compiled
+ * method into its stack frame. This applies to objects that escape analysis could not replace by
+ * scalars, for example because they are accessed with array indexes that are not constant.
+ *
+ * An object is allocated on the stack if it is the only object of a {@link CommitAllocationNode}
+ * outside of any loop and is only used by field and array accesses, array length queries, monitor
+ * operations and frame states. The object is replaced by a {@link StackAllocationNode} at the start of
+ * the method and its accesses are replaced by raw reads and writes of the slots, with an explicit
+ * bounds check for array accesses. Locking the object is a no-op because no other thread can see
+ * it, so the monitor operations and the locks held at the commit are removed. Frame states keep
+ * referring to the object, which is rematerialized on the heap and relocked if the method
+ * deoptimizes.
+ */
+public class StackAllocationPhase extends BasePhase<PhaseContext> {
+
+    public static class Options {
+        //@formatter:off
+        @Option(help = "Allocate objects that do not escape the compiled method but cannot be scalar replaced in its stack frame.", type = OptionType.Expert)
+        public static final OptionValue<Boolean> StackAllocation = new OptionValue<>(false);
+        @Option(help = "Maximum number of stack slots used for stack allocated objects in one compiled method.", type = OptionType.Expert)
+        public static final OptionValue<Integer> StackAllocationMaxSlots = new OptionValue<>(64);
+        //@formatter:on
+    }
+
+    private static final DebugCounter StackAllocatedObjects = Debug.counter("StackAllocatedObjects");
+    private static final DebugCounter StackAllocatedSlots = Debug.counter("StackAllocatedSlots");
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        if (graph.isOSR()) {
+            // the stack slots would not be initialized in the interpreter frame that is migrated
+            return;
+        }
+        ControlFlowGraph cfg = null;
+        int remainingSlots = Options.StackAllocationMaxSlots.getValue();
+        for (CommitAllocationNode commit : graph.getNodes().filter(CommitAllocationNode.class).snapshot()) {
+            if (commit.getVirtualObjects().size() != 1 || commit.usages().count() != 1 || !(commit.usages().first() instanceof AllocatedObjectNode)) {
+                continue;
+            }
+            VirtualObjectNode virtual = commit.getVirtualObjects().get(0);
+            if (virtual.entryCount() > remainingSlots || !canStackAllocate(commit, virtual)) {
+                continue;
+            }
+            AllocatedObjectNode allocated = (AllocatedObjectNode) commit.usages().first();
+            List<Node> accesses = new ArrayList<>();
+            if (!collectAccesses(allocated, virtual, accesses)) {
+                continue;
+            }
+            if (cfg == null) {
+                cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+            }
+            if (cfg.blockFor(commit).getLoop() != null) {
+                // a single set of slots cannot hold the objects of different iterations
+                continue;
+            }
+            stackAllocate(graph, context, commit, allocated, virtual, accesses);
+            remainingSlots -= virtual.entryCount();
+            StackAllocatedObjects.increment();
+            StackAllocatedSlots.add(virtual.entryCount());
+        }
+    }
+
+    private static boolean canStackAllocate(CommitAllocationNode commit, VirtualObjectNode virtual) {
+        if (virtual.entryCount() == 0 || commit.getEnsureVirtual().get(0)) {
+            return false;
+        }
+        if (virtual.getClass() == VirtualInstanceNode.class) {
+            if (virtual.type().hasFinalizer()) {
+                return false;
+            }
+        } else if (virtual.getClass() != VirtualArrayNode.class) {
+            return false;
+        }
+        for (int i = 0; i < virtual.entryCount(); i++) {
+            ValueNode value = commit.getValues().get(i);
+            if (value == null || value instanceof VirtualObjectNode || value.getStackKind() != virtual.entryKind(i).getStackKind()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the nodes that access the object through {@code node} or one of its {@link PiNode}
+     * aliases, and checks that none of them lets the object escape.
+     */
+    private static boolean collectAccesses(ValueNode node, VirtualObjectNode virtual, List<Node> accesses) {
+        for (Node usage : node.usages()) {
+            if (usage instanceof VirtualState) {
+                continue;
+            } else if (usage instanceof PiNode && ((PiNode) usage).object() == node) {
+                if (!collectAccesses((PiNode) usage, virtual, accesses)) {
+                    return false;
+                }
+            } else if (usage instanceof LoadFieldNode) {
+                if (!(virtual instanceof VirtualInstanceNode) || ((VirtualInstanceNode) virtual).fieldIndex(((LoadFieldNode) usage).field()) == -1) {
+                    return false;
+                }
+            } else if (usage instanceof StoreFieldNode) {
+                StoreFieldNode store = (StoreFieldNode) usage;
+                if (store.value() == node || !(virtual instanceof VirtualInstanceNode) || ((VirtualInstanceNode) virtual).fieldIndex(store.field()) == -1) {
+                    return false;
+                }
+            } else if (usage instanceof LoadIndexedNode) {
+                if (!(virtual instanceof VirtualArrayNode) || ((LoadIndexedNode) usage).index() == node) {
+                    return false;
+                }
+            } else if (usage instanceof StoreIndexedNode) {
+                StoreIndexedNode store = (StoreIndexedNode) usage;
+                if (!(virtual instanceof VirtualArrayNode) || store.array() != node || store.index() == node || store.value() == node) {
+                    return false;
+                }
+                if (!storeCheckNotNeeded(((VirtualArrayNode) virtual).componentType(), store.value())) {
+                    return false;
+                }
+            } else if (usage instanceof ArrayLengthNode) {
+                if (!(virtual instanceof VirtualArrayNode)) {
+                    return false;
+                }
+            } else if (usage instanceof MonitorEnterNode || usage instanceof MonitorExitNode) {
+                if (((AccessMonitorNode) usage).object() != node) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            if (!(usage instanceof VirtualState) && !(usage instanceof PiNode)) {
+                accesses.add(usage);
+            }
+        }
+        return true;
+    }
+
+    private static boolean storeCheckNotNeeded(ResolvedJavaType componentType, ValueNode value) {
+        if (componentType.isPrimitive() || componentType.isJavaLangObject() || StampTool.isPointerAlwaysNull(value)) {
+            return true;
+        }
+        ResolvedJavaType valueType = StampTool.typeOrNull(value);
+        return valueType != null && componentType.isAssignableFrom(valueType);
+    }
+
+    private static void stackAllocate(StructuredGraph graph, PhaseContext context, CommitAllocationNode commit, AllocatedObjectNode allocated, VirtualObjectNode virtual, List<Node> accesses) {
+        int entryCount = virtual.entryCount();
+        JavaKind[] slotKinds = new JavaKind[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            slotKinds[i] = virtual.entryKind(i).getStackKind();
+        }
+        StackAllocationNode stack = graph.add(new StackAllocationNode(virtual.type(), slotKinds));
+        graph.addAfterFixed(graph.start(), stack);
+
+        /*
+         * The object slots are part of every reference map of the method, so they are cleared before
+         * any safepoint can be reached. Neither these writes nor the initializing writes need a
+         * frame state: deoptimizing to an earlier state simply executes the allocation again.
+         */
+        FixedWithNextNode lastClear = stack;
+        for (int i = 0; i < entryCount; i++) {
+            if (slotKinds[i] == JavaKind.Object) {
+                WriteNode clear = graph.add(new WriteNode(slotAddress(graph, stack, i), locationIdentity(virtual, i), ConstantNode.defaultForKind(JavaKind.Object, graph), BarrierType.NONE));
+                graph.addAfterFixed(lastClear, clear);
+                lastClear = clear;
+            }
+        }
+        for (int i = 0; i < entryCount; i++) {
+            ValueNode value = slotValue(graph, virtual.entryKind(i), commit.getValues().get(i));
+            graph.addBeforeFixed(commit, graph.add(new WriteNode(slotAddress(graph, stack, i), locationIdentity(virtual, i), value, BarrierType.NONE)));
+        }
+
+        for (Node access : accesses) {
+            if (access instanceof LoadFieldNode) {
+                LoadFieldNode load = (LoadFieldNode) access;
+                int index = ((VirtualInstanceNode) virtual).fieldIndex(load.field());
+                ReadNode read = graph.add(new ReadNode(slotAddress(graph, stack, index), locationIdentity(virtual, index), load.stamp(), BarrierType.NONE));
+                graph.replaceFixedWithFixed(load, read);
+            } else if (access instanceof StoreFieldNode) {
+                StoreFieldNode store = (StoreFieldNode) access;
+                int index = ((VirtualInstanceNode) virtual).fieldIndex(store.field());
+                ValueNode value = slotValue(graph, store.field().getJavaKind(), store.value());
+                WriteNode write = graph.add(new WriteNode(slotAddress(graph, stack, index), locationIdentity(virtual, index), value, BarrierType.NONE));
+                write.setStateAfter(store.stateAfter());
+                graph.replaceFixedWithFixed(store, write);
+            } else if (access instanceof LoadIndexedNode) {
+                LoadIndexedNode load = (LoadIndexedNode) access;
+                FixedGuardNode guard = boundsCheck(graph, context, load, virtual.entryCount());
+                ReadNode read = graph.add(new ReadNode(slotAddress(graph, stack, load.index()), locationIdentity(virtual, 0), load.stamp(), guard, BarrierType.NONE));
+                graph.replaceFixedWithFixed(load, read);
+            } else if (access instanceof StoreIndexedNode) {
+                StoreIndexedNode store = (StoreIndexedNode) access;
+                FixedGuardNode guard = boundsCheck(graph, context, store, virtual.entryCount());
+                ValueNode value = slotValue(graph, store.elementKind(), store.value());
+                WriteNode write = graph.add(new WriteNode(slotAddress(graph, stack, store.index()), locationIdentity(virtual, 0), value, BarrierType.NONE, guard, false));
+                write.setStateAfter(store.stateAfter());
+                graph.replaceFixedWithFixed(store, write);
+            } else if (access instanceof ArrayLengthNode) {
+                ArrayLengthNode length = (ArrayLengthNode) access;
+                length.replaceAtUsages(ConstantNode.forInt(virtual.entryCount(), graph));
+                graph.removeFixed(length);
+            } else {
+                // no other thread can see the object, so its locks are elided
+                GraphUtil.removeFixedWithUnusedInputs((AccessMonitorNode) access);
+            }
+        }
+
+        for (PiNode pi : allocated.usages().filter(PiNode.class).snapshot()) {
+            replacePi(pi, stack);
+        }
+        allocated.replaceAtUsages(stack);
+        allocated.safeDelete();
+        graph.removeFixed(commit);
+    }
+
+    private static void replacePi(PiNode pi, StackAllocationNode stack) {
+        for (PiNode usage : pi.usages().filter(PiNode.class).snapshot()) {
+            replacePi(usage, stack);
+        }
+        pi.replaceAndDelete(stack);
+    }
+
+    private static FixedGuardNode boundsCheck(StructuredGraph graph, PhaseContext context, AccessIndexedNode access, int length) {
+        ValueNode arrayLength = ConstantNode.forInt(length, graph);
+        FixedGuardNode guard = graph.add(new FixedGuardNode(graph.addOrUnique(IntegerBelowNode.create(access.index(), arrayLength, context.getConstantReflection())), BoundsCheckException,
+                        InvalidateReprofile));
+        graph.addBeforeFixed(access, guard);
+        return guard;
+    }
+
+    private static AddressNode slotAddress(StructuredGraph graph, StackAllocationNode stack, int index) {
+        return graph.unique(new OffsetAddressNode(stack, ConstantNode.forLong(StackAllocationNode.slotOffset(index), graph)));
+    }
+
+    private static AddressNode slotAddress(StructuredGraph graph, StackAllocationNode stack, ValueNode index) {
+        ValueNode longIndex = graph.addOrUnique(ZeroExtendNode.create(index, 64));
+        ValueNode offset = graph.unique(new LeftShiftNode(longIndex, ConstantNode.forInt(CodeUtil.log2(StackAllocationNode.SLOT_SIZE), graph)));
+        return graph.unique(new OffsetAddressNode(stack, offset));
+    }
+
+    /**
+     * Uses the location of the field or array element that the slot replaces, so that the slot
+     * accesses are ordered like the heap accesses they replace.
+     */
+    private static LocationIdentity locationIdentity(VirtualObjectNode virtual, int index) {
+        if (virtual instanceof VirtualInstanceNode) {
+            ResolvedJavaField field = ((VirtualInstanceNode) virtual).field(index);
+            return new FieldLocationIdentity(field);
+        }
+        return NamedLocationIdentity.getArrayLocation(virtual.entryKind(index));
+    }
+
+    /**
+     * Truncates a value stored into a sub-int field or element and extends it back to an int, which
+     * is what a load from the heap would produce.
+     */
+    private static ValueNode slotValue(StructuredGraph graph, JavaKind kind, ValueNode value) {
+        switch (kind) {
+            case Boolean:
+            case Byte:
+            case Short:
+            case Char:
+                ValueNode narrow = graph.addOrUnique(NarrowNode.create(value, kind.getBitCount()));
+                if (kind.isUnsigned()) {
+                    return graph.addOrUnique(ZeroExtendNode.create(narrow, JavaKind.Int.getBitCount()));
+                }
+                return graph.addOrUnique(SignExtendNode.create(narrow, JavaKind.Int.getBitCount()));
+            default:
+                return value;
+        }
+    }
+}